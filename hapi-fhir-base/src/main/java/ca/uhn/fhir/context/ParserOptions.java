@@ -43,6 +43,7 @@ public class ParserOptions {
 	private Set<String> myDontStripVersionsFromReferencesAtPaths = Collections.emptySet();
 	private boolean myOverrideResourceIdWithBundleEntryFullUrl = true;
 	private boolean myAutoContainReferenceTargetsWithNoId = true;
+	private boolean myUseStreamingJsonParser = false;
 
 	/**
 	 * If set to {@literal true} (which is the default), contained resources may be specified by
@@ -206,4 +207,40 @@ public class ParserOptions {
 		return this;
 	}
 
+	/**
+	 * If set to <code>true</code> (default is <code>false</code>), the JSON parser will bind the
+	 * incoming token stream directly to the model instead of first loading the whole document
+	 * into an in-memory JSON tree. This reduces memory use and allocation when parsing very
+	 * large documents (e.g. transaction Bundles).
+	 * <p>
+	 * Small fragments such as primitive values and extensions are still buffered, and any
+	 * resource object whose <code>resourceType</code> is not its first property is buffered
+	 * and parsed as a tree.
+	 * </p>
+	 *
+	 * @since 6.6.0
+	 */
+	public boolean isUseStreamingJsonParser() {
+		return myUseStreamingJsonParser;
+	}
+
+	/**
+	 * If set to <code>true</code> (default is <code>false</code>), the JSON parser will bind the
+	 * incoming token stream directly to the model instead of first loading the whole document
+	 * into an in-memory JSON tree. This reduces memory use and allocation when parsing very
+	 * large documents (e.g. transaction Bundles).
+	 * <p>
+	 * Small fragments such as primitive values and extensions are still buffered, and any
+	 * resource object whose <code>resourceType</code> is not its first property is buffered
+	 * and parsed as a tree.
+	 * </p>
+	 *
+	 * @return Returns a reference to <code>this</code> parser so that method calls can be chained together
+	 * @since 6.6.0
+	 */
+	public ParserOptions setUseStreamingJsonParser(boolean theUseStreamingJsonParser) {
+		myUseStreamingJsonParser = theUseStreamingJsonParser;
+		return this;
+	}
+
 }
@@ -42,14 +42,17 @@ import org.slf4j.LoggerFactory;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.AnnotatedElement;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
@@ -69,6 +72,12 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 	private final Object myRegistryMutex = new Object();
 	private final Class<POINTCUT> myPointcutType;
 	private volatile EnumSet<POINTCUT> myRegisteredPointcuts;
+	/**
+	 * Immutable snapshot of the sorted invokers for each pointcut. This is rebuilt
+	 * (copy-on-write) under {@link #myRegistryMutex} whenever the registry changes,
+	 * so that the hook dispatch path never needs to lock or copy.
+	 */
+	private volatile Map<POINTCUT, List<BaseInvoker>> myInvokersSnapshot;
 	private String myName;
 	private boolean myWarnOnInterceptorWithNoHooks = true;
 
@@ -211,6 +220,16 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 		EnumSet<POINTCUT> registeredPointcuts = EnumSet.noneOf(myPointcutType);
 		registeredPointcuts.addAll(myAnonymousInvokers.keySet());
 		registeredPointcuts.addAll(myGlobalInvokers.keySet());
+
+		Map<POINTCUT, List<BaseInvoker>> invokersSnapshot = new EnumMap<>(myPointcutType);
+		for (POINTCUT nextPointcut : registeredPointcuts) {
+			List<BaseInvoker> globalInvokers = myGlobalInvokers.get(nextPointcut);
+			List<BaseInvoker> anonymousInvokers = myAnonymousInvokers.get(nextPointcut);
+			List<BaseInvoker> invokers = union(globalInvokers, anonymousInvokers);
+			invokersSnapshot.put(nextPointcut, Collections.unmodifiableList(new ArrayList<>(invokers)));
+		}
+
+		myInvokersSnapshot = invokersSnapshot;
 		myRegisteredPointcuts = registeredPointcuts;
 	}
 
@@ -272,8 +291,8 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 	}
 
 	private Object doCallHooks(POINTCUT thePointcut, HookParams theParams, Object theRetVal) {
-		// use new list for loop to avoid ConcurrentModificationException in case invoker gets added while looping
-		List<BaseInvoker> invokers = new ArrayList<>(getInvokersForPointcut(thePointcut));
+		// The snapshot is immutable, so an invoker being added while looping won't affect us
+		List<BaseInvoker> invokers = getInvokersForPointcut(thePointcut);
 
 		/*
 		 * Call each hook in order
@@ -309,18 +328,14 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 
 	/**
 	 * Returns an ordered list of invokers for the given pointcut. Note that
-	 * a new and stable list is returned to.. do whatever you want with it.
+	 * the returned list is an immutable snapshot, so no locking is required
+	 * to read it and it will not change if the registry is modified.
 	 */
 	private List<BaseInvoker> getInvokersForPointcut(POINTCUT thePointcut) {
-		List<BaseInvoker> invokers;
-
-		synchronized (myRegistryMutex) {
-			List<BaseInvoker> globalInvokers = myGlobalInvokers.get(thePointcut);
-			List<BaseInvoker> anonymousInvokers = myAnonymousInvokers.get(thePointcut);
-			List<BaseInvoker> threadLocalInvokers = null;
-			invokers = union(globalInvokers, anonymousInvokers, threadLocalInvokers);
+		List<BaseInvoker> invokers = myInvokersSnapshot.get(thePointcut);
+		if (invokers == null) {
+			return Collections.emptyList();
 		}
-
 		return invokers;
 	}
 
@@ -452,6 +467,7 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 	private class HookInvoker extends BaseInvoker {
 
 		private final Method myMethod;
+		private final MethodHandle myMethodHandle;
 		private final Class<?>[] myParameterTypes;
 		private final int[] myParameterIndexes;
 		private final POINTCUT myPointcut;
@@ -474,14 +490,38 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 				Validate.isTrue(myPointcut.getReturnType().isAssignableFrom(returnType) || void.class.equals(returnType), "Method does not return %s or void: %s", myPointcut.getReturnType(), theHookMethod);
 			}
 
+			/*
+			 * Precompute the HookParams slot for each method argument. A value
+			 * of -1 means the argument is the pointcut itself.
+			 */
 			myParameterIndexes = new int[myParameterTypes.length];
 			Map<Class<?>, AtomicInteger> typeToCount = new HashMap<>();
 			for (int i = 0; i < myParameterTypes.length; i++) {
+				if (myParameterTypes[i].equals(Pointcut.class)) {
+					myParameterIndexes[i] = -1;
+					continue;
+				}
 				AtomicInteger counter = typeToCount.computeIfAbsent(myParameterTypes[i], t -> new AtomicInteger(0));
 				myParameterIndexes[i] = counter.getAndIncrement();
 			}
 
 			myMethod.setAccessible(true);
+
+			/*
+			 * Bind the hook method to the interceptor instance and adapt it to a
+			 * uniform (Object[])Object signature so that it can be called with
+			 * invokeExact, which the JIT can inline (unlike Method#invoke)
+			 */
+			try {
+				myMethodHandle = MethodHandles
+					.lookup()
+					.unreflect(theHookMethod)
+					.bindTo(theInterceptor)
+					.asSpreader(Object[].class, myParameterTypes.length)
+					.asType(MethodType.methodType(Object.class, Object[].class));
+			} catch (IllegalAccessException e) {
+				throw new InternalErrorException(Msg.code(1911) + e);
+			}
 		}
 
 		@Override
@@ -503,21 +543,18 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 
 			Object[] args = new Object[myParameterTypes.length];
 			for (int i = 0; i < myParameterTypes.length; i++) {
-				Class<?> nextParamType = myParameterTypes[i];
-				if (nextParamType.equals(Pointcut.class)) {
+				int nextParamIndex = myParameterIndexes[i];
+				if (nextParamIndex == -1) {
 					args[i] = myPointcut;
 				} else {
-					int nextParamIndex = myParameterIndexes[i];
-					Object nextParamValue = theParams.get(nextParamType, nextParamIndex);
-					args[i] = nextParamValue;
+					args[i] = theParams.get(myParameterTypes[i], nextParamIndex);
 				}
 			}
 
 			// Invoke the method
 			try {
-				return myMethod.invoke(getInterceptor(), args);
-			} catch (InvocationTargetException e) {
-				Throwable targetException = e.getTargetException();
+				return (Object) myMethodHandle.invokeExact(args);
+			} catch (Throwable targetException) {
 				if (myPointcut.isShouldLogAndSwallowException(targetException)) {
 					ourLog.error("Exception thrown by interceptor: " + targetException.toString(), targetException);
 					return null;
@@ -528,8 +565,6 @@ public abstract class BaseInterceptorService<POINTCUT extends Enum<POINTCUT> & I
 				} else {
 					throw new InternalErrorException(Msg.code(1910) + "Failure invoking interceptor for pointcut(s) " + getPointcut(), targetException);
 				}
-			} catch (Exception e) {
-				throw new InternalErrorException(Msg.code(1911) + e);
 			}
 
 		}
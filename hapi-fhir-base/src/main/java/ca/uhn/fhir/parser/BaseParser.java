@@ -65,10 +65,13 @@ import javax.annotation.Nullable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.StringReader;
 import java.io.Writer;
 import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -263,6 +266,16 @@ public abstract class BaseParser implements IParser {
 
 	protected abstract void doEncodeResourceToWriter(IBaseResource theResource, Writer theWriter, EncodeContext theEncodeContext) throws IOException, DataFormatException;
 
+	/**
+	 * Subclasses may override this method to write bytes directly to the stream. The
+	 * default implementation encodes through a UTF-8 {@link OutputStreamWriter}.
+	 */
+	protected void doEncodeResourceToOutputStream(IBaseResource theResource, OutputStream theOutputStream, EncodeContext theEncodeContext) throws IOException, DataFormatException {
+		Writer writer = new OutputStreamWriter(theOutputStream, StandardCharsets.UTF_8);
+		doEncodeResourceToWriter(theResource, writer, theEncodeContext);
+		writer.flush();
+	}
+
 	protected abstract <T extends IBaseResource> T doParseResource(Class<T> theResourceType, Reader theReader) throws DataFormatException;
 
 	@Override
@@ -288,12 +301,7 @@ public abstract class BaseParser implements IParser {
 		Validate.notNull(theWriter, "theWriter can not be null");
 		Validate.notNull(theEncodeContext, "theEncodeContext can not be null");
 
-		if (myContext.getVersion().getVersion() == FhirVersionEnum.R4B && theResource.getStructureFhirVersionEnum() == FhirVersionEnum.R5) {
-			// TODO: remove once we've bumped the core lib version
-		} else
-		if (theResource.getStructureFhirVersionEnum() != myContext.getVersion().getVersion()) {
-			throw new IllegalArgumentException(Msg.code(1829) + "This parser is for FHIR version " + myContext.getVersion().getVersion() + " - Can not encode a structure for version " + theResource.getStructureFhirVersionEnum());
-		}
+		validateStructureVersionForEncoding(theResource);
 
 		String resourceName = myContext.getResourceType(theResource);
 		theEncodeContext.pushPath(resourceName, true);
@@ -303,6 +311,31 @@ public abstract class BaseParser implements IParser {
 		theEncodeContext.popPath();
 	}
 
+	@Override
+	public final void encodeResourceToOutputStream(IBaseResource theResource, OutputStream theOutputStream) throws IOException, DataFormatException {
+		Validate.notNull(theResource, "theResource can not be null");
+		Validate.notNull(theOutputStream, "theOutputStream can not be null");
+
+		validateStructureVersionForEncoding(theResource);
+
+		EncodeContext encodeContext = new EncodeContext();
+		String resourceName = myContext.getResourceType(theResource);
+		encodeContext.pushPath(resourceName, true);
+
+		doEncodeResourceToOutputStream(theResource, theOutputStream, encodeContext);
+
+		encodeContext.popPath();
+	}
+
+	private void validateStructureVersionForEncoding(IBaseResource theResource) {
+		if (myContext.getVersion().getVersion() == FhirVersionEnum.R4B && theResource.getStructureFhirVersionEnum() == FhirVersionEnum.R5) {
+			// TODO: remove once we've bumped the core lib version
+		} else
+		if (theResource.getStructureFhirVersionEnum() != myContext.getVersion().getVersion()) {
+			throw new IllegalArgumentException(Msg.code(1829) + "This parser is for FHIR version " + myContext.getVersion().getVersion() + " - Can not encode a structure for version " + theResource.getStructureFhirVersionEnum());
+		}
+	}
+
 	private void filterCodingsWithNoCodeOrSystem(List<? extends IBaseCoding> tagList) {
 		for (int i = 0; i < tagList.size(); i++) {
 			if (isBlank(tagList.get(i).getCode()) && isBlank(tagList.get(i).getSystem())) {
@@ -534,7 +567,7 @@ public abstract class BaseParser implements IParser {
 		return myOmitResourceId;
 	}
 
-	private boolean isOverrideResourceIdWithBundleEntryFullUrl() {
+	boolean isOverrideResourceIdWithBundleEntryFullUrl() {
 		Boolean overrideResourceIdWithBundleEntryFullUrl = myOverrideResourceIdWithBundleEntryFullUrl;
 		if (overrideResourceIdWithBundleEntryFullUrl != null) {
 			return overrideResourceIdWithBundleEntryFullUrl;
@@ -543,6 +576,39 @@ public abstract class BaseParser implements IParser {
 		return myContext.getParserOptions().isOverrideResourceIdWithBundleEntryFullUrl();
 	}
 
+	/**
+	 * Applies the <code>Bundle.entry.fullUrl</code> of an entry to the ID of the resource it contains
+	 */
+	void overrideResourceIdWithBundleEntryFullUrl(IBaseResource theResource, String theFullUrl) {
+		if (theFullUrl == null || theResource == null) {
+			return;
+		}
+
+		IIdType resourceId = theResource.getIdElement();
+		if (isBlank(resourceId.getValue())) {
+			resourceId.setValue(theFullUrl);
+		} else {
+			if (theFullUrl.startsWith("urn:") && theFullUrl.length() > resourceId.getIdPart().length() && theFullUrl.charAt(theFullUrl.length() - resourceId.getIdPart().length() - 1) == ':' && theFullUrl.endsWith(resourceId.getIdPart())) {
+				resourceId.setValue(theFullUrl);
+			} else {
+				IIdType fullUrlId = myContext.getVersion().newIdType();
+				fullUrlId.setValue(theFullUrl);
+				if (myContext.getVersion().getVersion().isOlderThan(FhirVersionEnum.DSTU3)) {
+					IIdType newId = fullUrlId;
+					if (!newId.hasVersionIdPart() && resourceId.hasVersionIdPart()) {
+						newId = newId.withVersion(resourceId.getVersionIdPart());
+					}
+					resourceId.setValue(newId.getValue());
+				} else if (StringUtils.equals(fullUrlId.getIdPart(), resourceId.getIdPart())) {
+					if (fullUrlId.hasBaseUrl()) {
+						IIdType newResourceId = resourceId.withServerBase(fullUrlId.getBaseUrl(), resourceId.getResourceType());
+						resourceId.setValue(newResourceId.getValue());
+					}
+				}
+			}
+		}
+	}
+
 	private boolean isStripVersionsFromReferences(CompositeChildElement theCompositeChildElement) {
 		Boolean stripVersionsFromReferences = myStripVersionsFromReferences;
 		if (stripVersionsFromReferences != null) {
@@ -607,37 +673,7 @@ public abstract class BaseParser implements IParser {
 		if ("Bundle".equals(def.getName())) {
 
 			if (isOverrideResourceIdWithBundleEntryFullUrl()) {
-				BundleUtil.processEntries(myContext, (IBaseBundle) retVal, t -> {
-					String fullUrl = t.getFullUrl();
-					if (fullUrl != null) {
-						IBaseResource resource = t.getResource();
-						if (resource != null) {
-							IIdType resourceId = resource.getIdElement();
-							if (isBlank(resourceId.getValue())) {
-								resourceId.setValue(fullUrl);
-							} else {
-								if (fullUrl.startsWith("urn:") && fullUrl.length() > resourceId.getIdPart().length() && fullUrl.charAt(fullUrl.length() - resourceId.getIdPart().length() - 1) == ':' && fullUrl.endsWith(resourceId.getIdPart())) {
-									resourceId.setValue(fullUrl);
-								} else {
-									IIdType fullUrlId = myContext.getVersion().newIdType();
-									fullUrlId.setValue(fullUrl);
-									if (myContext.getVersion().getVersion().isOlderThan(FhirVersionEnum.DSTU3)) {
-										IIdType newId = fullUrlId;
-										if (!newId.hasVersionIdPart() && resourceId.hasVersionIdPart()) {
-											newId = newId.withVersion(resourceId.getVersionIdPart());
-										}
-										resourceId.setValue(newId.getValue());
-									} else if (StringUtils.equals(fullUrlId.getIdPart(), resourceId.getIdPart())) {
-										if (fullUrlId.hasBaseUrl()) {
-											IIdType newResourceId = resourceId.withServerBase(fullUrlId.getBaseUrl(), resourceId.getResourceType());
-											resourceId.setValue(newResourceId.getValue());
-										}
-									}
-								}
-							}
-						}
-					}
-				});
+				BundleUtil.processEntries(myContext, (IBaseBundle) retVal, t -> overrideResourceIdWithBundleEntryFullUrl(t.getResource(), t.getFullUrl()));
 			}
 
 		}
@@ -31,8 +31,11 @@ import org.hl7.fhir.instance.model.api.IIdType;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
@@ -51,6 +54,22 @@ public interface IParser {
 
 	void encodeResourceToWriter(IBaseResource theResource, Writer theWriter) throws IOException, DataFormatException;
 
+	/**
+	 * Encodes a resource as UTF-8 directly to an {@link OutputStream}. Parsers which are able
+	 * to (currently JSON) write bytes straight to the stream without an intermediate
+	 * character {@link Writer}. The stream is flushed but is not closed.
+	 * <p>
+	 * The default implementation encodes through {@link #encodeResourceToWriter(IBaseResource, Writer)}.
+	 * </p>
+	 *
+	 * @since 6.6.0
+	 */
+	default void encodeResourceToOutputStream(IBaseResource theResource, OutputStream theOutputStream) throws IOException, DataFormatException {
+		Writer writer = new OutputStreamWriter(theOutputStream, StandardCharsets.UTF_8);
+		encodeResourceToWriter(theResource, writer);
+		writer.flush();
+	}
+
 	/**
 	 * If not set to null (as is the default) this ID will be used as the ID in any
 	 * resources encoded by this parser
@@ -56,6 +56,7 @@ import ca.uhn.fhir.parser.json.JsonLikeStructure;
 import ca.uhn.fhir.parser.json.jackson.JacksonStructure;
 import ca.uhn.fhir.rest.api.EncodingEnum;
 import ca.uhn.fhir.util.ElementUtil;
+import com.fasterxml.jackson.core.JsonToken;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 import org.apache.commons.text.WordUtils;
@@ -73,14 +74,18 @@ import org.hl7.fhir.instance.model.api.INarrative;
 import org.hl7.fhir.instance.model.api.IPrimitiveType;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Writer;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static ca.uhn.fhir.context.BaseRuntimeElementDefinition.ChildTypeEnum.ID_DATATYPE;
 import static ca.uhn.fhir.context.BaseRuntimeElementDefinition.ChildTypeEnum.PRIMITIVE_DATATYPE;
@@ -211,8 +216,23 @@ public class JsonParser extends BaseParser implements IJsonLikeParser {
 		eventWriter.close();
 	}
 
+	/**
+	 * Writes UTF-8 bytes straight to the stream using Jackson's byte-oriented generator,
+	 * which avoids the char-to-byte conversion of an intermediate Writer.
+	 */
+	@Override
+	protected void doEncodeResourceToOutputStream(IBaseResource theResource, OutputStream theOutputStream, EncodeContext theEncodeContext) throws IOException {
+		BaseJsonLikeWriter eventWriter = new JacksonStructure().getJsonLikeWriter(theOutputStream);
+		doEncodeResourceToJsonLikeWriter(theResource, eventWriter, theEncodeContext);
+		eventWriter.close();
+	}
+
 	@Override
 	public <T extends IBaseResource> T doParseResource(Class<T> theResourceType, Reader theReader) {
+		if (getContext().getParserOptions().isUseStreamingJsonParser()) {
+			return doParseResourceStreaming(theResourceType, theReader);
+		}
+
 		JsonLikeStructure jsonStructure = new JacksonStructure();
 		jsonStructure.load(theReader);
 
@@ -928,6 +948,292 @@ public class JsonParser extends BaseParser implements IJsonLikeParser {
 		return retVal;
 	}
 
+	/**
+	 * Parses a resource directly from the Jackson token stream, without first loading
+	 * the whole document into a tree. See {@link ca.uhn.fhir.context.ParserOptions#setUseStreamingJsonParser(boolean)}
+	 */
+	private <T extends IBaseResource> T doParseResourceStreaming(Class<T> theResourceType, Reader theReader) {
+		ParserState<? extends IBaseResource> state = ParserState.getPreResourceInstance(this, theResourceType, getContext(), true, getErrorHandler());
+
+		try (com.fasterxml.jackson.core.JsonParser parser = JacksonStructure.createStreamingParser(theReader)) {
+			JsonToken token = parser.nextToken();
+			if (token == null) {
+				throw new DataFormatException(Msg.code(2273) + "Did not find any content to parse");
+			}
+			if (token != JsonToken.START_OBJECT) {
+				throw new DataFormatException(Msg.code(2274) + "Content does not appear to be FHIR JSON, first token was: " + token + " (must be '{')");
+			}
+
+			streamResourceObject(parser, state, true);
+
+			token = parser.nextToken();
+			if (token != null) {
+				throw new DataFormatException(Msg.code(2275) + "Failed to parse JSON encoded FHIR content: Trailing token (of type " + token + ") found after value");
+			}
+		} catch (IOException e) {
+			throw new DataFormatException(Msg.code(2276) + "Failed to parse JSON encoded FHIR content: " + e.getMessage(), e);
+		}
+
+		state.endingElement();
+
+		@SuppressWarnings("unchecked")
+		T retVal = (T) state.getObject();
+
+		return retVal;
+	}
+
+	/**
+	 * Parses a single resource from a token stream which is positioned at the opening token of
+	 * the resource object, leaving the stream positioned at the closing token of the object.
+	 * This is used by {@link ResourceStreamIterator} to parse Bundle entries one at a time.
+	 */
+	IBaseResource parseResourceFromTokens(com.fasterxml.jackson.core.JsonParser theParser) throws IOException {
+		ParserState<? extends IBaseResource> state = ParserState.getPreResourceInstance(this, null, getContext(), true, getErrorHandler());
+		streamResourceObject(theParser, state, false);
+		state.endingElement();
+		return state.getObject();
+	}
+
+	/**
+	 * Streams a resource object. The parser must be positioned at the opening token of the
+	 * object. If <code>resourceType</code> is not the first property, the remainder of the
+	 * object is buffered and parsed as a tree, since we can't enter the resource until we
+	 * know its type.
+	 */
+	private void streamResourceObject(com.fasterxml.jackson.core.JsonParser theParser, ParserState<?> theState, boolean theRootResource) throws IOException {
+		JsonToken token = theParser.nextToken();
+		if (token == JsonToken.FIELD_NAME && "resourceType".equals(theParser.getCurrentName())) {
+			token = theParser.nextToken();
+			String resourceType = token == JsonToken.VALUE_STRING ? theParser.getText() : null;
+			if (isBlank(resourceType)) {
+				throwMissingResourceType(theRootResource);
+			}
+			theState.enteringNewElement(null, resourceType);
+			streamChildren(theParser, theState);
+			theState.endingElement();
+			return;
+		}
+
+		BaseJsonLikeObject object = JacksonStructure.readRemainingObject(theParser);
+		BaseJsonLikeValue resourceTypeObj = object.get("resourceType");
+		if (resourceTypeObj == null || !resourceTypeObj.isString() || isBlank(resourceTypeObj.getAsString())) {
+			throwMissingResourceType(theRootResource);
+		}
+		theState.enteringNewElement(null, resourceTypeObj.getAsString());
+		parseChildren(object, theState);
+		theState.endingElement();
+	}
+
+	private void throwMissingResourceType(boolean theRootResource) {
+		if (theRootResource) {
+			throw new DataFormatException(Msg.code(2298) + "Invalid JSON content detected, missing required element: 'resourceType'");
+		}
+		throw new DataFormatException(Msg.code(2299) + "Missing required element 'resourceType' from JSON resource object, unable to parse");
+	}
+
+	/**
+	 * Streaming equivalent of {@link #parseChildren(BaseJsonLikeObject, ParserState)}. Consumes
+	 * properties until the closing token of the current object.
+	 * <p>
+	 * Complex elements (objects and arrays of objects) are streamed straight into the
+	 * parser state. Primitives, extensions and underscore-prefixed alternates are small,
+	 * so they are buffered and primitives are applied once the object is closed, since
+	 * the alternate for a primitive may appear either before or after it. An alternate
+	 * which appears after the complex element it belongs to is applied by re-entering
+	 * that element once the object is closed.
+	 * </p>
+	 */
+	private void streamChildren(com.fasterxml.jackson.core.JsonParser theParser, ParserState<?> theState) throws IOException {
+		Map<String, BaseJsonLikeValue> primitives = new LinkedHashMap<>();
+		Map<String, BaseJsonLikeValue> alternates = new LinkedHashMap<>();
+		Set<String> streamedNames = new HashSet<>();
+		Map<String, List<Object>> streamedWithoutAlternate = new LinkedHashMap<>();
+		Set<String> streamedArrayNames = new HashSet<>();
+
+		while (theParser.nextToken() == JsonToken.FIELD_NAME) {
+			String nextName = theParser.getCurrentName();
+			JsonToken valueToken = theParser.nextToken();
+
+			if ("resourceType".equals(nextName)) {
+				theParser.skipChildren();
+				continue;
+			} else if ("extension".equals(nextName) || "modifierExtension".equals(nextName)) {
+				BaseJsonLikeValue value = JacksonStructure.readValue(theParser);
+				if (value.isNull()) {
+					continue;
+				}
+				if (!value.isArray()) {
+					throw new DataFormatException(Msg.code(2300) + "Syntax error parsing JSON FHIR structure: Expected ARRAY at element '" + nextName + "', found '" + value.getJsonType() + "'");
+				}
+				parseExtension(theState, value.getAsArray(), "modifierExtension".equals(nextName));
+				continue;
+			} else if ("fhir_comments".equals(nextName)) {
+				parseFhirComments(JacksonStructure.readValue(theParser), theState);
+				continue;
+			} else if (nextName.charAt(0) == '_') {
+				alternates.put(nextName, JacksonStructure.readValue(theParser));
+				continue;
+			}
+
+			if (valueToken == JsonToken.START_OBJECT) {
+				streamedNames.add(nextName);
+				BaseJsonLikeValue alternateVal = alternates.get('_' + nextName);
+				Object handle = streamObjectChild(theParser, theState, nextName, alternateVal, false);
+				if (alternateVal == null) {
+					streamedWithoutAlternate.put(nextName, Collections.singletonList(handle));
+				}
+			} else if (valueToken == JsonToken.START_ARRAY) {
+				JsonToken firstElementToken = theParser.nextToken();
+				if (firstElementToken == JsonToken.START_OBJECT) {
+					streamedNames.add(nextName);
+					streamedArrayNames.add(nextName);
+					BaseJsonLikeValue alternateVal = alternates.get('_' + nextName);
+					List<Object> handles = streamArrayChild(theParser, theState, nextName, alternateVal);
+					if (alternateVal == null) {
+						streamedWithoutAlternate.put(nextName, handles);
+					}
+				} else {
+					primitives.put(nextName, JacksonStructure.readRemainingArray(theParser));
+				}
+			} else {
+				primitives.put(nextName, JacksonStructure.readValue(theParser));
+			}
+		}
+
+		int handledUnderscoreNames = 0;
+		for (Map.Entry<String, BaseJsonLikeValue> nextEntry : primitives.entrySet()) {
+			String alternateName = '_' + nextEntry.getKey();
+			BaseJsonLikeValue alternateVal = alternates.get(alternateName);
+			if (alternateVal != null) {
+				handledUnderscoreNames++;
+			}
+			parseChildren(theState, nextEntry.getKey(), nextEntry.getValue(), alternateVal, alternateName, false);
+		}
+		for (String nextName : streamedNames) {
+			String alternateName = '_' + nextName;
+			BaseJsonLikeValue alternateVal = alternates.get(alternateName);
+			if (alternateVal != null) {
+				handledUnderscoreNames++;
+				List<Object> handles = streamedWithoutAlternate.get(nextName);
+				if (handles != null) {
+					applyLateAlternates(theState, handles, streamedArrayNames.contains(nextName), alternateVal, alternateName);
+				}
+			}
+		}
+
+		/*
+		 * This happens if an element has an extension but no actual value. See the
+		 * equivalent block in parseChildren(BaseJsonLikeObject, ParserState)
+		 */
+		if (alternates.size() > handledUnderscoreNames) {
+			for (Map.Entry<String, BaseJsonLikeValue> nextEntry : alternates.entrySet()) {
+				String alternateName = nextEntry.getKey();
+				BaseJsonLikeValue nextValue = nextEntry.getValue();
+				if (alternateName.length() > 1 && nextValue != null) {
+					if (nextValue.isObject()) {
+						String nextName = alternateName.substring(1);
+						if (!primitives.containsKey(nextName) && !streamedNames.contains(nextName)) {
+							theState.enteringNewElement(null, nextName);
+							parseAlternates(nextValue, theState, alternateName, alternateName);
+							theState.endingElement();
+						}
+					} else {
+						getErrorHandler().incorrectJsonType(null, alternateName, ValueType.OBJECT, null, nextValue.getJsonType(), null);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Applies an alternate which appeared after the complex element(s) it belongs to had already
+	 * been streamed, by re-entering each element
+	 */
+	private void applyLateAlternates(ParserState<?> theState, List<Object> theHandles, boolean theArray, BaseJsonLikeValue theAlternateVal, String theAlternateName) {
+		if (!theArray) {
+			applyLateAlternate(theState, theHandles.get(0), theAlternateVal, theAlternateName);
+			return;
+		}
+		if (!theAlternateVal.isArray()) {
+			getErrorHandler().incorrectJsonType(null, theAlternateName, ValueType.ARRAY, null, theAlternateVal.getJsonType(), null);
+			return;
+		}
+		BaseJsonLikeArray alternateArray = theAlternateVal.getAsArray();
+		for (int i = 0; i < theHandles.size() && i < alternateArray.size(); i++) {
+			applyLateAlternate(theState, theHandles.get(i), alternateArray.get(i), theAlternateName);
+		}
+	}
+
+	private void applyLateAlternate(ParserState<?> theState, Object theHandle, BaseJsonLikeValue theAlternateVal, String theAlternateName) {
+		if (theHandle != null) {
+			theState.reenterElement(theHandle);
+			parseAlternates(theAlternateVal, theState, theAlternateName, theAlternateName);
+			theState.endingElement();
+		}
+	}
+
+	/**
+	 * Streams a single complex element. The parser must be positioned at the opening token of the object.
+	 *
+	 * @return A handle to the element which can be used to re-enter it, or <code>null</code> if it can't be re-entered
+	 */
+	private Object streamObjectChild(com.fasterxml.jackson.core.JsonParser theParser, ParserState<?> theState, String theName, BaseJsonLikeValue theAlternateVal, boolean theInArray) throws IOException {
+		if (theName.equals("id")) {
+			getErrorHandler().incorrectJsonType(null, "id", ValueType.SCALAR, ScalarType.STRING, ValueType.OBJECT, null);
+		}
+		if (!theInArray && theState.elementIsRepeating(theName)) {
+			getErrorHandler().incorrectJsonType(null, theName, ValueType.ARRAY, null, ValueType.OBJECT, null);
+		}
+
+		String alternateName = '_' + theName;
+		theState.enteringNewElement(null, theName);
+		Object retVal = theState.getCurrentElementHandle();
+		parseAlternates(theAlternateVal, theState, alternateName, alternateName);
+		if (theState.isPreResource()) {
+			streamResourceObject(theParser, theState, false);
+		} else {
+			streamChildren(theParser, theState);
+		}
+		theState.endingElement();
+		return retVal;
+	}
+
+	/**
+	 * Streams a repeating complex element. The parser must be positioned at the opening token
+	 * of the first object in the array, and is left positioned at the closing token of the array.
+	 *
+	 * @return A handle to each element of the array (see {@link #streamObjectChild(com.fasterxml.jackson.core.JsonParser, ParserState, String, BaseJsonLikeValue, boolean)})
+	 */
+	private List<Object> streamArrayChild(com.fasterxml.jackson.core.JsonParser theParser, ParserState<?> theState, String theName, BaseJsonLikeValue theAlternateVal) throws IOException {
+		String alternateName = '_' + theName;
+		if (theName.equals("id")) {
+			getErrorHandler().incorrectJsonType(null, "id", ValueType.SCALAR, ScalarType.STRING, ValueType.ARRAY, null);
+		}
+
+		BaseJsonLikeValue alternateVal = theAlternateVal;
+		if (alternateVal != null && alternateVal.isArray() == false) {
+			getErrorHandler().incorrectJsonType(null, alternateName, ValueType.ARRAY, null, alternateVal.getJsonType(), null);
+			alternateVal = null;
+		}
+		BaseJsonLikeArray alternateArray = BaseJsonLikeValue.asArray(alternateVal); // could be null
+
+		List<Object> retVal = new ArrayList<>();
+		int index = 0;
+		for (JsonToken token = theParser.currentToken(); token != JsonToken.END_ARRAY; token = theParser.nextToken(), index++) {
+			BaseJsonLikeValue nextAlternate = null;
+			if (alternateArray != null && alternateArray.size() >= (index + 1)) {
+				nextAlternate = alternateArray.get(index);
+			}
+			if (token == JsonToken.START_OBJECT) {
+				retVal.add(streamObjectChild(theParser, theState, theName, nextAlternate, true));
+			} else {
+				parseChildren(theState, theName, JacksonStructure.readValue(theParser), nextAlternate, alternateName, true);
+				retVal.add(null);
+			}
+		}
+		return retVal;
+	}
+
 	@Override
 	public EncodingEnum getEncoding() {
 		return EncodingEnum.JSON;
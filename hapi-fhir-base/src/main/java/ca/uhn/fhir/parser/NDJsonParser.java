@@ -70,6 +70,13 @@ public class NDJsonParser extends BaseParser {
                 return EncodingEnum.NDJSON;
         }
 
+        /**
+         * Returns the JSON parser used to parse each line
+         */
+        IParser getJsonParser() {
+                return myJsonParser;
+        }
+
 	@Override
 	protected void doEncodeResourceToWriter(IBaseResource theResource, Writer theWriter, EncodeContext theEncodeContext) throws IOException {
                 // We only encode bundles to NDJSON.
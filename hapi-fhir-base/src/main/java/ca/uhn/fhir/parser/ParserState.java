@@ -144,6 +144,25 @@ class ParserState<T> {
 		return myObject;
 	}
 
+	/**
+	 * Returns a handle to the complex element currently being parsed, which can be passed to
+	 * {@link #reenterElement(Object)} in order to add content to it after it has been closed.
+	 * Returns <code>null</code> if the current element is not a complex element.
+	 */
+	Object getCurrentElementHandle() {
+		return myState instanceof ParserState<?>.ElementCompositeState ? myState : null;
+	}
+
+	/**
+	 * Re-enters a complex element which was previously closed, using a handle returned by
+	 * {@link #getCurrentElementHandle()} while it was being parsed. The element must be a
+	 * child of the element currently being parsed, and must be closed again using
+	 * {@link #endingElement()}.
+	 */
+	void reenterElement(Object theElementHandle) {
+		push((BaseState) theElementHandle);
+	}
+
 	boolean isPreResource() {
 		return myState.isPreResource();
 	}
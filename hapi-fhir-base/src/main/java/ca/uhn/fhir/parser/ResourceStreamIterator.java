@@ -0,0 +1,232 @@
+package ca.uhn.fhir.parser;
+
+/*
+ * #%L
+ * HAPI FHIR - Core Library
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.parser.json.jackson.JacksonStructure;
+import ca.uhn.fhir.rest.api.EncodingEnum;
+import ca.uhn.fhir.util.BundleUtil;
+import com.fasterxml.jackson.core.JsonToken;
+import org.apache.commons.lang3.Validate;
+import org.hl7.fhir.instance.model.api.IBaseBundle;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+/**
+ * Iterates over the resources in an encoded Bundle or NDJSON document, parsing each
+ * resource only when it is requested. Only the resource currently being parsed is held
+ * in memory, so this can be used to process documents which are far too large to parse
+ * into a single Bundle.
+ * <p>
+ * JSON Bundles are read from the Jackson token stream, and each entry's
+ * <code>resource</code> is parsed as soon as it is reached. Other Bundle properties
+ * (e.g. <code>link</code> and <code>total</code>) are skipped, and references between
+ * entries are not stitched together as they are when parsing a whole Bundle. NDJSON
+ * documents are parsed one line at a time. XML Bundles can not currently be streamed,
+ * so they are parsed in full and then iterated.
+ * </p>
+ * <p>
+ * The iterator should be closed once it is no longer needed, which closes the
+ * underlying reader.
+ * </p>
+ *
+ * @since 6.6.0
+ */
+public class ResourceStreamIterator implements Iterator<IBaseResource>, Closeable {
+
+	private final IParser myParser;
+	private final Reader myReader;
+	private com.fasterxml.jackson.core.JsonParser myJsonTokens;
+	private BufferedReader myNdJsonLines;
+	private Iterator<IBaseResource> myParsedBundleResources;
+	private boolean myInEntryArray;
+	private boolean myFinished;
+	private IBaseResource myNext;
+
+	/**
+	 * Constructor
+	 *
+	 * @param theParser The parser to use. The encoding of the parser determines how the content is read, and its
+	 *                  configuration (e.g. server base URL, preferred types) is applied to each resource.
+	 * @param theReader The content to parse
+	 */
+	public ResourceStreamIterator(IParser theParser, Reader theReader) {
+		Validate.notNull(theParser, "theParser must not be null");
+		Validate.notNull(theReader, "theReader must not be null");
+		myParser = theParser;
+		myReader = theReader;
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (myNext == null && !myFinished) {
+			try {
+				myNext = fetchNext();
+			} catch (IOException e) {
+				throw new DataFormatException(Msg.code(2293) + "Failed to read streamed FHIR content: " + e.getMessage(), e);
+			}
+			if (myNext == null) {
+				myFinished = true;
+			}
+		}
+		return myNext != null;
+	}
+
+	@Override
+	public IBaseResource next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException(Msg.code(2294) + "No more resources");
+		}
+		IBaseResource retVal = myNext;
+		myNext = null;
+		return retVal;
+	}
+
+	@Override
+	public void close() throws IOException {
+		myFinished = true;
+		myNext = null;
+		if (myJsonTokens != null) {
+			myJsonTokens.close();
+		}
+		myReader.close();
+	}
+
+	private IBaseResource fetchNext() throws IOException {
+		EncodingEnum encoding = myParser.getEncoding();
+		if (encoding == EncodingEnum.JSON) {
+			return fetchNextFromJsonBundle();
+		} else if (encoding == EncodingEnum.NDJSON) {
+			return fetchNextFromNdJson();
+		}
+		return fetchNextFromParsedBundle();
+	}
+
+	private IBaseResource fetchNextFromJsonBundle() throws IOException {
+		JsonParser parser = (JsonParser) myParser;
+		if (myJsonTokens == null) {
+			myJsonTokens = JacksonStructure.createStreamingParser(myReader);
+			JsonToken token = myJsonTokens.nextToken();
+			if (token == null) {
+				return null;
+			}
+			if (token != JsonToken.START_OBJECT) {
+				throw new DataFormatException(Msg.code(2295) + "Content does not appear to be FHIR JSON, first token was: " + token + " (must be '{')");
+			}
+		}
+
+		while (true) {
+			if (myInEntryArray) {
+				JsonToken token = myJsonTokens.nextToken();
+				if (token == JsonToken.START_OBJECT) {
+					IBaseResource resource = readEntry(parser);
+					if (resource != null) {
+						return resource;
+					}
+				} else if (token == JsonToken.END_ARRAY) {
+					myInEntryArray = false;
+				} else {
+					myJsonTokens.skipChildren();
+				}
+				continue;
+			}
+
+			if (myJsonTokens.nextToken() != JsonToken.FIELD_NAME) {
+				return null;
+			}
+			String name = myJsonTokens.getCurrentName();
+			JsonToken valueToken = myJsonTokens.nextToken();
+			if ("resourceType".equals(name)) {
+				if (valueToken != JsonToken.VALUE_STRING || !"Bundle".equals(myJsonTokens.getText())) {
+					throw new DataFormatException(Msg.code(2296) + "Expected a Bundle but found resourceType: " + myJsonTokens.getText());
+				}
+			} else if ("entry".equals(name) && valueToken == JsonToken.START_ARRAY) {
+				myInEntryArray = true;
+			} else {
+				myJsonTokens.skipChildren();
+			}
+		}
+	}
+
+	/**
+	 * Reads a <code>Bundle.entry</code> object, returning its resource (if it has one) and
+	 * leaving the token stream positioned at the closing token of the entry
+	 */
+	private IBaseResource readEntry(JsonParser theParser) throws IOException {
+		IBaseResource resource = null;
+		String fullUrl = null;
+		while (myJsonTokens.nextToken() == JsonToken.FIELD_NAME) {
+			String name = myJsonTokens.getCurrentName();
+			JsonToken valueToken = myJsonTokens.nextToken();
+			if ("resource".equals(name) && valueToken == JsonToken.START_OBJECT) {
+				resource = theParser.parseResourceFromTokens(myJsonTokens);
+			} else if ("fullUrl".equals(name) && valueToken == JsonToken.VALUE_STRING) {
+				fullUrl = myJsonTokens.getText();
+			} else {
+				myJsonTokens.skipChildren();
+			}
+		}
+
+		if (resource != null && theParser.isOverrideResourceIdWithBundleEntryFullUrl()) {
+			theParser.overrideResourceIdWithBundleEntryFullUrl(resource, fullUrl);
+		}
+		return resource;
+	}
+
+	private IBaseResource fetchNextFromNdJson() throws IOException {
+		if (myNdJsonLines == null) {
+			myNdJsonLines = new BufferedReader(myReader);
+		}
+
+		IParser jsonParser = ((NDJsonParser) myParser).getJsonParser();
+		for (String line = myNdJsonLines.readLine(); line != null; line = myNdJsonLines.readLine()) {
+			// The line must be trimmed, as per the NDJSON spec 3.2
+			line = line.trim();
+			if (!isBlank(line)) {
+				return jsonParser.parseResource(line);
+			}
+		}
+		return null;
+	}
+
+	private IBaseResource fetchNextFromParsedBundle() {
+		if (myParsedBundleResources == null) {
+			IBaseResource bundle = myParser.parseResource(myReader);
+			if (!(bundle instanceof IBaseBundle)) {
+				throw new DataFormatException(Msg.code(2297) + "Expected a Bundle but found: " + bundle.getClass().getSimpleName());
+			}
+			myParsedBundleResources = BundleUtil.toListOfResources(((BaseParser) myParser).getContext(), (IBaseBundle) bundle).iterator();
+		}
+		if (myParsedBundleResources.hasNext()) {
+			return myParsedBundleResources.next();
+		}
+		return null;
+	}
+
+}
@@ -29,9 +29,11 @@ import ca.uhn.fhir.parser.json.BaseJsonLikeWriter;
 import ca.uhn.fhir.parser.json.JsonLikeStructure;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.json.JsonMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.DecimalNode;
@@ -39,6 +41,7 @@ import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PushbackReader;
 import java.io.Reader;
 import java.io.Writer;
@@ -52,6 +55,10 @@ import java.util.Map;
 public class JacksonStructure implements JsonLikeStructure {
 
 	private static final ObjectMapper OBJECT_MAPPER = createObjectMapper();
+	/**
+	 * Used to read subtrees while streaming, so trailing tokens are expected
+	 */
+	private static final ObjectReader SUBTREE_READER = OBJECT_MAPPER.reader().without(DeserializationFeature.FAIL_ON_TRAILING_TOKENS);
 	private JacksonWriter jacksonWriter;
 	private ROOT_TYPE rootType = null;
 	private JsonNode nativeRoot = null;
@@ -127,6 +134,20 @@ public class JacksonStructure implements JsonLikeStructure {
 		return jacksonWriter;
 	}
 
+	/**
+	 * Returns a writer which writes UTF-8 encoded bytes directly to the given stream.
+	 * Closing the returned writer flushes it but does not close the stream.
+	 *
+	 * @since 6.6.0
+	 */
+	public BaseJsonLikeWriter getJsonLikeWriter(OutputStream theOutputStream) throws IOException {
+		if (null == jacksonWriter) {
+			jacksonWriter = new JacksonWriter(OBJECT_MAPPER.getFactory(), theOutputStream);
+		}
+
+		return jacksonWriter;
+	}
+
 	@Override
 	public BaseJsonLikeWriter getJsonLikeWriter() {
 		if (null == jacksonWriter) {
@@ -148,6 +169,59 @@ public class JacksonStructure implements JsonLikeStructure {
 		throw new DataFormatException(Msg.code(1862) + "Content must be a valid JSON Object. It must start with '{'.");
 	}
 
+	/**
+	 * Creates a token-streaming Jackson parser which uses the same configuration
+	 * as the tree-based {@link #load(Reader)}, and which can read subtrees using
+	 * {@link #readValue(JsonParser)}.
+	 *
+	 * @since 6.6.0
+	 */
+	public static JsonParser createStreamingParser(Reader theReader) throws IOException {
+		return OBJECT_MAPPER.createParser(theReader);
+	}
+
+	/**
+	 * Reads the value at the current token of a parser created by {@link #createStreamingParser(Reader)}
+	 * into a tree, leaving the parser positioned at the last token of the value.
+	 *
+	 * @since 6.6.0
+	 */
+	public static BaseJsonLikeValue readValue(JsonParser theParser) throws IOException {
+		return new JacksonJsonValue(SUBTREE_READER.readTree(theParser));
+	}
+
+	/**
+	 * Reads the remaining properties of an object into a tree. The parser must be
+	 * positioned at a property name (or at the closing token of the object), and
+	 * is left positioned at the closing token of the object.
+	 *
+	 * @since 6.6.0
+	 */
+	public static BaseJsonLikeObject readRemainingObject(JsonParser theParser) throws IOException {
+		ObjectNode object = OBJECT_MAPPER.getNodeFactory().objectNode();
+		for (JsonToken token = theParser.currentToken(); token == JsonToken.FIELD_NAME; token = theParser.nextToken()) {
+			String name = theParser.getCurrentName();
+			theParser.nextToken();
+			object.set(name, (JsonNode) SUBTREE_READER.readTree(theParser));
+		}
+		return new JacksonJsonObject(object);
+	}
+
+	/**
+	 * Reads the remaining elements of an array into a tree. The parser must be
+	 * positioned at the first unread element (or at the closing token of the array),
+	 * and is left positioned at the closing token of the array.
+	 *
+	 * @since 6.6.0
+	 */
+	public static BaseJsonLikeValue readRemainingArray(JsonParser theParser) throws IOException {
+		ArrayNode array = OBJECT_MAPPER.getNodeFactory().arrayNode();
+		for (JsonToken token = theParser.currentToken(); token != null && token != JsonToken.END_ARRAY; token = theParser.nextToken()) {
+			array.add((JsonNode) SUBTREE_READER.readTree(theParser));
+		}
+		return new JacksonJsonValue(array);
+	}
+
 	private enum ROOT_TYPE {OBJECT, ARRAY}
 
 	private static class JacksonJsonObject extends BaseJsonLikeObject {
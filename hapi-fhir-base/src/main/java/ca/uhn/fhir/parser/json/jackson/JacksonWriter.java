@@ -21,6 +21,7 @@ package ca.uhn.fhir.parser.json.jackson;
  */
 
 import ca.uhn.fhir.parser.json.BaseJsonLikeWriter;
+import com.fasterxml.jackson.core.JsonEncoding;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.util.DefaultIndenter;
@@ -28,6 +29,7 @@ import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
 import com.fasterxml.jackson.core.util.Separators;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Writer;
 import java.math.BigDecimal;
 import java.math.BigInteger;
@@ -41,6 +43,15 @@ public class JacksonWriter extends BaseJsonLikeWriter {
 		setWriter(theWriter);
 	}
 
+	/**
+	 * Creates a writer which writes UTF-8 encoded bytes directly to the given stream
+	 *
+	 * @since 6.6.0
+	 */
+	public JacksonWriter(JsonFactory theJsonFactory, OutputStream theOutputStream) throws IOException {
+		myJsonGenerator = theJsonFactory.createGenerator(theOutputStream, JsonEncoding.UTF8);
+	}
+
 	public JacksonWriter() {
 	}
 
@@ -108,43 +119,43 @@ public class JacksonWriter extends BaseJsonLikeWriter {
 
 	@Override
 	public BaseJsonLikeWriter write(String value) throws IOException {
-		myJsonGenerator.writeObject(value);
+		myJsonGenerator.writeString(value);
 		return this;
 	}
 
 	@Override
 	public BaseJsonLikeWriter write(BigInteger value) throws IOException {
-		myJsonGenerator.writeObject(value);
+		myJsonGenerator.writeNumber(value);
 		return this;
 	}
 
 	@Override
 	public BaseJsonLikeWriter write(BigDecimal value) throws IOException {
-		myJsonGenerator.writeObject(value);
+		myJsonGenerator.writeNumber(value);
 		return this;
 	}
 
 	@Override
 	public BaseJsonLikeWriter write(long value) throws IOException {
-		myJsonGenerator.writeObject(value);
+		myJsonGenerator.writeNumber(value);
 		return this;
 	}
 
 	@Override
 	public BaseJsonLikeWriter write(double value) throws IOException {
-		myJsonGenerator.writeObject(value);
+		myJsonGenerator.writeNumber(value);
 		return this;
 	}
 
 	@Override
 	public BaseJsonLikeWriter write(Boolean value) throws IOException {
-		myJsonGenerator.writeObject(value);
+		writeBooleanOrNull(value);
 		return this;
 	}
 
 	@Override
 	public BaseJsonLikeWriter write(boolean value) throws IOException {
-		myJsonGenerator.writeObject(value);
+		myJsonGenerator.writeBoolean(value);
 		return this;
 	}
 
@@ -156,43 +167,50 @@ public class JacksonWriter extends BaseJsonLikeWriter {
 
 	@Override
 	public BaseJsonLikeWriter write(String name, String value) throws IOException {
-		myJsonGenerator.writeObjectField(name, value);
+		myJsonGenerator.writeFieldName(name);
+		myJsonGenerator.writeString(value);
 		return this;
 	}
 
 	@Override
 	public BaseJsonLikeWriter write(String name, BigInteger value) throws IOException {
-		myJsonGenerator.writeObjectField(name, value);
+		myJsonGenerator.writeFieldName(name);
+		myJsonGenerator.writeNumber(value);
 		return this;
 	}
 
 	@Override
 	public BaseJsonLikeWriter write(String name, BigDecimal value) throws IOException {
-		myJsonGenerator.writeObjectField(name, value);
+		myJsonGenerator.writeFieldName(name);
+		myJsonGenerator.writeNumber(value);
 		return this;
 	}
 
 	@Override
 	public BaseJsonLikeWriter write(String name, long value) throws IOException {
-		myJsonGenerator.writeObjectField(name, value);
+		myJsonGenerator.writeFieldName(name);
+		myJsonGenerator.writeNumber(value);
 		return this;
 	}
 
 	@Override
 	public BaseJsonLikeWriter write(String name, double value) throws IOException {
-		myJsonGenerator.writeObjectField(name, value);
+		myJsonGenerator.writeFieldName(name);
+		myJsonGenerator.writeNumber(value);
 		return this;
 	}
 
 	@Override
 	public BaseJsonLikeWriter write(String name, Boolean value) throws IOException {
-		myJsonGenerator.writeObjectField(name, value);
+		myJsonGenerator.writeFieldName(name);
+		writeBooleanOrNull(value);
 		return this;
 	}
 
 	@Override
 	public BaseJsonLikeWriter write(String name, boolean value) throws IOException {
-		myJsonGenerator.writeObjectField(name, value);
+		myJsonGenerator.writeFieldName(name);
+		myJsonGenerator.writeBoolean(value);
 		return this;
 	}
 
@@ -213,4 +231,12 @@ public class JacksonWriter extends BaseJsonLikeWriter {
 		myJsonGenerator.writeEndObject();
 		return this;
 	}
+
+	private void writeBooleanOrNull(Boolean theValue) throws IOException {
+		if (theValue == null) {
+			myJsonGenerator.writeNull();
+		} else {
+			myJsonGenerator.writeBoolean(theValue);
+		}
+	}
 }
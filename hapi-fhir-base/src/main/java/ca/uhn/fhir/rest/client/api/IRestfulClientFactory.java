@@ -21,10 +21,12 @@ package ca.uhn.fhir.rest.client.api;
  */
 
 import ca.uhn.fhir.context.ConfigurationException;
+import ca.uhn.fhir.i18n.Msg;
 import ca.uhn.fhir.rest.api.RequestTypeEnum;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 public interface IRestfulClientFactory {
 
@@ -57,6 +59,12 @@ public interface IRestfulClientFactory {
 	 * Default value for {@link #getPoolMaxPerRoute() }
 	 */
 	public static final int DEFAULT_POOL_MAX_PER_ROUTE = DEFAULT_POOL_MAX;
+
+	/**
+	 * Default value for {@link #getAsyncMaxConcurrentRequestsPerServerBase()}. Note that
+	 * unless it is set explicitly, this setting follows {@link #setPoolMaxPerRoute(int)}.
+	 */
+	public static final int DEFAULT_ASYNC_MAX_CONCURRENT_REQUESTS_PER_SERVER_BASE = DEFAULT_POOL_MAX_PER_ROUTE;
 	
 	/**
 	 * Gets the connection request timeout, in milliseconds. This is the amount of time that the HTTPClient connection
@@ -249,6 +257,61 @@ public interface IRestfulClientFactory {
 	 */
 	void setPoolMaxPerRoute(int thePoolMaxPerRoute);
 	
+	/**
+	 * Gets the maximum number of asynchronous requests (i.e. requests made using
+	 * {@link ca.uhn.fhir.rest.gclient.IClientExecutable#executeAsync()}) which may be in flight
+	 * to a single server base at any given time, across all clients created by this factory.
+	 * Any further requests are queued until an earlier request to the same server base completes.
+	 * <p>
+	 * Unless this setting is set explicitly, it is equal to {@link #getPoolMaxPerRoute() the connection
+	 * pool size per route}, and so defaults to {@link #DEFAULT_ASYNC_MAX_CONCURRENT_REQUESTS_PER_SERVER_BASE}.
+	 * </p>
+	 *
+	 * @since 6.6.0
+	 */
+	default int getAsyncMaxConcurrentRequestsPerServerBase() {
+		return DEFAULT_ASYNC_MAX_CONCURRENT_REQUESTS_PER_SERVER_BASE;
+	}
+
+	/**
+	 * Sets the maximum number of asynchronous requests which may be in flight to a single
+	 * server base at any given time. This value should generally not be larger than
+	 * {@link #getPoolMaxPerRoute() the connection pool size per route}, since requests beyond
+	 * that number would only block waiting for a connection.
+	 * <p>
+	 * This limit applies separately to each server base, and includes the requests used to
+	 * prefetch the next page while iterating over search results. It does not limit the total
+	 * number of asynchronous requests across all server bases: a client talking to several
+	 * server bases may have this many requests in flight to each of them. To bound the total,
+	 * supply a bounded executor using {@link #setAsyncExecutor(Executor)}.
+	 * </p>
+	 * <p>
+	 * Once this has been set, changing {@link #setPoolMaxPerRoute(int) the connection pool size per route}
+	 * no longer changes this setting.
+	 * </p>
+	 *
+	 * @since 6.6.0
+	 */
+	default void setAsyncMaxConcurrentRequestsPerServerBase(int theAsyncMaxConcurrentRequestsPerServerBase) {
+		throw new UnsupportedOperationException(Msg.code(2289) + getClass().getName() + " does not support configuring asynchronous requests");
+	}
+
+	/**
+	 * Sets the executor which will be used to perform asynchronous requests. If not set (or set to
+	 * <code>null</code>), a default executor will be created when the first asynchronous request
+	 * is made. Note that the number of requests which will be passed to the executor
+	 * concurrently is limited per server base (see
+	 * {@link #setAsyncMaxConcurrentRequestsPerServerBase(int)}), but is not limited overall, so
+	 * the default executor may use up to that many threads for each server base. Supply an
+	 * executor with a bounded number of threads (which may be shared between several factories)
+	 * in order to cap the total number of threads used.
+	 *
+	 * @since 6.6.0
+	 */
+	default void setAsyncExecutor(Executor theAsyncExecutor) {
+		throw new UnsupportedOperationException(Msg.code(2290) + getClass().getName() + " does not support configuring asynchronous requests");
+	}
+
 	void validateServerBase(String theServerBase, IHttpClient theHttpClient, IRestfulClient theClient);
 
 	/**
@@ -22,8 +22,8 @@ package ca.uhn.fhir.rest.client.exceptions;
 
 import ca.uhn.fhir.rest.server.exceptions.BaseServerResponseException;
 import ca.uhn.fhir.util.CoverageIgnore;
+import ca.uhn.fhir.util.IoUtil;
 import com.google.common.base.Charsets;
-import org.apache.commons.io.IOUtils;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -37,6 +37,12 @@ public class NonFhirResponseException extends BaseServerResponseException {
 
 	private static final long serialVersionUID = 1L;
 
+	/**
+	 * Non-FHIR responses can be arbitrarily large (e.g. a file download), so
+	 * only this much of the body is kept
+	 */
+	static final int MAX_RESPONSE_BODY_LENGTH = 1024 * 1024;
+
 	/**
 	 * Constructor
 	 *
@@ -54,7 +60,7 @@ public class NonFhirResponseException extends BaseServerResponseException {
 	public static NonFhirResponseException newInstance(int theStatusCode, String theContentType, Reader theReader) {
 		String responseBody = "";
 		try {
-			responseBody = IOUtils.toString(theReader);
+			responseBody = IoUtil.readUpTo(theReader, MAX_RESPONSE_BODY_LENGTH);
 		} catch (IOException e) {
 			// ignore
 		} finally {
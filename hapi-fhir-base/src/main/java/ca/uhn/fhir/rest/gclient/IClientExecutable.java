@@ -1,5 +1,6 @@
 package ca.uhn.fhir.rest.gclient;
 
+import ca.uhn.fhir.i18n.Msg;
 import ca.uhn.fhir.rest.api.CacheControlDirective;
 import ca.uhn.fhir.rest.api.EncodingEnum;
 import ca.uhn.fhir.rest.api.RequestFormatParamStyleEnum;
@@ -7,6 +8,7 @@ import ca.uhn.fhir.rest.api.SummaryEnum;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /*
  * #%L
@@ -108,6 +110,24 @@ public interface IClientExecutable<T extends IClientExecutable<?, Y>, Y> {
 	 */
 	Y execute();
 
+	/**
+	 * Execute the client operation asynchronously, returning a future which will be completed
+	 * with the same result that {@link #execute()} would return (or completed exceptionally with
+	 * the exception that it would throw). Client interceptors are invoked just as they are for
+	 * {@link #execute()}.
+	 * <p>
+	 * Clients created by the HAPI FHIR client factory limit the number of asynchronous requests
+	 * that may be in flight to a single server base at any given time, queueing any further requests
+	 * until an earlier one completes. See
+	 * {@link ca.uhn.fhir.rest.client.api.IRestfulClientFactory#setAsyncMaxConcurrentRequestsPerServerBase(int)}.
+	 * </p>
+	 *
+	 * @since 6.6.0
+	 */
+	default CompletableFuture<Y> executeAsync() {
+		throw new UnsupportedOperationException(Msg.code(2302) + getClass().getName() + " does not support asynchronous execution");
+	}
+
 	/**
 	 * Explicitly specify a custom structure type to attempt to use when parsing the response. This
 	 * is useful for invocations where the response is a Bundle/Parameters containing nested resources,
@@ -20,8 +20,11 @@ package ca.uhn.fhir.rest.gclient;
  * #L%
  */
 
+import ca.uhn.fhir.i18n.Msg;
 import org.hl7.fhir.instance.model.api.IBaseBundle;
 
+import java.util.Iterator;
+
 public interface IGetPage {
 
 	/**
@@ -45,4 +48,18 @@ public interface IGetPage {
 	 */
 	IGetPageUntyped byUrl(String thePageUrl);
 
+	/**
+	 * Returns an iterator over the given page followed by every subsequent page of results,
+	 * following the link with relation "next" in each bundle until a bundle without one is
+	 * reached. Each page is requested as soon as the page before it is returned by the
+	 * iterator, so that the next page is being fetched while the caller processes the
+	 * current one.
+	 *
+	 * @param theFirstPage The first page, e.g. the results of a search
+	 * @since 6.6.0
+	 */
+	default <T extends IBaseBundle> Iterator<T> iterate(T theFirstPage) {
+		throw new UnsupportedOperationException(Msg.code(2303) + getClass().getName() + " does not support iterating over pages");
+	}
+
 }
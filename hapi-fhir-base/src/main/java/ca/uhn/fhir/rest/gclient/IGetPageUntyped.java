@@ -20,6 +20,7 @@ package ca.uhn.fhir.rest.gclient;
  * #L%
  */
 
+import ca.uhn.fhir.i18n.Msg;
 import org.hl7.fhir.instance.model.api.IBaseBundle;
 
 public interface IGetPageUntyped {
@@ -28,6 +29,22 @@ public interface IGetPageUntyped {
 	 * Return a Bundle resource of the given type
 	 */
 	<T extends IBaseBundle> IGetPageTyped<T> andReturnBundle(Class<T> theBundleType);
-	
+
+	/**
+	 * Return the resources in the response one at a time, parsing each one only as it
+	 * is requested from the returned iterator instead of loading the whole response into
+	 * memory. The response may be a Bundle (in which case the resource in each entry is
+	 * returned) or an NDJSON document such as a bulk export file.
+	 * <p>
+	 * The returned iterator holds the HTTP response open, so it must be closed once it is
+	 * no longer needed.
+	 * </p>
+	 *
+	 * @see ca.uhn.fhir.parser.ResourceStreamIterator
+	 * @since 6.6.0
+	 */
+	default IGetPageStream andStreamResources() {
+		throw new UnsupportedOperationException(Msg.code(2304) + getClass().getName() + " does not support streaming resources");
+	}
 	
 }
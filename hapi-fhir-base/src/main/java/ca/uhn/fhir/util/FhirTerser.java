@@ -51,6 +51,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -753,10 +754,44 @@ public class FhirTerser {
 		Validate.notBlank(defaultString(theTarget.getIdPart()), "theTarget must have a populated ID (theTarget.getIdPart() does not return a value)");
 
 		String wantRef = theTarget.toUnqualifiedVersionless().getValue();
+		return visitCompartmentOwners(theCompartmentName, theSource, theAdditionalCompartmentParamNames, wantRef::equals);
+	}
+
+	/**
+	 * Returns the IDs of every owner of a compartment named <code>theCompartmentName</code> that
+	 * <code>theSource</code> is a member of, as unqualified versionless IDs (e.g. <code>Patient/123</code>).
+	 * For any compartment owner ID, {@link #isSourceInCompartmentForTarget(String, IBaseResource, IIdType, Set)}
+	 * returns <code>true</code> if and only if the unqualified versionless value of that ID is in the
+	 * returned set. This is useful when membership needs to be tested for many compartment owners,
+	 * since the resource is only examined once.
+	 *
+	 * @param theCompartmentName                 The name of the compartment
+	 * @param theSource                          The potential member of the compartment
+	 * @param theAdditionalCompartmentParamNames If provided, search param names provided here will be considered as included in the given compartment
+	 * @since 6.6.0
+	 */
+	public Set<String> getCompartmentOwnersForResource(String theCompartmentName, IBaseResource theSource, Set<String> theAdditionalCompartmentParamNames) {
+		Validate.notBlank(theCompartmentName, "theCompartmentName must not be null or blank");
+		Validate.notNull(theSource, "theSource must not be null");
+
+		Set<String> retVal = new HashSet<>();
+		visitCompartmentOwners(theCompartmentName, theSource, theAdditionalCompartmentParamNames, t -> {
+			retVal.add(t);
+			return false;
+		});
+		return retVal;
+	}
 
+	/**
+	 * Passes the ID of each compartment owner that <code>theSource</code> belongs to, to
+	 * <code>theOwnerRefConsumer</code>, stopping as soon as the consumer returns <code>true</code>.
+	 *
+	 * @return <code>true</code> if the consumer returned <code>true</code>
+	 */
+	private boolean visitCompartmentOwners(String theCompartmentName, IBaseResource theSource, Set<String> theAdditionalCompartmentParamNames, Predicate<String> theOwnerRefConsumer) {
 		RuntimeResourceDefinition sourceDef = myContext.getResourceDefinition(theSource);
 		if (theSource.getIdElement().hasIdPart()) {
-			if (wantRef.equals(sourceDef.getName() + '/' + theSource.getIdElement().getIdPart())) {
+			if (theOwnerRefConsumer.test(sourceDef.getName() + '/' + theSource.getIdElement().getIdPart())) {
 				return true;
 			}
 		}
@@ -825,7 +860,7 @@ public class FhirTerser {
 						}
 					}
 
-					if (wantRef.equals(nextRef)) {
+					if (isNotBlank(nextRef) && theOwnerRefConsumer.test(nextRef)) {
 						return true;
 					}
 				}
@@ -20,8 +20,31 @@ package ca.uhn.fhir.util;
  * #L%
  */
 
+import java.io.IOException;
+import java.io.Reader;
+
 public class IoUtil {
 
+	/**
+	 * Reads at most <code>theMaxChars</code> characters from the given reader. Any content
+	 * beyond that is left unread, so this can be used to capture a bounded amount of a body
+	 * which may be arbitrarily large.
+	 *
+	 * @since 6.6.0
+	 */
+	public static String readUpTo(Reader theReader, int theMaxChars) throws IOException {
+		StringBuilder retVal = new StringBuilder(Math.min(theMaxChars, 8192));
+		char[] buffer = new char[Math.min(theMaxChars, 8192)];
+		while (retVal.length() < theMaxChars) {
+			int count = theReader.read(buffer, 0, Math.min(buffer.length, theMaxChars - retVal.length()));
+			if (count == -1) {
+				break;
+			}
+			retVal.append(buffer, 0, count);
+		}
+		return retVal.toString();
+	}
+
 	/**
 	 * Replacement for the deprecated commons-lang method of the same name. Use sparingly
 	 * since they are right that most uses of this should be replaced with try-with-resources
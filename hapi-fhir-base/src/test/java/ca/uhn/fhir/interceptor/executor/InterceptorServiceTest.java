@@ -322,6 +322,32 @@ public class InterceptorServiceTest {
 		assertSame(null, interceptor1.myLastString1);
 	}
 
+	@Test
+	public void testRegisterInterceptorWhileInvokingHooks() {
+		InterceptorService svc = new InterceptorService();
+
+		MyTestInterceptorTwo interceptor1 = new MyTestInterceptorTwo();
+
+		@Interceptor(order = 100)
+		class RegisteringInterceptor {
+			@Hook(Pointcut.TEST_RB)
+			public void testRb(Pointcut thePointcut) {
+				myInvocations.add("RegisteringInterceptor.testRb." + thePointcut.name());
+				svc.registerInterceptor(interceptor1);
+			}
+		}
+		svc.registerInterceptor(new RegisteringInterceptor());
+
+		// The newly registered interceptor shouldn't be invoked until the next call
+		assertTrue(svc.callHooks(Pointcut.TEST_RB, new HookParams("A", "B")));
+		assertThat(myInvocations, contains("RegisteringInterceptor.testRb.TEST_RB"));
+
+		myInvocations.clear();
+		assertTrue(svc.callHooks(Pointcut.TEST_RB, new HookParams("A", "B")));
+		assertThat(myInvocations, contains("RegisteringInterceptor.testRb.TEST_RB", "MyTestInterceptorTwo.testRb"));
+		assertSame("B", interceptor1.myLastString1);
+	}
+
 	@Test
 	public void testCallHooksInvokedWithNullParameters() {
 		InterceptorService svc = new InterceptorService();
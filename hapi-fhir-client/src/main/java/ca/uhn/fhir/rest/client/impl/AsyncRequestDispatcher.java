@@ -0,0 +1,154 @@
+package ca.uhn.fhir.rest.client.impl;
+
+/*
+ * #%L
+ * HAPI FHIR - Client Framework
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.rest.client.exceptions.FhirClientConnectionException;
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Runs asynchronous client requests, limiting the number of requests that
+ * may be in flight to any single server base at the same time. Requests
+ * beyond the limit are queued (without holding a thread) and are started
+ * as earlier requests to the same server base complete.
+ */
+class AsyncRequestDispatcher {
+
+	private final Map<String, ServerBaseQueue> myServerBaseToQueue = new ConcurrentHashMap<>();
+	private volatile int myMaxConcurrentRequestsPerServerBase;
+	private volatile Executor myExecutor;
+
+	AsyncRequestDispatcher(int theMaxConcurrentRequestsPerServerBase) {
+		setMaxConcurrentRequestsPerServerBase(theMaxConcurrentRequestsPerServerBase);
+	}
+
+	int getMaxConcurrentRequestsPerServerBase() {
+		return myMaxConcurrentRequestsPerServerBase;
+	}
+
+	void setMaxConcurrentRequestsPerServerBase(int theMaxConcurrentRequestsPerServerBase) {
+		Validate.isTrue(theMaxConcurrentRequestsPerServerBase > 0, "theMaxConcurrentRequestsPerServerBase must be greater than 0");
+		myMaxConcurrentRequestsPerServerBase = theMaxConcurrentRequestsPerServerBase;
+	}
+
+	void setExecutor(Executor theExecutor) {
+		myExecutor = theExecutor;
+	}
+
+	/**
+	 * Submits a request to be executed once fewer than the maximum number of requests
+	 * to the given server base are in flight
+	 */
+	<T> CompletableFuture<T> submit(String theServerBase, Supplier<T> theRequest) {
+		CompletableFuture<T> retVal = new CompletableFuture<>();
+		ServerBaseQueue queue = myServerBaseToQueue.computeIfAbsent(theServerBase, t -> new ServerBaseQueue());
+		queue.submit(() -> {
+			try {
+				retVal.complete(theRequest.get());
+			} catch (Throwable e) {
+				retVal.completeExceptionally(e);
+			}
+		}, retVal);
+		return retVal;
+	}
+
+	private Executor getExecutor() {
+		Executor retVal = myExecutor;
+		if (retVal == null) {
+			synchronized (this) {
+				retVal = myExecutor;
+				if (retVal == null) {
+					retVal = newDefaultExecutor();
+					myExecutor = retVal;
+				}
+			}
+		}
+		return retVal;
+	}
+
+	private static ExecutorService newDefaultExecutor() {
+		BasicThreadFactory threadFactory = new BasicThreadFactory.Builder()
+			.namingPattern("hapi-fhir-client-async-%d")
+			.daemon(true)
+			.build();
+		return Executors.newCachedThreadPool(threadFactory);
+	}
+
+	private class ServerBaseQueue {
+
+		private final Queue<Runnable> myPending = new ArrayDeque<>();
+		private int myInFlight;
+
+		void submit(Runnable theRequest, CompletableFuture<?> theFuture) {
+			Runnable task = () -> {
+				try {
+					theRequest.run();
+				} finally {
+					startNext();
+				}
+			};
+
+			synchronized (this) {
+				if (myInFlight >= getMaxConcurrentRequestsPerServerBase()) {
+					myPending.add(() -> execute(task, theFuture));
+					return;
+				}
+				myInFlight++;
+			}
+			execute(task, theFuture);
+		}
+
+		private void startNext() {
+			Runnable next;
+			synchronized (this) {
+				next = myPending.poll();
+				if (next == null) {
+					myInFlight--;
+					return;
+				}
+			}
+			next.run();
+		}
+
+		private void execute(Runnable theTask, CompletableFuture<?> theFuture) {
+			try {
+				getExecutor().execute(theTask);
+			} catch (RejectedExecutionException e) {
+				theFuture.completeExceptionally(new FhirClientConnectionException(Msg.code(2291) + "Asynchronous request was rejected by the executor: " + e.getMessage(), e));
+				startNext();
+			}
+		}
+
+	}
+
+}
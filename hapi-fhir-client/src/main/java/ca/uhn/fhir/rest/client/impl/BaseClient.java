@@ -32,6 +32,7 @@ import ca.uhn.fhir.interceptor.api.Pointcut;
 import ca.uhn.fhir.interceptor.executor.InterceptorService;
 import ca.uhn.fhir.parser.DataFormatException;
 import ca.uhn.fhir.parser.IParser;
+import ca.uhn.fhir.parser.ResourceStreamIterator;
 import ca.uhn.fhir.rest.api.CacheControlDirective;
 import ca.uhn.fhir.rest.api.Constants;
 import ca.uhn.fhir.rest.api.EncodingEnum;
@@ -55,6 +56,7 @@ import ca.uhn.fhir.rest.server.exceptions.BaseServerResponseException;
 import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
 import ca.uhn.fhir.system.HapiSystemProperties;
 import ca.uhn.fhir.util.BinaryUtil;
+import ca.uhn.fhir.util.IoUtil;
 import ca.uhn.fhir.util.OperationOutcomeUtil;
 import ca.uhn.fhir.util.XmlDetectionUtil;
 import com.google.common.base.Charsets;
@@ -70,8 +72,10 @@ import org.hl7.fhir.instance.model.api.IPrimitiveType;
 
 import javax.annotation.Nonnull;
 import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.Reader;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -80,6 +84,8 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
@@ -88,6 +94,17 @@ public abstract class BaseClient implements IRestfulClient {
 
 	private static final org.slf4j.Logger ourLog = org.slf4j.LoggerFactory.getLogger(BaseClient.class);
 
+	/**
+	 * Error responses are read into memory so that they can be attached to the
+	 * thrown exception, but only up to this many characters
+	 */
+	static final int MAX_ERROR_BODY_LENGTH = 10 * 1024 * 1024;
+
+	/**
+	 * Used for asynchronous requests made by clients which weren't created by a factory
+	 */
+	private static final AsyncRequestDispatcher ourDefaultAsyncRequestDispatcher = new AsyncRequestDispatcher(IRestfulClientFactory.DEFAULT_ASYNC_MAX_CONCURRENT_REQUESTS_PER_SERVER_BASE);
+
 	private final IHttpClient myClient;
 	private final RestfulClientFactory myFactory;
 	private final String myUrlBase;
@@ -339,7 +356,7 @@ public abstract class BaseClient implements IRestfulClient {
 			if (response.getStatus() < 200 || response.getStatus() > 299) {
 				String body = null;
 				try (Reader reader = response.createReader()) {
-					body = IOUtils.toString(reader);
+					body = IoUtil.readUpTo(reader, MAX_ERROR_BODY_LENGTH);
 				} catch (Exception e) {
 					ourLog.debug("Failed to read input stream", e);
 				}
@@ -385,6 +402,17 @@ public abstract class BaseClient implements IRestfulClient {
 				}
 			}
 
+			if (binding instanceof ResourceStreamResponseHandler && !(ourLog.isTraceEnabled() || myKeepResponses || theLogRequestAndResponse)) {
+				InputStream inputStream = response.readEntity();
+				if (inputStream == null) {
+					inputStream = new ByteArrayInputStream(new byte[]{});
+				}
+				T retVal = binding.invokeClient(mimeType, new ResponseClosingInputStream(inputStream, response), response.getStatus(), headers);
+				// The returned iterator now owns the response, and closes it when it is closed
+				response = null;
+				return retVal;
+			}
+
 			try (InputStream inputStream = response.readEntity()) {
 				InputStream inputStreamToReturn = inputStream;
 
@@ -428,6 +456,15 @@ public abstract class BaseClient implements IRestfulClient {
 		}
 	}
 
+	/**
+	 * Performs the given request asynchronously, subject to the per server base concurrency
+	 * limit of the factory which created this client
+	 */
+	<T> CompletableFuture<T> invokeClientAsync(Supplier<T> theRequest) {
+		AsyncRequestDispatcher dispatcher = myFactory != null ? myFactory.getAsyncRequestDispatcher() : ourDefaultAsyncRequestDispatcher;
+		return dispatcher.submit(myUrlBase, theRequest);
+	}
+
 	private void addToCacheControlHeader(StringBuilder theBuilder, String theDirective, boolean theActive) {
 		if (theActive) {
 			if (theBuilder.length() > 0) {
@@ -550,6 +587,49 @@ public abstract class BaseClient implements IRestfulClient {
 
 	}
 
+	/**
+	 * Returns an iterator which parses the resources in the response as they are
+	 * requested. The response stream is handed to the iterator rather than being
+	 * closed when this handler returns.
+	 */
+	protected class ResourceStreamResponseHandler implements IClientResponseHandler<ResourceStreamIterator> {
+
+		@Override
+		public ResourceStreamIterator invokeClient(String theResponseMimeType, InputStream theResponseInputStream, int theResponseStatusCode, Map<String, List<String>> theHeaders) throws BaseServerResponseException {
+			EncodingEnum respType = EncodingEnum.forContentType(theResponseMimeType);
+			if (respType == null) {
+				throw NonFhirResponseException.newInstance(theResponseStatusCode, theResponseMimeType, theResponseInputStream);
+			}
+			IParser parser = respType.newParser(getFhirContext());
+			parser.setServerBaseUrl(getUrlBase());
+			return new ResourceStreamIterator(parser, new InputStreamReader(theResponseInputStream, Charsets.UTF_8));
+		}
+
+	}
+
+	/**
+	 * Response body stream which also closes the response itself when it is closed
+	 */
+	private static class ResponseClosingInputStream extends FilterInputStream {
+
+		private final IHttpResponse myResponse;
+
+		ResponseClosingInputStream(InputStream theInputStream, IHttpResponse theResponse) {
+			super(theInputStream);
+			myResponse = theResponse;
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				super.close();
+			} finally {
+				myResponse.close();
+			}
+		}
+
+	}
+
 	protected class ResourceResponseHandler<T extends IBaseResource> implements IClientResponseHandler<T> {
 
 		private boolean myAllowHtmlResponse;
@@ -38,6 +38,7 @@ import ca.uhn.fhir.model.primitive.InstantDt;
 import ca.uhn.fhir.model.primitive.UriDt;
 import ca.uhn.fhir.model.valueset.BundleEntryTransactionMethodEnum;
 import ca.uhn.fhir.parser.IParser;
+import ca.uhn.fhir.parser.ResourceStreamIterator;
 import ca.uhn.fhir.rest.api.CacheControlDirective;
 import ca.uhn.fhir.rest.api.Constants;
 import ca.uhn.fhir.rest.api.DeleteCascadeModeEnum;
@@ -85,6 +86,7 @@ import ca.uhn.fhir.rest.gclient.IDeleteWithQueryTyped;
 import ca.uhn.fhir.rest.gclient.IFetchConformanceTyped;
 import ca.uhn.fhir.rest.gclient.IFetchConformanceUntyped;
 import ca.uhn.fhir.rest.gclient.IGetPage;
+import ca.uhn.fhir.rest.gclient.IGetPageStream;
 import ca.uhn.fhir.rest.gclient.IGetPageTyped;
 import ca.uhn.fhir.rest.gclient.IGetPageUntyped;
 import ca.uhn.fhir.rest.gclient.IHistory;
@@ -129,6 +131,7 @@ import ca.uhn.fhir.rest.param.TokenParam;
 import ca.uhn.fhir.rest.server.exceptions.BaseServerResponseException;
 import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
 import ca.uhn.fhir.rest.server.exceptions.NotModifiedException;
+import ca.uhn.fhir.util.BundleUtil;
 import ca.uhn.fhir.util.ICallable;
 import ca.uhn.fhir.util.ParametersUtil;
 import ca.uhn.fhir.util.UrlUtil;
@@ -162,8 +165,11 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import static org.apache.commons.lang3.StringUtils.defaultString;
 import static org.apache.commons.lang3.StringUtils.isBlank;
@@ -514,6 +520,11 @@ public class GenericClient extends BaseClient implements IGenericClient {
 			return (T) this;
 		}
 
+		@Override
+		public CompletableFuture<Y> executeAsync() {
+			return invokeClientAsync(this::execute);
+		}
+
 		protected EncodingEnum getParamEncoding() {
 			return myParamEncoding;
 		}
@@ -869,6 +880,24 @@ public class GenericClient extends BaseClient implements IGenericClient {
 
 	}
 
+	private class StreamResourcesInternal extends BaseClientExecutable<IGetPageStream, ResourceStreamIterator> implements IGetPageStream {
+
+		private final String myUrl;
+
+		public StreamResourcesInternal(String theUrl) {
+			myUrl = theUrl;
+		}
+
+		@Override
+		public ResourceStreamIterator execute() {
+			HttpSimpleGetClientInvocation invocation = new HttpSimpleGetClientInvocation(myContext, myUrl);
+			invocation.setUrlSource(UrlSourceEnum.EXPLICIT);
+
+			return invoke(null, new ResourceStreamResponseHandler(), invocation);
+		}
+
+	}
+
 	@SuppressWarnings("rawtypes")
 	private class HistoryInternal extends BaseClientExecutable implements IHistory, IHistoryUntyped, IHistoryTyped {
 
@@ -980,6 +1009,51 @@ public class GenericClient extends BaseClient implements IGenericClient {
 
 	}
 
+	/**
+	 * Iterates over a page and all subsequent pages, starting to fetch
+	 * each page as soon as the page before it is handed to the caller
+	 */
+	private final class PrefetchingPageIterator<T extends IBaseBundle> implements Iterator<T> {
+
+		private T myNextPage;
+		private CompletableFuture<T> myNextPageFuture;
+
+		private PrefetchingPageIterator(T theFirstPage) {
+			myNextPage = theFirstPage;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (myNextPage == null && myNextPageFuture != null) {
+				CompletableFuture<T> future = myNextPageFuture;
+				myNextPageFuture = null;
+				try {
+					myNextPage = future.join();
+				} catch (CompletionException e) {
+					if (e.getCause() instanceof RuntimeException) {
+						throw (RuntimeException) e.getCause();
+					}
+					throw e;
+				}
+			}
+			return myNextPage != null;
+		}
+
+		@Override
+		public T next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException(Msg.code(2292) + "No more pages");
+			}
+			T retVal = myNextPage;
+			myNextPage = null;
+			if (isNotBlank(BundleUtil.getLinkUrlOfType(myContext, retVal, IBaseBundle.LINK_NEXT))) {
+				myNextPageFuture = loadPage().next(retVal).executeAsync();
+			}
+			return retVal;
+		}
+
+	}
+
 	@SuppressWarnings({"unchecked", "rawtypes"})
 	private final class LoadPageInternal implements IGetPage, IGetPageUntyped {
 
@@ -993,6 +1067,11 @@ public class GenericClient extends BaseClient implements IGenericClient {
 			return new GetPageInternal(myPageUrl, theBundleType);
 		}
 
+		@Override
+		public IGetPageStream andStreamResources() {
+			return new StreamResourcesInternal(myPageUrl);
+		}
+
 		@Override
 		public IGetPageUntyped byUrl(String thePageUrl) {
 			if (isBlank(thePageUrl)) {
@@ -1007,6 +1086,12 @@ public class GenericClient extends BaseClient implements IGenericClient {
 			return nextOrPrevious("next", theBundle);
 		}
 
+		@Override
+		public <T extends IBaseBundle> Iterator<T> iterate(T theFirstPage) {
+			Validate.notNull(theFirstPage, "theFirstPage must not be null");
+			return new PrefetchingPageIterator<>(theFirstPage);
+		}
+
 		private <T extends IBaseBundle> IGetPageTyped<T> nextOrPrevious(String theWantRel, T theBundle) {
 			RuntimeResourceDefinition def = myContext.getResourceDefinition(theBundle);
 			List<IBase> links = def.getChildByName("link").getAccessor().getValues(theBundle);
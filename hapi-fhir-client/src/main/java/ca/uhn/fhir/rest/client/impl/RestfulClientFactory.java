@@ -48,6 +48,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
 
 /**
  * Base class for a REST client factory implementation
@@ -66,6 +67,8 @@ public abstract class RestfulClientFactory implements IRestfulClientFactory {
 	private String myProxyPassword;
 	private int myPoolMaxTotal = DEFAULT_POOL_MAX;
 	private int myPoolMaxPerRoute = DEFAULT_POOL_MAX_PER_ROUTE;
+	private boolean myAsyncMaxConcurrentRequestsPerServerBaseExplicitlySet;
+	private final AsyncRequestDispatcher myAsyncRequestDispatcher = new AsyncRequestDispatcher(DEFAULT_ASYNC_MAX_CONCURRENT_REQUESTS_PER_SERVER_BASE);
 
 	/**
 	 * Constructor
@@ -250,9 +253,32 @@ public abstract class RestfulClientFactory implements IRestfulClientFactory {
 	@Override
 	public synchronized void setPoolMaxPerRoute(int thePoolMaxPerRoute) {
 		myPoolMaxPerRoute = thePoolMaxPerRoute;
+		if (!myAsyncMaxConcurrentRequestsPerServerBaseExplicitlySet) {
+			myAsyncRequestDispatcher.setMaxConcurrentRequestsPerServerBase(thePoolMaxPerRoute);
+		}
 		resetHttpClient();
 	}
 
+	@Override
+	public int getAsyncMaxConcurrentRequestsPerServerBase() {
+		return myAsyncRequestDispatcher.getMaxConcurrentRequestsPerServerBase();
+	}
+
+	@Override
+	public synchronized void setAsyncMaxConcurrentRequestsPerServerBase(int theAsyncMaxConcurrentRequestsPerServerBase) {
+		myAsyncRequestDispatcher.setMaxConcurrentRequestsPerServerBase(theAsyncMaxConcurrentRequestsPerServerBase);
+		myAsyncMaxConcurrentRequestsPerServerBaseExplicitlySet = true;
+	}
+
+	@Override
+	public void setAsyncExecutor(Executor theAsyncExecutor) {
+		myAsyncRequestDispatcher.setExecutor(theAsyncExecutor);
+	}
+
+	AsyncRequestDispatcher getAsyncRequestDispatcher() {
+		return myAsyncRequestDispatcher;
+	}
+
 	@Deprecated // override deprecated method
 	@Override
 	public synchronized ServerValidationModeEnum getServerValidationModeEnum() {
@@ -0,0 +1,113 @@
+package ca.uhn.fhir.rest.client.impl;
+
+import ca.uhn.fhir.rest.client.apache.ApacheRestfulClientFactory;
+import ca.uhn.fhir.rest.client.api.IRestfulClientFactory;
+import ca.uhn.fhir.rest.client.exceptions.FhirClientConnectionException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AsyncRequestDispatcherTest {
+
+	private final ExecutorService myExecutor = Executors.newFixedThreadPool(20);
+
+	@AfterEach
+	public void after() {
+		myExecutor.shutdownNow();
+	}
+
+	@Test
+	public void testConcurrencyIsLimitedPerServerBase() throws Exception {
+		AsyncRequestDispatcher dispatcher = new AsyncRequestDispatcher(2);
+		dispatcher.setExecutor(myExecutor);
+
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger inFlight = new AtomicInteger();
+		AtomicInteger maxInFlight = new AtomicInteger();
+
+		List<CompletableFuture<Integer>> futures = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			int index = i;
+			futures.add(dispatcher.submit("http://a/fhir", () -> {
+				maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+				try {
+					assertTrue(release.await(10, TimeUnit.SECONDS));
+				} catch (InterruptedException e) {
+					throw new IllegalStateException(e);
+				}
+				inFlight.decrementAndGet();
+				return index;
+			}));
+		}
+
+		// Requests to another server base are not held up by the first one
+		CompletableFuture<String> other = dispatcher.submit("http://b/fhir", () -> "B");
+		assertEquals("B", other.get(10, TimeUnit.SECONDS));
+		assertFalse(futures.get(0).isDone());
+
+		release.countDown();
+		for (int i = 0; i < futures.size(); i++) {
+			assertEquals(i, futures.get(i).get(10, TimeUnit.SECONDS));
+		}
+		assertEquals(2, maxInFlight.get());
+	}
+
+	@Test
+	public void testFailureIsPropagatedAndReleasesSlot() throws Exception {
+		AsyncRequestDispatcher dispatcher = new AsyncRequestDispatcher(1);
+		dispatcher.setExecutor(myExecutor);
+
+		CompletableFuture<String> failed = dispatcher.submit("http://a/fhir", () -> {
+			throw new FhirClientConnectionException("FAILED");
+		});
+		ExecutionException e = assertThrows(ExecutionException.class, () -> failed.get(10, TimeUnit.SECONDS));
+		assertEquals(FhirClientConnectionException.class, e.getCause().getClass());
+
+		assertEquals("OK", dispatcher.submit("http://a/fhir", () -> "OK").get(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testRejectedByExecutor() throws Exception {
+		AsyncRequestDispatcher dispatcher = new AsyncRequestDispatcher(1);
+		dispatcher.setExecutor(t -> {
+			throw new RejectedExecutionException("Shut down");
+		});
+
+		CompletableFuture<String> rejected = dispatcher.submit("http://a/fhir", () -> "OK");
+		ExecutionException e = assertThrows(ExecutionException.class, () -> rejected.get(10, TimeUnit.SECONDS));
+		assertEquals(FhirClientConnectionException.class, e.getCause().getClass());
+
+		// The slot is released, so requests can proceed once the executor accepts them again
+		dispatcher.setExecutor(myExecutor);
+		assertEquals("OK", dispatcher.submit("http://a/fhir", () -> "OK").get(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testFactoryLimitFollowsPoolMaxPerRouteUntilSet() {
+		ApacheRestfulClientFactory factory = new ApacheRestfulClientFactory();
+		assertEquals(IRestfulClientFactory.DEFAULT_POOL_MAX_PER_ROUTE, factory.getAsyncMaxConcurrentRequestsPerServerBase());
+
+		factory.setPoolMaxPerRoute(5);
+		assertEquals(5, factory.getAsyncMaxConcurrentRequestsPerServerBase());
+
+		factory.setAsyncMaxConcurrentRequestsPerServerBase(2);
+		factory.setPoolMaxPerRoute(8);
+		assertEquals(2, factory.getAsyncMaxConcurrentRequestsPerServerBase());
+	}
+
+}
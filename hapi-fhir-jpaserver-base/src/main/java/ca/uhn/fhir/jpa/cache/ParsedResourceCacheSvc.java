@@ -0,0 +1,349 @@
+package ca.uhn.fhir.jpa.cache;
+
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.IHapiBootOrder;
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.interceptor.api.Hook;
+import ca.uhn.fhir.interceptor.api.IInterceptorService;
+import ca.uhn.fhir.interceptor.api.Pointcut;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.api.dao.IDao;
+import ca.uhn.fhir.jpa.entity.ResourceSearchView;
+import ca.uhn.fhir.jpa.model.entity.IBaseResourceEntity;
+import ca.uhn.fhir.jpa.model.entity.ResourceHistoryTable;
+import ca.uhn.fhir.jpa.model.entity.ResourceTable;
+import ca.uhn.fhir.rest.api.Constants;
+import ca.uhn.fhir.sl.cache.Cache;
+import ca.uhn.fhir.sl.cache.CacheFactory;
+import org.hl7.fhir.instance.model.api.IAnyResource;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.instance.model.api.IIdType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.Nullable;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This service holds an in-memory cache of parsed resources, keyed by resource PID and version,
+ * so that hot resources (e.g. reference data which is <code>_include</code>d by many searches)
+ * do not need to be fetched and parsed from the database every time they are loaded.
+ * <p>
+ * Cached resources are never handed out directly, since callers and interceptors are free to
+ * modify the resources they receive. Instead a copy is made on every hit, which is still
+ * considerably cheaper than inflating and parsing the stored resource body.
+ * </p>
+ * <p>
+ * Only a single version is cached per resource PID, and a lookup only hits if the requested
+ * version matches. Entries are also invalidated when a resource is updated, deleted or expunged,
+ * since operations such as <code>$meta-add</code> can change a resource without creating a new
+ * version.
+ * </p>
+ * <p>
+ * This cache is disabled unless {@link JpaStorageSettings#setParsedResourceCacheMaximumSize(int)}
+ * is set.
+ * </p>
+ *
+ * @since 6.6.0
+ */
+public class ParsedResourceCacheSvc {
+
+	private static final Logger ourLog = LoggerFactory.getLogger(ParsedResourceCacheSvc.class);
+	private static final long EXPIRE_AFTER_WRITE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+	private final AtomicLong myHitCount = new AtomicLong();
+	private final AtomicLong myMissCount = new AtomicLong();
+	@Autowired
+	private JpaStorageSettings myStorageSettings;
+	@Autowired
+	private FhirContext myContext;
+	@Autowired
+	private IInterceptorService myInterceptorService;
+	private volatile Cache<Long, CachedResource> myCache;
+	private int myCacheMaximumSize;
+
+	/**
+	 * Constructor
+	 */
+	public ParsedResourceCacheSvc() {
+		super();
+	}
+
+	@EventListener(classes = {ContextRefreshedEvent.class})
+	@Order(IHapiBootOrder.REGISTER_INTERCEPTORS)
+	public void start() {
+		myInterceptorService.registerInterceptor(this);
+	}
+
+	@PreDestroy
+	public void stop() {
+		myInterceptorService.unregisterInterceptor(this);
+	}
+
+	/**
+	 * Is the cache enabled?
+	 */
+	public boolean isEnabled() {
+		return myStorageSettings.getParsedResourceCacheMaximumSize() > 0;
+	}
+
+	/**
+	 * Returns a copy of the cached resource with the given PID and version, or
+	 * <code>null</code> if it is not in the cache (or the cache is disabled).
+	 */
+	@SuppressWarnings("unchecked")
+	@Nullable
+	public <T extends IBaseResource> T get(Long theResourcePid, long theVersion) {
+		Cache<Long, CachedResource> cache = getCache();
+		if (cache == null) {
+			return null;
+		}
+
+		CachedResource cached = cache.getIfPresent(theResourcePid);
+		if (cached == null || cached.getVersion() != theVersion) {
+			myMissCount.incrementAndGet();
+			return null;
+		}
+
+		myHitCount.incrementAndGet();
+		return (T) cached.copyResource(myContext, theResourcePid);
+	}
+
+	/**
+	 * Adds a resource which has just been loaded from the given entity to the cache.
+	 * The entry is only added once the current database transaction commits, so that
+	 * versions written by a transaction which is later rolled back never make it into
+	 * the cache.
+	 */
+	public void put(IBaseResourceEntity theEntity, IBaseResource theResource) {
+		Cache<Long, CachedResource> cache = getCache();
+		if (cache == null || !isCacheable(theEntity, theResource)) {
+			return;
+		}
+
+		Long resourcePid = theEntity.getResourceId();
+		CachedResource cached = new CachedResource(theEntity.getVersion(), myContext.newTerser().clone(theResource), theResource.getUserData(Constants.RESOURCE_PARTITION_ID));
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					cache.put(resourcePid, cached);
+				}
+			});
+		} else {
+			cache.put(resourcePid, cached);
+		}
+	}
+
+	private boolean isCacheable(IBaseResourceEntity theEntity, IBaseResource theResource) {
+		if (theResource == null || theEntity.getDeleted() != null || theEntity.getResourceId() == null) {
+			return false;
+		}
+
+		/*
+		 * Only the RI structures keep all of their metadata in the data elements which
+		 * FhirTerser#clone copies, and we only cache plain resource types since a clone
+		 * of a custom type will come back as the base type.
+		 */
+		if (!(theResource instanceof IAnyResource)) {
+			return false;
+		}
+		if (myContext.getResourceDefinition(myContext.getResourceType(theResource)).getImplementingClass() != theResource.getClass()) {
+			return false;
+		}
+
+		int length = getStoredLength(theEntity);
+		return length >= 0 && length <= myStorageSettings.getParsedResourceCacheMaximumResourceLength();
+	}
+
+	/**
+	 * Removes the given resource from the cache, both now and once the current
+	 * transaction completes (in case a concurrent read re-caches it in the meantime)
+	 */
+	public void invalidate(@Nullable Long theResourcePid) {
+		Cache<Long, CachedResource> cache = myCache;
+		if (cache == null) {
+			return;
+		}
+
+		if (theResourcePid == null) {
+			invalidateAll();
+			return;
+		}
+
+		cache.invalidate(theResourcePid);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int theStatus) {
+					cache.invalidate(theResourcePid);
+				}
+			});
+		}
+	}
+
+	public void invalidateAll() {
+		Cache<Long, CachedResource> cache = myCache;
+		if (cache != null) {
+			cache.invalidateAll();
+		}
+	}
+
+	@Hook(Pointcut.STORAGE_PRECOMMIT_RESOURCE_UPDATED)
+	public void resourceUpdated(IBaseResource theResource) {
+		invalidate(getResourcePid(theResource));
+	}
+
+	@Hook(Pointcut.STORAGE_PRECOMMIT_RESOURCE_DELETED)
+	public void resourceDeleted(IBaseResource theResource) {
+		invalidate(getResourcePid(theResource));
+	}
+
+	@Hook(Pointcut.STORAGE_PRESTORAGE_EXPUNGE_RESOURCE)
+	public void resourceExpunged(IIdType theId, IBaseResource theResource) {
+		invalidate(getResourcePid(theResource));
+	}
+
+	@Hook(Pointcut.STORAGE_PRESTORAGE_EXPUNGE_EVERYTHING)
+	public void everythingExpunged() {
+		invalidateAll();
+	}
+
+	public long getHitCount() {
+		return myHitCount.get();
+	}
+
+	public long getMissCount() {
+		return myMissCount.get();
+	}
+
+	/**
+	 * Returns the fraction of lookups (between 0 and 1) which were served from the cache
+	 */
+	public double getHitRate() {
+		long hits = myHitCount.get();
+		long total = hits + myMissCount.get();
+		return total == 0 ? 0.0 : (double) hits / total;
+	}
+
+	public long getEstimatedSize() {
+		Cache<Long, CachedResource> cache = myCache;
+		return cache != null ? cache.estimatedSize() : 0;
+	}
+
+	/**
+	 * Clears the cache and resets the hit/miss statistics
+	 */
+	public void clear() {
+		invalidateAll();
+		myHitCount.set(0);
+		myMissCount.set(0);
+	}
+
+	@Nullable
+	private Cache<Long, CachedResource> getCache() {
+		int maximumSize = myStorageSettings.getParsedResourceCacheMaximumSize();
+		if (maximumSize <= 0) {
+			return null;
+		}
+
+		Cache<Long, CachedResource> retVal = myCache;
+		if (retVal == null || myCacheMaximumSize != maximumSize) {
+			synchronized (this) {
+				if (myCache == null || myCacheMaximumSize != maximumSize) {
+					ourLog.info("Creating parsed resource cache with maximum size {}", maximumSize);
+					myCacheMaximumSize = maximumSize;
+					myCache = CacheFactory.build(EXPIRE_AFTER_WRITE_MILLIS, maximumSize);
+				}
+				retVal = myCache;
+			}
+		}
+		return retVal;
+	}
+
+	@Nullable
+	private static Long getResourcePid(@Nullable IBaseResource theResource) {
+		if (theResource == null) {
+			return null;
+		}
+		return IDao.RESOURCE_PID.get(theResource);
+	}
+
+	private static int getStoredLength(IBaseResourceEntity theEntity) {
+		byte[] bytes = null;
+		String text = null;
+		if (theEntity instanceof ResourceSearchView) {
+			bytes = ((ResourceSearchView) theEntity).getResource();
+			text = ((ResourceSearchView) theEntity).getResourceTextVc();
+		} else if (theEntity instanceof ResourceHistoryTable) {
+			bytes = ((ResourceHistoryTable) theEntity).getResource();
+			text = ((ResourceHistoryTable) theEntity).getResourceTextVc();
+		} else if (theEntity instanceof ResourceTable && ((ResourceTable) theEntity).getCurrentVersionEntity() != null) {
+			ResourceHistoryTable history = ((ResourceTable) theEntity).getCurrentVersionEntity();
+			bytes = history.getResource();
+			text = history.getResourceTextVc();
+		}
+
+		if (text != null) {
+			return text.length();
+		} else if (bytes != null) {
+			return bytes.length;
+		}
+		return -1;
+	}
+
+	private static class CachedResource {
+
+		private final long myVersion;
+		private final IBaseResource myResource;
+		private final Object myPartitionId;
+
+		CachedResource(long theVersion, IBaseResource theResource, Object thePartitionId) {
+			myVersion = theVersion;
+			myResource = theResource;
+			myPartitionId = thePartitionId;
+		}
+
+		long getVersion() {
+			return myVersion;
+		}
+
+		IBaseResource copyResource(FhirContext theContext, Long theResourcePid) {
+			IBaseResource retVal = theContext.newTerser().clone(myResource);
+			retVal.setId(myResource.getIdElement().getValue());
+			IDao.RESOURCE_PID.put(retVal, theResourcePid);
+			if (myPartitionId != null) {
+				retVal.setUserData(Constants.RESOURCE_PARTITION_ID, myPartitionId);
+			}
+			return retVal;
+		}
+
+	}
+
+}
@@ -112,8 +112,6 @@ import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.support.TransactionCallback;
-import org.springframework.transaction.support.TransactionSynchronization;
-import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.annotation.Nonnull;
@@ -391,8 +389,7 @@ public abstract class BaseHapiFhirDao<T extends IBaseResource> extends BaseStora
 				// actual DB hit(s) happen here
 				retVal = getOrCreateTag(theTagType, theScheme, theTerm, theLabel);
 
-				TransactionSynchronization sync = new AddTagDefinitionToCacheAfterCommitSynchronization(key, retVal);
-				TransactionSynchronizationManager.registerSynchronization(sync);
+				myMemoryCacheService.putAfterCommit(MemoryCacheService.CacheEnum.TAG_DEFINITION, key, retVal);
 
 				resolvedTagDefinitions.put(key, retVal);
 			}
@@ -651,7 +648,7 @@ public abstract class BaseHapiFhirDao<T extends IBaseResource> extends BaseStora
 	 * @return byte array of the resource
 	 */
 	@Nonnull
-	private byte[] getResourceBinary(ResourceEncodingEnum encoding, String encodedResource) {
+	protected static byte[] getResourceBinary(ResourceEncodingEnum encoding, String encodedResource) {
 		byte[] resourceBinary;
 		switch (encoding) {
 			case JSON:
@@ -660,6 +657,9 @@ public abstract class BaseHapiFhirDao<T extends IBaseResource> extends BaseStora
 			case JSONC:
 				resourceBinary = GZipUtil.compress(encodedResource);
 				break;
+			case JSOND:
+				resourceBinary = DeflateDictionaryUtil.compress(encodedResource);
+				break;
 			default:
 			case DEL:
 				resourceBinary = new byte[0];
@@ -1064,6 +1064,8 @@ public abstract class BaseHapiFhirDao<T extends IBaseResource> extends BaseStora
 			postUpdate(entity, (T) theResource, theRequest);
 		}
 
+		myIdHelperService.evictResolvedResourceIdentity(entity.getResourceType(), JpaPid.fromId(entity.getId()), entity.getIdDt().getIdPart());
+
 		if (theCreateNewHistoryEntry) {
 			createHistoryEntry(theRequest, theResource, entity, changed);
 		}
@@ -1565,22 +1567,6 @@ public abstract class BaseHapiFhirDao<T extends IBaseResource> extends BaseStora
 		myPartitionSettings = thePartitionSettings;
 	}
 
-	private class AddTagDefinitionToCacheAfterCommitSynchronization implements TransactionSynchronization {
-
-		private final TagDefinition myTagDefinition;
-		private final MemoryCacheService.TagDefinitionCacheKey myKey;
-
-		public AddTagDefinitionToCacheAfterCommitSynchronization(MemoryCacheService.TagDefinitionCacheKey theKey, TagDefinition theTagDefinition) {
-			myTagDefinition = theTagDefinition;
-			myKey = theKey;
-		}
-
-		@Override
-		public void afterCommit() {
-			myMemoryCacheService.put(MemoryCacheService.CacheEnum.TAG_DEFINITION, myKey, myTagDefinition);
-		}
-	}
-
 	@Nonnull
 	public static MemoryCacheService.TagDefinitionCacheKey toTagDefinitionMemoryCacheKey(TagTypeEnum theTagType, String theScheme, String theTerm) {
 		return new MemoryCacheService.TagDefinitionCacheKey(theTagType, theScheme, theTerm);
@@ -1624,6 +1610,9 @@ public abstract class BaseHapiFhirDao<T extends IBaseResource> extends BaseStora
 			case JSONC:
 				resourceText = GZipUtil.decompress(theResourceBytes);
 				break;
+			case JSOND:
+				resourceText = DeflateDictionaryUtil.decompress(theResourceBytes);
+				break;
 			case DEL:
 				break;
 		}
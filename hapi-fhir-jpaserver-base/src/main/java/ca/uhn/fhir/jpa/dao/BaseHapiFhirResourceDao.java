@@ -42,6 +42,7 @@ import ca.uhn.fhir.jpa.api.model.ExpungeOptions;
 import ca.uhn.fhir.jpa.api.model.ExpungeOutcome;
 import ca.uhn.fhir.jpa.api.model.LazyDaoMethodOutcome;
 import ca.uhn.fhir.jpa.api.svc.IIdHelperService;
+import ca.uhn.fhir.jpa.cache.ParsedResourceCacheSvc;
 import ca.uhn.fhir.jpa.dao.index.IdHelperService;
 import ca.uhn.fhir.jpa.dao.tx.HapiTransactionService;
 import ca.uhn.fhir.jpa.delete.DeleteConflictUtil;
@@ -50,6 +51,7 @@ import ca.uhn.fhir.jpa.model.dao.JpaPid;
 import ca.uhn.fhir.jpa.model.entity.BaseHasResource;
 import ca.uhn.fhir.jpa.model.entity.BaseTag;
 import ca.uhn.fhir.jpa.model.entity.ForcedId;
+import ca.uhn.fhir.jpa.model.entity.ResourceEncodingEnum;
 import ca.uhn.fhir.jpa.model.entity.ResourceHistoryTable;
 import ca.uhn.fhir.jpa.model.entity.ResourceTable;
 import ca.uhn.fhir.jpa.model.entity.TagDefinition;
@@ -112,6 +114,7 @@ import ca.uhn.fhir.validation.IValidatorModule;
 import ca.uhn.fhir.validation.ValidationOptions;
 import ca.uhn.fhir.validation.ValidationResult;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.hash.Hashing;
 import org.apache.commons.lang3.Validate;
 import org.hl7.fhir.instance.model.api.IBaseCoding;
 import org.hl7.fhir.instance.model.api.IBaseMetaType;
@@ -187,6 +190,8 @@ public abstract class BaseHapiFhirResourceDao<T extends IBaseResource> extends B
 	private TransactionTemplate myTxTemplate;
 	@Autowired
 	private UrlPartitioner myUrlPartitioner;
+	@Autowired(required = false)
+	private ParsedResourceCacheSvc myParsedResourceCacheSvc;
 
 	@Override
 	protected HapiTransactionService getTransactionService() {
@@ -398,6 +403,10 @@ public abstract class BaseHapiFhirResourceDao<T extends IBaseResource> extends B
 		// Populate the resource with its actual final stored ID from the entity
 		theResource.setId(entity.getIdDt());
 
+		// Discard anything resolved for this ID earlier in the transaction, such as a
+		// lookup which found that a client assigned ID didn't exist yet
+		myIdHelperService.evictResolvedResourceIdentity(getResourceName(), jpaPid, entity.getTransientForcedId());
+
 		// Pre-cache the resource ID
 		jpaPid.setAssociatedResourceId(entity.getIdType(myFhirContext));
 		myIdHelperService.addResolvedPidToForcedId(jpaPid, theRequestPartitionId, getResourceName(), entity.getTransientForcedId(), null);
@@ -1169,7 +1178,7 @@ public abstract class BaseHapiFhirResourceDao<T extends IBaseResource> extends B
 		BaseHasResource entity = readEntity(theId, theRequest);
 		validateResourceType(entity);
 
-		T retVal = myJpaStorageResourceParser.toResource(myResourceType, entity, null, false);
+		T retVal = toResourceForRead(entity);
 
 		if (theDeletedOk == false) {
 			if (isDeleted(entity)) {
@@ -1186,6 +1195,22 @@ public abstract class BaseHapiFhirResourceDao<T extends IBaseResource> extends B
 		return retVal;
 	}
 
+	private T toResourceForRead(BaseHasResource theEntity) {
+		boolean useCache = myParsedResourceCacheSvc != null && myParsedResourceCacheSvc.isEnabled() && theEntity.getDeleted() == null;
+		if (useCache) {
+			T retVal = myParsedResourceCacheSvc.get(theEntity.getResourceId(), theEntity.getVersion());
+			if (retVal != null) {
+				return retVal;
+			}
+		}
+
+		T retVal = myJpaStorageResourceParser.toResource(myResourceType, theEntity, null, false);
+		if (useCache) {
+			myParsedResourceCacheSvc.put(theEntity, retVal);
+		}
+		return retVal;
+	}
+
 	private T invokeStoragePreShowResources(RequestDetails theRequest, T retVal) {
 		// Interceptor broadcast: STORAGE_PRESHOW_RESOURCES
 		SimplePreResourceShowDetails showDetails = new SimplePreResourceShowDetails(retVal);
@@ -1238,6 +1263,41 @@ public abstract class BaseHapiFhirResourceDao<T extends IBaseResource> extends B
 		}
 	}
 
+	@Override
+	@Transactional(propagation = Propagation.MANDATORY)
+	public int reencodeStoredVersions(IResourcePersistentId thePid) {
+		JpaPid jpaPid = (JpaPid) thePid;
+		ResourceEncodingEnum encoding = getStorageSettings().getResourceEncoding();
+		ResourceTable entity = myResourceTableDao.findById(jpaPid.getId()).orElse(null);
+		if (entity == null) {
+			ourLog.warn("Unable to find entity with PID: {}", jpaPid.getId());
+			return 0;
+		}
+
+		int retVal = 0;
+		for (ResourceHistoryTable next : myResourceHistoryTableDao.findAllVersionsForResourceIdInOrder(jpaPid.getId())) {
+			// Inline text rows and deleted versions have no stored body to rewrite
+			if (next.getResource() == null || next.getEncoding() == null || next.getEncoding() == encoding || next.getEncoding() == ResourceEncodingEnum.DEL) {
+				continue;
+			}
+
+			String text = decodeResource(next.getResource(), next.getEncoding());
+			byte[] binary = getResourceBinary(encoding, text);
+			next.setResource(binary);
+			next.setEncoding(encoding);
+			myResourceHistoryTableDao.save(next);
+
+			// Keep the change-detection hash in line with the stored body of the current version
+			if (next.getVersion() == entity.getVersion()) {
+				entity.setHashSha256(Hashing.sha256().hashBytes(binary).toString());
+				myResourceTableDao.save(entity);
+			}
+			retVal++;
+		}
+
+		return retVal;
+	}
+
 	@Override
 	@Transactional
 	public BaseHasResource readEntity(IIdType theId, boolean theCheckForForcedId, RequestDetails theRequest) {
@@ -28,18 +28,23 @@ import ca.uhn.fhir.jpa.api.dao.IFhirSystemDao;
 import ca.uhn.fhir.jpa.api.model.DaoMethodOutcome;
 import ca.uhn.fhir.jpa.api.svc.IIdHelperService;
 import ca.uhn.fhir.jpa.config.HapiFhirHibernateJpaDialect;
+import ca.uhn.fhir.jpa.dao.data.IResourceTableDao;
 import ca.uhn.fhir.jpa.model.config.PartitionSettings;
 import ca.uhn.fhir.jpa.model.dao.JpaPid;
 import ca.uhn.fhir.jpa.model.entity.ResourceIndexedSearchParamToken;
 import ca.uhn.fhir.jpa.partition.IRequestPartitionHelperSvc;
 import ca.uhn.fhir.jpa.searchparam.MatchUrlService;
+import ca.uhn.fhir.jpa.search.builder.SearchBuilder;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
 import ca.uhn.fhir.model.api.IQueryParameterType;
 import ca.uhn.fhir.rest.api.server.RequestDetails;
 import ca.uhn.fhir.rest.api.server.storage.TransactionDetails;
 import ca.uhn.fhir.rest.param.TokenParam;
+import ca.uhn.fhir.util.FhirTerser;
+import ca.uhn.fhir.util.ResourceReferenceInfo;
 import ca.uhn.fhir.util.StopWatch;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
 import org.apache.commons.lang3.Validate;
 import org.hibernate.internal.SessionImpl;
 import org.hl7.fhir.instance.model.api.IBase;
@@ -50,6 +55,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.annotation.Nullable;
 import javax.persistence.EntityManager;
@@ -63,9 +70,12 @@ import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -75,6 +85,7 @@ import java.util.stream.Collectors;
 
 import static ca.uhn.fhir.jpa.dao.index.IdHelperService.EMPTY_PREDICATE_ARRAY;
 import static org.apache.commons.lang3.StringUtils.defaultString;
+import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 public class TransactionProcessor extends BaseTransactionProcessor {
@@ -101,6 +112,8 @@ public class TransactionProcessor extends BaseTransactionProcessor {
 	private MatchUrlService myMatchUrlService;
 	@Autowired
 	private IRequestPartitionHelperSvc myRequestPartitionSvc;
+	@Autowired
+	private IResourceTableDao myResourceTableDao;
 
 
 	public void setEntityManagerForUnitTest(EntityManager theEntityManager) {
@@ -124,6 +137,7 @@ public class TransactionProcessor extends BaseTransactionProcessor {
 																				  IdSubstitutionMap theIdSubstitutions, Map<IIdType, DaoMethodOutcome> theIdToPersistedOutcome, IBaseBundle theResponse, IdentityHashMap<IBase, Integer> theOriginalRequestOrder, List<IBase> theEntries, StopWatch theTransactionStopWatch) {
 
 		ITransactionProcessorVersionAdapter versionAdapter = getVersionAdapter();
+		boolean bulkMode = isBulkWriteMode(theEntries);
 		RequestPartitionId requestPartitionId = null;
 		if (!myPartitionSettings.isPartitioningEnabled()) {
 			requestPartitionId = RequestPartitionId.allPartitions();
@@ -212,6 +226,18 @@ public class TransactionProcessor extends BaseTransactionProcessor {
 
 				}
 			}
+
+			/*
+			 * In bulk mode, also pre-resolve the targets of any references within the
+			 * transaction, so that they don't need to be looked up one at a time while indexing.
+			 * If the transaction deletes anything we skip this, since a reference to a
+			 * resource deleted in the same transaction needs to fail the normal way.
+			 */
+			boolean preResolveReferences = bulkMode && !myPartitionSettings.isPartitioningEnabled() && !hasDeleteEntries(theEntries);
+			if (preResolveReferences) {
+				preResolveReferenceTargets(theTransactionDetails, requestPartitionId, theEntries, searchParameterMapsToResolve);
+			}
+
 			if (searchParameterMapsToResolve.size() > 0) {
 				CriteriaBuilder cb = myEntityManager.getCriteriaBuilder();
 				CriteriaQuery<ResourceIndexedSearchParamToken> cq = cb.createQuery(ResourceIndexedSearchParamToken.class);
@@ -245,7 +271,7 @@ public class TransactionProcessor extends BaseTransactionProcessor {
 
 				}
 
-				if (orPredicates.size() > 1) {
+				if (orPredicates.size() > 1 || (bulkMode && orPredicates.size() > 0)) {
 					cq.where(cb.or(orPredicates.toArray(EMPTY_PREDICATE_ARRAY)));
 
 					Map<Long, List<MatchUrlToResolve>> hashToSearchMap = buildHashToSearchMap(searchParameterMapsToResolve);
@@ -253,6 +279,8 @@ public class TransactionProcessor extends BaseTransactionProcessor {
 					TypedQuery<ResourceIndexedSearchParamToken> query = myEntityManager.createQuery(cq);
 					List<ResourceIndexedSearchParamToken> results = query.getResultList();
 
+					// In bulk mode, group the matching resources by match URL, since a URL can match more than one resource
+					Map<MatchUrlToResolve, Set<Long>> matchUrlToPids = new LinkedHashMap<>();
 					for (ResourceIndexedSearchParamToken nextResult : results) {
 						Optional<List<MatchUrlToResolve>> matchedSearch = Optional.ofNullable(hashToSearchMap.get(nextResult.getHashSystemAndValue()));
 						if (!matchedSearch.isPresent()) {
@@ -260,14 +288,28 @@ public class TransactionProcessor extends BaseTransactionProcessor {
 						}
 						matchedSearch.ifPresent(matchUrlsToResolve -> {
 							matchUrlsToResolve.forEach(matchUrl -> {
-								setSearchToResolvedAndPrefetchFoundResourcePid(theTransactionDetails, idsToPreFetch, nextResult, matchUrl);
+								if (bulkMode) {
+									matchUrlToPids.computeIfAbsent(matchUrl, t -> new LinkedHashSet<>()).add(nextResult.getResourcePid());
+								} else {
+									setSearchToResolvedAndPrefetchFoundResourcePid(theTransactionDetails, idsToPreFetch, nextResult.getResourcePid(), matchUrl);
+								}
 							});
 						});
 					}
-					//For each SP Map which did not return a result, tag it as not found.
+					//In bulk mode, only a URL with exactly one match is resolved here. URLs with multiple
+					//matches are left for the regular processing so that it reports the failure.
+					matchUrlToPids.forEach((matchUrl, pids) -> {
+						if (pids.size() == 1) {
+							setSearchToResolvedAndPrefetchFoundResourcePid(theTransactionDetails, idsToPreFetch, pids.iterator().next(), matchUrl);
+						} else {
+							ourLog.debug("Matched url {} to {} resources from database", matchUrl.myRequestUrl, pids.size());
+						}
+					});
+					//For each SP Map which did not return a result, tag it as not found. Conditional
+					//references are left for the regular processing so that it reports the failure.
 					searchParameterMapsToResolve.stream()
 						// No matches
-						.filter(match -> !match.myResolved)
+						.filter(match -> !match.myResolved && !match.myReferenceOnly && !matchUrlToPids.containsKey(match))
 						.forEach(match -> {
 							ourLog.debug("Was unable to match url {} from database", match.myRequestUrl);
 							theTransactionDetails.addResolvedMatchUrl(match.myRequestUrl, TransactionDetails.NOT_FOUND);
@@ -280,7 +322,186 @@ public class TransactionProcessor extends BaseTransactionProcessor {
 
 		}
 
-		return super.doTransactionWriteOperations(theRequest, theActionName, theTransactionDetails, theAllIds, theIdSubstitutions, theIdToPersistedOutcome, theResponse, theOriginalRequestOrder, theEntries, theTransactionStopWatch);
+		/*
+		 * In bulk mode, use a larger JDBC batch size for this session so that the
+		 * (ordered) inserts for each index table are sent in fewer round trips
+		 */
+		SessionImpl session = null;
+		Integer previousJdbcBatchSize = null;
+		if (bulkMode) {
+			session = myEntityManager.unwrap(SessionImpl.class);
+			previousJdbcBatchSize = session.getJdbcBatchSize();
+			session.setJdbcBatchSize(myStorageSettings.getTransactionBulkWriteJdbcBatchSize());
+		}
+
+		try {
+			return super.doTransactionWriteOperations(theRequest, theActionName, theTransactionDetails, theAllIds, theIdSubstitutions, theIdToPersistedOutcome, theResponse, theOriginalRequestOrder, theEntries, theTransactionStopWatch);
+		} finally {
+			if (session != null) {
+				session.setJdbcBatchSize(previousJdbcBatchSize);
+			}
+		}
+	}
+
+	private boolean isBulkWriteMode(List<IBase> theEntries) {
+		int threshold = myStorageSettings.getTransactionBulkWriteThreshold();
+		return threshold > 0 && theEntries.size() >= threshold;
+	}
+
+	private boolean hasDeleteEntries(List<IBase> theEntries) {
+		ITransactionProcessorVersionAdapter versionAdapter = getVersionAdapter();
+		for (IBase nextEntry : theEntries) {
+			if ("DELETE".equals(versionAdapter.getEntryRequestVerb(myFhirContext, nextEntry))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Collects the targets of all references found in the resources in the transaction and resolves
+	 * them using set-based queries. Plain references (e.g. <code>Patient/123</code>) are resolved and
+	 * verified immediately, and conditional references (e.g. <code>Patient?identifier=foo|bar</code>)
+	 * are added to the list of match URLs to resolve along with the conditional creates/updates.
+	 * References which can't be resolved here are left for the regular processing.
+	 */
+	private void preResolveReferenceTargets(TransactionDetails theTransactionDetails, RequestPartitionId theRequestPartitionId, List<IBase> theEntries, List<MatchUrlToResolve> theSearchParameterMapsToResolve) {
+		ITransactionProcessorVersionAdapter versionAdapter = getVersionAdapter();
+		FhirTerser terser = myFhirContext.newTerser();
+		Set<String> resourceTypes = myFhirContext.getResourceTypes();
+
+		Map<String, IIdType> idsToResolve = new HashMap<>();
+		Set<String> matchUrlsToResolve = theSearchParameterMapsToResolve.stream().map(t -> t.myRequestUrl).collect(Collectors.toSet());
+		for (IBase nextEntry : theEntries) {
+			IBaseResource resource = versionAdapter.getResource(nextEntry);
+			if (resource == null) {
+				continue;
+			}
+			for (ResourceReferenceInfo nextRef : terser.getAllResourceReferences(resource)) {
+				IIdType referenceElement = nextRef.getResourceReference().getReferenceElement();
+				String value = referenceElement.getValue();
+				if (isBlank(value) || value.startsWith("#") || value.startsWith("urn:")) {
+					continue;
+				}
+
+				int questionMarkIdx = value.indexOf('?');
+				if (questionMarkIdx != -1) {
+					String resourceType = value.substring(0, questionMarkIdx);
+					if (resourceTypes.contains(resourceType) && SINGLE_PARAMETER_MATCH_URL_PATTERN.matcher(value).matches() && matchUrlsToResolve.add(value)) {
+						if (theTransactionDetails.getResolvedMatchUrls().containsKey(value) || myMatchResourceUrlService.processMatchUrlUsingCacheOnly(resourceType, value) != null) {
+							continue;
+						}
+						RuntimeResourceDefinition resourceDefinition = myFhirContext.getResourceDefinition(resourceType);
+						SearchParameterMap matchUrlSearchMap = myMatchUrlService.translateMatchUrl(value, resourceDefinition);
+						MatchUrlToResolve matchUrlToResolve = new MatchUrlToResolve(value, matchUrlSearchMap, resourceDefinition);
+						matchUrlToResolve.myReferenceOnly = true;
+						theSearchParameterMapsToResolve.add(matchUrlToResolve);
+					}
+					continue;
+				}
+
+				addPlainReferenceTargetToResolve(theTransactionDetails, resourceTypes, referenceElement, idsToResolve);
+			}
+		}
+
+		resolveReferenceTargetIds(theTransactionDetails, theRequestPartitionId, idsToResolve);
+	}
+
+	/**
+	 * Prepares the current database transaction for writing a large number of resources outside of a
+	 * FHIR transaction (e.g. during a bulk import). The targets of any plain references (e.g.
+	 * <code>Patient/123</code>) within the resources are resolved using set-based queries and recorded
+	 * in the transaction details, and the JDBC batch size configured by
+	 * {@link JpaStorageSettings#getTransactionBulkWriteJdbcBatchSize()} is used for the remainder of the
+	 * current database transaction, after which the previous batch size is restored. References are not
+	 * pre-resolved if partitioning is enabled.
+	 */
+	public void prepareForBulkWrite(TransactionDetails theTransactionDetails, RequestPartitionId theRequestPartitionId, List<? extends IBaseResource> theResources) {
+		if (!myPartitionSettings.isPartitioningEnabled()) {
+			FhirTerser terser = myFhirContext.newTerser();
+			Set<String> resourceTypes = myFhirContext.getResourceTypes();
+			Map<String, IIdType> idsToResolve = new HashMap<>();
+			for (IBaseResource nextResource : theResources) {
+				for (ResourceReferenceInfo nextRef : terser.getAllResourceReferences(nextResource)) {
+					IIdType referenceElement = nextRef.getResourceReference().getReferenceElement();
+					String value = referenceElement.getValue();
+					if (isBlank(value) || value.startsWith("#") || value.startsWith("urn:") || value.indexOf('?') != -1) {
+						continue;
+					}
+					addPlainReferenceTargetToResolve(theTransactionDetails, resourceTypes, referenceElement, idsToResolve);
+				}
+			}
+			resolveReferenceTargetIds(theTransactionDetails, theRequestPartitionId, idsToResolve);
+		}
+
+		/*
+		 * Like doTransactionWriteOperations, use a larger JDBC batch size for the writes and put
+		 * the previous one back afterwards, which here is once the current transaction completes
+		 */
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			SessionImpl session = myEntityManager.unwrap(SessionImpl.class);
+			Integer previousJdbcBatchSize = session.getJdbcBatchSize();
+			session.setJdbcBatchSize(myStorageSettings.getTransactionBulkWriteJdbcBatchSize());
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int theStatus) {
+					session.setJdbcBatchSize(previousJdbcBatchSize);
+				}
+			});
+		}
+	}
+
+	private void addPlainReferenceTargetToResolve(TransactionDetails theTransactionDetails, Set<String> theResourceTypes, IIdType theReferenceElement, Map<String, IIdType> theIdsToResolve) {
+		if (theReferenceElement.hasBaseUrl() || !theReferenceElement.hasResourceType() || !theReferenceElement.hasIdPart() || !theResourceTypes.contains(theReferenceElement.getResourceType())) {
+			return;
+		}
+		IIdType id = theReferenceElement.toUnqualifiedVersionless();
+		if (theTransactionDetails.getResolvedResourceId(id) == null) {
+			theIdsToResolve.putIfAbsent(id.getValue(), id);
+		}
+	}
+
+	private void resolveReferenceTargetIds(TransactionDetails theTransactionDetails, RequestPartitionId theRequestPartitionId, Map<String, IIdType> theIdsToResolve) {
+		if (theIdsToResolve.isEmpty()) {
+			return;
+		}
+
+		// Translate the IDs to PIDs (forced IDs are resolved in bulk, numeric IDs are already PIDs)
+		Map<Long, IIdType> pidToId = new HashMap<>();
+		List<IIdType> forcedIds = new ArrayList<>();
+		for (IIdType next : theIdsToResolve.values()) {
+			if (myIdHelperService.idRequiresForcedId(next.getIdPart())) {
+				forcedIds.add(next);
+			} else {
+				pidToId.put(next.getIdPartAsLong(), next);
+			}
+		}
+		if (!forcedIds.isEmpty()) {
+			for (JpaPid next : myIdHelperService.resolveResourcePersistentIdsWithCache(theRequestPartitionId, forcedIds, true)) {
+				IIdType id = next.getAssociatedResourceId();
+				if (id != null && theIdsToResolve.containsKey(id.toUnqualifiedVersionless().getValue())) {
+					pidToId.put(next.getId(), theIdsToResolve.get(id.toUnqualifiedVersionless().getValue()));
+				}
+			}
+		}
+
+		// Verify that the targets exist, have the right type, and aren't deleted
+		int resolvedCount = 0;
+		for (List<Long> nextChunk : Lists.partition(new ArrayList<>(pidToId.keySet()), SearchBuilder.getMaximumPageSize())) {
+			for (Object[] next : myResourceTableDao.findLookupFieldsByResourcePid(nextChunk)) {
+				String resourceType = (String) next[0];
+				Long pid = (Long) next[1];
+				Date deleted = (Date) next[2];
+				IIdType id = pidToId.get(pid);
+				if (id != null && deleted == null && resourceType.equals(id.getResourceType())) {
+					JpaPid jpaPid = JpaPid.fromId(pid);
+					jpaPid.setAssociatedResourceId(id);
+					theTransactionDetails.addResolvedResourceId(id, jpaPid);
+					resolvedCount++;
+				}
+			}
+		}
+		ourLog.debug("Pre-resolved {} of {} reference targets", resolvedCount, theIdsToResolve.size());
 	}
 
 	/**
@@ -318,11 +539,11 @@ public class TransactionProcessor extends BaseTransactionProcessor {
 		return hashToSearch;
 	}
 
-	private void setSearchToResolvedAndPrefetchFoundResourcePid(TransactionDetails theTransactionDetails, List<Long> idsToPreFetch, ResourceIndexedSearchParamToken nextResult, MatchUrlToResolve nextSearchParameterMap) {
+	private void setSearchToResolvedAndPrefetchFoundResourcePid(TransactionDetails theTransactionDetails, List<Long> idsToPreFetch, Long theResourcePid, MatchUrlToResolve nextSearchParameterMap) {
 		ourLog.debug("Matched url {} from database", nextSearchParameterMap.myRequestUrl);
-		idsToPreFetch.add(nextResult.getResourcePid());
-		myMatchResourceUrlService.matchUrlResolved(theTransactionDetails, nextSearchParameterMap.myResourceDefinition.getName(), nextSearchParameterMap.myRequestUrl, JpaPid.fromId(nextResult.getResourcePid()));
-		theTransactionDetails.addResolvedMatchUrl(nextSearchParameterMap.myRequestUrl, JpaPid.fromId(nextResult.getResourcePid()));
+		idsToPreFetch.add(theResourcePid);
+		myMatchResourceUrlService.matchUrlResolved(theTransactionDetails, nextSearchParameterMap.myResourceDefinition.getName(), nextSearchParameterMap.myRequestUrl, JpaPid.fromId(theResourcePid));
+		theTransactionDetails.addResolvedMatchUrl(nextSearchParameterMap.myRequestUrl, JpaPid.fromId(theResourcePid));
 		nextSearchParameterMap.setResolved(true);
 	}
 
@@ -358,6 +579,11 @@ public class TransactionProcessor extends BaseTransactionProcessor {
 		myPartitionSettings = thePartitionSettings;
 	}
 
+	@VisibleForTesting
+	public void setStorageSettingsForUnitTest(JpaStorageSettings theStorageSettings) {
+		myStorageSettings = theStorageSettings;
+	}
+
 	@VisibleForTesting
 	public void setIdHelperServiceForUnitTest(IIdHelperService theIdHelperService) {
 		myIdHelperService = theIdHelperService;
@@ -376,12 +602,14 @@ public class TransactionProcessor extends BaseTransactionProcessor {
 		public boolean myResolved;
 		private Long myHashValue;
 		private Long myHashSystemAndValue;
+		private boolean myReferenceOnly;
 
 		public MatchUrlToResolve(String theRequestUrl, SearchParameterMap theMatchUrlSearchMap, RuntimeResourceDefinition theResourceDefinition) {
 			myRequestUrl = theRequestUrl;
 			myMatchUrlSearchMap = theMatchUrlSearchMap;
 			myResourceDefinition = theResourceDefinition;
 		}
+
 		public void setResolved(boolean theResolved) {
 			myResolved = theResolved;
 		}
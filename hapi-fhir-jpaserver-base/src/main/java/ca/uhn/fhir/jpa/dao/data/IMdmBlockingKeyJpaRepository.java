@@ -0,0 +1,66 @@
+package ca.uhn.fhir.jpa.dao.data;
+
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.jpa.entity.MdmBlockingKey;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface IMdmBlockingKeyJpaRepository extends JpaRepository<MdmBlockingKey, Long>, IHapiFhirJpaRepository {
+
+	@Query("SELECT k FROM MdmBlockingKey k WHERE k.myResourcePid = :resource_pid")
+	List<MdmBlockingKey> findByResourcePid(@Param("resource_pid") Long theResourcePid);
+
+	/**
+	 * @return Rows of [key hash, resource pid] for keys with one of the given hashes in any partition
+	 */
+	@Query("SELECT k.myKeyHash, k.myResourcePid FROM MdmBlockingKey k WHERE k.myKeyHash IN (:key_hashes)")
+	List<Object[]> findByKeyHashes(@Param("key_hashes") Collection<Long> theKeyHashes, Pageable thePage);
+
+	/**
+	 * @return Rows of [key hash, resource pid] for keys with one of the given hashes in one of the given partitions
+	 */
+	@Query("SELECT k.myKeyHash, k.myResourcePid FROM MdmBlockingKey k WHERE k.myKeyHash IN (:key_hashes) AND k.myPartitionIdValue IN (:partition_ids)")
+	List<Object[]> findByKeyHashesAndPartitionIds(@Param("key_hashes") Collection<Long> theKeyHashes, @Param("partition_ids") Collection<Integer> thePartitionIds, Pageable thePage);
+
+	/**
+	 * @return Rows of [key hash, resource pid] for keys with one of the given hashes in the default partition
+	 */
+	@Query("SELECT k.myKeyHash, k.myResourcePid FROM MdmBlockingKey k WHERE k.myKeyHash IN (:key_hashes) AND k.myPartitionIdValue IS NULL")
+	List<Object[]> findByKeyHashesInDefaultPartition(@Param("key_hashes") Collection<Long> theKeyHashes, Pageable thePage);
+
+	/**
+	 * @return Rows of [key hash, resource pid] for keys with one of the given hashes in one of the given partitions or the default partition
+	 */
+	@Query("SELECT k.myKeyHash, k.myResourcePid FROM MdmBlockingKey k WHERE k.myKeyHash IN (:key_hashes) AND (k.myPartitionIdValue IN (:partition_ids) OR k.myPartitionIdValue IS NULL)")
+	List<Object[]> findByKeyHashesAndPartitionIdsOrDefaultPartition(@Param("key_hashes") Collection<Long> theKeyHashes, @Param("partition_ids") Collection<Integer> thePartitionIds, Pageable thePage);
+
+	@Modifying
+	@Query("DELETE FROM MdmBlockingKey k WHERE k.myResourcePid IN (:resource_pids)")
+	int deleteByResourcePids(@Param("resource_pids") Collection<Long> theResourcePids);
+
+}
@@ -0,0 +1,49 @@
+package ca.uhn.fhir.jpa.dao.data;
+
+
+/*
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.jpa.entity.SearchResultBlock;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface ISearchResultBlockDao extends JpaRepository<SearchResultBlock, Long>, IHapiFhirJpaRepository {
+
+	@Query(value = "SELECT b FROM SearchResultBlock b WHERE b.mySearchPid = :search AND b.myFirstOrder < :to AND b.myFirstOrder + b.myPidCount > :from ORDER BY b.myFirstOrder ASC")
+	List<SearchResultBlock> findWithSearchPidInRange(@Param("search") Long theSearchPid, @Param("from") int theFrom, @Param("to") int theTo);
+
+	@Query(value = "SELECT b FROM SearchResultBlock b WHERE b.mySearchPid = :search ORDER BY b.myFirstOrder ASC")
+	List<SearchResultBlock> findWithSearchPid(@Param("search") Long theSearchPid);
+
+	@Query(value = "SELECT b.myId FROM SearchResultBlock b WHERE b.mySearchPid = :search")
+	Slice<Long> findForSearch(Pageable thePage, @Param("search") Long theSearchPid);
+
+	@Modifying
+	@Query("DELETE FROM SearchResultBlock b WHERE b.myId IN :ids")
+	void deleteByIds(@Param("ids") List<Long> theContent);
+
+}
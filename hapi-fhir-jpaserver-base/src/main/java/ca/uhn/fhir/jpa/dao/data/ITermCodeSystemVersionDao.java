@@ -50,4 +50,36 @@ public interface ITermCodeSystemVersionDao extends JpaRepository<TermCodeSystemV
 	@Query("SELECT cs FROM TermCodeSystemVersion cs WHERE cs.myCodeSystemHavingThisVersionAsCurrentVersionIfAny.myResource.myId = :resource_id")
 	TermCodeSystemVersion findCurrentVersionForCodeSystemResourcePid(@Param("resource_id") Long theCodeSystemResourcePid);
 
+	@Query("SELECT cs.myId FROM TermCodeSystemVersion cs WHERE cs.myHierarchyClosureBuilt IS NULL OR cs.myHierarchyClosureBuilt = false ORDER BY cs.myId")
+	List<Long> findPidsWithoutHierarchyClosure();
+
+	/**
+	 * Marks the hierarchy closure of the version as not built, and owned by the given build
+	 *
+	 * @return The number of versions updated, which is 0 if the version no longer exists
+	 */
+	@Modifying
+	@Query("UPDATE TermCodeSystemVersion cs SET cs.myHierarchyClosureBuilt = false, cs.myHierarchyClosureBuildId = :build_id WHERE cs.myId = :pid")
+	int startHierarchyClosureBuild(@Param("pid") Long theCodeSystemVersionPid, @Param("build_id") String theBuildId);
+
+	/**
+	 * Locks the version until the end of the current transaction if it is still owned by the given
+	 * hierarchy closure build
+	 *
+	 * @return The number of versions updated, which is 0 if another build has taken over the version
+	 */
+	@Modifying
+	@Query("UPDATE TermCodeSystemVersion cs SET cs.myHierarchyClosureBuildId = :build_id WHERE cs.myId = :pid AND cs.myHierarchyClosureBuildId = :build_id")
+	int lockHierarchyClosureBuild(@Param("pid") Long theCodeSystemVersionPid, @Param("build_id") String theBuildId);
+
+	/**
+	 * Marks the hierarchy closure of the version as built if it is still owned by the given build
+	 * and not already built
+	 *
+	 * @return The number of versions updated
+	 */
+	@Modifying
+	@Query("UPDATE TermCodeSystemVersion cs SET cs.myHierarchyClosureBuilt = true, cs.myHierarchyClosureBuildId = NULL WHERE cs.myId = :pid AND cs.myHierarchyClosureBuildId = :build_id AND (cs.myHierarchyClosureBuilt IS NULL OR cs.myHierarchyClosureBuilt = false)")
+	int completeHierarchyClosureBuild(@Param("pid") Long theCodeSystemVersionPid, @Param("build_id") String theBuildId);
+
 }
@@ -0,0 +1,55 @@
+package ca.uhn.fhir.jpa.dao.data;
+
+import ca.uhn.fhir.jpa.entity.TermConcept;
+import ca.uhn.fhir.jpa.entity.TermConceptClosure;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+/*
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+public interface ITermConceptClosureDao extends JpaRepository<TermConceptClosure, Long>, IHapiFhirJpaRepository {
+
+	@Query("SELECT COUNT(t) FROM TermConceptClosure t WHERE t.myAncestorPid = :ancestor_pid AND t.myDescendantPid = :descendant_pid")
+	Integer countByAncestorAndDescendant(@Param("ancestor_pid") Long theAncestorPid, @Param("descendant_pid") Long theDescendantPid);
+
+	@Query("SELECT t.myDescendantPid FROM TermConceptClosure t WHERE t.myAncestorPid = :ancestor_pid ORDER BY t.myDescendantPid")
+	List<Long> findDescendantPids(@Param("ancestor_pid") Long theAncestorPid);
+
+	@Query("SELECT c FROM TermConcept c, TermConceptClosure t WHERE t.myAncestorPid = :ancestor_pid AND c.myId = t.myDescendantPid")
+	List<TermConcept> findDescendants(@Param("ancestor_pid") Long theAncestorPid);
+
+	@Query("SELECT c FROM TermConcept c, TermConceptClosure t WHERE t.myDescendantPid = :descendant_pid AND c.myId = t.myAncestorPid")
+	List<TermConcept> findAncestors(@Param("descendant_pid") Long theDescendantPid);
+
+	@Modifying
+	@Query("DELETE FROM TermConceptClosure WHERE myCodeSystemVersionPid = :cs_pid")
+	int deleteByCodeSystemVersion(@Param("cs_pid") Long thePid);
+
+	@Modifying
+	@Query("DELETE FROM TermConceptClosure WHERE myAncestorPid IN (:pids) OR myDescendantPid IN (:pids)")
+	int deleteByConceptPids(@Param("pids") Collection<Long> theConceptPids);
+
+}
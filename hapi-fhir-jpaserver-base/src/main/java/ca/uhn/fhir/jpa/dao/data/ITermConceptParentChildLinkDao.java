@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.util.Collection;
+import java.util.List;
 
 /*
  * #%L
@@ -33,6 +34,12 @@ public interface ITermConceptParentChildLinkDao extends JpaRepository<TermConcep
 	@Query("SELECT t.myParentPid FROM TermConceptParentChildLink t WHERE t.myChildPid = :child_pid")
 	Collection<Long> findAllWithChild(@Param("child_pid") Long theConceptPid);
 
+	/**
+	 * Returns the child PID and parent PID of every link in the given code system version
+	 */
+	@Query("SELECT t.myChildPid, t.myParentPid FROM TermConceptParentChildLink t WHERE t.myCodeSystemVersionPid = :cs_pid")
+	List<Object[]> findChildAndParentPidsByCodeSystemVersion(@Param("cs_pid") Long theCodeSystemVersionPid);
+
 	@Modifying
 	@Query("DELETE FROM TermConceptParentChildLink WHERE myCodeSystemVersionPid = :cs_pid")
 	int deleteByCodeSystemVersion(@Param("cs_pid") Long thePid);
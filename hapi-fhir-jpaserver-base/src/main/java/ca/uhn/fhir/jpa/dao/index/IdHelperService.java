@@ -80,6 +80,7 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 import static ca.uhn.fhir.jpa.search.builder.predicate.BaseJoiningPredicateBuilder.replaceDefaultPartitionIdIfNonNull;
+import static org.apache.commons.lang3.StringUtils.defaultString;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 /**
@@ -153,16 +154,13 @@ public class IdHelperService implements IIdHelperService<JpaPid> {
 			theResourceId = theResourceId.substring(theResourceId.indexOf("/") + 1);
 		}
 		IdDt id = new IdDt(theResourceType, theResourceId);
-		Map<String, List<IResourceLookup<JpaPid>>> matches = translateForcedIdToPids(theRequestPartitionId,
-			Collections.singletonList(id),
-			theExcludeDeleted);
+		List<IResourceLookup<JpaPid>> matches = resolveResourceIdentityMatches(theRequestPartitionId, id, theExcludeDeleted);
 
-		// We only pass 1 input in so only 0..1 will come back
-		if (matches.isEmpty() || !matches.containsKey(theResourceId)) {
+		if (matches.isEmpty()) {
 			throw new ResourceNotFoundException(Msg.code(2001) + "Resource " + id + " is not known");
 		}
 
-		if (matches.size() > 1 || matches.get(theResourceId).size() > 1) {
+		if (matches.size() > 1) {
 			/*
 			 *  This means that:
 			 *  1. There are two resources with the exact same resource type and forced id
@@ -172,7 +170,108 @@ public class IdHelperService implements IIdHelperService<JpaPid> {
 			throw new PreconditionFailedException(Msg.code(1099) + msg);
 		}
 
-		return matches.get(theResourceId).get(0);
+		return matches.get(0);
+	}
+
+	@Nonnull
+	private List<IResourceLookup<JpaPid>> resolveResourceIdentityMatches(@Nonnull RequestPartitionId theRequestPartitionId, IIdType theId, boolean theExcludeDeleted) {
+		ResourceIdentityResolutionContext context = ResourceIdentityResolutionContext.getForCurrentTransaction();
+		if (context == null) {
+			// We only pass 1 input in so only 0..1 will come back
+			Map<String, List<IResourceLookup<JpaPid>>> matches = translateForcedIdToPids(theRequestPartitionId, Collections.singletonList(theId), theExcludeDeleted);
+			return matches.getOrDefault(theId.getIdPart(), Collections.emptyList());
+		}
+
+		String identityKey = toIdentityKey(theId);
+		String qualifier = RequestPartitionId.stringifyForKey(theRequestPartitionId) + "/" + theExcludeDeleted;
+		List<IResourceLookup<JpaPid>> retVal = context.getLookups(identityKey, qualifier);
+		if (retVal != null) {
+			return retVal;
+		}
+
+		/*
+		 * Resolve this ID along with any others that callers have told us they are about to
+		 * ask for, so that they are all fetched with one query per resource type
+		 */
+		Map<String, IIdType> idsToResolve = new HashMap<>();
+		idsToResolve.put(identityKey, theId);
+		for (IIdType next : context.removePendingLookups(theRequestPartitionId)) {
+			String nextIdentityKey = toIdentityKey(next);
+			if (context.getLookups(nextIdentityKey, qualifier) == null) {
+				idsToResolve.putIfAbsent(nextIdentityKey, next);
+			}
+		}
+
+		Map<String, List<IResourceLookup<JpaPid>>> matches = translateForcedIdToPids(theRequestPartitionId, idsToResolve.values(), theExcludeDeleted);
+		for (Map.Entry<String, IIdType> next : idsToResolve.entrySet()) {
+			IIdType nextId = next.getValue();
+			List<IResourceLookup<JpaPid>> nextMatches = matches.getOrDefault(nextId.getIdPart(), Collections.emptyList());
+			if (!isPidLookup(nextId)) {
+				// Forced IDs for different resource types can share the same ID part
+				nextMatches = nextMatches
+					.stream()
+					.filter(t -> nextId.getResourceType().equals(t.getResourceType()))
+					.collect(Collectors.toList());
+			}
+			context.putLookups(next.getKey(), qualifier, nextMatches);
+		}
+
+		return context.getLookups(identityKey, qualifier);
+	}
+
+	/**
+	 * Numeric IDs are resolved directly against the resource table, regardless of the resource type
+	 * they were requested with (unless client ID strategy is {@link JpaStorageSettings.ClientIdStrategyEnum#ANY})
+	 */
+	private boolean isPidLookup(IIdType theId) {
+		return myStorageSettings.getResourceClientIdStrategy() != JpaStorageSettings.ClientIdStrategyEnum.ANY && isValidPid(theId);
+	}
+
+	@Nonnull
+	private String toIdentityKey(IIdType theId) {
+		if (isPidLookup(theId)) {
+			return theId.getIdPart();
+		}
+		return toIdentityKey(theId.getResourceType(), theId.getIdPart());
+	}
+
+	@Nonnull
+	private static String toIdentityKey(String theResourceType, String theId) {
+		return defaultString(theResourceType) + "/" + theId;
+	}
+
+	/**
+	 * Registers resource IDs which are about to be resolved using {@link #resolveResourceIdentity(RequestPartitionId, String, String)}
+	 * within the current transaction. The first of them to actually be resolved will resolve all of them together.
+	 */
+	@Override
+	public void addPendingResourceIdentityLookups(@Nonnull RequestPartitionId theRequestPartitionId, Collection<IIdType> theIds) {
+		ResourceIdentityResolutionContext context = ResourceIdentityResolutionContext.getForCurrentTransaction();
+		if (context != null) {
+			List<IIdType> ids = theIds
+				.stream()
+				.filter(t -> t.hasResourceType() && t.hasIdPart())
+				.map(t -> (IIdType) new IdDt(t.getResourceType(), t.getIdPart()))
+				.collect(Collectors.toList());
+			context.addPendingLookups(theRequestPartitionId, ids);
+		}
+	}
+
+	/**
+	 * Discards anything resolved for the given resource within the current transaction, since
+	 * it has just been created, updated or deleted
+	 */
+	@Override
+	public void evictResolvedResourceIdentity(String theResourceType, @Nonnull JpaPid theResourcePersistentId, @Nullable String theResourceId) {
+		ResourceIdentityResolutionContext context = (ResourceIdentityResolutionContext) TransactionSynchronizationManager.getResource(ResourceIdentityResolutionContext.class);
+		if (context != null) {
+			String pid = theResourcePersistentId.getId().toString();
+			context.evict(pid);
+			context.evict(toIdentityKey(theResourceType, pid));
+			if (theResourceId != null) {
+				context.evict(toIdentityKey(theResourceType, theResourceId));
+			}
+		}
 	}
 
 	/**
@@ -204,6 +303,15 @@ public class IdHelperService implements IIdHelperService<JpaPid> {
 
 		Map<String, JpaPid> retVals = new HashMap<>();
 
+		if (myStorageSettings.isDeleteEnabled() && theIds.size() > 1) {
+			List<IIdType> forcedIds = theIds
+				.stream()
+				.filter(this::idRequiresForcedId)
+				.map(t -> new IdDt(theResourceType, t))
+				.collect(Collectors.toList());
+			addPendingResourceIdentityLookups(theRequestPartitionId, forcedIds);
+		}
+
 		for (String id : theIds) {
 			JpaPid retVal;
 			if (!idRequiresForcedId(id)) {
@@ -316,6 +424,8 @@ public class IdHelperService implements IIdHelperService<JpaPid> {
 		}
 
 		if (!theIds.isEmpty()) {
+			ResourceIdentityResolutionContext context = ResourceIdentityResolutionContext.getForCurrentTransaction();
+			String qualifier = RequestPartitionId.stringifyForKey(theRequestPartitionId);
 			Set<IIdType> idsToCheck = new HashSet<>(theIds.size());
 			for (IIdType nextId : theIds) {
 				if (myStorageSettings.getResourceClientIdStrategy() != JpaStorageSettings.ClientIdStrategyEnum.ANY) {
@@ -336,15 +446,23 @@ public class IdHelperService implements IIdHelperService<JpaPid> {
 					continue;
 				}
 
+				if (context != null) {
+					Optional<JpaPid> resolvedId = context.getPersistentId(toIdentityKey(nextId.getResourceType(), nextId.getIdPart()), qualifier);
+					if (resolvedId != null) {
+						resolvedId.ifPresent(retVal::add);
+						continue;
+					}
+				}
+
 				idsToCheck.add(nextId);
 			}
-			new QueryChunker<IIdType>().chunk(idsToCheck, SearchBuilder.getMaximumPageSize() / 2, ids -> doResolvePersistentIds(theRequestPartitionId, ids, retVal));
+			new QueryChunker<IIdType>().chunk(idsToCheck, SearchBuilder.getMaximumPageSize() / 2, ids -> doResolvePersistentIds(theRequestPartitionId, ids, retVal, context));
 		}
 
 		return retVal;
 	}
 
-	private void doResolvePersistentIds(RequestPartitionId theRequestPartitionId, List<IIdType> theIds, List<JpaPid> theOutputListToPopulate) {
+	private void doResolvePersistentIds(RequestPartitionId theRequestPartitionId, List<IIdType> theIds, List<JpaPid> theOutputListToPopulate, @Nullable ResourceIdentityResolutionContext theContext) {
 		CriteriaBuilder cb = myEntityManager.getCriteriaBuilder();
 		CriteriaQuery<ForcedId> criteriaQuery = cb.createQuery(ForcedId.class);
 		Root<ForcedId> from = criteriaQuery.from(ForcedId.class);
@@ -369,7 +487,12 @@ public class IdHelperService implements IIdHelperService<JpaPid> {
 
 		TypedQuery<ForcedId> query = myEntityManager.createQuery(criteriaQuery);
 		List<ForcedId> results = query.getResultList();
+		Set<String> foundIdentityKeys = new HashSet<>();
+		String qualifier = RequestPartitionId.stringifyForKey(theRequestPartitionId);
 		for (ForcedId nextId : results) {
+			String identityKey = toIdentityKey(nextId.getResourceType(), nextId.getForcedId());
+			foundIdentityKeys.add(identityKey);
+
 			// Check if the nextId has a resource ID. It may have a null resource ID if a commit is still pending.
 			if (nextId.getResourceId() != null) {
 				JpaPid jpaPid = JpaPid.fromId(nextId.getResourceId());
@@ -378,6 +501,21 @@ public class IdHelperService implements IIdHelperService<JpaPid> {
 
 				String key = toForcedIdToPidKey(theRequestPartitionId, nextId.getResourceType(), nextId.getForcedId());
 				myMemoryCacheService.putAfterCommit(MemoryCacheService.CacheEnum.FORCED_ID_TO_PID, key, jpaPid);
+				if (theContext != null) {
+					theContext.putPersistentId(identityKey, qualifier, Optional.of(jpaPid));
+				}
+			}
+		}
+
+		// Remember the IDs that don't exist too, so that they aren't looked up again in this transaction
+		if (theContext != null) {
+			for (IIdType next : theIds) {
+				if (isNotBlank(next.getResourceType())) {
+					String identityKey = toIdentityKey(next.getResourceType(), next.getIdPart());
+					if (!foundIdentityKeys.contains(identityKey)) {
+						theContext.putPersistentId(identityKey, qualifier, Optional.empty());
+					}
+				}
 			}
 		}
 	}
@@ -482,7 +620,8 @@ public class IdHelperService implements IIdHelperService<JpaPid> {
 		ListMultimap<String, String> typeToIds = organizeIdsByResourceType(theId);
 		for (Map.Entry<String, Collection<String>> nextEntry : typeToIds.asMap().entrySet()) {
 			String nextResourceType = nextEntry.getKey();
-			Collection<String> nextIds = nextEntry.getValue();
+			// Copied, since cached IDs are removed below and removing the last ID of a type would modify the map being iterated
+			Collection<String> nextIds = new ArrayList<>(nextEntry.getValue());
 
 			if (!myStorageSettings.isDeleteEnabled()) {
 				for (Iterator<String> forcedIdIterator = nextIds.iterator(); forcedIdIterator.hasNext(); ) {
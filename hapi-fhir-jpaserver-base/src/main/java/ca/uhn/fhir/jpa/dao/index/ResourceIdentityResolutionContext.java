@@ -0,0 +1,138 @@
+package ca.uhn.fhir.jpa.dao.index;
+
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.model.cross.IResourceLookup;
+import ca.uhn.fhir.jpa.model.dao.JpaPid;
+import org.hl7.fhir.instance.model.api.IIdType;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Holds the resource identities resolved by {@link IdHelperService} for the duration of a single
+ * database transaction, including identities which were found not to exist, as well as any
+ * identities which callers have announced that they are about to resolve so that they can be
+ * fetched together.
+ * <p>
+ * The global caches in {@link ca.uhn.fhir.jpa.util.MemoryCacheService} are only populated after
+ * commit (and some are not used at all when deletes are enabled), so without this a transaction
+ * which references the same resources many times looks each of them up again and again.
+ * </p>
+ * <p>
+ * Entries are keyed by an identity key (see {@link IdHelperService}) and then by a qualifier
+ * describing the partition and options of the lookup. All entries for an identity are discarded
+ * whenever that resource is written within the transaction.
+ * </p>
+ */
+class ResourceIdentityResolutionContext implements TransactionSynchronization {
+
+	private final Map<String, Map<String, List<IResourceLookup<JpaPid>>>> myLookups = new HashMap<>();
+	private final Map<String, Map<String, Optional<JpaPid>>> myPersistentIds = new HashMap<>();
+	private final Map<RequestPartitionId, Set<IIdType>> myPendingLookups = new HashMap<>();
+
+	/**
+	 * Returns the resolved lookups for the given identity, an empty list if the identity is known
+	 * not to exist, or <code>null</code> if it has not been resolved yet
+	 */
+	@Nullable
+	List<IResourceLookup<JpaPid>> getLookups(String theIdentityKey, String theQualifier) {
+		return myLookups.getOrDefault(theIdentityKey, Collections.emptyMap()).get(theQualifier);
+	}
+
+	void putLookups(String theIdentityKey, String theQualifier, @Nonnull List<IResourceLookup<JpaPid>> theLookups) {
+		myLookups.computeIfAbsent(theIdentityKey, t -> new HashMap<>()).put(theQualifier, theLookups);
+	}
+
+	/**
+	 * Returns the resolved persistent ID for the given forced ID, an empty optional if the forced ID
+	 * is known not to exist, or <code>null</code> if it has not been resolved yet
+	 */
+	@SuppressWarnings("OptionalAssignedToNull")
+	@Nullable
+	Optional<JpaPid> getPersistentId(String theIdentityKey, String theQualifier) {
+		return myPersistentIds.getOrDefault(theIdentityKey, Collections.emptyMap()).get(theQualifier);
+	}
+
+	void putPersistentId(String theIdentityKey, String theQualifier, @Nonnull Optional<JpaPid> thePersistentId) {
+		myPersistentIds.computeIfAbsent(theIdentityKey, t -> new HashMap<>()).put(theQualifier, thePersistentId);
+	}
+
+	void addPendingLookups(RequestPartitionId theRequestPartitionId, Collection<IIdType> theIds) {
+		myPendingLookups.computeIfAbsent(theRequestPartitionId, t -> new LinkedHashSet<>()).addAll(theIds);
+	}
+
+	@Nonnull
+	Set<IIdType> removePendingLookups(RequestPartitionId theRequestPartitionId) {
+		Set<IIdType> retVal = myPendingLookups.remove(theRequestPartitionId);
+		return retVal != null ? retVal : Collections.emptySet();
+	}
+
+	void evict(String theIdentityKey) {
+		myLookups.remove(theIdentityKey);
+		myPersistentIds.remove(theIdentityKey);
+	}
+
+	@Override
+	public void suspend() {
+		TransactionSynchronizationManager.unbindResourceIfPossible(ResourceIdentityResolutionContext.class);
+	}
+
+	@Override
+	public void resume() {
+		TransactionSynchronizationManager.bindResource(ResourceIdentityResolutionContext.class, this);
+	}
+
+	@Override
+	public void afterCompletion(int theStatus) {
+		TransactionSynchronizationManager.unbindResourceIfPossible(ResourceIdentityResolutionContext.class);
+	}
+
+	/**
+	 * Returns the context for the current transaction, creating it if needed, or <code>null</code>
+	 * if no transaction synchronization is active
+	 */
+	@Nullable
+	static ResourceIdentityResolutionContext getForCurrentTransaction() {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			return null;
+		}
+		ResourceIdentityResolutionContext retVal = (ResourceIdentityResolutionContext) TransactionSynchronizationManager.getResource(ResourceIdentityResolutionContext.class);
+		if (retVal == null) {
+			retVal = new ResourceIdentityResolutionContext();
+			TransactionSynchronizationManager.bindResource(ResourceIdentityResolutionContext.class, retVal);
+			TransactionSynchronizationManager.registerSynchronization(retVal);
+		}
+		return retVal;
+	}
+
+}
@@ -0,0 +1,121 @@
+package ca.uhn.fhir.jpa.dao.mdm;
+
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.dao.data.IMdmBlockingKeyJpaRepository;
+import ca.uhn.fhir.jpa.entity.MdmBlockingKey;
+import ca.uhn.fhir.jpa.model.dao.JpaPid;
+import ca.uhn.fhir.jpa.model.entity.PartitionablePartitionId;
+import ca.uhn.fhir.mdm.dao.IMdmBlockingKeyDao;
+import com.google.common.collect.Lists;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class MdmBlockingKeyDaoJpaImpl implements IMdmBlockingKeyDao<JpaPid> {
+	private static final int MAX_PARAMETERS_PER_QUERY = 500;
+
+	@Autowired
+	private IMdmBlockingKeyJpaRepository myBlockingKeyRepository;
+
+	@Override
+	public int replaceBlockingKeys(JpaPid theResourcePid, String theResourceType, Collection<Long> theKeyHashes, @Nullable RequestPartitionId theResourcePartitionId) {
+		Set<Long> keyHashesToAdd = new HashSet<>(theKeyHashes);
+		List<MdmBlockingKey> keysToDelete = new ArrayList<>();
+		for (MdmBlockingKey existingKey : myBlockingKeyRepository.findByResourcePid(theResourcePid.getId())) {
+			if (!keyHashesToAdd.remove(existingKey.getKeyHash())) {
+				keysToDelete.add(existingKey);
+			}
+		}
+		myBlockingKeyRepository.deleteAll(keysToDelete);
+
+		PartitionablePartitionId partitionId = null;
+		if (theResourcePartitionId != null && theResourcePartitionId.getFirstPartitionIdOrNull() != null) {
+			partitionId = new PartitionablePartitionId(theResourcePartitionId.getFirstPartitionIdOrNull(), theResourcePartitionId.getPartitionDate());
+		}
+		List<MdmBlockingKey> keysToAdd = new ArrayList<>(keyHashesToAdd.size());
+		for (Long keyHash : keyHashesToAdd) {
+			MdmBlockingKey key = new MdmBlockingKey(theResourcePid.getId(), theResourceType, keyHash);
+			key.setPartitionId(partitionId);
+			keysToAdd.add(key);
+		}
+		myBlockingKeyRepository.saveAll(keysToAdd);
+
+		return keysToAdd.size() + keysToDelete.size();
+	}
+
+	@Override
+	public Optional<Map<Long, Set<JpaPid>>> findResourcePidsByKeyHashes(Collection<Long> theKeyHashes, @Nullable RequestPartitionId theRequestPartitionId, int theMaximumKeys) {
+		Map<Long, Set<JpaPid>> retVal = new HashMap<>();
+		int remaining = theMaximumKeys;
+		for (List<Long> keyHashes : Lists.partition(new ArrayList<>(theKeyHashes), MAX_PARAMETERS_PER_QUERY)) {
+			// Ask for one more row than allowed so that we know if the limit was exceeded
+			List<Object[]> rows = findByKeyHashes(keyHashes, theRequestPartitionId, PageRequest.of(0, remaining + 1));
+			if (rows.size() > remaining) {
+				return Optional.empty();
+			}
+			remaining -= rows.size();
+			for (Object[] next : rows) {
+				Long keyHash = (Long) next[0];
+				Long resourcePid = (Long) next[1];
+				retVal.computeIfAbsent(keyHash, t -> new HashSet<>()).add(JpaPid.fromId(resourcePid));
+			}
+		}
+		return Optional.of(retVal);
+	}
+
+	private List<Object[]> findByKeyHashes(List<Long> theKeyHashes, @Nullable RequestPartitionId theRequestPartitionId, Pageable thePage) {
+		if (theRequestPartitionId == null || theRequestPartitionId.isAllPartitions() || !theRequestPartitionId.hasPartitionIds()) {
+			return myBlockingKeyRepository.findByKeyHashes(theKeyHashes, thePage);
+		}
+
+		List<Integer> partitionIds = theRequestPartitionId.getPartitionIds().stream().filter(Objects::nonNull).collect(Collectors.toList());
+		boolean includeDefaultPartition = partitionIds.size() < theRequestPartitionId.getPartitionIds().size();
+		if (partitionIds.isEmpty()) {
+			return myBlockingKeyRepository.findByKeyHashesInDefaultPartition(theKeyHashes, thePage);
+		} else if (includeDefaultPartition) {
+			return myBlockingKeyRepository.findByKeyHashesAndPartitionIdsOrDefaultPartition(theKeyHashes, partitionIds, thePage);
+		} else {
+			return myBlockingKeyRepository.findByKeyHashesAndPartitionIds(theKeyHashes, partitionIds, thePage);
+		}
+	}
+
+	@Override
+	public void deleteBlockingKeys(Collection<JpaPid> theResourcePids) {
+		List<Long> resourcePids = theResourcePids.stream().map(JpaPid::getId).collect(Collectors.toList());
+		for (List<Long> nextChunk : Lists.partition(resourcePids, MAX_PARAMETERS_PER_QUERY)) {
+			myBlockingKeyRepository.deleteByResourcePids(nextChunk);
+		}
+	}
+}
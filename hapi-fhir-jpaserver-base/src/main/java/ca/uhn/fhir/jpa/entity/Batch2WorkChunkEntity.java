@@ -49,7 +49,8 @@ import static org.apache.commons.lang3.StringUtils.left;
 
 @Entity
 @Table(name = "BT2_WORK_CHUNK", indexes = {
-	@Index(name = "IDX_BT2WC_II_SEQ", columnList = "INSTANCE_ID,SEQ")
+	@Index(name = "IDX_BT2WC_II_SEQ", columnList = "INSTANCE_ID,SEQ"),
+	@Index(name = "IDX_BT2WC_II_SI_S", columnList = "INSTANCE_ID,TGT_STEP_ID,STAT")
 })
 public class Batch2WorkChunkEntity implements Serializable {
 
@@ -0,0 +1,116 @@
+package ca.uhn.fhir.jpa.entity;
+
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.jpa.model.entity.BasePartitionable;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+
+/**
+ * One MDM blocking key of an MDM source resource. A blocking key is a hash of the resource type, a candidate
+ * search parameter name and one normalized value of that parameter in the resource. Two resources which share
+ * a key for every candidate search parameter of an MDM rules candidate search param set are candidates for
+ * matching one another, so candidate lookup is a single indexed query on this table instead of a FHIR search.
+ * <p>
+ * Keys are only written when {@link ca.uhn.fhir.mdm.api.IMdmSettings#isCandidateSearchUsingBlockingKeys()} is
+ * enabled, and are replaced every time the resource is processed by MDM. There is deliberately no foreign key
+ * to the resource table: keys of deleted or expunged resources are ignored and cleaned up on lookup.
+ * </p>
+ *
+ * @since 6.6.0
+ */
+@Entity
+@Table(name = "MPI_BLOCKING_KEY", indexes = {
+	@Index(name = MdmBlockingKey.IDX_KEY_HASH, columnList = "KEY_HASH,RES_ID"),
+	@Index(name = MdmBlockingKey.IDX_RESOURCE, columnList = "RES_ID")
+})
+public class MdmBlockingKey extends BasePartitionable {
+	public static final String IDX_KEY_HASH = "IDX_MPI_BLOCKKEY_HASH";
+	public static final String IDX_RESOURCE = "IDX_MPI_BLOCKKEY_RES";
+	public static final int RESOURCE_TYPE_LENGTH = 40;
+	private static final long serialVersionUID = 1L;
+
+	@Id
+	@SequenceGenerator(name = "SEQ_MPI_BLOCKING_KEY", sequenceName = "SEQ_MPI_BLOCKING_KEY")
+	@GeneratedValue(strategy = GenerationType.AUTO, generator = "SEQ_MPI_BLOCKING_KEY")
+	@Column(name = "PID")
+	private Long myId;
+
+	@Column(name = "RES_ID", nullable = false)
+	private Long myResourcePid;
+
+	@Column(name = "RES_TYPE", nullable = false, length = RESOURCE_TYPE_LENGTH)
+	private String myResourceType;
+
+	@Column(name = "KEY_HASH", nullable = false)
+	private Long myKeyHash;
+
+	/**
+	 * Constructor
+	 */
+	public MdmBlockingKey() {
+		super();
+	}
+
+	/**
+	 * Constructor
+	 */
+	public MdmBlockingKey(Long theResourcePid, String theResourceType, Long theKeyHash) {
+		myResourcePid = theResourcePid;
+		myResourceType = theResourceType;
+		myKeyHash = theKeyHash;
+	}
+
+	public Long getId() {
+		return myId;
+	}
+
+	public Long getResourcePid() {
+		return myResourcePid;
+	}
+
+	public String getResourceType() {
+		return myResourceType;
+	}
+
+	public Long getKeyHash() {
+		return myKeyHash;
+	}
+
+	@Override
+	public String toString() {
+		return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+			.append("pid", myId)
+			.append("resourcePid", myResourcePid)
+			.append("resourceType", myResourceType)
+			.append("keyHash", myKeyHash)
+			.toString();
+	}
+}
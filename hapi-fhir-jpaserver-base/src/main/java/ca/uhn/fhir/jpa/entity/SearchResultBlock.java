@@ -0,0 +1,135 @@
+package ca.uhn.fhir.jpa.entity;
+
+
+/*
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Lob;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import java.io.Serializable;
+
+/**
+ * A block of consecutive results for a {@link Search}, stored as a single row. This is
+ * used instead of one {@link SearchResult} row per result when the
+ * {@link ca.uhn.fhir.jpa.search.cache.BlockSearchResultCacheSvcImpl block search result cache}
+ * is enabled.
+ *
+ * @see ca.uhn.fhir.jpa.search.cache.SearchResultBlockCodec
+ * @since 6.6.0
+ */
+@Entity
+@Table(name = "HFJ_SEARCH_RESULT_BLOCK", uniqueConstraints = {
+	@UniqueConstraint(name = "IDX_SEARCHRESBLK_ORDER", columnNames = {"SEARCH_PID", "FIRST_ORDER"})
+})
+public class SearchResultBlock implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	@GeneratedValue(strategy = GenerationType.AUTO, generator = "SEQ_SEARCH_RES_BLOCK")
+	@SequenceGenerator(name = "SEQ_SEARCH_RES_BLOCK", sequenceName = "SEQ_SEARCH_RES_BLOCK")
+	@Id
+	@Column(name = "PID")
+	private Long myId;
+	@Column(name = "SEARCH_PID", insertable = true, updatable = false, nullable = false)
+	private Long mySearchPid;
+	@Column(name = "FIRST_ORDER", insertable = true, updatable = false, nullable = false)
+	private int myFirstOrder;
+	@Column(name = "PID_COUNT", insertable = true, updatable = false, nullable = false)
+	private int myPidCount;
+	@Lob
+	@Column(name = "PID_DATA", insertable = true, updatable = false, nullable = false)
+	private byte[] myPidData;
+
+	/**
+	 * Constructor
+	 */
+	public SearchResultBlock() {
+		// nothing
+	}
+
+	/**
+	 * Constructor
+	 */
+	public SearchResultBlock(Search theSearch) {
+		Validate.notNull(theSearch.getId());
+		mySearchPid = theSearch.getId();
+	}
+
+	@Override
+	public String toString() {
+		return new ToStringBuilder(this)
+			.append("search", mySearchPid)
+			.append("firstOrder", myFirstOrder)
+			.append("pidCount", myPidCount)
+			.toString();
+	}
+
+	public Long getId() {
+		return myId;
+	}
+
+	public Long getSearchPid() {
+		return mySearchPid;
+	}
+
+	/**
+	 * The search order of the first result in this block
+	 */
+	public int getFirstOrder() {
+		return myFirstOrder;
+	}
+
+	public void setFirstOrder(int theFirstOrder) {
+		myFirstOrder = theFirstOrder;
+	}
+
+	/**
+	 * The number of results in this block
+	 */
+	public int getPidCount() {
+		return myPidCount;
+	}
+
+	public void setPidCount(int thePidCount) {
+		myPidCount = thePidCount;
+	}
+
+	/**
+	 * The encoded resource PIDs
+	 */
+	public byte[] getPidData() {
+		return myPidData;
+	}
+
+	public void setPidData(byte[] thePidData) {
+		myPidData = thePidData;
+	}
+
+}
@@ -95,6 +95,20 @@ public class TermCodeSystemVersion implements Serializable {
 	@Column(name = "CS_DISPLAY", nullable = true, updatable = true, length = MAX_VERSION_LENGTH)
 	private String myCodeSystemDisplayName;
 
+	/**
+	 * Set to <code>true</code> once the {@link TermConceptClosure hierarchy closure} has been
+	 * fully built for this version. Nullable since it was added in HAPI FHIR 6.6.0.
+	 */
+	@Column(name = "HIERARCHY_CLOSURE_BUILT", nullable = true)
+	private Boolean myHierarchyClosureBuilt;
+
+	/**
+	 * Identifies the hierarchy closure build which currently owns this version. A build only writes
+	 * closure rows while it still owns the version, so that two servers can't build it at once.
+	 */
+	@Column(name = "HIERARCHY_CLOSURE_BUILD_ID", nullable = true, length = 36)
+	private String myHierarchyClosureBuildId;
+
 	/**
 	 * Constructor
 	 */
@@ -186,6 +200,30 @@ public class TermCodeSystemVersion implements Serializable {
 		myCodeSystemDisplayName = theCodeSystemDisplayName;
 	}
 
+	/**
+	 * Returns <code>true</code> if the {@link TermConceptClosure hierarchy closure} for this version
+	 * is complete and can be used to answer hierarchy queries
+	 *
+	 * @since 6.6.0
+	 */
+	public boolean isHierarchyClosureBuilt() {
+		return Boolean.TRUE.equals(myHierarchyClosureBuilt);
+	}
+
+	/**
+	 * @since 6.6.0
+	 */
+	public void setHierarchyClosureBuilt(boolean theHierarchyClosureBuilt) {
+		myHierarchyClosureBuilt = theHierarchyClosureBuilt;
+	}
+
+	/**
+	 * @since 6.6.0
+	 */
+	public String getHierarchyClosureBuildId() {
+		return myHierarchyClosureBuildId;
+	}
+
 	public TermConcept addConcept() {
 		TermConcept concept = new TermConcept();
 		concept.setCodeSystemVersion(this);
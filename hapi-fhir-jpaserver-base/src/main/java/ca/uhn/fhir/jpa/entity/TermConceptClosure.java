@@ -0,0 +1,120 @@
+package ca.uhn.fhir.jpa.entity;
+
+/*
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import java.io.Serializable;
+
+/**
+ * One row of the transitive closure of the concept hierarchy of a {@link TermCodeSystemVersion},
+ * meaning that the concept with PID {@link #getDescendantPid()} is a descendant (a child, a child
+ * of a child, etc.) of the concept with PID {@link #getAncestorPid()}.
+ * <p>
+ * Concepts can have more than one parent, so the closure is stored as a table of pairs rather than
+ * as intervals. Subsumption tests and subtree lookups are plain indexed queries on this table.
+ * The rows for a version are rebuilt from the {@link TermConceptParentChildLink links} by the
+ * deferred storage service, and are only used once {@link TermCodeSystemVersion#isHierarchyClosureBuilt()}
+ * is set.
+ * </p>
+ *
+ * @since 6.6.0
+ */
+@Entity
+@Table(name = "TRM_CONCEPT_CLOSURE", uniqueConstraints = {
+	@UniqueConstraint(name = TermConceptClosure.IDX_ANCESTOR_DESCENDANT, columnNames = {"ANCESTOR_PID", "DESCENDANT_PID"})
+}, indexes = {
+	@Index(name = TermConceptClosure.IDX_DESCENDANT_ANCESTOR, columnList = "DESCENDANT_PID,ANCESTOR_PID"),
+	@Index(name = TermConceptClosure.IDX_CODESYSTEM, columnList = "CODESYSTEM_PID")
+})
+public class TermConceptClosure implements Serializable {
+	public static final String IDX_ANCESTOR_DESCENDANT = "IDX_CONCEPT_CLOSURE_ANC_DESC";
+	public static final String IDX_DESCENDANT_ANCESTOR = "IDX_CONCEPT_CLOSURE_DESC_ANC";
+	public static final String IDX_CODESYSTEM = "IDX_CONCEPT_CLOSURE_CS";
+	private static final long serialVersionUID = 1L;
+
+	@Id()
+	@SequenceGenerator(name = "SEQ_CONCEPT_CLOSURE_PID", sequenceName = "SEQ_CONCEPT_CLOSURE_PID")
+	@GeneratedValue(strategy = GenerationType.AUTO, generator = "SEQ_CONCEPT_CLOSURE_PID")
+	@Column(name = "PID")
+	private Long myPid;
+
+	@Column(name = "CODESYSTEM_PID", nullable = false)
+	private Long myCodeSystemVersionPid;
+
+	@Column(name = "ANCESTOR_PID", nullable = false)
+	private Long myAncestorPid;
+
+	@Column(name = "DESCENDANT_PID", nullable = false)
+	private Long myDescendantPid;
+
+	/**
+	 * Constructor
+	 */
+	public TermConceptClosure() {
+		super();
+	}
+
+	/**
+	 * Constructor
+	 */
+	public TermConceptClosure(Long theCodeSystemVersionPid, Long theAncestorPid, Long theDescendantPid) {
+		myCodeSystemVersionPid = theCodeSystemVersionPid;
+		myAncestorPid = theAncestorPid;
+		myDescendantPid = theDescendantPid;
+	}
+
+	public Long getPid() {
+		return myPid;
+	}
+
+	public Long getCodeSystemVersionPid() {
+		return myCodeSystemVersionPid;
+	}
+
+	public Long getAncestorPid() {
+		return myAncestorPid;
+	}
+
+	public Long getDescendantPid() {
+		return myDescendantPid;
+	}
+
+	@Override
+	public String toString() {
+		return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+			.append("pid", myPid)
+			.append("codeSystemVersionPid", myCodeSystemVersionPid)
+			.append("ancestorPid", myAncestorPid)
+			.append("descendantPid", myDescendantPid)
+			.toString();
+	}
+}
@@ -105,6 +105,47 @@ public class HapiFhirJpaMigrationTasks extends BaseMigrationTasks<VersionEnum> {
 		// BT2_WORK_CHUNK.CHUNK_DATA
 		version.onTable("BT2_WORK_CHUNK")
 			.migratePostgresTextClobToBinaryClob("20230208.3", "CHUNK_DATA");
+
+		// Compressed search result blocks
+		version.addIdGenerator("20230301.1", "SEQ_SEARCH_RES_BLOCK");
+		Builder.BuilderAddTableByColumns searchResultBlock = version.addTableByColumns("20230301.2", "HFJ_SEARCH_RESULT_BLOCK", "PID");
+		searchResultBlock.addColumn("PID").nonNullable().type(ColumnTypeEnum.LONG);
+		searchResultBlock.addColumn("SEARCH_PID").nonNullable().type(ColumnTypeEnum.LONG);
+		searchResultBlock.addColumn("FIRST_ORDER").nonNullable().type(ColumnTypeEnum.INT);
+		searchResultBlock.addColumn("PID_COUNT").nonNullable().type(ColumnTypeEnum.INT);
+		searchResultBlock.addColumn("PID_DATA").nonNullable().type(ColumnTypeEnum.BLOB);
+		searchResultBlock.addIndex("20230301.3", "IDX_SEARCHRESBLK_ORDER").unique(true).withColumns("SEARCH_PID", "FIRST_ORDER");
+
+		// Concept hierarchy closure
+		version.addIdGenerator("20230315.1", "SEQ_CONCEPT_CLOSURE_PID");
+		Builder.BuilderAddTableByColumns conceptClosure = version.addTableByColumns("20230315.2", "TRM_CONCEPT_CLOSURE", "PID");
+		conceptClosure.addColumn("PID").nonNullable().type(ColumnTypeEnum.LONG);
+		conceptClosure.addColumn("CODESYSTEM_PID").nonNullable().type(ColumnTypeEnum.LONG);
+		conceptClosure.addColumn("ANCESTOR_PID").nonNullable().type(ColumnTypeEnum.LONG);
+		conceptClosure.addColumn("DESCENDANT_PID").nonNullable().type(ColumnTypeEnum.LONG);
+		conceptClosure.addIndex("20230315.3", "IDX_CONCEPT_CLOSURE_ANC_DESC").unique(true).withColumns("ANCESTOR_PID", "DESCENDANT_PID");
+		conceptClosure.addIndex("20230315.4", "IDX_CONCEPT_CLOSURE_DESC_ANC").unique(false).withColumns("DESCENDANT_PID", "ANCESTOR_PID");
+		conceptClosure.addIndex("20230315.5", "IDX_CONCEPT_CLOSURE_CS").unique(false).withColumns("CODESYSTEM_PID");
+		version.onTable("TRM_CODESYSTEM_VER")
+			.addColumn("20230315.6", "HIERARCHY_CLOSURE_BUILT").nullable().type(ColumnTypeEnum.BOOLEAN);
+		version.onTable("TRM_CODESYSTEM_VER")
+			.addColumn("20230315.7", "HIERARCHY_CLOSURE_BUILD_ID").nullable().type(ColumnTypeEnum.STRING, 36);
+
+		// MDM blocking keys
+		version.addIdGenerator("20230322.1", "SEQ_MPI_BLOCKING_KEY");
+		Builder.BuilderAddTableByColumns blockingKey = version.addTableByColumns("20230322.2", "MPI_BLOCKING_KEY", "PID");
+		blockingKey.addColumn("PID").nonNullable().type(ColumnTypeEnum.LONG);
+		blockingKey.addColumn("RES_ID").nonNullable().type(ColumnTypeEnum.LONG);
+		blockingKey.addColumn("RES_TYPE").nonNullable().type(ColumnTypeEnum.STRING, 40);
+		blockingKey.addColumn("KEY_HASH").nonNullable().type(ColumnTypeEnum.LONG);
+		blockingKey.addColumn("PARTITION_ID").nullable().type(ColumnTypeEnum.INT);
+		blockingKey.addColumn("PARTITION_DATE").nullable().type(ColumnTypeEnum.DATE_ONLY);
+		blockingKey.addIndex("20230322.3", "IDX_MPI_BLOCKKEY_HASH").unique(false).withColumns("KEY_HASH", "RES_ID");
+		blockingKey.addIndex("20230322.4", "IDX_MPI_BLOCKKEY_RES").unique(false).withColumns("RES_ID");
+
+		// Batch2 gated step completion check
+		version.onTable("BT2_WORK_CHUNK")
+			.addIndex("20230329.1", "IDX_BT2WC_II_SI_S").unique(false).withColumns("INSTANCE_ID", "TGT_STEP_ID", "STAT");
 	}
 	protected void init640() {
 
@@ -35,6 +35,7 @@ import ca.uhn.fhir.jpa.api.dao.DaoRegistry;
 import ca.uhn.fhir.jpa.api.dao.IDao;
 import ca.uhn.fhir.jpa.api.dao.IFhirResourceDao;
 import ca.uhn.fhir.jpa.api.svc.IIdHelperService;
+import ca.uhn.fhir.jpa.cache.ParsedResourceCacheSvc;
 import ca.uhn.fhir.jpa.config.HapiFhirLocalContainerEntityManagerFactoryBean;
 import ca.uhn.fhir.jpa.config.HibernatePropertiesProvider;
 import ca.uhn.fhir.jpa.dao.BaseStorageDao;
@@ -43,12 +44,14 @@ import ca.uhn.fhir.jpa.dao.IJpaStorageResourceParser;
 import ca.uhn.fhir.jpa.dao.IResultIterator;
 import ca.uhn.fhir.jpa.dao.ISearchBuilder;
 import ca.uhn.fhir.jpa.dao.data.IResourceSearchViewDao;
+import ca.uhn.fhir.jpa.dao.data.IResourceTableDao;
 import ca.uhn.fhir.jpa.dao.data.IResourceTagDao;
 import ca.uhn.fhir.jpa.dao.search.ResourceNotFoundInIndexException;
 import ca.uhn.fhir.jpa.entity.ResourceSearchView;
 import ca.uhn.fhir.jpa.interceptor.JpaPreResourceAccessDetails;
 import ca.uhn.fhir.jpa.model.config.PartitionSettings;
 import ca.uhn.fhir.jpa.model.dao.JpaPid;
+import ca.uhn.fhir.jpa.model.dao.JpaPidSet;
 import ca.uhn.fhir.jpa.model.entity.IBaseResourceEntity;
 import ca.uhn.fhir.jpa.model.entity.ResourceTag;
 import ca.uhn.fhir.jpa.model.search.SearchRuntimeDetails;
@@ -105,6 +108,7 @@ import org.springframework.jdbc.core.SingleColumnRowMapper;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.PersistenceContextType;
@@ -176,7 +180,7 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 	private String mySearchUuid;
 	private int myFetchSize;
 	private Integer myMaxResultsToFetch;
-	private Set<JpaPid> myPidSet;
+	private JpaPidSet myPidSet;
 	private boolean myHasNextIteratorQuery = false;
 	private RequestPartitionId myRequestPartitionId;
 	@Autowired(required = false)
@@ -185,6 +189,12 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 	private IElasticsearchSvc myIElasticsearchSvc;
 	@Autowired
 	private IJpaStorageResourceParser myJpaStorageResourceParser;
+	@Autowired(required = false)
+	private SearchResourceDecodeExecutor mySearchResourceDecodeExecutor;
+	@Autowired(required = false)
+	private ParsedResourceCacheSvc myParsedResourceCacheSvc;
+	@Autowired
+	private IResourceTableDao myResourceTableDao;
 
 	/**
 	 * Constructor
@@ -309,7 +319,7 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 	 */
 	@Override
 	public void setPreviouslyAddedResourcePids(@Nonnull List<JpaPid> thePidSet) {
-		myPidSet = new HashSet<>(thePidSet);
+		myPidSet = new JpaPidSet(thePidSet);
 	}
 
 	@SuppressWarnings("ConstantConditions")
@@ -321,7 +331,7 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 		init(theParams, theSearchRuntimeDetails.getSearchUuid(), theRequestPartitionId);
 
 		if (myPidSet == null) {
-			myPidSet = new HashSet<>();
+			myPidSet = new JpaPidSet();
 		}
 
 		return new QueryIterator(theSearchRuntimeDetails, theRequest);
@@ -847,16 +857,26 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 		}
 
 		List<Long> versionlessPids = JpaPid.toLongList(thePids);
-		if (versionlessPids.size() < getMaximumPageSize()) {
-			versionlessPids = normalizeIdListForLastNInClause(versionlessPids);
+		List<LoadedResource> loadedResources = new ArrayList<>(thePids.size());
+		boolean useCache = myParsedResourceCacheSvc != null && myParsedResourceCacheSvc.isEnabled() && !theForHistoryOperation;
+		if (useCache) {
+			loadResourcesFromCache(versionlessPids, resourcePidToVersion, loadedResources);
 		}
 
-		// -- get the resource from the searchView
-		Collection<ResourceSearchView> resourceSearchViewList = myResourceSearchViewDao.findByResourceIds(versionlessPids);
+		Collection<ResourceSearchView> resourceSearchViewList = Collections.emptyList();
+		if (!versionlessPids.isEmpty()) {
+			if (versionlessPids.size() < getMaximumPageSize()) {
+				versionlessPids = normalizeIdListForLastNInClause(versionlessPids);
+			}
+
+			// -- get the resource from the searchView
+			resourceSearchViewList = myResourceSearchViewDao.findByResourceIds(versionlessPids);
+		}
 
 		//-- preload all tags with tag definition if any
 		Map<Long, Collection<ResourceTag>> tagMap = getResourceTagMap(resourceSearchViewList);
 
+		int firstLoadedFromDatabase = loadedResources.size();
 		for (IBaseResourceEntity next : resourceSearchViewList) {
 			if (next.getDeleted() != null) {
 				continue;
@@ -882,15 +902,32 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 				}
 			}
 
-			IBaseResource resource = null;
-			if (next != null) {
-				resource = myJpaStorageResourceParser.toResource(resourceType, next, tagMap.get(next.getId()), theForHistoryOperation);
+			loadedResources.add(new LoadedResource(resourceType, next, resourceId));
+		}
+
+		List<LoadedResource> loadedFromDatabase = loadedResources.subList(firstLoadedFromDatabase, loadedResources.size());
+		decodeResources(loadedFromDatabase, tagMap, theForHistoryOperation);
+		if (useCache) {
+			for (LoadedResource next : loadedFromDatabase) {
+				if (next.getEntity() != null) {
+					myParsedResourceCacheSvc.put(next.getEntity(), next.getResource());
+				}
 			}
+		}
+
+		for (LoadedResource next : loadedResources) {
+			IBaseResource resource = next.getResource();
 			if (resource == null) {
-				ourLog.warn("Unable to find resource {}/{}/_history/{} in database", next.getResourceType(), next.getIdDt().getIdPart(), next.getVersion());
+				IBaseResourceEntity entity = next.getEntity();
+				if (entity != null) {
+					ourLog.warn("Unable to find resource {}/{}/_history/{} in database", entity.getResourceType(), entity.getIdDt().getIdPart(), entity.getVersion());
+				} else {
+					ourLog.warn("Unable to find resource with PID {} in database", next.getResourceId());
+				}
 				continue;
 			}
 
+			JpaPid resourceId = next.getResourceId();
 			Integer index = thePosition.get(resourceId);
 			if (index == null) {
 				ourLog.warn("Got back unexpected resource PID {}", resourceId);
@@ -907,6 +944,71 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 		}
 	}
 
+	/**
+	 * Looks up each of the given PIDs in the {@link ParsedResourceCacheSvc}. Any resources which are
+	 * found are added to the loaded resource list, and their PIDs are removed from the PID list so
+	 * that they are not fetched from the database.
+	 */
+	private void loadResourcesFromCache(List<Long> thePids, Map<Long, Long> theResourcePidToVersion, List<LoadedResource> theLoadedResources) {
+		Map<Long, Long> pidToVersion = new HashMap<>();
+		List<Long> pidsNeedingCurrentVersion = new ArrayList<>();
+		for (Long next : thePids) {
+			Long version = theResourcePidToVersion != null ? theResourcePidToVersion.get(next) : null;
+			if (version != null) {
+				pidToVersion.put(next, version);
+			} else {
+				pidsNeedingCurrentVersion.add(next);
+			}
+		}
+		new QueryChunker<Long>().chunk(pidsNeedingCurrentVersion, t -> {
+			for (Object[] next : myResourceTableDao.getResourceVersionsForPid(t)) {
+				pidToVersion.put((Long) next[0], (Long) next[2]);
+			}
+		});
+
+		for (Iterator<Long> iter = thePids.iterator(); iter.hasNext(); ) {
+			Long pid = iter.next();
+			Long version = pidToVersion.get(pid);
+			if (version == null) {
+				continue;
+			}
+
+			IBaseResource resource = myParsedResourceCacheSvc.get(pid, version);
+			if (resource != null) {
+				JpaPid resourceId = JpaPid.fromId(pid);
+				if (theResourcePidToVersion != null) {
+					resourceId.setVersion(theResourcePidToVersion.get(pid));
+				}
+				theLoadedResources.add(new LoadedResource(resourceId, resource));
+				iter.remove();
+			}
+		}
+	}
+
+	/**
+	 * Parses the stored body of each loaded entity. Rows coming straight from the search view
+	 * are fully materialized, so if parallel decoding is enabled they are handed off to the
+	 * {@link SearchResourceDecodeExecutor}. Any other entities (e.g. specific versions loaded
+	 * for versioned includes) may need to lazy-load from the persistence context, so they are
+	 * always parsed on the calling thread.
+	 */
+	private void decodeResources(List<LoadedResource> theLoadedResources, Map<Long, Collection<ResourceTag>> theTagMap, boolean theForHistoryOperation) {
+		boolean parallel = mySearchResourceDecodeExecutor != null && mySearchResourceDecodeExecutor.isParallelDecodeEnabled(theLoadedResources.size());
+		List<LoadedResource> parallelDecode = new ArrayList<>();
+
+		for (LoadedResource next : theLoadedResources) {
+			if (parallel && next.getEntity() instanceof ResourceSearchView) {
+				parallelDecode.add(next);
+			} else {
+				next.decode(myJpaStorageResourceParser, theTagMap, theForHistoryOperation);
+			}
+		}
+
+		if (!parallelDecode.isEmpty()) {
+			mySearchResourceDecodeExecutor.decode(parallelDecode, t -> t.decode(myJpaStorageResourceParser, theTagMap, theForHistoryOperation));
+		}
+	}
+
 	private Map<Long, Collection<ResourceTag>> getResourceTagMap(Collection<? extends IBaseResourceEntity> theResourceSearchViewList) {
 
 		List<Long> idList = new ArrayList<>(theResourceSearchViewList.size());
@@ -1019,18 +1121,22 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 	}
 
 	/**
-	 * THIS SHOULD RETURN HASHSET and not just Set because we add to it later
+	 * THIS SHOULD RETURN A MUTABLE SET and not just Set because we add to it later
 	 * so it can't be Collections.emptySet() or some such thing.
 	 * The JpaPid returned will have resource type populated.
+	 * <p>
+	 * The PIDs are held in {@link JpaPidSet}s while the includes are being loaded
+	 * since the number of PIDs can be very large.
+	 * </p>
 	 */
 	@Override
 	public Set<JpaPid> loadIncludes(FhirContext theContext, EntityManager theEntityManager, Collection<JpaPid> theMatches, Collection<Include> theIncludes,
 																 boolean theReverseMode, DateRangeParam theLastUpdated, String theSearchIdOrDescription, RequestDetails theRequest, Integer theMaxCount) {
 		if (theMatches.size() == 0) {
-			return new HashSet<>();
+			return new JpaPidSet();
 		}
 		if (theIncludes == null || theIncludes.isEmpty()) {
-			return new HashSet<>();
+			return new JpaPidSet();
 		}
 		String searchPidFieldName = theReverseMode ? MY_TARGET_RESOURCE_PID : MY_SOURCE_RESOURCE_PID;
 		String findPidFieldName = theReverseMode ? MY_SOURCE_RESOURCE_PID : MY_TARGET_RESOURCE_PID;
@@ -1040,9 +1146,9 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 			findVersionFieldName = MY_TARGET_RESOURCE_VERSION;
 		}
 
-		List<JpaPid> nextRoundMatches = new ArrayList<>(theMatches);
-		HashSet<JpaPid> allAdded = new HashSet<>();
-		HashSet<JpaPid> original = new HashSet<>(theMatches);
+		JpaPidSet original = new JpaPidSet(theMatches);
+		JpaPidSet nextRoundMatches = original;
+		JpaPidSet allAdded = new JpaPidSet();
 		ArrayList<Include> includes = new ArrayList<>(theIncludes);
 
 		int roundCounts = 0;
@@ -1052,7 +1158,7 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 		do {
 			roundCounts++;
 
-			HashSet<JpaPid> pidsToInclude = new HashSet<>();
+			JpaPidSet pidsToInclude = new JpaPidSet();
 
 			for (Iterator<Include> iter = includes.iterator(); iter.hasNext(); ) {
 				Include nextInclude = iter.next();
@@ -1098,10 +1204,9 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 					}
 
 					String sql = sqlBuilder.toString();
-					List<Collection<JpaPid>> partitions = partition(nextRoundMatches, getMaximumPageSize());
-					for (Collection<JpaPid> nextPartition : partitions) {
+					for (List<Long> nextPartition : partition(nextRoundMatches, getMaximumPageSize())) {
 						TypedQuery<?> q = theEntityManager.createQuery(sql, Object[].class);
-						q.setParameter("target_pids", JpaPid.toLongList(nextPartition));
+						q.setParameter("target_pids", nextPartition);
 						if (wantResourceType != null) {
 							q.setParameter("want_resource_type", wantResourceType);
 						}
@@ -1124,8 +1229,7 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 							}
 
 							if (resourceLink != null) {
-								JpaPid pid = JpaPid.fromIdAndVersionAndResourceType(resourceLink, version, resourceType);
-								pidsToInclude.add(pid);
+								pidsToInclude.add(resourceLink, version, resourceType);
 							}
 						}
 					}
@@ -1216,11 +1320,10 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 
 						String sql = resourceIdBasedQuery + " UNION " + resourceUrlBasedQuery;
 
-						List<Collection<JpaPid>> partitions = partition(nextRoundMatches, getMaximumPageSize());
-						for (Collection<JpaPid> nextPartition : partitions) {
+						for (List<Long> nextPartition : partition(nextRoundMatches, getMaximumPageSize())) {
 							Query q = theEntityManager.createNativeQuery(sql, Tuple.class);
 							q.setParameter("src_path", nextPath);
-							q.setParameter("target_pids", JpaPid.toLongList(nextPartition));
+							q.setParameter("target_pids", nextPartition);
 							if (targetResourceType != null) {
 								q.setParameter("target_resource_type", targetResourceType);
 							} else if (haveTargetTypesDefinedByParam) {
@@ -1238,7 +1341,7 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 									if (findVersionFieldName != null && result.get(RESOURCE_VERSION_ALIAS) != null) {
 										resourceVersion = NumberUtils.createLong(String.valueOf(result.get(RESOURCE_VERSION_ALIAS)));
 									}
-									pidsToInclude.add(JpaPid.fromIdAndVersion(resourceId, resourceVersion));
+									pidsToInclude.add(resourceId, resourceVersion, null);
 								}
 							}
 						}
@@ -1248,14 +1351,16 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 
 			if (theReverseMode) {
 				if (theLastUpdated != null && (theLastUpdated.getLowerBoundAsInstant() != null || theLastUpdated.getUpperBoundAsInstant() != null)) {
-					pidsToInclude = new HashSet<>(QueryParameterUtils.filterResourceIdsByLastUpdated(theEntityManager, theLastUpdated, pidsToInclude));
+					pidsToInclude = new JpaPidSet(QueryParameterUtils.filterResourceIdsByLastUpdated(theEntityManager, theLastUpdated, pidsToInclude));
 				}
 			}
 
-			nextRoundMatches.clear();
-			for (JpaPid next : pidsToInclude) {
-				if (original.contains(next) == false && allAdded.contains(next) == false) {
-					nextRoundMatches.add(next);
+			nextRoundMatches = new JpaPidSet();
+			for (int i = 0; i < pidsToInclude.size(); i++) {
+				long nextId = pidsToInclude.getId(i);
+				Long nextVersion = pidsToInclude.getVersion(i);
+				if (original.contains(nextId, nextVersion) == false && allAdded.contains(nextId, nextVersion) == false) {
+					nextRoundMatches.add(nextId, nextVersion, pidsToInclude.getResourceType(i));
 				}
 			}
 
@@ -1267,7 +1372,7 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 
 		} while (includes.size() > 0 && nextRoundMatches.size() > 0 && addedSomeThisRound);
 
-		allAdded.removeAll(original);
+		allAdded = withoutPids(allAdded, original, null);
 
 		ourLog.info("Loaded {} {} in {} rounds and {} ms for search {}", allAdded.size(), theReverseMode ? "_revincludes" : "_includes", roundCounts, w.getMillisAndRestart(), theSearchIdOrDescription);
 
@@ -1285,42 +1390,40 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 					.addIfMatchesType(ServletRequestDetails.class, theRequest);
 				CompositeInterceptorBroadcaster.doCallHooks(myInterceptorBroadcaster, theRequest, Pointcut.STORAGE_PREACCESS_RESOURCES, params);
 
-				for (int i = includedPidList.size() - 1; i >= 0; i--) {
-					if (accessDetails.isDontReturnResourceAtIndex(i)) {
-						JpaPid value = includedPidList.remove(i);
-						if (value != null) {
-							allAdded.remove(value);
-						}
-					}
-				}
+				allAdded = withoutPids(allAdded, null, accessDetails);
 			}
 		}
 
 		return allAdded;
 	}
 
-	private List<Collection<JpaPid>> partition(Collection<JpaPid> theNextRoundMatches, int theMaxLoad) {
-		if (theNextRoundMatches.size() <= theMaxLoad) {
-			return Collections.singletonList(theNextRoundMatches);
-		} else {
-
-			List<Collection<JpaPid>> retVal = new ArrayList<>();
-			Collection<JpaPid> current = null;
-			for (JpaPid next : theNextRoundMatches) {
-				if (current == null) {
-					current = new ArrayList<>(theMaxLoad);
-					retVal.add(current);
-				}
-
-				current.add(next);
+	private List<List<Long>> partition(JpaPidSet theNextRoundMatches, int theMaxLoad) {
+		List<List<Long>> retVal = new ArrayList<>();
+		for (int from = 0; from < theNextRoundMatches.size(); from += theMaxLoad) {
+			int to = Math.min(from + theMaxLoad, theNextRoundMatches.size());
+			retVal.add(theNextRoundMatches.getIds(from, to));
+		}
+		return retVal;
+	}
 
-				if (current.size() >= theMaxLoad) {
-					current = null;
-				}
+	/**
+	 * Returns a copy of the given PIDs without the ones that are in the excluded set (if provided)
+	 * and without the ones that the access details say should not be returned (if provided)
+	 */
+	private static JpaPidSet withoutPids(JpaPidSet thePids, @Nullable JpaPidSet theExcluded, @Nullable JpaPreResourceAccessDetails theAccessDetails) {
+		JpaPidSet retVal = new JpaPidSet(thePids.size());
+		for (int i = 0; i < thePids.size(); i++) {
+			long nextId = thePids.getId(i);
+			Long nextVersion = thePids.getVersion(i);
+			if (theExcluded != null && theExcluded.contains(nextId, nextVersion)) {
+				continue;
 			}
-
-			return retVal;
+			if (theAccessDetails != null && theAccessDetails.isDontReturnResourceAtIndex(i)) {
+				continue;
+			}
+			retVal.add(nextId, nextVersion, thePids.getResourceType(i));
 		}
+		return retVal;
 	}
 
 	private void attemptComboUniqueSpProcessing(QueryStack theQueryStack3, @Nonnull SearchParameterMap theParams, RequestDetails theRequest) {
@@ -1470,12 +1573,12 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 	public class IncludesIterator extends BaseIterator<JpaPid> implements Iterator<JpaPid> {
 
 		private final RequestDetails myRequest;
-		private final Set<JpaPid> myCurrentPids;
+		private final JpaPidSet myCurrentPids;
 		private Iterator<JpaPid> myCurrentIterator;
 		private JpaPid myNext;
 
 		IncludesIterator(Set<JpaPid> thePidSet, RequestDetails theRequest) {
-			myCurrentPids = new HashSet<>(thePidSet);
+			myCurrentPids = new JpaPidSet(thePidSet);
 			myCurrentIterator = null;
 			myRequest = theRequest;
 		}
@@ -1762,6 +1865,49 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 
 	}
 
+	/**
+	 * A single row loaded by {@link #doLoadPids(Collection, Collection, List, boolean, Map)}, along
+	 * with the parsed resource once it has been decoded
+	 */
+	private static class LoadedResource {
+
+		private final Class<? extends IBaseResource> myResourceType;
+		private final IBaseResourceEntity myEntity;
+		private final JpaPid myResourceId;
+		private IBaseResource myResource;
+
+		LoadedResource(Class<? extends IBaseResource> theResourceType, IBaseResourceEntity theEntity, JpaPid theResourceId) {
+			myResourceType = theResourceType;
+			myEntity = theEntity;
+			myResourceId = theResourceId;
+		}
+
+		LoadedResource(JpaPid theResourceId, IBaseResource theResource) {
+			this(null, null, theResourceId);
+			myResource = theResource;
+		}
+
+		IBaseResourceEntity getEntity() {
+			return myEntity;
+		}
+
+		JpaPid getResourceId() {
+			return myResourceId;
+		}
+
+		IBaseResource getResource() {
+			return myResource;
+		}
+
+		IBaseResource decode(IJpaStorageResourceParser theParser, Map<Long, Collection<ResourceTag>> theTagMap, boolean theForHistoryOperation) {
+			if (myEntity != null) {
+				myResource = theParser.toResource(myResourceType, myEntity, theTagMap.get(myEntity.getId()), theForHistoryOperation);
+			}
+			return myResource;
+		}
+
+	}
+
 	public static int getMaximumPageSize() {
 		if (myUseMaxPageSize50ForTest) {
 			return MAXIMUM_PAGE_SIZE_FOR_TESTING;
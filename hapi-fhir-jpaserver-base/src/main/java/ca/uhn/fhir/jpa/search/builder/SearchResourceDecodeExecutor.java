@@ -0,0 +1,141 @@
+package ca.uhn.fhir.jpa.search.builder;
+
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bounded fork-join pool used by {@link SearchBuilder} to inflate and parse the
+ * stored bodies of a page of search results in parallel. The pool is sized using
+ * {@link JpaStorageSettings#getSearchResourceDecodeThreadCount()} and is shared by
+ * all searches so that concurrent requests can not oversubscribe the CPU.
+ * <p>
+ * Only work which does not touch the persistence context should be submitted here,
+ * since the worker threads do not participate in the caller's transaction.
+ * </p>
+ *
+ * @since 6.6.0
+ */
+public class SearchResourceDecodeExecutor {
+
+	private static final Logger ourLog = LoggerFactory.getLogger(SearchResourceDecodeExecutor.class);
+	private static final String THREAD_PREFIX = "search-resource-decode-";
+	private final AtomicInteger myThreadIndex = new AtomicInteger(0);
+	@Autowired
+	private JpaStorageSettings myStorageSettings;
+	private volatile ForkJoinPool myPool;
+
+	/**
+	 * Constructor
+	 */
+	public SearchResourceDecodeExecutor() {
+		super();
+	}
+
+	/**
+	 * Constructor
+	 */
+	public SearchResourceDecodeExecutor(JpaStorageSettings theStorageSettings) {
+		myStorageSettings = theStorageSettings;
+	}
+
+	/**
+	 * Returns <code>true</code> if a batch of the given size should be decoded in parallel
+	 */
+	public boolean isParallelDecodeEnabled(int theBatchSize) {
+		return theBatchSize > 1 && myStorageSettings.getSearchResourceDecodeThreadCount() > 1;
+	}
+
+	/**
+	 * Applies the given function to every element of the input list in parallel, and
+	 * returns the results in the same order as the input.
+	 */
+	public <T, R> List<R> decode(List<T> theInput, Function<T, R> theDecoder) {
+		ForkJoinPool pool = getPool();
+		try {
+			return pool
+				.submit(() -> theInput.parallelStream().map(theDecoder).collect(Collectors.toList()))
+				.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InternalErrorException(Msg.code(2277) + "Interrupted while decoding search results", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new InternalErrorException(Msg.code(2278) + "Failure while decoding search results: " + e.getCause(), e.getCause());
+		}
+	}
+
+	private ForkJoinPool getPool() {
+		int threadCount = Math.max(myStorageSettings.getSearchResourceDecodeThreadCount(), 1);
+		ForkJoinPool retVal = myPool;
+		if (retVal != null && retVal.getParallelism() == threadCount) {
+			return retVal;
+		}
+		return createPool(threadCount);
+	}
+
+	private synchronized ForkJoinPool createPool(int theThreadCount) {
+		ForkJoinPool retVal = myPool;
+		if (retVal == null || retVal.getParallelism() != theThreadCount) {
+			/*
+			 * The previous pool is not shut down, since another search may already have fetched
+			 * it and not yet submitted its work. Its worker threads are daemon threads, and they
+			 * stop once they have been idle for a while.
+			 */
+			ourLog.info("Creating search resource decode pool with {} threads", theThreadCount);
+			retVal = new ForkJoinPool(theThreadCount, this::newWorkerThread, null, false);
+			myPool = retVal;
+		}
+		return retVal;
+	}
+
+	private ForkJoinWorkerThread newWorkerThread(ForkJoinPool thePool) {
+		ForkJoinWorkerThread retVal = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(thePool);
+		retVal.setName(THREAD_PREFIX + myThreadIndex.incrementAndGet());
+		retVal.setDaemon(true);
+		return retVal;
+	}
+
+	@PreDestroy
+	public synchronized void stop() {
+		if (myPool != null) {
+			myPool.shutdown();
+			myPool = null;
+		}
+	}
+
+}
@@ -41,6 +41,7 @@ import ca.uhn.fhir.jpa.search.cache.ISearchCacheSvc;
 import ca.uhn.fhir.jpa.search.cache.ISearchResultCacheSvc;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
 import ca.uhn.fhir.jpa.util.QueryParameterUtils;
+import ca.uhn.fhir.jpa.util.SpillablePidList;
 import ca.uhn.fhir.jpa.util.SearchParameterMapCalculator;
 import ca.uhn.fhir.rest.api.server.IPreResourceAccessDetails;
 import ca.uhn.fhir.rest.api.server.RequestDetails;
@@ -96,7 +97,7 @@ public class SearchTask implements Callable<Void> {
 	private final SearchParameterMap myParams;
 	private final IDao myCallingDao;
 	private final String myResourceType;
-	private final ArrayList<JpaPid> mySyncedPids = new ArrayList<>();
+	private final SpillablePidList mySyncedPids;
 	private final CountDownLatch myInitialCollectionLatch = new CountDownLatch(1);
 	private final CountDownLatch myCompletionLatch;
 	private final ArrayList<JpaPid> myUnsyncedPids = new ArrayList<>();
@@ -151,6 +152,7 @@ public class SearchTask implements Callable<Void> {
 		myStorageSettings = theStorageSettings;
 		mySearchCacheSvc = theSearchCacheSvc;
 		myPagingProvider = thePagingProvider;
+		mySyncedPids = new SpillablePidList(theStorageSettings.getSearchResultPidsMaximumInMemory());
 
 		// values
 		myOnRemove = theCreationParams.OnRemove;
@@ -248,19 +250,31 @@ public class SearchTask implements Callable<Void> {
 
 		ourLog.debug("Proceeding, as we have {} results", mySyncedPids.size());
 
-		ArrayList<JpaPid> retVal = new ArrayList<>();
+		List<JpaPid> retVal = null;
+		int toIndex = theToIndex;
 		synchronized (mySyncedPids) {
 			QueryParameterUtils.verifySearchHasntFailedOrThrowInternalErrorException(mySearch);
 
-			int toIndex = theToIndex;
 			if (mySyncedPids.size() < toIndex) {
 				toIndex = mySyncedPids.size();
 			}
-			for (int i = theFromIndex; i < toIndex; i++) {
-				retVal.add(mySyncedPids.get(i));
+			if (theFromIndex >= toIndex) {
+				retVal = new ArrayList<>();
+			} else if (mySyncedPids.isAvailable(toIndex)) {
+				retVal = mySyncedPids.getRange(theFromIndex, toIndex);
 			}
 		}
 
+		if (retVal == null) {
+			/*
+			 * The PIDs which were written to a temporary file are released once the
+			 * search task completes, but by then they have all been stored in the
+			 * search result cache so we can read them from there.
+			 */
+			int fetchToIndex = toIndex;
+			retVal = myTxService.withRequest(myRequest).execute(() -> mySearchResultCacheSvc.fetchResultPids(mySearch, theFromIndex, fetchToIndex));
+		}
+
 		ourLog.trace("Done syncing results - Wanted {}-{} and returning {} of {}", theFromIndex, theToIndex, retVal.size(), mySyncedPids.size());
 
 		return retVal;
@@ -455,6 +469,9 @@ public class SearchTask implements Callable<Void> {
 			span.captureException(t);
 		} finally {
 			myOnRemove.accept(mySearch.getUuid());
+			synchronized (mySyncedPids) {
+				mySyncedPids.close();
+			}
 
 			myInitialCollectionLatch.countDown();
 			markComplete();
@@ -0,0 +1,133 @@
+package ca.uhn.fhir.jpa.search.cache;
+
+
+/*
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.jpa.dao.data.ISearchResultBlockDao;
+import ca.uhn.fhir.jpa.entity.Search;
+import ca.uhn.fhir.jpa.entity.SearchResultBlock;
+import ca.uhn.fhir.jpa.model.dao.JpaPid;
+import com.google.common.annotations.VisibleForTesting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Search result cache which stores the results of a search as blocks of up to
+ * {@link #DEFAULT_BLOCK_SIZE} compressed PIDs (see {@link SearchResultBlockCodec}) in the
+ * <code>HFJ_SEARCH_RESULT_BLOCK</code> table, instead of one row per result. This
+ * greatly reduces the number of rows which need to be written and later deleted for
+ * searches with a large number of results.
+ * <p>
+ * Searches which were stored by {@link DatabaseSearchResultCacheSvcImpl} (e.g. before this
+ * implementation was enabled) can still be read.
+ * </p>
+ *
+ * @see ca.uhn.fhir.jpa.api.config.JpaStorageSettings#setSearchResultBlockStorageEnabled(boolean)
+ * @since 6.6.0
+ */
+public class BlockSearchResultCacheSvcImpl extends DatabaseSearchResultCacheSvcImpl {
+	public static final int DEFAULT_BLOCK_SIZE = 10_000;
+	private static final Logger ourLog = LoggerFactory.getLogger(BlockSearchResultCacheSvcImpl.class);
+
+	@Autowired
+	private ISearchResultBlockDao mySearchResultBlockDao;
+	private int myBlockSize = DEFAULT_BLOCK_SIZE;
+
+	@Override
+	@Transactional(propagation = Propagation.REQUIRED)
+	public List<JpaPid> fetchResultPids(Search theSearch, int theFrom, int theTo) {
+		if (theTo <= theFrom) {
+			return new ArrayList<>();
+		}
+
+		List<SearchResultBlock> blocks = mySearchResultBlockDao.findWithSearchPidInRange(theSearch.getId(), theFrom, theTo);
+		if (blocks.isEmpty()) {
+			return super.fetchResultPids(theSearch, theFrom, theTo);
+		}
+
+		List<JpaPid> retVal = new ArrayList<>(theTo - theFrom);
+		for (SearchResultBlock next : blocks) {
+			long[] pids = SearchResultBlockCodec.decode(next.getPidData(), next.getPidCount());
+			int from = Math.max(theFrom - next.getFirstOrder(), 0);
+			int to = Math.min(theTo - next.getFirstOrder(), pids.length);
+			for (int i = from; i < to; i++) {
+				retVal.add(JpaPid.fromId(pids[i]));
+			}
+		}
+
+		ourLog.debug("fetchResultPids for range {}-{} returned {} pids from {} blocks", theFrom, theTo, retVal.size(), blocks.size());
+		return retVal;
+	}
+
+	@Override
+	@Transactional(propagation = Propagation.REQUIRED)
+	public List<JpaPid> fetchAllResultPids(Search theSearch) {
+		List<SearchResultBlock> blocks = mySearchResultBlockDao.findWithSearchPid(theSearch.getId());
+		if (blocks.isEmpty()) {
+			return super.fetchAllResultPids(theSearch);
+		}
+
+		List<JpaPid> retVal = new ArrayList<>();
+		for (SearchResultBlock next : blocks) {
+			for (long nextPid : SearchResultBlockCodec.decode(next.getPidData(), next.getPidCount())) {
+				retVal.add(JpaPid.fromId(nextPid));
+			}
+		}
+		ourLog.trace("fetchAllResultPids returned {} pids from {} blocks", retVal.size(), blocks.size());
+		return retVal;
+	}
+
+	@Override
+	@Transactional(propagation = Propagation.REQUIRED)
+	public void storeResults(Search theSearch, List<JpaPid> thePreviouslyStoredResourcePids, List<JpaPid> theNewResourcePids) {
+		ourLog.debug("Storing {} results with {} previous for search", theNewResourcePids.size(), thePreviouslyStoredResourcePids.size());
+
+		long[] pids = new long[theNewResourcePids.size()];
+		for (int i = 0; i < pids.length; i++) {
+			pids[i] = theNewResourcePids.get(i).getId();
+		}
+
+		int order = thePreviouslyStoredResourcePids.size();
+		List<SearchResultBlock> blocksToSave = new ArrayList<>();
+		for (int from = 0; from < pids.length; from += myBlockSize) {
+			int to = Math.min(from + myBlockSize, pids.length);
+			SearchResultBlock block = new SearchResultBlock(theSearch);
+			block.setFirstOrder(order + from);
+			block.setPidCount(to - from);
+			block.setPidData(SearchResultBlockCodec.encode(pids, from, to));
+			blocksToSave.add(block);
+		}
+
+		mySearchResultBlockDao.saveAll(blocksToSave);
+	}
+
+	@VisibleForTesting
+	public void setBlockSizeForUnitTest(int theBlockSize) {
+		myBlockSize = theBlockSize;
+	}
+
+}
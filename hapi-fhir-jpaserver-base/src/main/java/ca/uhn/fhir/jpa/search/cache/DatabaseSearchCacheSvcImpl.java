@@ -25,6 +25,7 @@ import ca.uhn.fhir.interceptor.model.RequestPartitionId;
 import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
 import ca.uhn.fhir.jpa.dao.data.ISearchDao;
 import ca.uhn.fhir.jpa.dao.data.ISearchIncludeDao;
+import ca.uhn.fhir.jpa.dao.data.ISearchResultBlockDao;
 import ca.uhn.fhir.jpa.dao.data.ISearchResultDao;
 import ca.uhn.fhir.jpa.entity.Search;
 import ca.uhn.fhir.jpa.model.search.SearchStatusEnum;
@@ -77,6 +78,8 @@ public class DatabaseSearchCacheSvcImpl implements ISearchCacheSvc {
 	@Autowired
 	private ISearchResultDao mySearchResultDao;
 	@Autowired
+	private ISearchResultBlockDao mySearchResultBlockDao;
+	@Autowired
 	private ISearchIncludeDao mySearchIncludeDao;
 	@Autowired
 	private PlatformTransactionManager myTxManager;
@@ -231,8 +234,16 @@ public class DatabaseSearchCacheSvcImpl implements ISearchCacheSvc {
 
 			}
 
+			// Results stored by BlockSearchResultCacheSvcImpl
+			Slice<Long> resultBlockPids = mySearchResultBlockDao.findForSearch(PageRequest.of(0, max), searchToDelete.getId());
+			if (resultBlockPids.hasContent()) {
+				for (List<Long> nextPartition : Lists.partition(resultBlockPids.getContent(), ourMaximumResultsToDeleteInOneStatement)) {
+					mySearchResultBlockDao.deleteByIds(nextPartition);
+				}
+			}
+
 			// Only delete if we don't have results left in this search
-			if (resultPids.getNumberOfElements() < max) {
+			if (resultPids.getNumberOfElements() < max && resultBlockPids.getNumberOfElements() < max) {
 				ourLog.debug("Deleting search {}/{} - Created[{}]", searchToDelete.getId(), searchToDelete.getUuid(), new InstantType(searchToDelete.getCreated()));
 				mySearchDao.deleteByPid(searchToDelete.getId());
 			} else {
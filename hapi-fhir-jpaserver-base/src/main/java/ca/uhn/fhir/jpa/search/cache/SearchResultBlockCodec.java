@@ -0,0 +1,90 @@
+package ca.uhn.fhir.jpa.search.cache;
+
+
+/*
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Encodes a block of resource PIDs as a sequence of variable length integers, each
+ * holding the (zig-zag encoded) difference from the previous PID. Search results are
+ * often close to ascending order, so most PIDs take one to three bytes instead of eight.
+ *
+ * @since 6.6.0
+ */
+public final class SearchResultBlockCodec {
+
+	/**
+	 * Non instantiable
+	 */
+	private SearchResultBlockCodec() {
+		// nothing
+	}
+
+	public static byte[] encode(long[] thePids, int theFromIndex, int theToIndex) {
+		ByteArrayOutputStream retVal = new ByteArrayOutputStream((theToIndex - theFromIndex) * 3);
+		long previous = 0;
+		for (int i = theFromIndex; i < theToIndex; i++) {
+			long delta = thePids[i] - previous;
+			long zigZag = (delta << 1) ^ (delta >> 63);
+			while ((zigZag & ~0x7FL) != 0) {
+				retVal.write((int) ((zigZag & 0x7F) | 0x80));
+				zigZag >>>= 7;
+			}
+			retVal.write((int) zigZag);
+			previous = thePids[i];
+		}
+		return retVal.toByteArray();
+	}
+
+	/**
+	 * Decodes the PIDs from a block
+	 *
+	 * @param theData  The encoded block
+	 * @param theCount The number of PIDs in the block
+	 */
+	public static long[] decode(byte[] theData, int theCount) {
+		long[] retVal = new long[theCount];
+		long previous = 0;
+		int position = 0;
+		for (int i = 0; i < theCount; i++) {
+			long zigZag = 0;
+			int shift = 0;
+			byte next;
+			do {
+				if (position >= theData.length || shift > 63) {
+					throw new InternalErrorException(Msg.code(2283) + "Invalid search result block");
+				}
+				next = theData[position++];
+				zigZag |= (long) (next & 0x7F) << shift;
+				shift += 7;
+			} while ((next & 0x80) != 0);
+			long delta = (zigZag >>> 1) ^ -(zigZag & 1);
+			previous += delta;
+			retVal[i] = previous;
+		}
+		return retVal;
+	}
+
+}
@@ -30,6 +30,7 @@ import ca.uhn.fhir.jpa.dao.BaseHapiFhirDao;
 import ca.uhn.fhir.jpa.dao.data.IResourceTableDao;
 import ca.uhn.fhir.jpa.dao.data.ITermCodeSystemDao;
 import ca.uhn.fhir.jpa.dao.data.ITermCodeSystemVersionDao;
+import ca.uhn.fhir.jpa.dao.data.ITermConceptClosureDao;
 import ca.uhn.fhir.jpa.dao.data.ITermConceptDao;
 import ca.uhn.fhir.jpa.dao.data.ITermConceptDesignationDao;
 import ca.uhn.fhir.jpa.dao.data.ITermConceptParentChildLinkDao;
@@ -54,6 +55,7 @@ import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
 import ca.uhn.fhir.rest.server.exceptions.UnprocessableEntityException;
 import ca.uhn.fhir.util.ObjectUtil;
 import ca.uhn.fhir.util.ValidateUtil;
+import com.google.common.collect.Lists;
 import org.apache.commons.lang3.Validate;
 import org.hl7.fhir.instance.model.api.IIdType;
 import org.hl7.fhir.r4.model.CodeSystem;
@@ -112,6 +114,8 @@ public class TermCodeSystemStorageSvcImpl implements ITermCodeSystemStorageSvc {
 	@Autowired
 	private ITermConceptParentChildLinkDao myConceptParentChildLinkDao;
 	@Autowired
+	private ITermConceptClosureDao myConceptClosureDao;
+	@Autowired
 	private ITermVersionAdapterSvc myTerminologyVersionAdapterSvc;
 	@Autowired
 	private ITermDeferredStorageSvc myDeferredStorageSvc;
@@ -164,6 +168,10 @@ public class TermCodeSystemStorageSvcImpl implements ITermCodeSystemStorageSvc {
 		UploadStatistics retVal = new UploadStatistics(codeSystemId);
 		HashMap<String, TermConcept> codeToConcept = new HashMap<>();
 
+		// The hierarchy closure can't be used until it has been rebuilt with the new concepts
+		csv.setHierarchyClosureBuilt(false);
+		myDeferredStorageSvc.addHierarchyClosureToStorageQueue(csv.getPid());
+
 		// Add root concepts
 		for (TermConcept nextRootConcept : theAdditions.getRootConcepts()) {
 			List<String> parentCodes = Collections.emptyList();
@@ -214,6 +222,13 @@ public class TermCodeSystemStorageSvcImpl implements ITermCodeSystemStorageSvc {
 			deleteEverythingRelatedToConcept(code, removeCounter);
 		}
 
+		// The descendants of every removed concept are removed too, so the closure rows of the
+		// remaining concepts are unaffected and only the rows for the removed concepts go
+		List<Long> removedPids = allFoundTermConcepts.stream().map(TermConcept::getId).collect(Collectors.toList());
+		for (List<Long> nextPids : Lists.partition(removedPids, 500)) {
+			myConceptClosureDao.deleteByConceptPids(nextPids);
+		}
+
 		return new UploadStatistics(removeCounter.get(), target);
 	}
 
@@ -423,6 +438,9 @@ public class TermCodeSystemStorageSvcImpl implements ITermCodeSystemStorageSvc {
 			persistChildren(next, codeSystemToStore, conceptsStack2, totalCodeCount);
 		}
 
+		codeSystemToStore.setHierarchyClosureBuilt(false);
+		myDeferredStorageSvc.addHierarchyClosureToStorageQueue(codeSystemToStore.getPid());
+
 		ourLog.debug("Done saving concepts, flushing to database");
 		if (!myDeferredStorageSvc.isStorageQueueEmpty(true)) {
 			ourLog.info("Note that some concept saving has been deferred");
@@ -27,11 +27,13 @@ import ca.uhn.fhir.batch2.model.StatusEnum;
 import ca.uhn.fhir.jpa.batch.models.Batch2JobStartResponse;
 import ca.uhn.fhir.jpa.dao.data.ITermCodeSystemDao;
 import ca.uhn.fhir.jpa.dao.data.ITermCodeSystemVersionDao;
+import ca.uhn.fhir.jpa.dao.data.ITermConceptClosureDao;
 import ca.uhn.fhir.jpa.dao.data.ITermConceptDao;
 import ca.uhn.fhir.jpa.dao.data.ITermConceptParentChildLinkDao;
 import ca.uhn.fhir.jpa.entity.TermCodeSystem;
 import ca.uhn.fhir.jpa.entity.TermCodeSystemVersion;
 import ca.uhn.fhir.jpa.entity.TermConcept;
+import ca.uhn.fhir.jpa.entity.TermConceptClosure;
 import ca.uhn.fhir.jpa.entity.TermConceptParentChildLink;
 import ca.uhn.fhir.jpa.model.entity.ResourceTable;
 import ca.uhn.fhir.jpa.model.sched.HapiJob;
@@ -45,6 +47,8 @@ import ca.uhn.fhir.jpa.term.models.TermCodeSystemDeleteVersionJobParameters;
 import ca.uhn.fhir.util.StopWatch;
 import ca.uhn.fhir.util.TimeoutManager;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
 import org.apache.commons.lang3.Validate;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.hl7.fhir.r4.model.ConceptMap;
@@ -56,16 +60,24 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
@@ -78,6 +90,7 @@ public class TermDeferredStorageSvcImpl implements ITermDeferredStorageSvc, IHas
 	private static final Logger ourLog = LoggerFactory.getLogger(TermDeferredStorageSvcImpl.class);
 	private static final long SAVE_ALL_DEFERRED_WARN_MINUTES = 1;
 	private static final long SAVE_ALL_DEFERRED_ERROR_MINUTES = 5;
+	private static final int MAX_HIERARCHY_CLOSURE_BUILD_ATTEMPTS = 3;
 	private boolean myAllowDeferredTasksTimeout = true;
 	private final List<TermCodeSystem> myDeferredCodeSystemsDeletions = Collections.synchronizedList(new ArrayList<>());
 	private final Queue<TermCodeSystemVersion> myDeferredCodeSystemVersionsDeletions = new ConcurrentLinkedQueue<>();
@@ -85,6 +98,10 @@ public class TermDeferredStorageSvcImpl implements ITermDeferredStorageSvc, IHas
 	private final List<ValueSet> myDeferredValueSets = Collections.synchronizedList(new ArrayList<>());
 	private final List<ConceptMap> myDeferredConceptMaps = Collections.synchronizedList(new ArrayList<>());
 	private final List<TermConceptParentChildLink> myConceptLinksToSaveLater = Collections.synchronizedList(new ArrayList<>());
+	private final Queue<Long> myDeferredHierarchyClosures = new ConcurrentLinkedQueue<>();
+	private volatile HierarchyClosureBuild myHierarchyClosureBuild;
+	private volatile boolean myUnbuiltHierarchyClosuresQueued;
+	private final Map<Long, Integer> myHierarchyClosureBuildFailures = new ConcurrentHashMap<>();
 
 	// TODO - why is this needed? it's cumbersome to maintain; consider removing it
 	/**
@@ -105,6 +122,8 @@ public class TermDeferredStorageSvcImpl implements ITermDeferredStorageSvc, IHas
 	@Autowired
 	private ITermConceptParentChildLinkDao myConceptParentChildLinkDao;
 	@Autowired
+	private ITermConceptClosureDao myConceptClosureDao;
+	@Autowired
 	private ITermVersionAdapterSvc myTerminologyVersionAdapterSvc;
 
 	@Autowired
@@ -137,6 +156,47 @@ public class TermDeferredStorageSvcImpl implements ITermDeferredStorageSvc, IHas
 		myDeferredValueSets.addAll(theValueSets);
 	}
 
+	@Override
+	public void addHierarchyClosureToStorageQueue(Long theCodeSystemVersionPid) {
+		Validate.notNull(theCodeSystemVersionPid);
+
+		// The build reads the links from the database, so it can't start before they are committed
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					queueHierarchyClosure(theCodeSystemVersionPid);
+				}
+			});
+		} else {
+			queueHierarchyClosure(theCodeSystemVersionPid);
+		}
+	}
+
+	@Override
+	public void addUnbuiltHierarchyClosuresToStorageQueue() {
+		List<Long> codeSystemVersionPids = new TransactionTemplate(myTransactionMgr).execute(t -> myCodeSystemVersionDao.findPidsWithoutHierarchyClosure());
+		assert codeSystemVersionPids != null;
+
+		HierarchyClosureBuild currentBuild = myHierarchyClosureBuild;
+		for (Long next : codeSystemVersionPids) {
+			if (currentBuild == null || !currentBuild.getCodeSystemVersionPid().equals(next)) {
+				queueHierarchyClosure(next);
+			}
+		}
+		myUnbuiltHierarchyClosuresQueued = true;
+
+		if (!codeSystemVersionPids.isEmpty()) {
+			ourLog.info("Queued hierarchy closure builds for {} code system versions which don't have one", codeSystemVersionPids.size());
+		}
+	}
+
+	private void queueHierarchyClosure(Long theCodeSystemVersionPid) {
+		if (!myDeferredHierarchyClosures.contains(theCodeSystemVersionPid)) {
+			myDeferredHierarchyClosures.add(theCodeSystemVersionPid);
+		}
+	}
+
 	@Override
 	public void deleteCodeSystemForResource(ResourceTable theCodeSystemToDelete) {
 		// there are use cases (at least in tests) where the code system is not present for the resource but versions are,
@@ -228,6 +288,112 @@ public class TermDeferredStorageSvcImpl implements ITermDeferredStorageSvc, IHas
 		}
 	}
 
+	/**
+	 * Builds the hierarchy closure for one code system version at a time. The first call for a
+	 * version takes ownership of the version, deletes any existing closure rows and loads the
+	 * parent/child links for the version, and each subsequent call writes the rows for a chunk
+	 * of concepts.
+	 * <p>
+	 * Several servers may build the same version at once (e.g. each one queues the versions without
+	 * a closure when it starts). The most recently started build owns the version, and each chunk
+	 * first locks the version row and checks that its build still owns it. Since taking ownership
+	 * also locks the row, a build which has been taken over can't write any rows after the new
+	 * owner has deleted the existing ones, and can't mark the version as built.
+	 * </p>
+	 */
+	private void processDeferredHierarchyClosure() {
+		if (myHierarchyClosureBuild == null) {
+			Long codeSystemVersionPid = myDeferredHierarchyClosures.poll();
+			String buildId = UUID.randomUUID().toString();
+			if (myCodeSystemVersionDao.startHierarchyClosureBuild(codeSystemVersionPid, buildId) == 0) {
+				ourLog.info("Not building hierarchy closure for code system version PID {} because it no longer exists", codeSystemVersionPid);
+				return;
+			}
+			int deleted = myConceptClosureDao.deleteByCodeSystemVersion(codeSystemVersionPid);
+
+			ListMultimap<Long, Long> childToParentPids = ArrayListMultimap.create();
+			for (Object[] next : myConceptParentChildLinkDao.findChildAndParentPidsByCodeSystemVersion(codeSystemVersionPid)) {
+				childToParentPids.put((Long) next[0], (Long) next[1]);
+			}
+
+			ourLog.info("Building hierarchy closure for code system version PID {} with {} concepts having parents (deleted {} existing closure rows)", codeSystemVersionPid, childToParentPids.keySet().size(), deleted);
+			myHierarchyClosureBuild = new HierarchyClosureBuild(codeSystemVersionPid, buildId, childToParentPids);
+			return;
+		}
+
+		HierarchyClosureBuild build = myHierarchyClosureBuild;
+		if (myCodeSystemVersionDao.lockHierarchyClosureBuild(build.getCodeSystemVersionPid(), build.getBuildId()) == 0) {
+			ourLog.info("Abandoning hierarchy closure for code system version PID {} because it no longer exists or another build has taken it over", build.getCodeSystemVersionPid());
+			myHierarchyClosureBuild = null;
+			return;
+		}
+
+		StopWatch stopwatch = new StopWatch();
+		List<TermConceptClosure> rows = new ArrayList<>();
+		while (rows.size() < 10000 && build.hasNext()) {
+			Long nextDescendantPid = build.next();
+			for (Long nextAncestorPid : build.getAncestorPids(nextDescendantPid)) {
+				rows.add(new TermConceptClosure(build.getCodeSystemVersionPid(), nextAncestorPid, nextDescendantPid));
+			}
+		}
+		myConceptClosureDao.saveAll(rows);
+		build.addRowCount(rows.size());
+
+		ourLog.info("Saved {} hierarchy closure rows for code system version PID {} in {}ms ({} rows/sec)",
+			rows.size(), build.getCodeSystemVersionPid(), stopwatch.getMillis(), stopwatch.formatThroughput(rows.size(), TimeUnit.SECONDS));
+
+		if (!build.hasNext()) {
+			myHierarchyClosureBuild = null;
+
+			// If the hierarchy has changed since this build started, leave it to the queued rebuild
+			if (!myDeferredHierarchyClosures.contains(build.getCodeSystemVersionPid())) {
+				myHierarchyClosureBuildFailures.remove(build.getCodeSystemVersionPid());
+				if (myCodeSystemVersionDao.completeHierarchyClosureBuild(build.getCodeSystemVersionPid(), build.getBuildId()) > 0) {
+					ourLog.info("Hierarchy closure for code system version PID {} is complete with {} rows", build.getCodeSystemVersionPid(), build.getRowCount());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Runs the next step of the hierarchy closure builds in its own transaction
+	 */
+	@VisibleForTesting
+	void saveDeferredHierarchyClosure() {
+		HierarchyClosureBuild build = myHierarchyClosureBuild;
+		Long codeSystemVersionPid = build != null ? build.getCodeSystemVersionPid() : myDeferredHierarchyClosures.peek();
+		try {
+			runInTransaction(() -> {
+				processDeferredHierarchyClosure();
+				return null;
+			});
+		} catch (RuntimeException e) {
+			abandonHierarchyClosureBuild(codeSystemVersionPid, e);
+		}
+	}
+
+	/**
+	 * A step of the build has been rolled back, so the build can't be completed. The version is
+	 * left marked as not built, and is queued again unless it has already failed
+	 * {@value #MAX_HIERARCHY_CLOSURE_BUILD_ATTEMPTS} times.
+	 */
+	private void abandonHierarchyClosureBuild(Long theCodeSystemVersionPid, RuntimeException theException) {
+		myHierarchyClosureBuild = null;
+		if (theCodeSystemVersionPid == null) {
+			ourLog.warn("Failed to start hierarchy closure build: {}", theException.toString());
+			return;
+		}
+
+		int attempts = myHierarchyClosureBuildFailures.merge(theCodeSystemVersionPid, 1, Integer::sum);
+		if (attempts < MAX_HIERARCHY_CLOSURE_BUILD_ATTEMPTS) {
+			ourLog.warn("Failed to build hierarchy closure for code system version PID {} (attempt {}), will try again: {}", theCodeSystemVersionPid, attempts, theException.toString());
+			queueHierarchyClosure(theCodeSystemVersionPid);
+		} else {
+			ourLog.error("Failed to build hierarchy closure for code system version PID {} after {} attempts, giving up: {}", theCodeSystemVersionPid, attempts, theException.toString());
+			myHierarchyClosureBuildFailures.remove(theCodeSystemVersionPid);
+		}
+	}
+
 	private void processDeferredValueSets() {
 		int count = Math.min(myDeferredValueSets.size(), 200);
 		for (ValueSet nextValueSet : new ArrayList<>(myDeferredValueSets.subList(0, count))) {
@@ -250,6 +416,9 @@ public class TermDeferredStorageSvcImpl implements ITermDeferredStorageSvc, IHas
 		myDeferredCodeSystemsDeletions.clear();
 		myConceptLinksToSaveLater.clear();
 		myDeferredCodeSystemVersionsDeletions.clear();
+		myDeferredHierarchyClosures.clear();
+		myHierarchyClosureBuild = null;
+		myHierarchyClosureBuildFailures.clear();
 		clearJobExecutions();
 	}
 
@@ -282,7 +451,7 @@ public class TermDeferredStorageSvcImpl implements ITermDeferredStorageSvc, IHas
 
 		// Don't include executing jobs here since there's no point in thrashing over and over
 		// in a busy wait while we wait for batch2 job processes to finish
-		while (!isStorageQueueEmpty(false)) {
+		while (!isStorageQueueEmpty(false) || (isDeferredHierarchyClosures() && !isProcessDeferredPaused())) {
 			if (myAllowDeferredTasksTimeout) {
 				if (timeoutManager.checkTimeout()) {
 					ourLog.info(toString());
@@ -299,9 +468,14 @@ public class TermDeferredStorageSvcImpl implements ITermDeferredStorageSvc, IHas
 			return;
 		}
 
+		if (!myUnbuiltHierarchyClosuresQueued) {
+			addUnbuiltHierarchyClosuresToStorageQueue();
+		}
+
 		for (int i = 0; i < 10; i++) {
 			if (!isDeferredConcepts() &&
 				!isConceptLinksToSaveLater() &&
+				!isDeferredHierarchyClosures() &&
 				!isDeferredValueSets() &&
 				!isDeferredConceptMaps() &&
 				!isDeferredCodeSystemDeletions()) {
@@ -317,6 +491,11 @@ public class TermDeferredStorageSvcImpl implements ITermDeferredStorageSvc, IHas
 				continue;
 			}
 
+			if (isDeferredHierarchyClosures()) {
+				saveDeferredHierarchyClosure();
+				continue;
+			}
+
 			if (isDeferredValueSets()) {
 				runInTransaction(() -> {
 					processDeferredValueSets();
@@ -454,6 +633,10 @@ public class TermDeferredStorageSvcImpl implements ITermDeferredStorageSvc, IHas
 		return !myConceptLinksToSaveLater.isEmpty();
 	}
 
+	private boolean isDeferredHierarchyClosures() {
+		return !myDeferredHierarchyClosures.isEmpty() || myHierarchyClosureBuild != null;
+	}
+
 	private boolean isDeferredValueSets() {
 		return !myDeferredValueSets.isEmpty();
 	}
@@ -494,6 +677,7 @@ public class TermDeferredStorageSvcImpl implements ITermDeferredStorageSvc, IHas
 		ourLog.info("isProcessDeferredPaused: {}", isProcessDeferredPaused());
 		ourLog.info("isDeferredConcepts: {}", isDeferredConcepts());
 		ourLog.info("isConceptLinksToSaveLater: {}", isConceptLinksToSaveLater());
+		ourLog.info("isDeferredHierarchyClosures: {}", isDeferredHierarchyClosures());
 		ourLog.info("isDeferredValueSets: {}", isDeferredValueSets());
 		ourLog.info("isDeferredConceptMaps: {}", isDeferredConceptMaps());
 		ourLog.info("isDeferredCodeSystemDeletions: {}", isDeferredCodeSystemDeletions());
@@ -515,6 +699,66 @@ public class TermDeferredStorageSvcImpl implements ITermDeferredStorageSvc, IHas
 		theSchedulerService.scheduleLocalJob(5000, jobDefinition);
 	}
 
+	/**
+	 * The state of a hierarchy closure build which is in progress
+	 */
+	private static class HierarchyClosureBuild {
+
+		private final Long myCodeSystemVersionPid;
+		private final String myBuildId;
+		private final ListMultimap<Long, Long> myChildToParentPids;
+		private final Iterator<Long> myDescendantPids;
+		private long myRowCount;
+
+		private HierarchyClosureBuild(Long theCodeSystemVersionPid, String theBuildId, ListMultimap<Long, Long> theChildToParentPids) {
+			myCodeSystemVersionPid = theCodeSystemVersionPid;
+			myBuildId = theBuildId;
+			myChildToParentPids = theChildToParentPids;
+			myDescendantPids = new ArrayList<>(theChildToParentPids.keySet()).iterator();
+		}
+
+		private Long getCodeSystemVersionPid() {
+			return myCodeSystemVersionPid;
+		}
+
+		private String getBuildId() {
+			return myBuildId;
+		}
+
+		private boolean hasNext() {
+			return myDescendantPids.hasNext();
+		}
+
+		private Long next() {
+			return myDescendantPids.next();
+		}
+
+		private long getRowCount() {
+			return myRowCount;
+		}
+
+		private void addRowCount(int theRowCount) {
+			myRowCount += theRowCount;
+		}
+
+		/**
+		 * Returns the PIDs of all concepts which can be reached by following the parent links
+		 * of the given concept
+		 */
+		private Set<Long> getAncestorPids(Long theConceptPid) {
+			Set<Long> retVal = new HashSet<>();
+			Deque<Long> toVisit = new ArrayDeque<>(myChildToParentPids.get(theConceptPid));
+			while (!toVisit.isEmpty()) {
+				Long next = toVisit.pop();
+				if (!next.equals(theConceptPid) && retVal.add(next)) {
+					toVisit.addAll(myChildToParentPids.get(next));
+				}
+			}
+			return retVal;
+		}
+
+	}
+
 	public static class Job implements HapiJob {
 		@Autowired
 		private ITermDeferredStorageSvc myTerminologySvc;
@@ -534,6 +778,8 @@ public class TermDeferredStorageSvcImpl implements ITermDeferredStorageSvc, IHas
 			.append("myDeferredValueSets", myDeferredValueSets.size())
 			.append("myDeferredConceptMaps", myDeferredConceptMaps.size())
 			.append("myConceptLinksToSaveLater", myConceptLinksToSaveLater.size())
+			.append("myDeferredHierarchyClosures", myDeferredHierarchyClosures.size())
+			.append("myHierarchyClosureBuild", myHierarchyClosureBuild != null)
 			.append("myJobExecutions", myJobExecutions.size())
 			.append("myProcessDeferred", myProcessDeferred)
 			.toString();
@@ -41,6 +41,7 @@ import ca.uhn.fhir.jpa.dao.IFulltextSearchSvc;
 import ca.uhn.fhir.jpa.dao.IJpaStorageResourceParser;
 import ca.uhn.fhir.jpa.dao.data.ITermCodeSystemDao;
 import ca.uhn.fhir.jpa.dao.data.ITermCodeSystemVersionDao;
+import ca.uhn.fhir.jpa.dao.data.ITermConceptClosureDao;
 import ca.uhn.fhir.jpa.dao.data.ITermConceptDao;
 import ca.uhn.fhir.jpa.dao.data.ITermConceptDesignationDao;
 import ca.uhn.fhir.jpa.dao.data.ITermConceptPropertyDao;
@@ -92,6 +93,7 @@ import ca.uhn.hapi.converters.canonical.VersionCanonicalizer;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Lists;
 import org.apache.commons.collections4.ListUtils;
 import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -220,6 +222,8 @@ public class TermReadSvcImpl implements ITermReadSvc, IHasScheduledJobs {
 	@Autowired
 	protected ITermConceptPropertyDao myConceptPropertyDao;
 	@Autowired
+	protected ITermConceptClosureDao myConceptClosureDao;
+	@Autowired
 	protected ITermConceptDesignationDao myConceptDesignationDao;
 	@Autowired
 	protected ITermValueSetDao myTermValueSetDao;
@@ -1502,7 +1506,11 @@ public class TermReadSvcImpl implements ITermReadSvc, IHasScheduledJobs {
 					if (nextFilter.getOp() == ValueSet.FilterOperator.ISA) {
 						theValueSetCodeAccumulator.addMessage("Processing IS-A filter in database - Note that Hibernate Search is not enabled on this server, so this operation can be inefficient.");
 						TermConcept code = findCodeForFilterCriteria(theSystem, nextFilter);
-						addConceptAndChildren(theValueSetCodeAccumulator, theAddedCodes, theInclude, theSystem, theAdd, code);
+						if (code.getCodeSystemVersion().isHierarchyClosureBuilt()) {
+							addConceptDescendantsUsingClosure(theValueSetCodeAccumulator, theAddedCodes, theInclude, theSystem, theAdd, code);
+						} else {
+							addConceptAndChildren(theValueSetCodeAccumulator, theAddedCodes, theInclude, theSystem, theAdd, code);
+						}
 						handled = true;
 					}
 					break;
@@ -1551,6 +1559,27 @@ public class TermReadSvcImpl implements ITermReadSvc, IHasScheduledJobs {
 		}
 	}
 
+	/**
+	 * Same as {@link #addConceptAndChildren(IValueSetConceptAccumulator, Set, ValueSet.ConceptSetComponent, String, boolean, TermConcept)}
+	 * but loads all of the descendants from the hierarchy closure instead of walking the children one
+	 * level at a time. Concepts are added in PID order, which is the order they were stored in.
+	 */
+	private void addConceptDescendantsUsingClosure(IValueSetConceptAccumulator theValueSetCodeAccumulator, Set<String> theAddedCodes, ValueSet.ConceptSetComponent theInclude, String theSystem, boolean theAdd, TermConcept theConcept) {
+		List<Long> descendantPids = myConceptClosureDao.findDescendantPids(theConcept.getId());
+		for (List<Long> nextPids : Lists.partition(descendantPids, 500)) {
+			Map<Long, TermConcept> pidToConcept = new HashMap<>();
+			for (TermConcept next : myConceptDao.fetchConceptsAndDesignationsByPid(nextPids)) {
+				pidToConcept.put(next.getId(), next);
+			}
+			for (Long nextPid : nextPids) {
+				TermConcept next = pidToConcept.get(nextPid);
+				if (next != null) {
+					addCodeIfNotAlreadyAdded(theValueSetCodeAccumulator, theAddedCodes, theAdd, theSystem, theInclude.getVersion(), next.getCode(), next.getDisplay(), next.getId(), next.getParentPidsAsString(), next.getDesignations());
+				}
+			}
+		}
+	}
+
 	@Override
 	@Transactional
 	public String invalidatePreCalculatedExpansion(IIdType theValueSetId, RequestDetails theRequestDetails) {
@@ -1826,7 +1855,13 @@ public class TermReadSvcImpl implements ITermReadSvc, IHasScheduledJobs {
 		Set<TermConcept> retVal = new HashSet<>();
 		retVal.add(concept.get());
 
-		fetchParents(concept.get(), retVal);
+		if (concept.get().getCodeSystemVersion().isHierarchyClosureBuilt()) {
+			for (TermConcept next : myConceptClosureDao.findAncestors(concept.get().getId())) {
+				addToSet(retVal, next);
+			}
+		} else {
+			fetchParents(concept.get(), retVal);
+		}
 
 		ourLog.debug("Fetched {} codes above code {} in {}ms", retVal.size(), theCode, stopwatch.getMillis());
 		return retVal;
@@ -1858,7 +1893,13 @@ public class TermReadSvcImpl implements ITermReadSvc, IHasScheduledJobs {
 		Set<TermConcept> retVal = new HashSet<>();
 		retVal.add(concept.get());
 
-		fetchChildren(concept.get(), retVal);
+		if (concept.get().getCodeSystemVersion().isHierarchyClosureBuilt()) {
+			for (TermConcept next : myConceptClosureDao.findDescendants(concept.get().getId())) {
+				addToSet(retVal, next);
+			}
+		} else {
+			fetchChildren(concept.get(), retVal);
+		}
 
 		ourLog.debug("Fetched {} codes below code {} in {}ms", retVal.size(), theCode, stopwatch.elapsed(TimeUnit.MILLISECONDS));
 		return retVal;
@@ -2092,12 +2133,18 @@ public class TermReadSvcImpl implements ITermReadSvc, IHasScheduledJobs {
 		TermConcept codeB = findCode(codeBSystemIdentifier, conceptB.getCode())
 			.orElseThrow(() -> new InvalidRequestException("Unknown code: " + conceptB));
 
-		SearchSession searchSession = Search.session(myEntityManager);
-
 		ConceptSubsumptionOutcome subsumes;
-		subsumes = testForSubsumption(searchSession, codeA, codeB, ConceptSubsumptionOutcome.SUBSUMES);
-		if (subsumes == null) {
-			subsumes = testForSubsumption(searchSession, codeB, codeA, ConceptSubsumptionOutcome.SUBSUMEDBY);
+		if (codeA.getCodeSystemVersion().isHierarchyClosureBuilt()) {
+			subsumes = testForSubsumptionUsingClosure(codeA, codeB, ConceptSubsumptionOutcome.SUBSUMES);
+			if (subsumes == null) {
+				subsumes = testForSubsumptionUsingClosure(codeB, codeA, ConceptSubsumptionOutcome.SUBSUMEDBY);
+			}
+		} else {
+			SearchSession searchSession = Search.session(myEntityManager);
+			subsumes = testForSubsumption(searchSession, codeA, codeB, ConceptSubsumptionOutcome.SUBSUMES);
+			if (subsumes == null) {
+				subsumes = testForSubsumption(searchSession, codeB, codeA, ConceptSubsumptionOutcome.SUBSUMEDBY);
+			}
 		}
 		if (subsumes == null) {
 			subsumes = ConceptSubsumptionOutcome.NOTSUBSUMED;
@@ -2170,6 +2217,15 @@ public class TermReadSvcImpl implements ITermReadSvc, IHasScheduledJobs {
 		}
 	}
 
+	@Nullable
+	private ConceptSubsumptionOutcome testForSubsumptionUsingClosure(TermConcept theLeft, TermConcept theRight, ConceptSubsumptionOutcome theOutput) {
+		if (myConceptClosureDao.countByAncestorAndDescendant(theLeft.getId(), theRight.getId()) > 0) {
+			return theOutput;
+		} else {
+			return null;
+		}
+	}
+
 	private ArrayList<FhirVersionIndependentConcept> toVersionIndependentConcepts(String theSystem, Set<TermConcept> codes) {
 		ArrayList<FhirVersionIndependentConcept> retVal = new ArrayList<>(codes.size());
 		for (TermConcept next : codes) {
@@ -66,6 +66,26 @@ public interface ITermDeferredStorageSvc {
 
 	void addValueSetsToStorageQueue(List<ValueSet> theValueSets);
 
+	/**
+	 * Requests that the {@link ca.uhn.fhir.jpa.entity.TermConceptClosure hierarchy closure} for the given
+	 * code system version be (re)built. The build starts once all deferred concepts and links have been
+	 * saved, and runs in chunks like the rest of the deferred storage. Hierarchy queries don't use the
+	 * closure until it is complete, so a pending build doesn't count towards {@link #isStorageQueueEmpty(boolean)}.
+	 *
+	 * @since 6.6.0
+	 */
+	void addHierarchyClosureToStorageQueue(Long theCodeSystemVersionPid);
+
+	/**
+	 * Requests a {@link #addHierarchyClosureToStorageQueue(Long) hierarchy closure build} for every code
+	 * system version whose closure is not marked as built. This picks up builds which were still queued
+	 * when the server stopped, as well as code systems stored before the closure existed. It is called
+	 * automatically the first time deferred storage is processed after startup.
+	 *
+	 * @since 6.6.0
+	 */
+	void addUnbuiltHierarchyClosuresToStorageQueue();
+
 	void deleteCodeSystemForResource(ResourceTable theCodeSystemResourceToDelete);
 
 	void deleteCodeSystemVersion(TermCodeSystemVersion theCodeSystemVersion);
@@ -22,6 +22,7 @@ package ca.uhn.fhir.jpa.term.api;
 
 import ca.uhn.fhir.jpa.dao.data.ITermCodeSystemDao;
 import ca.uhn.fhir.jpa.dao.data.ITermCodeSystemVersionDao;
+import ca.uhn.fhir.jpa.dao.data.ITermConceptClosureDao;
 import ca.uhn.fhir.jpa.dao.data.ITermConceptDao;
 import ca.uhn.fhir.jpa.dao.data.ITermConceptDesignationDao;
 import ca.uhn.fhir.jpa.dao.data.ITermConceptParentChildLinkDao;
@@ -58,6 +59,9 @@ public class TermCodeSystemDeleteJobSvc implements ITermCodeSystemDeleteJobSvc {
 	@Autowired
 	private ITermConceptParentChildLinkDao myConceptParentChildLinkDao;
 
+	@Autowired
+	private ITermConceptClosureDao myConceptClosureDao;
+
 	@Autowired
 	private ITermConceptPropertyDao myConceptPropertyDao;
 
@@ -86,6 +90,11 @@ public class TermCodeSystemDeleteJobSvc implements ITermCodeSystemDeleteJobSvc {
 	public CodeSystemConceptsDeleteResult deleteCodeSystemConceptsByCodeSystemVersionPid(long theCodeSystemVersionPid) {
 		CodeSystemConceptsDeleteResult result = new CodeSystemConceptsDeleteResult();
 
+		// code system hierarchy closure delete
+		ourLog.info("Deleting term code hierarchy closure");
+		int deletedClosureRows = myConceptClosureDao.deleteByCodeSystemVersion(theCodeSystemVersionPid);
+		ourLog.info("Deleted {} term code hierarchy closure rows", ourDecimalFormat.format(deletedClosureRows));
+
 		// code system links delete
 		ourLog.info("Deleting term code links");
 		int deletedLinks = myConceptParentChildLinkDao.deleteByCodeSystemVersion(theCodeSystemVersionPid);
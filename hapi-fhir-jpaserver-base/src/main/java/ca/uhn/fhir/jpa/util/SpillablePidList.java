@@ -0,0 +1,220 @@
+package ca.uhn.fhir.jpa.util;
+
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.jpa.model.dao.JpaPid;
+import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
+import org.apache.commons.lang3.Validate;
+
+import javax.annotation.Nonnull;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * An append-only list of unversioned resource PIDs which keeps the first
+ * <code>theMaximumInMemory</code> PIDs on the heap as primitives, and writes any
+ * further PIDs to a temporary file. This is used to hold the results of a running
+ * search, which can contain millions of PIDs for a large search or a
+ * <code>$everything</code> operation.
+ * <p>
+ * The temporary file is deleted when this list is {@link #close() closed}. After
+ * that only the PIDs held on the heap can be read, see {@link #isAvailable(int)}.
+ * </p>
+ * <p>
+ * This class is not thread safe.
+ * </p>
+ *
+ * @since 6.6.0
+ */
+public class SpillablePidList extends AbstractList<JpaPid> implements Closeable {
+
+	private static final org.slf4j.Logger ourLog = org.slf4j.LoggerFactory.getLogger(SpillablePidList.class);
+	private static final int INITIAL_CAPACITY = 16;
+
+	private final int myMaximumInMemory;
+	private long[] myInMemory = new long[INITIAL_CAPACITY];
+	private int mySize;
+	private Path mySpillFile;
+	private FileChannel mySpillChannel;
+	private boolean myClosed;
+
+	/**
+	 * Constructor
+	 *
+	 * @param theMaximumInMemory The number of PIDs to keep on the heap before writing to a temporary
+	 *                           file. If this is <code>0</code> or less, no temporary file is ever used.
+	 */
+	public SpillablePidList(int theMaximumInMemory) {
+		myMaximumInMemory = theMaximumInMemory > 0 ? theMaximumInMemory : Integer.MAX_VALUE;
+	}
+
+	@Override
+	public int size() {
+		return mySize;
+	}
+
+	@Override
+	public JpaPid get(int theIndex) {
+		return getRange(theIndex, theIndex + 1).get(0);
+	}
+
+	@Override
+	public boolean add(JpaPid thePid) {
+		return addAll(List.of(thePid));
+	}
+
+	@Override
+	public boolean addAll(@Nonnull Collection<? extends JpaPid> thePids) {
+		Validate.isTrue(!myClosed, "List has been closed");
+		if (thePids.isEmpty()) {
+			return false;
+		}
+
+		ByteBuffer spillBuffer = null;
+		for (JpaPid next : thePids) {
+			long id = next.getId();
+			if (mySize < myMaximumInMemory) {
+				if (mySize == myInMemory.length) {
+					int newLength = (int) Math.min((long) myInMemory.length * 2, myMaximumInMemory);
+					myInMemory = Arrays.copyOf(myInMemory, newLength);
+				}
+				myInMemory[mySize] = id;
+			} else {
+				if (spillBuffer == null) {
+					spillBuffer = ByteBuffer.allocate(thePids.size() * Long.BYTES);
+				}
+				spillBuffer.putLong(id);
+			}
+			mySize++;
+		}
+
+		if (spillBuffer != null) {
+			spillBuffer.flip();
+			writeToSpillFile(spillBuffer);
+		}
+
+		modCount++;
+		return true;
+	}
+
+	/**
+	 * Returns <code>true</code> if the PIDs up to (but not including) the given index can be read. This is
+	 * always the case until the list has been {@link #close() closed}.
+	 */
+	public boolean isAvailable(int theToIndex) {
+		return !myClosed || theToIndex <= Math.min(mySize, myMaximumInMemory);
+	}
+
+	/**
+	 * Returns the PIDs between the given indexes (inclusive/exclusive)
+	 */
+	@Nonnull
+	public List<JpaPid> getRange(int theFromIndex, int theToIndex) {
+		if (theFromIndex < 0 || theToIndex > mySize || theFromIndex > theToIndex) {
+			throw new IndexOutOfBoundsException("Range " + theFromIndex + "-" + theToIndex + " out of bounds for size " + mySize);
+		}
+		Validate.isTrue(isAvailable(theToIndex), "List has been closed");
+
+		List<JpaPid> retVal = new ArrayList<>(theToIndex - theFromIndex);
+		int inMemoryTo = Math.min(theToIndex, myMaximumInMemory);
+		for (int i = theFromIndex; i < inMemoryTo; i++) {
+			retVal.add(JpaPid.fromId(myInMemory[i]));
+		}
+
+		int spillFrom = Math.max(theFromIndex, myMaximumInMemory);
+		if (spillFrom < theToIndex) {
+			ByteBuffer buffer = ByteBuffer.allocate((theToIndex - spillFrom) * Long.BYTES);
+			readFromSpillFile(buffer, (long) (spillFrom - myMaximumInMemory) * Long.BYTES);
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				retVal.add(JpaPid.fromId(buffer.getLong()));
+			}
+		}
+
+		return retVal;
+	}
+
+	/**
+	 * Returns <code>true</code> if any PIDs have been written to a temporary file
+	 */
+	public boolean isSpilled() {
+		return mySpillFile != null;
+	}
+
+	/**
+	 * Deletes the temporary file, if one was created
+	 */
+	@Override
+	public void close() {
+		myClosed = true;
+		if (mySpillChannel != null) {
+			try {
+				mySpillChannel.close();
+			} catch (IOException e) {
+				ourLog.warn("Failed to close search result file {}: {}", mySpillFile, e.toString());
+			}
+			mySpillChannel = null;
+		}
+	}
+
+	private void writeToSpillFile(ByteBuffer theBuffer) {
+		try {
+			if (mySpillChannel == null) {
+				mySpillFile = Files.createTempFile("hapi-fhir-search-", ".pids");
+				mySpillChannel = FileChannel.open(mySpillFile, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+				ourLog.debug("Search results exceed {} PIDs, writing remaining PIDs to {}", myMaximumInMemory, mySpillFile);
+			}
+			long position = mySpillChannel.size();
+			while (theBuffer.hasRemaining()) {
+				position += mySpillChannel.write(theBuffer, position);
+			}
+		} catch (IOException e) {
+			throw new InternalErrorException(Msg.code(2281) + "Failed to write search results to temporary file: " + e, e);
+		}
+	}
+
+	private void readFromSpillFile(ByteBuffer theBuffer, long thePosition) {
+		try {
+			long position = thePosition;
+			while (theBuffer.hasRemaining()) {
+				int read = mySpillChannel.read(theBuffer, position);
+				if (read < 0) {
+					throw new IOException("Unexpected end of file");
+				}
+				position += read;
+			}
+		} catch (IOException e) {
+			throw new InternalErrorException(Msg.code(2282) + "Failed to read search results from temporary file: " + e, e);
+		}
+	}
+
+}
@@ -0,0 +1,51 @@
+package ca.uhn.fhir.jpa.search.cache;
+
+import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SearchResultBlockCodecTest {
+
+	@Test
+	public void testEncodeAndDecode() {
+		long[] pids = new long[]{5, 6, 7, 1000, 3, Long.MAX_VALUE, 0, Long.MIN_VALUE, -1, 999_999_999_999L};
+		byte[] encoded = SearchResultBlockCodec.encode(pids, 0, pids.length);
+		assertArrayEquals(pids, SearchResultBlockCodec.decode(encoded, pids.length));
+
+		encoded = SearchResultBlockCodec.encode(pids, 2, 5);
+		assertArrayEquals(new long[]{7, 1000, 3}, SearchResultBlockCodec.decode(encoded, 3));
+	}
+
+	@Test
+	public void testMostlyAscendingPidsAreCompact() {
+		Random random = new Random(0);
+		long[] pids = new long[10_000];
+		long next = 1_000_000;
+		for (int i = 0; i < pids.length; i++) {
+			next += random.nextInt(100);
+			pids[i] = next;
+		}
+
+		byte[] encoded = SearchResultBlockCodec.encode(pids, 0, pids.length);
+		assertThat(encoded.length, lessThan(pids.length * 2 + 8));
+		assertArrayEquals(pids, SearchResultBlockCodec.decode(encoded, pids.length));
+	}
+
+	@Test
+	public void testDecodeTruncated() {
+		long[] pids = new long[]{1, 2, 3000};
+		byte[] encoded = SearchResultBlockCodec.encode(pids, 0, pids.length);
+		byte[] truncated = Arrays.copyOf(encoded, encoded.length - 1);
+		InternalErrorException e = assertThrows(InternalErrorException.class, () -> SearchResultBlockCodec.decode(truncated, 3));
+		assertEquals("HAPI-2283: Invalid search result block", e.getMessage());
+	}
+
+}
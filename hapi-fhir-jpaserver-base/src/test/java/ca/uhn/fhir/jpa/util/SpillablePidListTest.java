@@ -0,0 +1,68 @@
+package ca.uhn.fhir.jpa.util;
+
+import ca.uhn.fhir.jpa.model.dao.JpaPid;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SpillablePidListTest {
+
+	@Test
+	public void testNoSpill() {
+		try (SpillablePidList list = new SpillablePidList(0)) {
+			list.addAll(pids(0, 1000));
+			assertEquals(1000, list.size());
+			assertFalse(list.isSpilled());
+			assertEquals(pids(10, 20), list.getRange(10, 20));
+		}
+	}
+
+	@Test
+	public void testSpill() {
+		SpillablePidList list = new SpillablePidList(100);
+		list.addAll(pids(0, 50));
+		list.addAll(pids(50, 250));
+		list.add(JpaPid.fromId(250L));
+		assertTrue(list.isSpilled());
+		assertEquals(251, list.size());
+
+		// Ranges within the heap, within the file, and across both
+		assertEquals(pids(0, 100), list.getRange(0, 100));
+		assertEquals(pids(150, 251), list.getRange(150, 251));
+		assertEquals(pids(90, 110), list.getRange(90, 110));
+		assertEquals(JpaPid.fromId(200L), list.get(200));
+		assertEquals(pids(0, 251), new ArrayList<>(list));
+
+		// After closing, only the PIDs held on the heap can be read
+		list.close();
+		assertTrue(list.isAvailable(100));
+		assertFalse(list.isAvailable(101));
+		assertEquals(pids(0, 100), list.getRange(0, 100));
+		assertThrows(IllegalArgumentException.class, () -> list.getRange(0, 101));
+		assertThrows(IllegalArgumentException.class, () -> list.addAll(pids(0, 1)));
+	}
+
+	@Test
+	public void testInvalidRange() {
+		try (SpillablePidList list = new SpillablePidList(10)) {
+			list.addAll(pids(0, 20));
+			assertThrows(IndexOutOfBoundsException.class, () -> list.getRange(15, 21));
+			assertThrows(IndexOutOfBoundsException.class, () -> list.getRange(5, 4));
+		}
+	}
+
+	private static List<JpaPid> pids(long theFrom, long theTo) {
+		List<JpaPid> retVal = new ArrayList<>();
+		for (long i = theFrom; i < theTo; i++) {
+			retVal.add(JpaPid.fromId(i));
+		}
+		return retVal;
+	}
+
+}
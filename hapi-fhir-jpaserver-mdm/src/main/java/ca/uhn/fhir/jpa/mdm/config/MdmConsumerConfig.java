@@ -46,6 +46,7 @@ import ca.uhn.fhir.jpa.mdm.svc.candidate.CandidateSearcher;
 import ca.uhn.fhir.jpa.mdm.svc.candidate.FindCandidateByEidSvc;
 import ca.uhn.fhir.jpa.mdm.svc.candidate.FindCandidateByExampleSvc;
 import ca.uhn.fhir.jpa.mdm.svc.candidate.FindCandidateByLinkSvc;
+import ca.uhn.fhir.jpa.mdm.svc.candidate.MdmBlockingKeySvc;
 import ca.uhn.fhir.jpa.mdm.svc.candidate.MdmCandidateSearchCriteriaBuilderSvc;
 import ca.uhn.fhir.jpa.mdm.svc.candidate.MdmCandidateSearchSvc;
 import ca.uhn.fhir.jpa.mdm.svc.candidate.MdmGoldenResourceFindingSvc;
@@ -195,6 +196,11 @@ public class MdmConsumerConfig {
 		return new MdmCandidateSearchSvc();
 	}
 
+	@Bean
+	MdmBlockingKeySvc mdmBlockingKeySvc() {
+		return new MdmBlockingKeySvc();
+	}
+
 	@Bean
 	CandidateSearcher candidateSearcher(DaoRegistry theDaoRegistry, IMdmSettings theMdmSettings, MdmSearchParamSvc theMdmSearchParamSvc) {
 		return new CandidateSearcher(theDaoRegistry, theMdmSettings, theMdmSearchParamSvc);
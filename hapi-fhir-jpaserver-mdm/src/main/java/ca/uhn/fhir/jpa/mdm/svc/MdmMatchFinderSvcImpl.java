@@ -25,6 +25,7 @@ import ca.uhn.fhir.jpa.mdm.svc.candidate.MdmCandidateSearchSvc;
 import ca.uhn.fhir.mdm.api.IMdmMatchFinderSvc;
 import ca.uhn.fhir.mdm.api.MatchedTarget;
 import ca.uhn.fhir.mdm.log.Logs;
+import ca.uhn.fhir.mdm.rules.svc.MdmExtractedFieldValues;
 import ca.uhn.fhir.mdm.rules.svc.MdmResourceMatcherSvc;
 import org.hl7.fhir.instance.model.api.IAnyResource;
 import org.slf4j.Logger;
@@ -55,8 +56,11 @@ public class MdmMatchFinderSvcImpl implements IMdmMatchFinderSvc {
 	public List<MatchedTarget> getMatchedTargets(String theResourceType, IAnyResource theResource, RequestPartitionId theRequestPartitionId) {
 		Collection<IAnyResource> targetCandidates = myMdmCandidateSearchSvc.findCandidates(theResourceType, theResource, theRequestPartitionId);
 
+		// Extract the incoming resource's field values once rather than once per candidate. Candidates have just been
+		// loaded from the repository, so their values can come from the cache keyed by version.
+		MdmExtractedFieldValues resourceValues = myMdmResourceMatcherSvc.extractFieldValues(theResource);
 		List<MatchedTarget> matches = targetCandidates.stream()
-			.map(candidate -> new MatchedTarget(candidate, myMdmResourceMatcherSvc.getMatchResult(theResource, candidate)))
+			.map(candidate -> new MatchedTarget(candidate, myMdmResourceMatcherSvc.getMatchResult(resourceValues, myMdmResourceMatcherSvc.extractStoredResourceFieldValues(candidate))))
 			.collect(Collectors.toList());
 
 		ourLog.trace("Found {} matched targets for {}.", matches.size(), idOrType(theResource, theResourceType));
@@ -22,8 +22,10 @@ package ca.uhn.fhir.jpa.mdm.svc;
 
 import ca.uhn.fhir.jpa.mdm.svc.candidate.CandidateList;
 import ca.uhn.fhir.jpa.mdm.svc.candidate.MatchedGoldenResourceCandidate;
+import ca.uhn.fhir.jpa.mdm.svc.candidate.MdmBlockingKeySvc;
 import ca.uhn.fhir.jpa.mdm.svc.candidate.MdmGoldenResourceFindingSvc;
 import ca.uhn.fhir.mdm.api.IMdmLinkSvc;
+import ca.uhn.fhir.mdm.api.IMdmSettings;
 import ca.uhn.fhir.mdm.api.MdmLinkSourceEnum;
 import ca.uhn.fhir.mdm.api.MdmMatchOutcome;
 import ca.uhn.fhir.mdm.api.MdmMatchResultEnum;
@@ -60,6 +62,10 @@ public class MdmMatchLinkSvc {
 	private GoldenResourceHelper myGoldenResourceHelper;
 	@Autowired
 	private MdmEidUpdateService myEidUpdateService;
+	@Autowired
+	private IMdmSettings myMdmSettings;
+	@Autowired
+	private MdmBlockingKeySvc myMdmBlockingKeySvc;
 
 	/**
 	 * Given an MDM source (consisting of any supported MDM type), find a suitable Golden Resource candidate for them,
@@ -80,6 +86,10 @@ public class MdmMatchLinkSvc {
 	}
 
 	private MdmTransactionContext doMdmUpdate(IAnyResource theResource, MdmTransactionContext theMdmTransactionContext) {
+		if (myMdmSettings.isCandidateSearchUsingBlockingKeys()) {
+			myMdmBlockingKeySvc.updateBlockingKeys(theResource);
+		}
+
 		CandidateList candidateList = myMdmGoldenResourceFindingSvc.findGoldenResourceCandidates(theResource);
 
 		if (candidateList.isEmpty()) {
@@ -0,0 +1,282 @@
+package ca.uhn.fhir.jpa.mdm.svc.candidate;
+
+/*-
+ * #%L
+ * HAPI FHIR JPA Server - Master Data Management
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.api.svc.IIdHelperService;
+import ca.uhn.fhir.jpa.dao.ISearchBuilder;
+import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryMatchResult;
+import ca.uhn.fhir.jpa.searchparam.matcher.SearchParamMatcher;
+import ca.uhn.fhir.mdm.api.IMdmSettings;
+import ca.uhn.fhir.mdm.dao.IMdmBlockingKeyDao;
+import ca.uhn.fhir.mdm.log.Logs;
+import ca.uhn.fhir.mdm.rules.json.MdmResourceSearchParamJson;
+import ca.uhn.fhir.mdm.svc.MdmSearchParamSvc;
+import ca.uhn.fhir.rest.api.Constants;
+import ca.uhn.fhir.rest.api.server.storage.IResourcePersistentId;
+import ca.uhn.fhir.util.StringUtil;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.hl7.fhir.instance.model.api.IAnyResource;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static ca.uhn.fhir.jpa.mdm.svc.candidate.CandidateSearcher.idOrType;
+import static ca.uhn.fhir.mdm.api.MdmConstants.ALL_RESOURCE_SEARCH_PARAM_TYPE;
+
+/**
+ * Maintains the persisted index of MDM blocking keys (see {@link IMdmBlockingKeyDao}) and uses it to find
+ * candidate resources for matching. This is only used if {@link IMdmSettings#isCandidateSearchUsingBlockingKeys()}
+ * is enabled.
+ * <p>
+ * The keys of a resource are derived from the values of the candidate search parameters in the MDM rules,
+ * normalized the same way string search parameters are indexed. A resource is a candidate for another if,
+ * for any candidate search param set, it shares at least one key for every parameter in the set that has a
+ * value in the incoming resource. These are the same AND/OR semantics as the candidate search queries built
+ * by {@link MdmCandidateSearchCriteriaBuilderSvc}, except that values must be equal after normalization.
+ * </p>
+ *
+ * @since 6.6.0
+ */
+public class MdmBlockingKeySvc {
+
+	private static final Logger ourLog = Logs.getMdmTroubleshootingLog();
+	private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128(0);
+
+	@Autowired
+	private FhirContext myFhirContext;
+	@Autowired
+	private IMdmSettings myMdmSettings;
+	@Autowired
+	private IMdmBlockingKeyDao myMdmBlockingKeyDao;
+	@Autowired
+	private MdmSearchParamSvc myMdmSearchParamSvc;
+	@Autowired
+	private SearchParamMatcher mySearchParamMatcher;
+	@Autowired
+	private IIdHelperService myIdHelperService;
+
+	/**
+	 * Replaces the stored blocking keys of the given resource with the keys derived from its current content.
+	 * Resources which have not been stored yet are ignored.
+	 */
+	@SuppressWarnings("unchecked")
+	public void updateBlockingKeys(IAnyResource theResource) {
+		String resourceType = myFhirContext.getResourceType(theResource);
+		IResourcePersistentId pid = getPidOrNull(theResource);
+		if (pid == null) {
+			return;
+		}
+
+		Set<Long> keyHashes = new HashSet<>();
+		for (MdmResourceSearchParamJson resourceSearchParam : getCandidateSearchParams(resourceType)) {
+			for (List<Long> paramKeyHashes : extractKeyHashes(resourceType, theResource, resourceSearchParam).values()) {
+				keyHashes.addAll(paramKeyHashes);
+			}
+		}
+
+		RequestPartitionId partitionId = (RequestPartitionId) theResource.getUserData(Constants.RESOURCE_PARTITION_ID);
+		int changeCount = myMdmBlockingKeyDao.replaceBlockingKeys(pid, resourceType, keyHashes, partitionId);
+		ourLog.debug("Updated MDM blocking keys for {}: {} keys, {} changed", idOrType(theResource, resourceType), keyHashes.size(), changeCount);
+	}
+
+	/**
+	 * Finds the candidates for matching the given resource using the blocking key index.
+	 *
+	 * @param theResourceType       the resource type of the resource being matched
+	 * @param theResource           the resource being matched
+	 * @param theFilterCriteria     the candidate filter criteria which must also be satisfied by every candidate
+	 * @param theRequestPartitionId the partitions candidates must belong to
+	 * @return the candidates keyed by their persistent ID, or <code>null</code> if the filter criteria can not be
+	 * evaluated in memory, in which case the caller must fall back to searching
+	 * @throws TooManyCandidatesException if the number of candidates reaches {@link IMdmSettings#getCandidateSearchLimit()}
+	 */
+	@Nullable
+	@SuppressWarnings("unchecked")
+	public Map<IResourcePersistentId, IAnyResource> findCandidates(String theResourceType, IAnyResource theResource, List<String> theFilterCriteria, RequestPartitionId theRequestPartitionId) {
+		List<Map<String, List<Long>>> keyHashesPerSearchParamSet = new ArrayList<>();
+		Set<Long> allKeyHashes = new HashSet<>();
+		for (MdmResourceSearchParamJson resourceSearchParam : getCandidateSearchParams(theResourceType)) {
+			Map<String, List<Long>> keyHashes = extractKeyHashes(theResourceType, theResource, resourceSearchParam);
+			// As with candidate searches, a param set for which the resource has no values is not used
+			if (!keyHashes.isEmpty()) {
+				keyHashesPerSearchParamSet.add(keyHashes);
+				keyHashes.values().forEach(allKeyHashes::addAll);
+			}
+		}
+
+		Map<Long, Set<IResourcePersistentId>> keyHashToResourcePids = Collections.emptyMap();
+		if (!allKeyHashes.isEmpty()) {
+			// A key shared by more resources than the candidate limit makes matching pointless, so bound the
+			// number of stored keys loaded by allowing each key to be shared by up to that many resources
+			int maximumKeys = (int) Math.min(Integer.MAX_VALUE - 1, (long) myMdmSettings.getCandidateSearchLimit() * allKeyHashes.size());
+			Optional<Map<Long, Set<IResourcePersistentId>>> found = myMdmBlockingKeyDao.findResourcePidsByKeyHashes(allKeyHashes, theRequestPartitionId, maximumKeys);
+			if (!found.isPresent()) {
+				throw new TooManyCandidatesException(Msg.code(2301) + "More than " + maximumKeys + " MDM blocking keys match " + idOrType(theResource, theResourceType) + ".  Aborting mdm matching.");
+			}
+			keyHashToResourcePids = found.get();
+		}
+
+		Set<IResourcePersistentId> candidatePids = new HashSet<>();
+		for (Map<String, List<Long>> keyHashes : keyHashesPerSearchParamSet) {
+			Set<IResourcePersistentId> paramSetPids = null;
+			for (List<Long> paramKeyHashes : keyHashes.values()) {
+				Set<IResourcePersistentId> paramPids = new HashSet<>();
+				for (Long keyHash : paramKeyHashes) {
+					paramPids.addAll(keyHashToResourcePids.getOrDefault(keyHash, Collections.emptySet()));
+				}
+				if (paramSetPids == null) {
+					paramSetPids = paramPids;
+				} else {
+					paramSetPids.retainAll(paramPids);
+				}
+			}
+			if (paramSetPids != null) {
+				candidatePids.addAll(paramSetPids);
+			}
+		}
+
+		// Obviously we don't want to consider the incoming resource as a potential candidate
+		IResourcePersistentId resourcePid = getPidOrNull(theResource);
+		if (resourcePid != null) {
+			candidatePids.remove(resourcePid);
+		}
+
+		if (candidatePids.size() >= myMdmSettings.getCandidateSearchLimit()) {
+			throw new TooManyCandidatesException(Msg.code(2286) + "More than " + myMdmSettings.getCandidateSearchLimit() + " candidate matches found for " + idOrType(theResource, theResourceType) + " using MDM blocking keys.  Aborting mdm matching.");
+		}
+
+		Map<IResourcePersistentId, IAnyResource> retVal = new LinkedHashMap<>();
+		if (candidatePids.isEmpty()) {
+			return retVal;
+		}
+
+		List<IResourcePersistentId> pidsToLoad = new ArrayList<>(candidatePids);
+		List<IBaseResource> resources = new ArrayList<>(pidsToLoad.size());
+		ISearchBuilder searchBuilder = myMdmSearchParamSvc.generateSearchBuilderForType(theResourceType);
+		searchBuilder.loadResourcesByPid(pidsToLoad, Collections.emptyList(), resources, false, null);
+
+		String filterCriteria = theFilterCriteria.isEmpty() ? null : theResourceType + "?" + String.join("&", theFilterCriteria);
+		for (IBaseResource resource : resources) {
+			// Resources which could not be loaded leave a gap in the list
+			if (resource == null) {
+				continue;
+			}
+			IResourcePersistentId pid = getPidOrNull(resource);
+			if (pid == null) {
+				continue;
+			}
+			candidatePids.remove(pid);
+
+			if (filterCriteria != null) {
+				InMemoryMatchResult filterResult = mySearchParamMatcher.match(filterCriteria, resource, null);
+				if (!filterResult.supported()) {
+					ourLog.debug("MDM candidate filter {} can not be evaluated in memory: {}", filterCriteria, filterResult.getUnsupportedReason());
+					return null;
+				}
+				if (!filterResult.matched()) {
+					continue;
+				}
+			}
+
+			retVal.put(pid, (IAnyResource) resource);
+		}
+
+		// Anything left could not be loaded because it has been deleted or expunged
+		if (!candidatePids.isEmpty()) {
+			ourLog.debug("Removing MDM blocking keys for {} deleted resources", candidatePids.size());
+			myMdmBlockingKeyDao.deleteBlockingKeys(candidatePids);
+		}
+
+		ourLog.debug("Blocking key lookup found {} candidates for {}", retVal.size(), idOrType(theResource, theResourceType));
+		return retVal;
+	}
+
+	/**
+	 * @return The key hashes for every parameter of the param set that has at least one value in the resource
+	 */
+	@Nonnull
+	private Map<String, List<Long>> extractKeyHashes(String theResourceType, IAnyResource theResource, MdmResourceSearchParamJson theResourceSearchParam) {
+		Map<String, List<Long>> retVal = new LinkedHashMap<>();
+		for (String searchParam : theResourceSearchParam) {
+			List<String> values = myMdmSearchParamSvc.getValueFromResourceForSearchParam(theResource, searchParam);
+			if (values.isEmpty()) {
+				continue;
+			}
+			List<Long> keyHashes = values
+				.stream()
+				.map(value -> hashBlockingKey(theResourceType, searchParam, value))
+				.distinct()
+				.collect(Collectors.toList());
+			retVal.put(searchParam, keyHashes);
+		}
+		return retVal;
+	}
+
+	/**
+	 * The resource being matched may not have been stored yet, in which case it has no ID
+	 */
+	@Nullable
+	private IResourcePersistentId getPidOrNull(IBaseResource theResource) {
+		if (theResource.getIdElement().getIdPart() == null) {
+			return null;
+		}
+		return myIdHelperService.getPidOrNull(RequestPartitionId.allPartitions(), theResource);
+	}
+
+	@Nonnull
+	private List<MdmResourceSearchParamJson> getCandidateSearchParams(String theResourceType) {
+		return myMdmSettings
+			.getMdmRules()
+			.getCandidateSearchParams()
+			.stream()
+			.filter(t -> t.getResourceType().equals(theResourceType) || t.getResourceType().equalsIgnoreCase(ALL_RESOURCE_SEARCH_PARAM_TYPE))
+			.collect(Collectors.toList());
+	}
+
+	static long hashBlockingKey(String theResourceType, String theSearchParam, String theValue) {
+		Hasher hasher = HASH_FUNCTION.newHasher();
+		hasher.putString(theResourceType, StandardCharsets.UTF_8);
+		hasher.putByte((byte) 0);
+		hasher.putString(theSearchParam, StandardCharsets.UTF_8);
+		hasher.putByte((byte) 0);
+		hasher.putString(StringUtil.normalizeStringForSearchIndexing(theValue), StandardCharsets.UTF_8);
+		return hasher.hash().asLong();
+	}
+}
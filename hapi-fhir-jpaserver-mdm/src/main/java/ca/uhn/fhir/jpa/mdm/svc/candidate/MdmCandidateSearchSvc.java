@@ -60,6 +60,8 @@ public class MdmCandidateSearchSvc {
 	private MdmCandidateSearchCriteriaBuilderSvc myMdmCandidateSearchCriteriaBuilderSvc;
 	@Autowired
 	private CandidateSearcher myCandidateSearcher;
+	@Autowired
+	private MdmBlockingKeySvc myMdmBlockingKeySvc;
 
 	public MdmCandidateSearchSvc() {
 	}
@@ -75,11 +77,22 @@ public class MdmCandidateSearchSvc {
 	 */
 	@Transactional
 	public Collection<IAnyResource> findCandidates(String theResourceType, IAnyResource theResource, RequestPartitionId theRequestPartitionId) {
-		Map<IResourcePersistentId, IAnyResource> matchedPidsToResources = new HashMap<>();
 		List<MdmFilterSearchParamJson> filterSearchParams = myMdmSettings.getMdmRules().getCandidateFilterSearchParams();
 		List<String> filterCriteria = buildFilterQuery(filterSearchParams, theResourceType);
 		List<MdmResourceSearchParamJson> candidateSearchParams = myMdmSettings.getMdmRules().getCandidateSearchParams();
 
+		// Without candidate search params, the candidates are every resource matching the filters, which
+		// the blocking key index can not provide.
+		if (myMdmSettings.isCandidateSearchUsingBlockingKeys() && !candidateSearchParams.isEmpty()) {
+			Map<IResourcePersistentId, IAnyResource> candidates = myMdmBlockingKeySvc.findCandidates(theResourceType, theResource, filterCriteria, theRequestPartitionId);
+			if (candidates != null) {
+				ourLog.info("Blocking key lookup found {} matching resources for {}", candidates.size(), idOrType(theResource, theResourceType));
+				return candidates.values();
+			}
+		}
+
+		Map<IResourcePersistentId, IAnyResource> matchedPidsToResources = new HashMap<>();
+
 		//If there are zero MdmResourceSearchParamJson, we end up only making a single search, otherwise we
 		//must perform one search per MdmResourceSearchParamJson.
 		if (candidateSearchParams.isEmpty()) {
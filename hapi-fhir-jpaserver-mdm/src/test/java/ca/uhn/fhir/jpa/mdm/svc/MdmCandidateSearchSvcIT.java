@@ -1,5 +1,6 @@
 package ca.uhn.fhir.jpa.mdm.svc;
 
+import ca.uhn.fhir.i18n.Msg;
 import ca.uhn.fhir.interceptor.model.RequestPartitionId;
 import ca.uhn.fhir.jpa.mdm.BaseMdmR4Test;
 import ca.uhn.fhir.jpa.mdm.svc.candidate.MdmCandidateSearchSvc;
@@ -24,6 +25,7 @@ import java.util.Collections;
 import java.util.Date;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.startsWith;
 import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.fail;
@@ -48,6 +50,7 @@ public class MdmCandidateSearchSvcIT extends BaseMdmR4Test {
 	@AfterEach
 	public void resetMdmSettings() {
 		myMdmSettings.setCandidateSearchLimit(MdmSettings.DEFAULT_CANDIDATE_SEARCH_LIMIT);
+		myMdmSettings.setCandidateSearchUsingBlockingKeys(false);
 		myInterceptorRegistry.unregisterInterceptor(myNicknameInterceptor);
 	}
 
@@ -149,6 +152,98 @@ public class MdmCandidateSearchSvcIT extends BaseMdmR4Test {
 		}
 	}
 
+	@Test
+	public void testFindCandidatesUsingBlockingKeys() {
+		myMdmSettings.setCandidateSearchUsingBlockingKeys(true);
+
+		// Only resources processed by MDM have blocking keys
+		Patient indexedJane = createPatientAndUpdateLinks(buildJanePatient());
+		createActivePatient();
+
+		// Inactive patients are excluded by the candidate filter
+		Patient inactiveJane = buildJanePatient();
+		inactiveJane.setActive(false);
+		inactiveJane = (Patient) myPatientDao.create(inactiveJane).getResource();
+		myMdmMatchLinkSvc.updateMdmLinksForMdmSource(inactiveJane, createContextForCreate("Patient"));
+
+		Patient newJane = buildJanePatient();
+		Collection<IAnyResource> result = runInTransaction(() -> myMdmCandidateSearchSvc.findCandidates("Patient", newJane, RequestPartitionId.allPartitions()));
+		assertEquals(1, result.size());
+		assertEquals(indexedJane.getIdElement().toUnqualifiedVersionless().getValue(), result.iterator().next().getIdElement().toUnqualifiedVersionless().getValue());
+
+		// Values are normalized
+		Patient otherCaseJane = new Patient();
+		otherCaseJane.addIdentifier().setSystem(newJane.getIdentifierFirstRep().getSystem()).setValue(newJane.getIdentifierFirstRep().getValue().toLowerCase());
+		assertEquals(1, runInTransaction(() -> myMdmCandidateSearchSvc.findCandidates("Patient", otherCaseJane, RequestPartitionId.allPartitions()).size()));
+
+		// Deleted candidates are ignored
+		myPatientDao.delete(indexedJane.getIdElement().toUnqualifiedVersionless());
+		assertEquals(0, runInTransaction(() -> myMdmCandidateSearchSvc.findCandidates("Patient", newJane, RequestPartitionId.allPartitions()).size()));
+	}
+
+	@Test
+	public void testFindCandidatesUsingBlockingKeysExcludesIncomingResource() {
+		myMdmSettings.setCandidateSearchUsingBlockingKeys(true);
+
+		Patient jane = createPatientAndUpdateLinks(buildJanePatient());
+		assertEquals(0, runInTransaction(() -> myMdmCandidateSearchSvc.findCandidates("Patient", jane, RequestPartitionId.allPartitions()).size()));
+
+		// Changing the resource replaces its keys
+		Patient otherJane = createPatientAndUpdateLinks(buildJanePatient());
+		assertEquals(1, runInTransaction(() -> myMdmCandidateSearchSvc.findCandidates("Patient", jane, RequestPartitionId.allPartitions()).size()));
+		otherJane.getIdentifierFirstRep().setValue("ID.OTHER.123");
+		otherJane.setBirthDate(null);
+		Patient updatedOtherJane = (Patient) myPatientDao.update(otherJane).getResource();
+		myMdmMatchLinkSvc.updateMdmLinksForMdmSource(updatedOtherJane, createContextForUpdate("Patient"));
+		assertEquals(0, runInTransaction(() -> myMdmCandidateSearchSvc.findCandidates("Patient", jane, RequestPartitionId.allPartitions()).size()));
+	}
+
+	@Test
+	public void testTooManyMatchesUsingBlockingKeys() {
+		myMdmSettings.setCandidateSearchUsingBlockingKeys(true);
+		myMdmSettings.setCandidateSearchLimit(2);
+
+		createPatientAndUpdateLinks(buildJanePatient());
+		createPatientAndUpdateLinks(buildJanePatient());
+
+		Patient newJane = buildJanePatient();
+		try {
+			myMdmCandidateSearchSvc.findCandidates("Patient", newJane, RequestPartitionId.allPartitions());
+			fail();
+		} catch (TooManyCandidatesException e) {
+			assertEquals("HAPI-2286: More than 2 candidate matches found for Patient using MDM blocking keys.  Aborting mdm matching.", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testFindCandidatesUsingBlockingKeysFiltersByPartition() {
+		myMdmSettings.setCandidateSearchUsingBlockingKeys(true);
+
+		createPatientAndUpdateLinks(buildJanePatient());
+
+		Patient newJane = buildJanePatient();
+		assertEquals(1, runInTransaction(() -> myMdmCandidateSearchSvc.findCandidates("Patient", newJane, RequestPartitionId.defaultPartition()).size()));
+		assertEquals(1, runInTransaction(() -> myMdmCandidateSearchSvc.findCandidates("Patient", newJane, RequestPartitionId.fromPartitionIds(1, null)).size()));
+		assertEquals(0, runInTransaction(() -> myMdmCandidateSearchSvc.findCandidates("Patient", newJane, RequestPartitionId.fromPartitionId(1)).size()));
+	}
+
+	@Test
+	public void testTooManyBlockingKeysUsingBlockingKeys() {
+		myMdmSettings.setCandidateSearchUsingBlockingKeys(true);
+
+		createPatientAndUpdateLinks(buildJanePatient());
+		createPatientAndUpdateLinks(buildJanePatient());
+
+		myMdmSettings.setCandidateSearchLimit(1);
+		Patient newJane = buildJanePatient();
+		try {
+			myMdmCandidateSearchSvc.findCandidates("Patient", newJane, RequestPartitionId.allPartitions());
+			fail();
+		} catch (TooManyCandidatesException e) {
+			assertThat(e.getMessage(), startsWith(Msg.code(2301) + "More than "));
+		}
+	}
+
 	private Patient createActivePatient() {
 		Patient jane = buildJanePatient();
 		jane.setActive(true);
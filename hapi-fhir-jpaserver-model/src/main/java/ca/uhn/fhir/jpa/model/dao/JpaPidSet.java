@@ -0,0 +1,342 @@
+package ca.uhn.fhir.jpa.model.dao;
+
+/*-
+ * #%L
+ * HAPI FHIR JPA Model
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.apache.commons.lang3.Validate;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A set of {@link JpaPid} which stores the PIDs in primitive arrays instead of holding
+ * a <code>JpaPid</code> (plus a boxed <code>Long</code> and a hash table node) for every
+ * entry. This is intended for the large sets of PIDs which are built up while
+ * searching, e.g. the results of a <code>$everything</code> operation or the targets
+ * of an <code>_include</code> / <code>_revinclude</code>.
+ * <p>
+ * Entries are keyed on the PID and the version (if any), which is the same as
+ * {@link JpaPid#equals(Object)}. The resource type is kept for each entry if it is
+ * known, but it is not part of the key. Entries are iterated in the order they were
+ * added, and can also be accessed by index, so this class can also be used in
+ * place of a list. Individual entries can not be removed.
+ * </p>
+ * <p>
+ * The version and resource type arrays are only allocated once an entry
+ * which has a version or resource type is added.
+ * </p>
+ *
+ * @since 6.6.0
+ */
+public class JpaPidSet extends AbstractSet<JpaPid> {
+
+	private static final long NO_VERSION = Long.MIN_VALUE;
+	private static final int MINIMUM_CAPACITY = 8;
+
+	private long[] myIds;
+	private long[] myVersions;
+	private String[] myResourceTypes;
+	/**
+	 * Open addressing hash table, each slot holds the index of the entry plus one (0 means empty)
+	 */
+	private int[] myTable;
+	private int mySize;
+
+	/**
+	 * Constructor
+	 */
+	public JpaPidSet() {
+		this(MINIMUM_CAPACITY);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param theExpectedSize The number of entries this set is expected to hold. The set will grow if needed.
+	 */
+	public JpaPidSet(int theExpectedSize) {
+		int capacity = Math.max(theExpectedSize, MINIMUM_CAPACITY);
+		myIds = new long[capacity];
+		myTable = new int[tableSizeFor(capacity)];
+	}
+
+	/**
+	 * Constructor which copies the given PIDs
+	 */
+	public JpaPidSet(@Nonnull Collection<JpaPid> thePids) {
+		this(thePids.size());
+		addAll(thePids);
+	}
+
+	@Override
+	public int size() {
+		return mySize;
+	}
+
+	@Override
+	public boolean add(@Nonnull JpaPid thePid) {
+		Validate.notNull(thePid, "thePid must not be null");
+		return add(thePid.getId(), thePid.getVersion(), thePid.getResourceType());
+	}
+
+	/**
+	 * Adds an unversioned PID with no known resource type
+	 *
+	 * @return Returns <code>true</code> if the PID was not already in the set
+	 */
+	public boolean add(long theId) {
+		return add(theId, null, null);
+	}
+
+	/**
+	 * Adds a PID
+	 *
+	 * @param theId           The resource PID
+	 * @param theVersion      The resource version, or <code>null</code> for the current version
+	 * @param theResourceType The resource type, or <code>null</code> if not known. If the entry is already
+	 *                        in the set without a resource type, the resource type is added to it.
+	 * @return Returns <code>true</code> if the PID was not already in the set
+	 */
+	public boolean add(long theId, @Nullable Long theVersion, @Nullable String theResourceType) {
+		long version = theVersion != null ? theVersion : NO_VERSION;
+		int slot = findSlot(myTable, theId, version);
+		int existing = myTable[slot];
+		if (existing != 0) {
+			if (theResourceType != null && getResourceType(existing - 1) == null) {
+				setResourceType(existing - 1, theResourceType);
+			}
+			return false;
+		}
+
+		int index = mySize;
+		if (index == myIds.length) {
+			grow();
+		}
+		if ((index + 1) * 2 > myTable.length) {
+			rehash(myTable.length * 2);
+			slot = findSlot(myTable, theId, version);
+		}
+
+		myIds[index] = theId;
+		if (version != NO_VERSION) {
+			if (myVersions == null) {
+				myVersions = new long[myIds.length];
+				Arrays.fill(myVersions, NO_VERSION);
+			}
+			myVersions[index] = version;
+		} else if (myVersions != null) {
+			myVersions[index] = NO_VERSION;
+		}
+		if (theResourceType != null) {
+			setResourceType(index, theResourceType);
+		}
+		myTable[slot] = index + 1;
+		mySize++;
+		return true;
+	}
+
+	@Override
+	public boolean addAll(@Nonnull Collection<? extends JpaPid> thePids) {
+		if (thePids instanceof JpaPidSet) {
+			JpaPidSet other = (JpaPidSet) thePids;
+			boolean retVal = false;
+			for (int i = 0; i < other.mySize; i++) {
+				retVal |= add(other.getId(i), other.getVersion(i), other.getResourceType(i));
+			}
+			return retVal;
+		}
+		return super.addAll(thePids);
+	}
+
+	@Override
+	public boolean contains(Object theObject) {
+		if (!(theObject instanceof JpaPid)) {
+			return false;
+		}
+		JpaPid pid = (JpaPid) theObject;
+		return contains(pid.getId(), pid.getVersion());
+	}
+
+	/**
+	 * Returns <code>true</code> if the set contains the given PID and version
+	 *
+	 * @param theVersion The resource version, or <code>null</code> for the current version
+	 */
+	public boolean contains(long theId, @Nullable Long theVersion) {
+		long version = theVersion != null ? theVersion : NO_VERSION;
+		return myTable[findSlot(myTable, theId, version)] != 0;
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(myTable, 0);
+		if (myResourceTypes != null) {
+			Arrays.fill(myResourceTypes, 0, mySize, null);
+		}
+		mySize = 0;
+	}
+
+	/**
+	 * Returns the resource PID of the entry at the given index (entries are indexed in the order they were added)
+	 */
+	public long getId(int theIndex) {
+		checkIndex(theIndex);
+		return myIds[theIndex];
+	}
+
+	/**
+	 * Returns the version of the entry at the given index, or <code>null</code> if the entry has no version
+	 */
+	@Nullable
+	public Long getVersion(int theIndex) {
+		checkIndex(theIndex);
+		if (myVersions == null || myVersions[theIndex] == NO_VERSION) {
+			return null;
+		}
+		return myVersions[theIndex];
+	}
+
+	/**
+	 * Returns the resource type of the entry at the given index, or <code>null</code> if it isn't known
+	 */
+	@Nullable
+	public String getResourceType(int theIndex) {
+		checkIndex(theIndex);
+		return myResourceTypes != null ? myResourceTypes[theIndex] : null;
+	}
+
+	/**
+	 * Returns the entry at the given index as a new {@link JpaPid}
+	 */
+	@Nonnull
+	public JpaPid get(int theIndex) {
+		return JpaPid.fromIdAndVersionAndResourceType(getId(theIndex), getVersion(theIndex), getResourceType(theIndex));
+	}
+
+	/**
+	 * Returns the resource PIDs of the entries between the given indexes (inclusive/exclusive), e.g. for
+	 * passing a chunk of the set to a query as a parameter
+	 */
+	@Nonnull
+	public List<Long> getIds(int theFromIndex, int theToIndex) {
+		Validate.isTrue(theFromIndex >= 0 && theFromIndex <= theToIndex && theToIndex <= mySize, "Invalid range %s-%s for size %s", theFromIndex, theToIndex, mySize);
+		List<Long> retVal = new ArrayList<>(theToIndex - theFromIndex);
+		for (int i = theFromIndex; i < theToIndex; i++) {
+			retVal.add(myIds[i]);
+		}
+		return retVal;
+	}
+
+	@Nonnull
+	@Override
+	public Iterator<JpaPid> iterator() {
+		return new Iterator<>() {
+			private int myIndex;
+
+			@Override
+			public boolean hasNext() {
+				return myIndex < mySize;
+			}
+
+			@Override
+			public JpaPid next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return get(myIndex++);
+			}
+		};
+	}
+
+	private void checkIndex(int theIndex) {
+		if (theIndex < 0 || theIndex >= mySize) {
+			throw new IndexOutOfBoundsException("Index " + theIndex + " out of bounds for size " + mySize);
+		}
+	}
+
+	private void setResourceType(int theIndex, String theResourceType) {
+		if (myResourceTypes == null) {
+			myResourceTypes = new String[myIds.length];
+		}
+		myResourceTypes[theIndex] = theResourceType;
+	}
+
+	private void grow() {
+		int newLength = myIds.length * 2;
+		myIds = Arrays.copyOf(myIds, newLength);
+		if (myVersions != null) {
+			myVersions = Arrays.copyOf(myVersions, newLength);
+			Arrays.fill(myVersions, mySize, newLength, NO_VERSION);
+		}
+		if (myResourceTypes != null) {
+			myResourceTypes = Arrays.copyOf(myResourceTypes, newLength);
+		}
+	}
+
+	private void rehash(int theNewTableSize) {
+		int[] newTable = new int[theNewTableSize];
+		for (int i = 0; i < mySize; i++) {
+			long version = myVersions != null ? myVersions[i] : NO_VERSION;
+			newTable[findSlot(newTable, myIds[i], version)] = i + 1;
+		}
+		myTable = newTable;
+	}
+
+	/**
+	 * Returns the slot holding the given entry, or the empty slot where it should be added
+	 */
+	private int findSlot(int[] theTable, long theId, long theVersion) {
+		int mask = theTable.length - 1;
+		int slot = hash(theId, theVersion) & mask;
+		while (true) {
+			int entry = theTable[slot];
+			if (entry == 0) {
+				return slot;
+			}
+			int index = entry - 1;
+			if (myIds[index] == theId && (myVersions != null ? myVersions[index] : NO_VERSION) == theVersion) {
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+	}
+
+	private static int hash(long theId, long theVersion) {
+		long hash = theId * 0x9E3779B97F4A7C15L;
+		hash ^= theVersion * 0xC2B2AE3D27D4EB4FL;
+		return (int) (hash ^ (hash >>> 32));
+	}
+
+	/**
+	 * Returns a power of two table size which keeps the load factor at or below 0.5
+	 */
+	private static int tableSizeFor(int theCapacity) {
+		int retVal = Integer.highestOneBit(theCapacity * 2 - 1) << 1;
+		return Math.max(retVal, MINIMUM_CAPACITY * 2);
+	}
+
+}
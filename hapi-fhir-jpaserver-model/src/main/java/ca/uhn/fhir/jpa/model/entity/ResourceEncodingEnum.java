@@ -44,6 +44,15 @@ public enum ResourceEncodingEnum {
 	 */
 	JSONC,
 
+	/**
+	 * Json compressed using raw deflate with a preset dictionary of common
+	 * FHIR JSON strings (generally smaller than {@link #JSONC} for typical
+	 * resource sizes)
+	 *
+	 * @since 6.6.0
+	 */
+	JSOND,
+
 	/**
 	 * Resource was deleted - No contents expected
 	 */
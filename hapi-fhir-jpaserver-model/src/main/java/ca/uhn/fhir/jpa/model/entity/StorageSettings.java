@@ -27,6 +27,7 @@ import ca.uhn.fhir.model.api.TemporalPrecisionEnum;
 import ca.uhn.fhir.rest.server.interceptor.ResponseTerminologyTranslationSvc;
 import ca.uhn.fhir.util.HapiExtensions;
 import com.google.common.annotations.VisibleForTesting;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.Validate;
 import org.hl7.fhir.dstu2.model.Subscription;
 import org.hl7.fhir.instance.model.api.IPrimitiveType;
@@ -75,6 +76,12 @@ public class StorageSettings {
 	protected static final String DEFAULT_PERIOD_INDEX_START_OF_TIME = "1001-01-01";
 	protected static final String DEFAULT_PERIOD_INDEX_END_OF_TIME = "9000-01-01";
 	private static final Integer DEFAULT_MAXIMUM_TRANSACTION_BUNDLE_SIZE = null;
+	/**
+	 * Default {@link #getBulkExportFileMaximumSize() maximum bulk export file size}
+	 *
+	 * @since 6.6.0
+	 */
+	public static final long DEFAULT_BULK_EXPORT_FILE_MAXIMUM_SIZE = 100 * FileUtils.ONE_MB;
 	/**
 	 * update setter javadoc if default changes
 	 */
@@ -93,6 +100,8 @@ public class StorageSettings {
 	private boolean myMassIngestionMode;
 	private Integer myMaximumTransactionBundleSize = DEFAULT_MAXIMUM_TRANSACTION_BUNDLE_SIZE;
 	private boolean myNormalizeTerminologyForBulkExportJobs = false;
+	private boolean myBulkExportStreamToBinaryStorage = false;
+	private long myBulkExportFileMaximumSize = DEFAULT_BULK_EXPORT_FILE_MAXIMUM_SIZE;
 	private String myEmailFromAddress = "noreply@unknown.com";
 	private String myWebsocketContextPath = DEFAULT_WEBSOCKET_CONTEXT_PATH;
 	/**
@@ -336,6 +345,71 @@ public class StorageSettings {
 		myNormalizeTerminologyForBulkExportJobs = theNormalizeTerminologyForBulkExportJobs;
 	}
 
+	/**
+	 * If set to <code>true</code>, bulk export jobs write the NDJSON for each file straight into the
+	 * binary storage service (see <code>IBinaryStorageSvc</code>) while the resources are being
+	 * encoded, instead of passing the encoded resources to the next job step as work chunk data.
+	 * Only a reference to each file is passed between steps, and a new file is started whenever
+	 * a file reaches the {@link #getBulkExportFileMaximumSize() maximum file size}.
+	 * <p>
+	 * The <code>Binary</code> resources created by the export refer to the stored data, so the
+	 * binary storage interceptor must be registered in order for clients to download them. If no
+	 * binary storage service is available, this setting is ignored.
+	 * </p>
+	 * <p>
+	 * Default is <code>false</code>.
+	 * </p>
+	 *
+	 * @since 6.6.0
+	 */
+	public boolean isBulkExportStreamToBinaryStorage() {
+		return myBulkExportStreamToBinaryStorage;
+	}
+
+	/**
+	 * If set to <code>true</code>, bulk export jobs write the NDJSON for each file straight into the
+	 * binary storage service (see <code>IBinaryStorageSvc</code>) while the resources are being
+	 * encoded, instead of passing the encoded resources to the next job step as work chunk data.
+	 * Only a reference to each file is passed between steps, and a new file is started whenever
+	 * a file reaches the {@link #getBulkExportFileMaximumSize() maximum file size}.
+	 * <p>
+	 * The <code>Binary</code> resources created by the export refer to the stored data, so the
+	 * binary storage interceptor must be registered in order for clients to download them. If no
+	 * binary storage service is available, this setting is ignored.
+	 * </p>
+	 * <p>
+	 * Default is <code>false</code>.
+	 * </p>
+	 *
+	 * @since 6.6.0
+	 */
+	public void setBulkExportStreamToBinaryStorage(boolean theBulkExportStreamToBinaryStorage) {
+		myBulkExportStreamToBinaryStorage = theBulkExportStreamToBinaryStorage;
+	}
+
+	/**
+	 * When {@link #isBulkExportStreamToBinaryStorage() streaming bulk export files to binary storage},
+	 * a file is closed and a new one is started once it holds at least this many bytes. Default is
+	 * {@link #DEFAULT_BULK_EXPORT_FILE_MAXIMUM_SIZE} (100 MB).
+	 *
+	 * @since 6.6.0
+	 */
+	public long getBulkExportFileMaximumSize() {
+		return myBulkExportFileMaximumSize;
+	}
+
+	/**
+	 * When {@link #isBulkExportStreamToBinaryStorage() streaming bulk export files to binary storage},
+	 * a file is closed and a new one is started once it holds at least this many bytes. Default is
+	 * {@link #DEFAULT_BULK_EXPORT_FILE_MAXIMUM_SIZE} (100 MB).
+	 *
+	 * @since 6.6.0
+	 */
+	public void setBulkExportFileMaximumSize(long theBulkExportFileMaximumSize) {
+		Validate.isTrue(theBulkExportFileMaximumSize > 0, "theBulkExportFileMaximumSize must be greater than 0");
+		myBulkExportFileMaximumSize = theBulkExportFileMaximumSize;
+	}
+
 	/**
 	 * This is an internal API and may change or disappear without notice
 	 *
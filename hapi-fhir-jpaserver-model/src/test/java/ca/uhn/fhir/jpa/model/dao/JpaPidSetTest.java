@@ -0,0 +1,107 @@
+package ca.uhn.fhir.jpa.model.dao;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JpaPidSetTest {
+
+	@Test
+	public void testAddAndContains() {
+		JpaPidSet set = new JpaPidSet();
+		assertTrue(set.add(1L));
+		assertTrue(set.add(JpaPid.fromId(2L)));
+		assertFalse(set.add(1L));
+		assertFalse(set.add(JpaPid.fromIdAndResourceType(2L, "Patient")));
+
+		assertEquals(2, set.size());
+		assertTrue(set.contains(JpaPid.fromId(1L)));
+		assertTrue(set.contains(2L, null));
+		assertFalse(set.contains(3L, null));
+		assertFalse(set.contains("1"));
+
+		// The resource type isn't part of the key, but is kept once it's known
+		assertNull(set.getResourceType(0));
+		assertEquals("Patient", set.getResourceType(1));
+	}
+
+	@Test
+	public void testVersionsArePartOfTheKey() {
+		JpaPidSet set = new JpaPidSet();
+		assertTrue(set.add(1L, null, "Patient"));
+		assertTrue(set.add(1L, 1L, "Patient"));
+		assertTrue(set.add(1L, 2L, "Patient"));
+		assertFalse(set.add(JpaPid.fromIdAndVersion(1L, 2L)));
+
+		assertEquals(3, set.size());
+		assertNull(set.getVersion(0));
+		assertEquals(1L, set.getVersion(1));
+		assertTrue(set.contains(JpaPid.fromIdAndVersion(1L, 1L)));
+		assertFalse(set.contains(JpaPid.fromIdAndVersion(1L, 3L)));
+		assertEquals(JpaPid.fromIdAndVersion(1L, 2L), set.get(2));
+	}
+
+	@Test
+	public void testGrowPreservesInsertionOrder() {
+		JpaPidSet set = new JpaPidSet();
+		List<JpaPid> expected = new ArrayList<>();
+		for (long i = 100_000; i > 0; i -= 3) {
+			JpaPid pid = i % 2 == 0 ? JpaPid.fromIdAndVersion(i, i + 1) : JpaPid.fromId(i);
+			expected.add(pid);
+			assertTrue(set.add(pid));
+		}
+
+		assertEquals(expected.size(), set.size());
+		assertEquals(expected, new ArrayList<>(set));
+		for (JpaPid next : expected) {
+			assertTrue(set.contains(next));
+		}
+		assertEquals(List.of(100_000L, 99_997L), set.getIds(0, 2));
+	}
+
+	@Test
+	public void testEqualsHashSet() {
+		Set<JpaPid> hashSet = new HashSet<>();
+		JpaPidSet set = new JpaPidSet();
+		for (long i = 0; i < 1000; i++) {
+			hashSet.add(JpaPid.fromId(i % 500));
+			set.add(JpaPid.fromId(i % 500));
+		}
+		assertEquals(hashSet, set);
+		assertEquals(set, hashSet);
+		assertEquals(hashSet.hashCode(), set.hashCode());
+
+		JpaPidSet copy = new JpaPidSet(set);
+		assertEquals(set, copy);
+		assertFalse(copy.addAll(set));
+	}
+
+	@Test
+	public void testClear() {
+		JpaPidSet set = new JpaPidSet();
+		set.add(1L, null, "Patient");
+		set.clear();
+		assertTrue(set.isEmpty());
+		assertFalse(set.contains(1L, null));
+		assertTrue(set.add(1L));
+		assertNull(set.getResourceType(0));
+	}
+
+	@Test
+	public void testRemoveNotSupported() {
+		JpaPidSet set = new JpaPidSet();
+		set.add(1L);
+		assertThrows(UnsupportedOperationException.class, () -> set.remove(JpaPid.fromId(1L)));
+		assertThrows(IndexOutOfBoundsException.class, () -> set.getId(1));
+	}
+
+}
@@ -77,10 +77,12 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import static ca.uhn.fhir.rest.api.RestSearchParameterTypeEnum.DATE;
@@ -152,6 +154,7 @@ public abstract class BaseSearchParamExtractor implements ISearchParamExtractor
 	private BaseRuntimeChildDefinition myPatientCommunicationLanguageValueChild;
 	private BaseRuntimeChildDefinition myCodeableReferenceConcept;
 	private BaseRuntimeChildDefinition myCodeableReferenceReference;
+	private final Map<String, SearchParamExtractionPlan> myExtractionPlans = new ConcurrentHashMap<>();
 
 	/**
 	 * Constructor
@@ -345,7 +348,7 @@ public abstract class BaseSearchParamExtractor implements ISearchParamExtractor
 			IExtractor componentExtractor = createExtractor(theComponentSearchParam, myResource);
 			SearchParamSet<BaseResourceIndexedSearchParam> componentIndexData = new SearchParamSet<>();
 
-			extractSearchParam(theComponentSearchParam, theSubPathExpression, theFocusElement, componentExtractor, componentIndexData, theWantLocalReferences);
+			extractSearchParam(theComponentSearchParam, theSubPathExpression, theFocusElement, componentExtractor, componentIndexData, theWantLocalReferences, null);
 			ourLog.trace("CompositeExtractor - extracted {} index values for {}", componentIndexData.size(), theComponentSearchParam.getName());
 
 			return componentIndexData;
@@ -855,6 +858,7 @@ public abstract class BaseSearchParamExtractor implements ISearchParamExtractor
 	@VisibleForTesting
 	public void setContext(FhirContext theContext) {
 		myContext = theContext;
+		myExtractionPlans.clear();
 	}
 
 	protected StorageSettings getStorageSettings() {
@@ -869,6 +873,7 @@ public abstract class BaseSearchParamExtractor implements ISearchParamExtractor
 	@VisibleForTesting
 	public void setSearchParamRegistry(ISearchParamRegistry theSearchParamRegistry) {
 		mySearchParamRegistry = theSearchParamRegistry;
+		myExtractionPlans.clear();
 	}
 
 	private Collection<RuntimeSearchParam> getSearchParams(IBaseResource theResource) {
@@ -1295,12 +1300,37 @@ public abstract class BaseSearchParamExtractor implements ISearchParamExtractor
 
 		cleanUpContainedResourceReferences(theResource, theSearchParamType, searchParams);
 
-		for (RuntimeSearchParam nextSpDef : searchParams) {
-			if (nextSpDef.getParamType() != theSearchParamType) {
-				continue;
-			}
+		List<RuntimeSearchParam> searchParamsOfType = searchParams
+			.stream()
+			.filter(t -> t.getParamType() == theSearchParamType)
+			.collect(Collectors.toList());
+		if (searchParamsOfType.isEmpty()) {
+			return retVal;
+		}
+
+		Map<String, List<IBase>> precompiledValues = null;
+		if (getContext().getVersion().getVersion().isEqualOrNewerThan(FhirVersionEnum.R4)) {
+			RuntimeResourceDefinition resourceDef = getContext().getResourceDefinition(theResource);
+			SearchParamExtractionPlan plan = getExtractionPlan(resourceDef, theSearchParamType, searchParamsOfType);
+			precompiledValues = plan.extract(theResource);
+		}
 
-			extractSearchParam(nextSpDef, theResource, theExtractor, retVal, theWantLocalReferences);
+		for (RuntimeSearchParam nextSpDef : searchParamsOfType) {
+			extractSearchParam(nextSpDef, nextSpDef.getPath(), theResource, theExtractor, retVal, theWantLocalReferences, precompiledValues);
+		}
+		return retVal;
+	}
+
+	/**
+	 * Returns the extraction plan for the given resource type and search parameter type, building
+	 * a new one if the active search parameters have changed since the plan was built
+	 */
+	private SearchParamExtractionPlan getExtractionPlan(RuntimeResourceDefinition theResourceDefinition, RestSearchParameterTypeEnum theSearchParamType, List<RuntimeSearchParam> theSearchParams) {
+		String key = theResourceDefinition.getName() + "|" + theSearchParamType.name();
+		SearchParamExtractionPlan retVal = myExtractionPlans.get(key);
+		if (retVal == null || !retVal.isCurrent(theSearchParams)) {
+			retVal = new SearchParamExtractionPlan(getContext(), theResourceDefinition, theSearchParams, this);
+			myExtractionPlans.put(key, retVal);
 		}
 		return retVal;
 	}
@@ -1344,14 +1374,14 @@ public abstract class BaseSearchParamExtractor implements ISearchParamExtractor
 	@VisibleForTesting
 	public <T> void extractSearchParam(RuntimeSearchParam theSearchParameterDef, IBase theResource, IExtractor<T> theExtractor, SearchParamSet<T> theSetToPopulate, boolean theWantLocalReferences) {
 		String nextPathUnsplit = theSearchParameterDef.getPath();
-		extractSearchParam(theSearchParameterDef, nextPathUnsplit, theResource, theExtractor, theSetToPopulate, theWantLocalReferences);
+		extractSearchParam(theSearchParameterDef, nextPathUnsplit, theResource, theExtractor, theSetToPopulate, theWantLocalReferences, null);
 	}
 
 	/**
 	 * extract for SP, but with possibly different expression.
 	 * Allows composite SPs to use sub-paths.
 	 */
-	private <T> void extractSearchParam(RuntimeSearchParam theSearchParameterDef, String thePathExpression, IBase theResource, IExtractor<T> theExtractor, SearchParamSet<T> theSetToPopulate, boolean theWantLocalReferences) {
+	private <T> void extractSearchParam(RuntimeSearchParam theSearchParameterDef, String thePathExpression, IBase theResource, IExtractor<T> theExtractor, SearchParamSet<T> theSetToPopulate, boolean theWantLocalReferences, @Nullable Map<String, List<IBase>> thePrecompiledValues) {
 		if (isBlank(thePathExpression)) {
 			return;
 		}
@@ -1359,7 +1389,11 @@ public abstract class BaseSearchParamExtractor implements ISearchParamExtractor
 		String[] splitPaths = split(thePathExpression);
 		for (String nextPath : splitPaths) {
 			nextPath = trim(nextPath);
-			for (IBase nextObject : extractValues(nextPath, theResource)) {
+			List<IBase> values = thePrecompiledValues != null ? thePrecompiledValues.get(nextPath) : null;
+			if (values == null) {
+				values = extractValues(nextPath, theResource);
+			}
+			for (IBase nextObject : values) {
 				if (nextObject != null) {
 					String typeName = toRootTypeName(nextObject);
 					if (!myIgnoredForSearchDatatypes.contains(typeName)) {
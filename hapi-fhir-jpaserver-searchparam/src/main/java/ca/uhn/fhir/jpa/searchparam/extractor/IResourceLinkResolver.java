@@ -25,8 +25,10 @@ import ca.uhn.fhir.jpa.model.cross.IResourceLookup;
 import ca.uhn.fhir.rest.api.server.RequestDetails;
 import ca.uhn.fhir.rest.api.server.storage.TransactionDetails;
 import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.instance.model.api.IIdType;
 
 import javax.annotation.Nonnull;
+import java.util.Collection;
 
 public interface IResourceLinkResolver {
 
@@ -45,6 +47,19 @@ public interface IResourceLinkResolver {
 	 */
 	IResourceLookup findTargetResource(@Nonnull RequestPartitionId theRequestPartitionId, String theSourceResourceName, PathAndRef thePathAndRef, RequestDetails theRequest, TransactionDetails theTransactionDetails);
 
+	/**
+	 * Called with the targets of the references found within a resource before they are resolved one
+	 * at a time using {@link #findTargetResource(RequestPartitionId, String, PathAndRef, RequestDetails, TransactionDetails)},
+	 * so that implementations can look them up together. The default implementation does nothing.
+	 *
+	 * @param theRequestPartitionId The partition ID of the target resources
+	 * @param theTargetIds          The unqualified, versionless IDs of the target resources
+	 * @since 6.6.0
+	 */
+	default void addPendingTargetResourceLookups(@Nonnull RequestPartitionId theRequestPartitionId, Collection<IIdType> theTargetIds) {
+		// nothing
+	}
+
 	void validateTypeOrThrowException(Class<? extends IBaseResource> theType);
 
 }
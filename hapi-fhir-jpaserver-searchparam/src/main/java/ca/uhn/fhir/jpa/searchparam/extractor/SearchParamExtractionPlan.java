@@ -0,0 +1,277 @@
+package ca.uhn.fhir.jpa.searchparam.extractor;
+
+/*
+ * #%L
+ * HAPI FHIR Search Parameters
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.context.BaseRuntimeChildDatatypeDefinition;
+import ca.uhn.fhir.context.BaseRuntimeChildDefinition;
+import ca.uhn.fhir.context.BaseRuntimeElementCompositeDefinition;
+import ca.uhn.fhir.context.BaseRuntimeElementDefinition;
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.RuntimeChildNarrativeDefinition;
+import ca.uhn.fhir.context.RuntimeChildResourceBlockDefinition;
+import ca.uhn.fhir.context.RuntimeChildResourceDefinition;
+import ca.uhn.fhir.context.RuntimeResourceDefinition;
+import ca.uhn.fhir.context.RuntimeSearchParam;
+import org.hl7.fhir.instance.model.api.IBase;
+import org.hl7.fhir.instance.model.api.IBaseReference;
+import org.hl7.fhir.instance.model.api.IIdType;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.apache.commons.lang3.StringUtils.trim;
+
+/**
+ * A precompiled plan for extracting the values of all search parameters of one type (e.g. all
+ * token parameters) from resources of one resource type.
+ * <p>
+ * Most search parameter expressions are simple paths such as <code>Patient.name</code> or
+ * <code>Encounter.subject.where(resolve() is Patient)</code>. These paths are merged into a
+ * tree of child definitions, so that all of them can be extracted with a single traversal of
+ * the resource using the model accessors instead of evaluating each path with the FHIRPath
+ * engine. A path which is shared by several search parameters (or the shared prefix of several
+ * paths) is only visited once.
+ * </p>
+ * <p>
+ * Any expression which isn't a simple path (choice types, extensions, functions other than
+ * the <code>resolve()</code> type check, etc.) isn't part of the plan and is left to the
+ * FHIRPath engine. A plan is immutable, and is rebuilt by {@link BaseSearchParamExtractor}
+ * when the active search parameters for the resource type change.
+ * </p>
+ *
+ * @since 6.6.0
+ */
+class SearchParamExtractionPlan {
+
+	private static final Pattern SIMPLE_PATH = Pattern.compile("^([A-Z][A-Za-z]*)((?:\\.[a-z][A-Za-z0-9]*)+)(?:\\.where\\(resolve\\(\\) is ([A-Z][A-Za-z]*)\\))?$");
+
+	private final Set<RuntimeSearchParam> mySearchParams;
+	private final Node myRoot = new Node(null);
+	private final List<String> myCompiledPaths = new ArrayList<>();
+
+	/**
+	 * Constructor
+	 *
+	 * @param theSearchParams The active search parameters for the resource type, which must all be of the same type
+	 */
+	SearchParamExtractionPlan(FhirContext theContext, RuntimeResourceDefinition theResourceDefinition, Collection<RuntimeSearchParam> theSearchParams, ISearchParamExtractor theExtractor) {
+		mySearchParams = Collections.newSetFromMap(new IdentityHashMap<>());
+		mySearchParams.addAll(theSearchParams);
+
+		for (RuntimeSearchParam nextSearchParam : theSearchParams) {
+			if (isBlank(nextSearchParam.getPath())) {
+				continue;
+			}
+			for (String nextPath : theExtractor.split(nextSearchParam.getPath())) {
+				nextPath = trim(nextPath);
+				if (!myCompiledPaths.contains(nextPath) && compile(theContext, theResourceDefinition, nextPath)) {
+					myCompiledPaths.add(nextPath);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns <code>true</code> if this plan was built from exactly the given search parameters
+	 */
+	boolean isCurrent(Collection<RuntimeSearchParam> theSearchParams) {
+		if (theSearchParams.size() != mySearchParams.size()) {
+			return false;
+		}
+		for (RuntimeSearchParam next : theSearchParams) {
+			if (!mySearchParams.contains(next)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Extracts the values of every path in this plan from the given resource
+	 *
+	 * @return A map from each path (as it appears in the search parameter expression) to the values
+	 * found at that path. A path which isn't in the map must be evaluated using FHIRPath.
+	 */
+	@Nonnull
+	Map<String, List<IBase>> extract(IBase theResource) {
+		Map<String, List<IBase>> retVal = new HashMap<>();
+		for (String next : myCompiledPaths) {
+			retVal.put(next, Collections.emptyList());
+		}
+		visitChildren(myRoot, Collections.singletonList(theResource), retVal);
+		return retVal;
+	}
+
+	int getCompiledPathCount() {
+		return myCompiledPaths.size();
+	}
+
+	private boolean compile(FhirContext theContext, RuntimeResourceDefinition theResourceDefinition, String thePath) {
+		Matcher matcher = SIMPLE_PATH.matcher(thePath);
+		if (!matcher.matches()) {
+			return false;
+		}
+
+		String resourceType = matcher.group(1);
+		String resolveType = matcher.group(3);
+		if (resolveType != null && !theContext.getResourceTypes().contains(resolveType)) {
+			return false;
+		}
+		if (!resourceType.equals(theResourceDefinition.getName())) {
+			// A path for a different resource type (e.g. one branch of a parameter with several
+			// base types) never matches anything. Paths such as "Resource.meta" aren't compiled.
+			return theContext.getResourceTypes().contains(resourceType);
+		}
+
+		String[] childNames = matcher.group(2).substring(1).split("\\.");
+		BaseRuntimeElementCompositeDefinition<?> elementDefinition = theResourceDefinition;
+		List<BaseRuntimeChildDefinition> childDefinitions = new ArrayList<>(childNames.length);
+		for (int i = 0; i < childNames.length; i++) {
+			if (elementDefinition == null) {
+				return false;
+			}
+			BaseRuntimeChildDefinition childDefinition = elementDefinition.getChildByName(childNames[i]);
+			if (!isSupportedChild(childDefinition)) {
+				return false;
+			}
+			childDefinitions.add(childDefinition);
+
+			BaseRuntimeElementDefinition<?> childElementDefinition = childDefinition.getChildByName(childNames[i]);
+			elementDefinition = null;
+			if (childElementDefinition instanceof BaseRuntimeElementCompositeDefinition) {
+				elementDefinition = (BaseRuntimeElementCompositeDefinition<?>) childElementDefinition;
+			}
+		}
+
+		if (resolveType != null && !(childDefinitions.get(childDefinitions.size() - 1) instanceof RuntimeChildResourceDefinition)) {
+			return false;
+		}
+
+		Node node = myRoot;
+		for (BaseRuntimeChildDefinition next : childDefinitions) {
+			node = node.myChildren.computeIfAbsent(next.getElementName(), t -> new Node(next));
+		}
+		node.myTerminals.add(new Terminal(thePath, resolveType));
+		return true;
+	}
+
+	private static boolean isSupportedChild(@Nullable BaseRuntimeChildDefinition theChildDefinition) {
+		if (theChildDefinition instanceof RuntimeChildNarrativeDefinition) {
+			return false;
+		}
+		return theChildDefinition instanceof BaseRuntimeChildDatatypeDefinition
+			|| theChildDefinition instanceof RuntimeChildResourceBlockDefinition
+			|| theChildDefinition instanceof RuntimeChildResourceDefinition;
+	}
+
+	private static void visitChildren(Node theNode, List<IBase> theFocus, Map<String, List<IBase>> theValues) {
+		for (Node nextChild : theNode.myChildren.values()) {
+			BaseRuntimeChildDefinition.IAccessor accessor = nextChild.myChildDefinition.getAccessor();
+			List<IBase> values = new ArrayList<>();
+			for (IBase nextFocus : theFocus) {
+				values.addAll(accessor.getValues(nextFocus));
+			}
+			if (values.isEmpty()) {
+				continue;
+			}
+
+			for (Terminal nextTerminal : nextChild.myTerminals) {
+				if (nextTerminal.myResolveType == null) {
+					theValues.put(nextTerminal.myPath, values);
+				} else {
+					List<IBase> references = filterReferencesByTargetType(values, nextTerminal.myResolveType);
+					if (references != null) {
+						theValues.put(nextTerminal.myPath, references);
+					} else {
+						theValues.remove(nextTerminal.myPath);
+					}
+				}
+			}
+
+			visitChildren(nextChild, values, theValues);
+		}
+	}
+
+	/**
+	 * This is the equivalent of <code>where(resolve() is X)</code> as evaluated by the search parameter
+	 * extractors, which only look at the resource type in the reference. Returns <code>null</code> if
+	 * any of the references can only be resolved by the FHIRPath engine (e.g. a contained resource).
+	 */
+	@Nullable
+	private static List<IBase> filterReferencesByTargetType(List<IBase> theReferences, String theResourceType) {
+		List<IBase> retVal = new ArrayList<>();
+		for (IBase next : theReferences) {
+			IBaseReference reference = (IBaseReference) next;
+			IIdType referenceElement = reference.getReferenceElement();
+			String value = referenceElement != null ? referenceElement.getValue() : null;
+			if (isBlank(value)) {
+				if (reference.getResource() != null) {
+					return null;
+				}
+				continue;
+			}
+			if (value.startsWith("#")) {
+				return null;
+			}
+			if (theResourceType.equals(referenceElement.getResourceType())) {
+				retVal.add(next);
+			}
+		}
+		return retVal;
+	}
+
+	private static class Node {
+
+		private final BaseRuntimeChildDefinition myChildDefinition;
+		private final Map<String, Node> myChildren = new LinkedHashMap<>();
+		private final List<Terminal> myTerminals = new ArrayList<>();
+
+		private Node(BaseRuntimeChildDefinition theChildDefinition) {
+			myChildDefinition = theChildDefinition;
+		}
+
+	}
+
+	private static class Terminal {
+
+		private final String myPath;
+		private final String myResolveType;
+
+		private Terminal(String thePath, String theResolveType) {
+			myPath = thePath;
+			myResolveType = theResolveType;
+		}
+
+	}
+
+}
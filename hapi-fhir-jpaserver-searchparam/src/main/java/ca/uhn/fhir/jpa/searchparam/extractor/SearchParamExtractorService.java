@@ -311,6 +311,10 @@ public class SearchParamExtractorService {
 		ISearchParamExtractor.SearchParamSet<PathAndRef> refs = mySearchParamExtractor.extractResourceLinks(theResource, false);
 		SearchParamExtractorService.handleWarnings(theRequest, myInterceptorBroadcaster, refs);
 
+		if (theFailOnInvalidReference) {
+			addPendingTargetResourceLookups(theRequestPartitionId, theExistingParams, refs, theTransactionDetails);
+		}
+
 		for (PathAndRef nextPathAndRef : refs) {
 			RuntimeSearchParam searchParam = mySearchParamRegistry.getActiveSearchParam(sourceResourceName, nextPathAndRef.getSearchParamName());
 			extractResourceLinks(theRequestPartitionId, theExistingParams, theNewParams, theEntity, theTransactionDetails, sourceResourceName, searchParam, nextPathAndRef, theFailOnInvalidReference, theRequest);
@@ -466,6 +470,37 @@ public class SearchParamExtractorService {
 		theNewParams.myLinks.add(resourceLink);
 	}
 
+	/**
+	 * Tells the link resolver about every local reference target which may need to be looked up, so that
+	 * the lookups for this resource can be performed together instead of one per reference
+	 */
+	private void addPendingTargetResourceLookups(RequestPartitionId theRequestPartitionId, ResourceIndexedSearchParams theExistingParams, ISearchParamExtractor.SearchParamSet<PathAndRef> theRefs, TransactionDetails theTransactionDetails) {
+		List<IIdType> targetIds = new ArrayList<>();
+		for (PathAndRef nextPathAndRef : theRefs) {
+			if (nextPathAndRef.isCanonical() || nextPathAndRef.getRef() == null) {
+				continue;
+			}
+			IIdType nextId = nextPathAndRef.getRef().getReferenceElement();
+			if (!nextId.hasResourceType() || !nextId.hasIdPart() || nextId.hasBaseUrl() || nextId.isLocal()) {
+				continue;
+			}
+			if (LogicalReferenceHelper.isLogicalReference(myStorageSettings, nextId)) {
+				continue;
+			}
+			if (theTransactionDetails.getResolvedResourceId(nextId) != null) {
+				continue;
+			}
+			if (findMatchingResourceLink(nextPathAndRef, theExistingParams.getResourceLinks()).isPresent()) {
+				continue;
+			}
+			targetIds.add(nextId.toUnqualifiedVersionless());
+		}
+
+		if (!targetIds.isEmpty()) {
+			myResourceLinkResolver.addPendingTargetResourceLookups(theRequestPartitionId, targetIds);
+		}
+	}
+
 	private Optional<ResourceLink> findMatchingResourceLink(PathAndRef thePathAndRef, Collection<ResourceLink> theResourceLinks) {
 		IIdType referenceElement = thePathAndRef.getRef().getReferenceElement();
 		List<ResourceLink> resourceLinks = new ArrayList<>(theResourceLinks);
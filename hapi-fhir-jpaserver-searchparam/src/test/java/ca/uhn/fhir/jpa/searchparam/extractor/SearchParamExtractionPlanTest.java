@@ -0,0 +1,143 @@
+package ca.uhn.fhir.jpa.searchparam.extractor;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.RuntimeResourceDefinition;
+import ca.uhn.fhir.context.RuntimeSearchParam;
+import ca.uhn.fhir.jpa.model.config.PartitionSettings;
+import ca.uhn.fhir.jpa.model.entity.StorageSettings;
+import ca.uhn.fhir.rest.api.RestSearchParameterTypeEnum;
+import ca.uhn.fhir.rest.server.util.FhirContextSearchParamRegistry;
+import org.hl7.fhir.instance.model.api.IBase;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.DateTimeType;
+import org.hl7.fhir.r4.model.Encounter;
+import org.hl7.fhir.r4.model.Enumerations;
+import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.Organization;
+import org.hl7.fhir.r4.model.Patient;
+import org.hl7.fhir.r4.model.Practitioner;
+import org.hl7.fhir.r4.model.Quantity;
+import org.hl7.fhir.r4.model.Reference;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SearchParamExtractionPlanTest {
+
+	private static final Logger ourLog = LoggerFactory.getLogger(SearchParamExtractionPlanTest.class);
+	private static final FhirContext ourCtx = FhirContext.forR4Cached();
+	private final FhirContextSearchParamRegistry mySearchParamRegistry = new FhirContextSearchParamRegistry(ourCtx);
+	private final SearchParamExtractorR4 myExtractor = new SearchParamExtractorR4(new StorageSettings(), new PartitionSettings(), ourCtx, mySearchParamRegistry);
+
+	@Test
+	public void testCompiledPathsMatchFhirPath() {
+		Patient patient = new Patient();
+		patient.addIdentifier().setSystem("http://foo").setValue("123");
+		patient.addName().setFamily("Simpson").addGiven("Homer").addGiven("Jay");
+		patient.addName().setFamily("Simpson").addGiven("Max");
+		patient.setGender(Enumerations.AdministrativeGender.MALE);
+		patient.addAddress().setCity("Springfield").addLine("742 Evergreen Terrace");
+		patient.addTelecom().setValue("555-1234");
+		patient.addGeneralPractitioner(new Reference("Practitioner/A"));
+		patient.addGeneralPractitioner(new Reference("Organization/B"));
+		patient.getManagingOrganization().setReference("http://example.com/fhir/Organization/C");
+		patient.addLink().setOther(new Reference("Patient/D"));
+		assertMatchesFhirPath(patient);
+
+		Observation obs = new Observation();
+		obs.getCode().addCoding().setSystem("http://loinc.org").setCode("1234-5");
+		obs.addCategory().addCoding().setSystem("http://cat").setCode("vital-signs");
+		obs.setSubject(new Reference("Group/G"));
+		obs.addPerformer(new Reference("Practitioner/P"));
+		obs.setValue(new Quantity(12.3));
+		obs.addComponent().setValue(new Quantity(1)).getCode().addCoding().setSystem("http://loinc.org").setCode("1111-1");
+		assertMatchesFhirPath(obs);
+
+		Encounter encounter = new Encounter();
+		encounter.setSubject(new Reference("Patient/A"));
+		encounter.addParticipant().setIndividual(new Reference("Practitioner/A"));
+		encounter.getPeriod().setStartElement(new DateTimeType("2023-01-01"));
+		assertMatchesFhirPath(encounter);
+	}
+
+	@Test
+	public void testResolveWithContainedReferenceFallsBackToFhirPath() {
+		Practitioner practitioner = new Practitioner();
+		practitioner.setId("#pract");
+		Patient patient = new Patient();
+		patient.getContained().add(practitioner);
+		patient.addGeneralPractitioner(new Reference("#pract"));
+		patient.addGeneralPractitioner(new Reference("Organization/B"));
+
+		SearchParamExtractionPlan plan = createPlan(patient, RestSearchParameterTypeEnum.REFERENCE);
+		Map<String, List<IBase>> values = plan.extract(patient);
+		assertFalse(values.containsKey("Patient.generalPractitioner.where(resolve() is Practitioner)"));
+
+		Organization organization = new Organization();
+		Patient patient2 = new Patient();
+		patient2.addGeneralPractitioner().setResource(organization);
+		values = createPlan(patient2, RestSearchParameterTypeEnum.REFERENCE).extract(patient2);
+		assertFalse(values.containsKey("Patient.generalPractitioner.where(resolve() is Organization)"));
+		assertTrue(values.containsKey("Patient.link.other"));
+	}
+
+	@Test
+	public void testPlanIsRebuiltWhenSearchParametersChange() {
+		Patient patient = new Patient();
+		patient.setActive(true);
+		patient.addName().setFamily("Simpson");
+
+		assertEquals(1, myExtractor.extractSearchParamTokens(patient).stream().filter(t -> t.getParamName().equals("active")).count());
+
+		SearchParamExtractionPlan plan = createPlan(patient, RestSearchParameterTypeEnum.TOKEN);
+		List<RuntimeSearchParam> tokenParams = getSearchParams(patient, RestSearchParameterTypeEnum.TOKEN);
+		assertTrue(plan.isCurrent(tokenParams));
+		assertFalse(plan.isCurrent(tokenParams.subList(1, tokenParams.size())));
+
+		// A search parameter which is not the same instance counts as a change
+		RuntimeSearchParam first = tokenParams.get(0);
+		tokenParams.set(0, new RuntimeSearchParam(first));
+		assertFalse(plan.isCurrent(tokenParams));
+	}
+
+	private void assertMatchesFhirPath(IBaseResource theResource) {
+		int compiled = 0;
+		for (RestSearchParameterTypeEnum nextType : RestSearchParameterTypeEnum.values()) {
+			SearchParamExtractionPlan plan = createPlan(theResource, nextType);
+			Map<String, List<IBase>> values = plan.extract(theResource);
+			compiled += plan.getCompiledPathCount();
+			for (Map.Entry<String, List<IBase>> next : values.entrySet()) {
+				List<IBase> expected = myExtractor.extractValues(next.getKey(), theResource);
+				assertEquals(expected, next.getValue(), next.getKey());
+			}
+		}
+		ourLog.info("Verified {} compiled paths for {}", compiled, theResource.fhirType());
+		assertThat(compiled, greaterThan(0));
+	}
+
+	private SearchParamExtractionPlan createPlan(IBaseResource theResource, RestSearchParameterTypeEnum theType) {
+		RuntimeResourceDefinition def = ourCtx.getResourceDefinition(theResource);
+		return new SearchParamExtractionPlan(ourCtx, def, getSearchParams(theResource, theType), myExtractor);
+	}
+
+	private List<RuntimeSearchParam> getSearchParams(IBaseResource theResource, RestSearchParameterTypeEnum theType) {
+		String resourceType = ourCtx.getResourceType(theResource);
+		return mySearchParamRegistry
+			.getActiveSearchParams(resourceType)
+			.values()
+			.stream()
+			.filter(t -> t.getParamType() == theType)
+			.collect(Collectors.toList());
+	}
+
+}
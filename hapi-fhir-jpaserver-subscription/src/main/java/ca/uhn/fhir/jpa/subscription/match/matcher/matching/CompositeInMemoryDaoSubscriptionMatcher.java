@@ -22,6 +22,7 @@ package ca.uhn.fhir.jpa.subscription.match.matcher.matching;
 
 import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
 import ca.uhn.fhir.jpa.model.entity.StorageSettings;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
 import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryMatchResult;
 import ca.uhn.fhir.jpa.subscription.model.CanonicalSubscription;
 import ca.uhn.fhir.jpa.subscription.model.ResourceModifiedMessage;
@@ -29,6 +30,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.function.Supplier;
+
 public class CompositeInMemoryDaoSubscriptionMatcher implements ISubscriptionMatcher {
 	private Logger ourLog = LoggerFactory.getLogger(CompositeInMemoryDaoSubscriptionMatcher.class);
 
@@ -44,9 +47,18 @@ public class CompositeInMemoryDaoSubscriptionMatcher implements ISubscriptionMat
 
 	@Override
 	public InMemoryMatchResult match(CanonicalSubscription theSubscription, ResourceModifiedMessage theMsg) {
+		return match(theSubscription, theMsg, () -> myInMemorySubscriptionMatcher.match(theSubscription, theMsg));
+	}
+
+	@Override
+	public InMemoryMatchResult match(CanonicalSubscription theSubscription, ResourceModifiedMessage theMsg, SearchParameterMap theParsedCriteria, SubscriptionMatchingContext theContext) {
+		return match(theSubscription, theMsg, () -> myInMemorySubscriptionMatcher.match(theSubscription, theMsg, theParsedCriteria, theContext));
+	}
+
+	private InMemoryMatchResult match(CanonicalSubscription theSubscription, ResourceModifiedMessage theMsg, Supplier<InMemoryMatchResult> theInMemoryMatch) {
 		InMemoryMatchResult result;
 		if (myStorageSettings.isEnableInMemorySubscriptionMatching()) {
-			result = myInMemorySubscriptionMatcher.match(theSubscription, theMsg);
+			result = theInMemoryMatch.get();
 			if (result.supported()) {
 				result.setInMemory(true);
 			} else {
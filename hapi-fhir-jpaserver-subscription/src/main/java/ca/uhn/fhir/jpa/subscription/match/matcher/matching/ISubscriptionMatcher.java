@@ -20,10 +20,23 @@ package ca.uhn.fhir.jpa.subscription.match.matcher.matching;
  * #L%
  */
 
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
 import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryMatchResult;
 import ca.uhn.fhir.jpa.subscription.model.CanonicalSubscription;
 import ca.uhn.fhir.jpa.subscription.model.ResourceModifiedMessage;
 
 public interface ISubscriptionMatcher {
 	InMemoryMatchResult match(CanonicalSubscription subscription, ResourceModifiedMessage msg);
+
+	/**
+	 * Matches a subscription whose criteria have already been parsed. The search parameter indexes
+	 * for the resource are shared with any other subscriptions being matched against the same message
+	 * through <code>theContext</code>. The default implementation ignores the parsed criteria and the
+	 * context, and calls {@link #match(CanonicalSubscription, ResourceModifiedMessage)}.
+	 *
+	 * @since 6.6.0
+	 */
+	default InMemoryMatchResult match(CanonicalSubscription theSubscription, ResourceModifiedMessage theMsg, SearchParameterMap theParsedCriteria, SubscriptionMatchingContext theContext) {
+		return match(theSubscription, theMsg);
+	}
 }
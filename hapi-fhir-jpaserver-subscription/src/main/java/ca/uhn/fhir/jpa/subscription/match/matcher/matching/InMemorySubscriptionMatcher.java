@@ -22,7 +22,9 @@ package ca.uhn.fhir.jpa.subscription.match.matcher.matching;
 
 import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
 import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryMatchResult;
+import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryResourceMatcher;
 import ca.uhn.fhir.jpa.searchparam.matcher.SearchParamMatcher;
 import ca.uhn.fhir.jpa.subscription.model.CanonicalSubscription;
 import ca.uhn.fhir.jpa.subscription.model.ResourceModifiedMessage;
@@ -38,6 +40,8 @@ public class InMemorySubscriptionMatcher implements ISubscriptionMatcher {
 	private FhirContext myContext;
 	@Autowired
 	private SearchParamMatcher mySearchParamMatcher;
+	@Autowired
+	private InMemoryResourceMatcher myInMemoryResourceMatcher;
 
 	@Override
 	public InMemoryMatchResult match(CanonicalSubscription theSubscription, ResourceModifiedMessage theMsg) {
@@ -49,4 +53,14 @@ public class InMemorySubscriptionMatcher implements ISubscriptionMatcher {
 		}
 	}
 
+	@Override
+	public InMemoryMatchResult match(CanonicalSubscription theSubscription, ResourceModifiedMessage theMsg, SearchParameterMap theParsedCriteria, SubscriptionMatchingContext theContext) {
+		try {
+			return myInMemoryResourceMatcher.match(theParsedCriteria, theContext.getResource(), theContext.getResourceDefinition(), theContext.getIndexedSearchParams());
+		} catch (Exception e) {
+			ourLog.error("Failure in in-memory matcher", e);
+			throw new InternalErrorException(Msg.code(2284) + "Failure performing memory-match for resource ID[" + theMsg.getPayloadId(myContext) + "] for subscription ID[" + theSubscription.getIdElementString() + "]: " + e.getMessage(), e);
+		}
+	}
+
 }
@@ -0,0 +1,345 @@
+package ca.uhn.fhir.jpa.subscription.match.matcher.matching;
+
+/*-
+ * #%L
+ * HAPI FHIR Subscription Server
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.RuntimeResourceDefinition;
+import ca.uhn.fhir.context.RuntimeSearchParam;
+import ca.uhn.fhir.jpa.model.entity.ResourceIndexedSearchParamToken;
+import ca.uhn.fhir.jpa.model.entity.ResourceLink;
+import ca.uhn.fhir.jpa.searchparam.MatchUrlService;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.jpa.searchparam.extractor.ResourceIndexedSearchParams;
+import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryResourceMatcher;
+import ca.uhn.fhir.jpa.subscription.match.matcher.subscriber.SubscriptionCriteriaParser;
+import ca.uhn.fhir.jpa.subscription.match.registry.ActiveSubscription;
+import ca.uhn.fhir.model.api.IQueryParameterType;
+import ca.uhn.fhir.rest.api.RestSearchParameterTypeEnum;
+import ca.uhn.fhir.rest.param.ReferenceParam;
+import ca.uhn.fhir.rest.param.TokenParam;
+import ca.uhn.fhir.rest.server.util.ISearchParamRegistry;
+import org.apache.commons.lang3.tuple.Pair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+/**
+ * An immutable index over a snapshot of the active subscriptions, which is used to quickly find the
+ * subscriptions that could possibly match a modified resource without testing every one of them.
+ * <p>
+ * The criteria of each search expression subscription are parsed once, when the index is built. If the
+ * criteria can be evaluated in memory and have a clause which requires a token value
+ * (e.g. <code>Observation?code=1234-5</code>) or a reference to a specific resource
+ * (e.g. <code>Observation?subject=Patient/123</code>), the subscription is indexed by the
+ * values in that clause. A resource can then only match the subscription if it has one of those values
+ * in its own search parameter indexes, so any other subscription is pruned without being evaluated.
+ * Subscriptions which can not be indexed are always returned as candidates for their resource type.
+ * </p>
+ * <p>
+ * Candidates are only a superset of the matching subscriptions, they must still be fully evaluated.
+ * </p>
+ *
+ * @since 6.6.0
+ */
+public class SubscriptionCandidateIndex {
+	private static final Logger ourLog = LoggerFactory.getLogger(SubscriptionCandidateIndex.class);
+
+	private final ISearchParamRegistry mySearchParamRegistry;
+	private final Map<String, ResourceTypeIndex> myResourceTypeIndexes = new HashMap<>();
+	private final List<Candidate> myAllResourceTypeCandidates = new ArrayList<>();
+	private final Map<Pair<String, String>, RuntimeSearchParam> mySearchParamsUsed = new HashMap<>();
+	private int myIndexedCount;
+
+	/**
+	 * Constructor
+	 *
+	 * @param theSubscriptions The active subscriptions to index
+	 */
+	public SubscriptionCandidateIndex(FhirContext theFhirContext, MatchUrlService theMatchUrlService, ISearchParamRegistry theSearchParamRegistry, InMemoryResourceMatcher theInMemoryResourceMatcher, Collection<ActiveSubscription> theSubscriptions) {
+		mySearchParamRegistry = theSearchParamRegistry;
+
+		for (ActiveSubscription next : theSubscriptions) {
+			SubscriptionCriteriaParser.SubscriptionCriteria criteria = next.getCriteria();
+			if (criteria == null) {
+				continue;
+			}
+			switch (criteria.getType()) {
+				case STARTYPE_EXPRESSION:
+					myAllResourceTypeCandidates.add(new Candidate(next, null));
+					break;
+				case MULTITYPE_EXPRESSION:
+					for (String nextResourceType : criteria.getApplicableResourceTypes()) {
+						getResourceTypeIndex(nextResourceType).add(new Candidate(next, null), Collections.emptySet());
+					}
+					break;
+				case SEARCH_EXPRESSION:
+				default:
+					for (String nextResourceType : criteria.getApplicableResourceTypes()) {
+						addSearchExpression(theFhirContext, theMatchUrlService, theInMemoryResourceMatcher, next, nextResourceType);
+					}
+					break;
+			}
+		}
+
+		ourLog.debug("Indexed {} of {} active subscriptions", myIndexedCount, theSubscriptions.size());
+	}
+
+	private void addSearchExpression(FhirContext theFhirContext, MatchUrlService theMatchUrlService, InMemoryResourceMatcher theInMemoryResourceMatcher, ActiveSubscription theSubscription, String theResourceType) {
+		ResourceTypeIndex resourceTypeIndex = getResourceTypeIndex(theResourceType);
+
+		SearchParameterMap parsedCriteria = null;
+		Set<String> keys = Collections.emptySet();
+		try {
+			RuntimeResourceDefinition resourceDefinition = theFhirContext.getResourceDefinition(theResourceType);
+			parsedCriteria = theMatchUrlService.translateMatchUrl(theSubscription.getCriteria().getCriteria(), resourceDefinition);
+			parsedCriteria.clean();
+			for (String nextParamName : parsedCriteria.keySet()) {
+				mySearchParamsUsed.put(Pair.of(theResourceType, nextParamName), mySearchParamRegistry.getActiveSearchParam(theResourceType, nextParamName));
+			}
+			if (theInMemoryResourceMatcher.canBeEvaluatedInMemory(parsedCriteria, resourceDefinition).supported()) {
+				keys = findIndexKeys(theResourceType, parsedCriteria);
+			}
+		} catch (Exception e) {
+			// The criteria will be parsed again (and any problem reported) when the subscription is matched
+			ourLog.debug("Unable to parse criteria for subscription {}: {}", theSubscription.getId(), e.toString());
+			parsedCriteria = null;
+		}
+
+		resourceTypeIndex.add(new Candidate(theSubscription, parsedCriteria), keys);
+		if (!keys.isEmpty()) {
+			myIndexedCount++;
+		}
+	}
+
+	/**
+	 * Returns the index keys for the first clause in the criteria which requires one of a set of
+	 * token values or reference targets, or an empty set if there is no such clause
+	 */
+	private Set<String> findIndexKeys(String theResourceType, SearchParameterMap theCriteria) {
+		for (Map.Entry<String, List<List<IQueryParameterType>>> nextEntry : theCriteria.entrySet()) {
+			String paramName = nextEntry.getKey();
+			if (paramName.startsWith("_")) {
+				continue;
+			}
+			RuntimeSearchParam paramDef = mySearchParamRegistry.getActiveSearchParam(theResourceType, paramName);
+			if (paramDef == null) {
+				continue;
+			}
+			for (List<IQueryParameterType> nextOrList : nextEntry.getValue()) {
+				Set<String> keys = new HashSet<>();
+				for (IQueryParameterType nextOr : nextOrList) {
+					if (!addIndexKeys(theResourceType, paramName, paramDef, nextOr, keys)) {
+						keys = null;
+						break;
+					}
+				}
+				if (keys != null && !keys.isEmpty()) {
+					return keys;
+				}
+			}
+		}
+		return Collections.emptySet();
+	}
+
+	/**
+	 * @return Returns <code>false</code> if the parameter can't be indexed
+	 */
+	private boolean addIndexKeys(String theResourceType, String theParamName, RuntimeSearchParam theParamDef, IQueryParameterType theParam, Set<String> theKeys) {
+		if (theParam.getMissing() != null || theParam.getQueryParameterQualifier() != null) {
+			return false;
+		}
+
+		if (theParamDef.getParamType() == RestSearchParameterTypeEnum.TOKEN && theParam instanceof TokenParam) {
+			TokenParam token = (TokenParam) theParam;
+			if (token.getModifier() != null || isBlank(token.getValue())) {
+				return false;
+			}
+			theKeys.add(tokenKey(theParamName, token.getValue()));
+			return true;
+		}
+
+		if (theParamDef.getParamType() == RestSearchParameterTypeEnum.REFERENCE && theParam instanceof ReferenceParam) {
+			ReferenceParam reference = (ReferenceParam) theParam;
+			if (reference.getChain() != null || isBlank(reference.getIdPart())) {
+				return false;
+			}
+			for (String nextPath : theParamDef.getPathsSplitForResourceType(theResourceType)) {
+				theKeys.add(referenceKey(nextPath, reference.getIdPart()));
+			}
+			return true;
+		}
+
+		return false;
+	}
+
+	private ResourceTypeIndex getResourceTypeIndex(String theResourceType) {
+		return myResourceTypeIndexes.computeIfAbsent(theResourceType, t -> new ResourceTypeIndex());
+	}
+
+	/**
+	 * Returns <code>false</code> if any of the search parameters used by the parsed criteria have changed
+	 * since this index was built, meaning that the parsed criteria may no longer be valid
+	 */
+	public boolean isCurrent() {
+		for (Map.Entry<Pair<String, String>, RuntimeSearchParam> next : mySearchParamsUsed.entrySet()) {
+			if (mySearchParamRegistry.getActiveSearchParam(next.getKey().getLeft(), next.getKey().getRight()) != next.getValue()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns <code>true</code> if any of the subscriptions for the given resource type are indexed, meaning
+	 * that {@link #getCandidates(String, ResourceIndexedSearchParams)} can prune them if the search parameter
+	 * indexes for the resource are supplied
+	 */
+	public boolean hasIndexedCandidates(String theResourceType) {
+		ResourceTypeIndex resourceTypeIndex = myResourceTypeIndexes.get(theResourceType);
+		return resourceTypeIndex != null && !resourceTypeIndex.myIndexed.isEmpty();
+	}
+
+	/**
+	 * Returns the subscriptions that may match a resource
+	 *
+	 * @param theResourceType      The resource type
+	 * @param theIndexedSearchParams The search parameter indexes for the resource, or <code>null</code> if they aren't
+	 *                             available, in which case all of the subscriptions for the resource type are returned
+	 */
+	@Nonnull
+	public List<Candidate> getCandidates(String theResourceType, @Nullable ResourceIndexedSearchParams theIndexedSearchParams) {
+		ResourceTypeIndex resourceTypeIndex = myResourceTypeIndexes.get(theResourceType);
+		if (resourceTypeIndex == null) {
+			return myAllResourceTypeCandidates;
+		}
+
+		List<Candidate> retVal = new ArrayList<>(myAllResourceTypeCandidates);
+		if (theIndexedSearchParams == null) {
+			retVal.addAll(resourceTypeIndex.myAll);
+			return retVal;
+		}
+
+		retVal.addAll(resourceTypeIndex.myUnindexed);
+		if (!resourceTypeIndex.myIndexed.isEmpty()) {
+			Map<Candidate, Boolean> found = new IdentityHashMap<>();
+			for (ResourceIndexedSearchParamToken nextToken : theIndexedSearchParams.myTokenParams) {
+				if (nextToken.getValue() != null) {
+					addCandidates(resourceTypeIndex, tokenKey(nextToken.getParamName(), nextToken.getValue()), found, retVal);
+				}
+			}
+			for (ResourceLink nextLink : theIndexedSearchParams.myLinks) {
+				if (nextLink.getTargetResourceId() != null) {
+					addCandidates(resourceTypeIndex, referenceKey(nextLink.getSourcePath(), nextLink.getTargetResourceId()), found, retVal);
+				}
+			}
+		}
+		return retVal;
+	}
+
+	private static void addCandidates(ResourceTypeIndex theResourceTypeIndex, String theKey, Map<Candidate, Boolean> theFound, List<Candidate> theCandidates) {
+		List<Candidate> candidates = theResourceTypeIndex.myIndexed.get(theKey);
+		if (candidates != null) {
+			for (Candidate next : candidates) {
+				if (theFound.put(next, Boolean.TRUE) == null) {
+					theCandidates.add(next);
+				}
+			}
+		}
+	}
+
+	private static String tokenKey(String theParamName, String theValue) {
+		return "T|" + foldCase(theParamName) + "|" + foldCase(theValue);
+	}
+
+	private static String referenceKey(String thePath, String theTargetId) {
+		return "R|" + foldCase(thePath) + "|" + theTargetId;
+	}
+
+	/**
+	 * The in-memory matcher compares token values and reference paths using {@link String#equalsIgnoreCase(String)},
+	 * which compares each character after converting it to upper and then lower case
+	 */
+	private static String foldCase(String theValue) {
+		char[] chars = theValue.toCharArray();
+		for (int i = 0; i < chars.length; i++) {
+			chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+		}
+		return new String(chars);
+	}
+
+	private static class ResourceTypeIndex {
+		private final List<Candidate> myAll = new ArrayList<>();
+		private final List<Candidate> myUnindexed = new ArrayList<>();
+		private final Map<String, List<Candidate>> myIndexed = new HashMap<>();
+
+		private void add(Candidate theCandidate, Set<String> theKeys) {
+			myAll.add(theCandidate);
+			if (theKeys.isEmpty()) {
+				myUnindexed.add(theCandidate);
+			} else {
+				for (String nextKey : theKeys) {
+					myIndexed.computeIfAbsent(nextKey, k -> new ArrayList<>()).add(theCandidate);
+				}
+			}
+		}
+	}
+
+	/**
+	 * A subscription which may match a resource
+	 */
+	public static class Candidate {
+		private final ActiveSubscription myActiveSubscription;
+		private final SearchParameterMap myParsedCriteria;
+
+		Candidate(ActiveSubscription theActiveSubscription, @Nullable SearchParameterMap theParsedCriteria) {
+			myActiveSubscription = theActiveSubscription;
+			myParsedCriteria = theParsedCriteria;
+		}
+
+		@Nonnull
+		public ActiveSubscription getActiveSubscription() {
+			return myActiveSubscription;
+		}
+
+		/**
+		 * Returns the parsed criteria for a search expression subscription, or <code>null</code> if the
+		 * subscription is not a search expression or its criteria could not be parsed
+		 */
+		@Nullable
+		public SearchParameterMap getParsedCriteria() {
+			return myParsedCriteria;
+		}
+	}
+
+}
@@ -0,0 +1,79 @@
+package ca.uhn.fhir.jpa.subscription.match.matcher.matching;
+
+/*-
+/*-
+ * #%L
+ * HAPI FHIR Subscription Server
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.RuntimeResourceDefinition;
+import ca.uhn.fhir.jpa.searchparam.extractor.ResourceIndexedSearchParams;
+import ca.uhn.fhir.jpa.searchparam.matcher.IndexedSearchParamExtractor;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Holds the state which is shared by all of the subscriptions being matched against a single
+ * modified resource. The search parameter indexes for the resource are only extracted once,
+ * the first time they are needed, no matter how many subscriptions are tested.
+ * <p>
+ * This class is not thread safe, a new instance should be created for each message.
+ * </p>
+ *
+ * @since 6.6.0
+ */
+public class SubscriptionMatchingContext {
+
+	private final IBaseResource myResource;
+	private final RuntimeResourceDefinition myResourceDefinition;
+	private final IndexedSearchParamExtractor myIndexedSearchParamExtractor;
+	private ResourceIndexedSearchParams myIndexedSearchParams;
+
+	/**
+	 * Constructor
+	 */
+	public SubscriptionMatchingContext(@Nonnull FhirContext theFhirContext, @Nonnull IndexedSearchParamExtractor theIndexedSearchParamExtractor, @Nonnull IBaseResource theResource) {
+		myResource = theResource;
+		myResourceDefinition = theFhirContext.getResourceDefinition(theResource);
+		myIndexedSearchParamExtractor = theIndexedSearchParamExtractor;
+	}
+
+	@Nonnull
+	public IBaseResource getResource() {
+		return myResource;
+	}
+
+	@Nonnull
+	public RuntimeResourceDefinition getResourceDefinition() {
+		return myResourceDefinition;
+	}
+
+	/**
+	 * Returns the search parameter indexes for the resource, extracting them if this is the first call
+	 */
+	@Nonnull
+	public ResourceIndexedSearchParams getIndexedSearchParams() {
+		if (myIndexedSearchParams == null) {
+			myIndexedSearchParams = myIndexedSearchParamExtractor.extractIndexedSearchParams(myResource, null);
+		}
+		return myIndexedSearchParams;
+	}
+
+}
@@ -5,9 +5,17 @@ import ca.uhn.fhir.i18n.Msg;
 import ca.uhn.fhir.interceptor.api.HookParams;
 import ca.uhn.fhir.interceptor.api.IInterceptorBroadcaster;
 import ca.uhn.fhir.interceptor.api.Pointcut;
+import ca.uhn.fhir.jpa.model.entity.StorageSettings;
+import ca.uhn.fhir.jpa.searchparam.MatchUrlService;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.jpa.searchparam.extractor.ResourceIndexedSearchParams;
 import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryMatchResult;
+import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryResourceMatcher;
+import ca.uhn.fhir.jpa.searchparam.matcher.IndexedSearchParamExtractor;
 import ca.uhn.fhir.jpa.subscription.channel.subscription.SubscriptionChannelRegistry;
 import ca.uhn.fhir.jpa.subscription.match.matcher.matching.ISubscriptionMatcher;
+import ca.uhn.fhir.jpa.subscription.match.matcher.matching.SubscriptionCandidateIndex;
+import ca.uhn.fhir.jpa.subscription.match.matcher.matching.SubscriptionMatchingContext;
 import ca.uhn.fhir.jpa.subscription.match.registry.ActiveSubscription;
 import ca.uhn.fhir.jpa.subscription.match.registry.SubscriptionRegistry;
 import ca.uhn.fhir.jpa.subscription.model.CanonicalSubscription;
@@ -16,6 +24,7 @@ import ca.uhn.fhir.jpa.subscription.model.ResourceDeliveryMessage;
 import ca.uhn.fhir.jpa.subscription.model.ResourceModifiedJsonMessage;
 import ca.uhn.fhir.jpa.subscription.model.ResourceModifiedMessage;
 import ca.uhn.fhir.rest.api.EncodingEnum;
+import ca.uhn.fhir.rest.server.util.ISearchParamRegistry;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.instance.model.api.IIdType;
 import org.slf4j.Logger;
@@ -27,7 +36,9 @@ import org.springframework.messaging.MessageHandler;
 import org.springframework.messaging.MessagingException;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.Collection;
+import java.util.List;
 
 import static ca.uhn.fhir.rest.server.messaging.BaseResourceMessage.OperationTypeEnum.DELETE;
 import static org.apache.commons.lang3.ObjectUtils.defaultIfNull;
@@ -67,6 +78,19 @@ public class SubscriptionMatchingSubscriber implements MessageHandler {
 	private IInterceptorBroadcaster myInterceptorBroadcaster;
 	@Autowired
 	private SubscriptionChannelRegistry mySubscriptionChannelRegistry;
+	@Autowired
+	private StorageSettings myStorageSettings;
+	@Autowired
+	private MatchUrlService myMatchUrlService;
+	@Autowired
+	private ISearchParamRegistry mySearchParamRegistry;
+	@Autowired
+	private InMemoryResourceMatcher myInMemoryResourceMatcher;
+	@Autowired
+	private IndexedSearchParamExtractor myIndexedSearchParamExtractor;
+
+	private SubscriptionCandidateIndex myCandidateIndex;
+	private long myCandidateIndexModificationCount;
 
 	/**
 	 * Constructor
@@ -118,14 +142,24 @@ public class SubscriptionMatchingSubscriber implements MessageHandler {
 
 	private void doMatchActiveSubscriptionsAndDeliver(ResourceModifiedMessage theMsg) {
 		IIdType resourceId = theMsg.getPayloadId(myFhirContext);
+		IBaseResource payload = theMsg.getNewPayload(myFhirContext);
 
-		Collection<ActiveSubscription> subscriptions = mySubscriptionRegistry.getAll();
-
-		ourLog.trace("Testing {} subscriptions for applicability", subscriptions.size());
 		boolean anySubscriptionsMatchedResource = false;
+		if (payload != null) {
+			SubscriptionMatchingContext matchingContext = new SubscriptionMatchingContext(myFhirContext, myIndexedSearchParamExtractor, payload);
+			List<SubscriptionCandidateIndex.Candidate> candidates = getCandidates(resourceId.getResourceType(), matchingContext);
+
+			ourLog.trace("Testing {} candidate subscriptions for applicability", candidates.size());
+			for (SubscriptionCandidateIndex.Candidate nextCandidate : candidates) {
+				anySubscriptionsMatchedResource |= processSubscription(theMsg, resourceId, nextCandidate.getActiveSubscription(), nextCandidate.getParsedCriteria(), matchingContext);
+			}
+		} else {
+			Collection<ActiveSubscription> subscriptions = mySubscriptionRegistry.getAll();
 
-		for (ActiveSubscription nextActiveSubscription : subscriptions) {
-			anySubscriptionsMatchedResource |= processSubscription(theMsg, resourceId, nextActiveSubscription);
+			ourLog.trace("Testing {} subscriptions for applicability", subscriptions.size());
+			for (ActiveSubscription nextActiveSubscription : subscriptions) {
+				anySubscriptionsMatchedResource |= processSubscription(theMsg, resourceId, nextActiveSubscription, null, null);
+			}
 		}
 
 		if (!anySubscriptionsMatchedResource) {
@@ -136,11 +170,40 @@ public class SubscriptionMatchingSubscriber implements MessageHandler {
 		}
 	}
 
+	/**
+	 * Returns the active subscriptions which could match the resource. Subscriptions are only pruned
+	 * using the search parameter indexes of the resource if they will be matched in memory.
+	 */
+	private List<SubscriptionCandidateIndex.Candidate> getCandidates(String theResourceType, SubscriptionMatchingContext theMatchingContext) {
+		SubscriptionCandidateIndex candidateIndex = getCandidateIndex();
+
+		ResourceIndexedSearchParams indexedSearchParams = null;
+		if (myStorageSettings.isEnableInMemorySubscriptionMatching() && candidateIndex.hasIndexedCandidates(theResourceType)) {
+			try {
+				indexedSearchParams = theMatchingContext.getIndexedSearchParams();
+			} catch (RuntimeException e) {
+				// Don't prune anything, the failure will be reported when the subscriptions are matched
+				ourLog.debug("Failed to extract search parameters for resource: {}", e.toString());
+			}
+		}
+
+		return candidateIndex.getCandidates(theResourceType, indexedSearchParams);
+	}
+
+	private synchronized SubscriptionCandidateIndex getCandidateIndex() {
+		long modificationCount = mySubscriptionRegistry.getModificationCount();
+		if (myCandidateIndex == null || myCandidateIndexModificationCount != modificationCount || !myCandidateIndex.isCurrent()) {
+			myCandidateIndex = new SubscriptionCandidateIndex(myFhirContext, myMatchUrlService, mySearchParamRegistry, myInMemoryResourceMatcher, mySubscriptionRegistry.getAll());
+			myCandidateIndexModificationCount = modificationCount;
+		}
+		return myCandidateIndex;
+	}
+
 	/**
 	 * Returns true if subscription matched, and processing completed successfully, and the message was sent to the delivery channel. False otherwise.
 	 *
 	 */
-	private boolean processSubscription(ResourceModifiedMessage theMsg, IIdType theResourceId, ActiveSubscription theActiveSubscription) {
+	private boolean processSubscription(ResourceModifiedMessage theMsg, IIdType theResourceId, ActiveSubscription theActiveSubscription, @Nullable SearchParameterMap theParsedCriteria, @Nullable SubscriptionMatchingContext theMatchingContext) {
 		// skip if the partitions don't match
 		CanonicalSubscription subscription = theActiveSubscription.getSubscription();
 		if (subscription != null && theMsg.getPartitionId() != null &&
@@ -171,7 +234,11 @@ public class SubscriptionMatchingSubscriber implements MessageHandler {
 
 		InMemoryMatchResult matchResult;
 		if (theActiveSubscription.getCriteria().getType() == SubscriptionCriteriaParser.TypeEnum.SEARCH_EXPRESSION) {
-			matchResult = mySubscriptionMatcher.match(theActiveSubscription.getSubscription(), theMsg);
+			if (theParsedCriteria != null && theMatchingContext != null) {
+				matchResult = mySubscriptionMatcher.match(theActiveSubscription.getSubscription(), theMsg, theParsedCriteria, theMatchingContext);
+			} else {
+				matchResult = mySubscriptionMatcher.match(theActiveSubscription.getSubscription(), theMsg);
+			}
 			if (!matchResult.matched()) {
 				ourLog.trace("Subscription {} was not matched by resource {} {}",
 					theActiveSubscription.getId(),
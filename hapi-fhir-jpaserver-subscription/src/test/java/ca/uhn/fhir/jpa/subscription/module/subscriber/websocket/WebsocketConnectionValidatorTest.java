@@ -8,6 +8,7 @@ import ca.uhn.fhir.jpa.cache.IResourceChangeListenerRegistry;
 import ca.uhn.fhir.jpa.model.config.PartitionSettings;
 import ca.uhn.fhir.jpa.searchparam.MatchUrlService;
 import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryResourceMatcher;
+import ca.uhn.fhir.jpa.searchparam.matcher.IndexedSearchParamExtractor;
 import ca.uhn.fhir.jpa.searchparam.matcher.SearchParamMatcher;
 import ca.uhn.fhir.jpa.subscription.channel.config.SubscriptionChannelConfig;
 import ca.uhn.fhir.jpa.subscription.channel.subscription.SubscriptionChannelFactory;
@@ -61,6 +62,8 @@ public class WebsocketConnectionValidatorTest {
 	@MockBean
 	InMemoryResourceMatcher myInMemoryResourceMatcher;
 	@MockBean
+	IndexedSearchParamExtractor myIndexedSearchParamExtractor;
+	@MockBean
 	SubscriptionRegistry mySubscriptionRegistry;
 	@MockBean
 	ISearchParamRegistry mySearchParamRegistry;
@@ -21,6 +21,7 @@ import ca.uhn.fhir.batch2.model.JobInstanceStartRequest;
 import ca.uhn.fhir.batch2.model.JobWorkNotificationJsonMessage;
 import ca.uhn.fhir.batch2.model.StatusEnum;
 import ca.uhn.fhir.batch2.models.JobInstanceFetchRequest;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
 import ca.uhn.fhir.jpa.batch.models.Batch2JobStartResponse;
 import ca.uhn.fhir.jpa.subscription.channel.api.ChannelConsumerSettings;
 import ca.uhn.fhir.jpa.subscription.channel.api.IChannelFactory;
@@ -97,6 +98,7 @@ public class Batch2CoordinatorIT extends BaseJpaR4Test {
 	@AfterEach
 	public void after() {
 		myWorkChannel.clearInterceptorsForUnitTest();
+		myStorageSettings.setJobGatedStepAdvanceOnChunkCompletionEnabled(new JpaStorageSettings().isJobGatedStepAdvanceOnChunkCompletionEnabled());
 	}
 
 	@Test
@@ -390,6 +392,37 @@ public class Batch2CoordinatorIT extends BaseJpaR4Test {
 	}
 
 
+	@Test
+	public void testFirstStepToSecondStep_doubleChunk_advancesWhenStepCompletes() throws InterruptedException {
+		myStorageSettings.setJobGatedStepAdvanceOnChunkCompletionEnabled(true);
+
+		IJobStepWorker<TestJobParameters, VoidModel, FirstStepOutput> firstStep = (step, sink) -> {
+			sink.accept(new FirstStepOutput());
+			sink.accept(new FirstStepOutput());
+			return callLatch(myFirstStepLatch, step);
+		};
+		IJobStepWorker<TestJobParameters, FirstStepOutput, VoidModel> lastStep = (step, sink) -> callLatch(myLastStepLatch, step);
+
+		String jobDefId = new Exception().getStackTrace()[0].getMethodName();
+		JobDefinition<? extends IModelJson> definition = buildGatedJobDefinition(jobDefId, firstStep, lastStep);
+
+		myJobDefinitionRegistry.addJobDefinition(definition);
+
+		JobInstanceStartRequest request = buildRequest(jobDefId);
+
+		// The last step should be started as soon as the first step completes, without waiting
+		// for a scheduled maintenance pass
+		myFirstStepLatch.setExpectedCount(1);
+		myLastStepLatch.setExpectedCount(2);
+		Batch2JobStartResponse startResponse = myJobCoordinator.startInstance(request);
+		String instanceId = startResponse.getInstanceId();
+		myFirstStepLatch.awaitExpected();
+		myLastStepLatch.awaitExpected();
+
+		myBatch2JobHelper.awaitJobCompletion(instanceId);
+		myBatch2JobHelper.assertNotFastTracking(instanceId);
+	}
+
 	@Test
 	public void JobExecutionFailedException_CausesInstanceFailure() {
 		// setup
@@ -29,6 +29,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 
 import java.io.IOException;
 import java.io.StringReader;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
@@ -41,6 +42,7 @@ import java.util.stream.Stream;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 import static org.awaitility.Awaitility.await;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.not;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -57,6 +59,9 @@ public class BulkDataExportTest extends BaseResourceProviderR4Test {
 	@AfterEach
 	void afterEach() {
 		myStorageSettings.setIndexMissingFields(JpaStorageSettings.IndexEnabledEnum.DISABLED);
+		myStorageSettings.setBulkExportStreamToBinaryStorage(false);
+		myStorageSettings.setBulkExportFileMaximumSize(JpaStorageSettings.DEFAULT_BULK_EXPORT_FILE_MAXIMUM_SIZE);
+		myInterceptorRegistry.unregisterInterceptor(myBinaryStorageInterceptor);
 	}
 
 	@BeforeEach
@@ -135,6 +140,34 @@ public class BulkDataExportTest extends BaseResourceProviderR4Test {
 		verifyBulkExportResults(options, List.of("Patient/PING1", "Patient/PING2"), Collections.singletonList("Patient/PNING3"));
 	}
 
+	@Test
+	public void testSystemBulkExportStreamedToBinaryStorage() {
+		myInterceptorRegistry.registerInterceptor(myBinaryStorageInterceptor);
+		myStorageSettings.setBulkExportStreamToBinaryStorage(true);
+		myStorageSettings.setBulkExportFileMaximumSize(500);
+
+		// Create some resources
+		List<String> patientIds = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			Patient patient = new Patient();
+			patient.setId("PSTREAM" + i);
+			patient.addName().setFamily("Family " + i);
+			patient.setActive(true);
+			patientIds.add(myClient.update().resource(patient).execute().getId().toUnqualifiedVersionless().getValue());
+		}
+
+		// set the export options
+		BulkDataExportOptions options = new BulkDataExportOptions();
+		options.setResourceTypes(Sets.newHashSet("Patient"));
+		options.setFilters(new HashSet<>());
+		options.setExportStyle(BulkDataExportOptions.ExportStyle.SYSTEM);
+		options.setOutputFormat(Constants.CT_FHIR_NDJSON);
+		BulkExportJobResults results = verifyBulkExportResults(options, patientIds, Collections.emptyList());
+
+		// Files are rolled over once they reach the maximum size
+		assertThat(results.getResourceTypeToBinaryIds().get("Patient").size(), greaterThan(1));
+	}
+
 	@Test
 	public void testTwoBulkExportsInARow() {
 		// Create some resources
@@ -648,7 +681,7 @@ public class BulkDataExportTest extends BaseResourceProviderR4Test {
 		verifyBulkExportResults(options, expectedContainedIds, Collections.emptyList());
 	}
 
-	private void verifyBulkExportResults(BulkDataExportOptions theOptions, List<String> theContainedList, List<String> theExcludedList) {
+	private BulkExportJobResults verifyBulkExportResults(BulkDataExportOptions theOptions, List<String> theContainedList, List<String> theExcludedList) {
 		Batch2JobStartResponse startResponse = myJobRunner.startNewJob(BulkExportUtils.createBulkExportJobParametersFromExportOptions(theOptions));
 
 		assertNotNull(startResponse);
@@ -706,6 +739,7 @@ public class BulkDataExportTest extends BaseResourceProviderR4Test {
 		for (String excludedString : theExcludedList) {
 			assertThat(foundIds, not(hasItem(excludedString)));
 		}
+		return results;
 	}
 
 	private static Stream<Set<String>> bulkExportOptionsResourceTypes() {
@@ -2,10 +2,14 @@ package ca.uhn.fhir.jpa.bulk.imprt2;
 
 import ca.uhn.fhir.batch2.api.JobExecutionFailedException;
 import ca.uhn.fhir.batch2.jobs.imprt.ConsumeFilesStep;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
 import ca.uhn.fhir.jpa.test.BaseJpaR4Test;
+import ca.uhn.fhir.rest.param.ReferenceParam;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.r4.model.IdType;
+import org.hl7.fhir.r4.model.Organization;
 import org.hl7.fhir.r4.model.Patient;
+import org.hl7.fhir.r4.model.Reference;
 import org.junit.jupiter.api.MethodOrderer;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestMethodOrder;
@@ -168,6 +172,46 @@ public class ConsumeFilesStepR4Test extends BaseJpaR4Test {
 
 	}
 
+	@Test
+	public void testNotAlreadyExisting_ReferencesResolvedInBatch() {
+
+		// Setup
+
+		Organization org = new Organization();
+		org.setId("ORG");
+		org.setName("Org");
+		myOrganizationDao.update(org);
+
+		List<IBaseResource> resources = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			Patient patient = new Patient();
+			patient.setId("P" + i);
+			patient.setActive(true);
+			patient.setManagingOrganization(new Reference("Organization/ORG"));
+			resources.add(patient);
+		}
+
+		// Execute
+
+		myMemoryCacheService.invalidateAllCaches();
+		myCaptureQueriesListener.clear();
+		mySvc.storeResources(resources);
+
+		// Validate
+
+		long orgLookups = myCaptureQueriesListener
+			.getSelectQueries()
+			.stream()
+			.filter(t -> t.getSql(true, false).contains("FORCED_ID='ORG'"))
+			.count();
+		assertEquals(1, orgLookups, myCaptureQueriesListener.getSelectQueries().toString());
+		assertEquals(1, myCaptureQueriesListener.countCommits());
+
+		Patient patient = myPatientDao.read(new IdType("Patient/P4"));
+		assertEquals("Organization/ORG", patient.getManagingOrganization().getReference());
+		assertEquals(5, myPatientDao.search(SearchParameterMap.newSynchronous(Patient.SP_ORGANIZATION, new ReferenceParam("Organization/ORG"))).size());
+	}
+
 	@Test
 	public void testNotAlreadyExisting_InvalidIdForStorage() {
 		// Setup
@@ -9,6 +9,7 @@ import ca.uhn.fhir.jpa.api.dao.DaoRegistry;
 import ca.uhn.fhir.jpa.api.dao.IFhirSystemDao;
 import ca.uhn.fhir.jpa.api.svc.IIdHelperService;
 import ca.uhn.fhir.jpa.cache.IResourceVersionSvc;
+import ca.uhn.fhir.jpa.dao.data.IResourceTableDao;
 import ca.uhn.fhir.jpa.dao.r4.TransactionProcessorVersionAdapterR4;
 import ca.uhn.fhir.jpa.dao.tx.HapiTransactionService;
 import ca.uhn.fhir.jpa.model.config.PartitionSettings;
@@ -85,6 +86,8 @@ public class TransactionProcessorTest {
 	private SessionImpl mySession;
 	@MockBean
 	private IFhirSystemDao<Bundle, Meta> mySystemDao;
+	@MockBean
+	private IResourceTableDao myResourceTableDao;
 
 	@BeforeEach
 	public void before() {
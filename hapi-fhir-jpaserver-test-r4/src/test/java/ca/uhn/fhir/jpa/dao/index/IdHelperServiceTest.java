@@ -7,6 +7,8 @@ import ca.uhn.fhir.jpa.model.config.PartitionSettings;
 import ca.uhn.fhir.jpa.model.cross.IResourceLookup;
 import ca.uhn.fhir.jpa.model.dao.JpaPid;
 import ca.uhn.fhir.jpa.util.MemoryCacheService;
+import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
+import org.hl7.fhir.r4.model.IdType;
 import org.hl7.fhir.r4.model.Patient;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -16,6 +18,8 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -30,8 +34,13 @@ import java.util.stream.Collectors;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.hasSize;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -205,4 +214,76 @@ public class IdHelperServiceTest {
 		JpaPid result = myHelperService.resolveResourcePersistentIds(partitionId, resourceType, id.toString());
 		assertEquals(id, result.getId());
 	}
+
+	@Test
+	public void testResolveResourceIdentity_pendingLookupsAreResolvedTogetherAndMemoized() {
+		RequestPartitionId partitionId = RequestPartitionId.allPartitions();
+		when(myForcedIdDao.findAndResolveByForcedIdWithNoType(any(), any(), anyBoolean())).thenAnswer(t -> {
+			String resourceType = t.getArgument(0);
+			Collection<String> forcedIds = t.getArgument(1);
+			return forcedIds
+				.stream()
+				.filter(id -> !id.equals("MISSING"))
+				.map(id -> new Object[]{resourceType, (long) (resourceType + "/" + id).hashCode(), id, null})
+				.collect(Collectors.toList());
+		});
+
+		runInTransactionSynchronization(() -> {
+			myHelperService.addPendingResourceIdentityLookups(partitionId, Arrays.asList(
+				new IdType("Patient/A"),
+				new IdType("Patient/B"),
+				new IdType("Patient/MISSING"),
+				new IdType("Practitioner/A")
+			));
+
+			IResourceLookup<JpaPid> patientA = myHelperService.resolveResourceIdentity(partitionId, "Patient", "A");
+			assertEquals("Patient", patientA.getResourceType());
+			assertEquals((long) "Patient/A".hashCode(), patientA.getPersistentId().getId());
+
+			// One query per resource type for all of the pending IDs
+			verify(myForcedIdDao, times(1)).findAndResolveByForcedIdWithNoType(eq("Patient"), argThat(t -> t.size() == 3), eq(false));
+			verify(myForcedIdDao, times(1)).findAndResolveByForcedIdWithNoType(eq("Practitioner"), argThat(t -> t.size() == 1), eq(false));
+
+			IResourceLookup<JpaPid> practitionerA = myHelperService.resolveResourceIdentity(partitionId, "Practitioner", "A");
+			assertEquals("Practitioner", practitionerA.getResourceType());
+			assertEquals((long) "Practitioner/A".hashCode(), practitionerA.getPersistentId().getId());
+			myHelperService.resolveResourceIdentity(partitionId, "Patient", "B");
+			myHelperService.resolveResourceIdentity(partitionId, "Patient", "A");
+			assertThrows(ResourceNotFoundException.class, () -> myHelperService.resolveResourceIdentity(partitionId, "Patient", "MISSING"));
+			assertThrows(ResourceNotFoundException.class, () -> myHelperService.resolveResourceIdentity(partitionId, "Patient", "MISSING"));
+
+			verify(myForcedIdDao, times(2)).findAndResolveByForcedIdWithNoType(any(), any(), anyBoolean());
+		});
+	}
+
+	@Test
+	public void testResolveResourceIdentity_evictedWhenResourceIsWritten() {
+		RequestPartitionId partitionId = RequestPartitionId.allPartitions();
+		Object[] view = new Object[]{"Patient", 123L, "A", null};
+		when(myForcedIdDao.findAndResolveByForcedIdWithNoType(any(), any(), anyBoolean())).thenReturn(Collections.singletonList(view));
+
+		runInTransactionSynchronization(() -> {
+			myHelperService.resolveResourceIdentity(partitionId, "Patient", "A");
+			myHelperService.resolveResourceIdentity(partitionId, "Patient", "A");
+			verify(myForcedIdDao, times(1)).findAndResolveByForcedIdWithNoType(any(), any(), anyBoolean());
+
+			myHelperService.evictResolvedResourceIdentity("Patient", JpaPid.fromId(123L), "A");
+			myHelperService.resolveResourceIdentity(partitionId, "Patient", "A");
+			verify(myForcedIdDao, times(2)).findAndResolveByForcedIdWithNoType(any(), any(), anyBoolean());
+		});
+
+		// A new transaction starts from scratch
+		runInTransactionSynchronization(() -> myHelperService.resolveResourceIdentity(partitionId, "Patient", "A"));
+		verify(myForcedIdDao, times(3)).findAndResolveByForcedIdWithNoType(any(), any(), anyBoolean());
+	}
+
+	private static void runInTransactionSynchronization(Runnable theRunnable) {
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			theRunnable.run();
+		} finally {
+			TransactionSynchronizationManager.getSynchronizations().forEach(t -> t.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
 }
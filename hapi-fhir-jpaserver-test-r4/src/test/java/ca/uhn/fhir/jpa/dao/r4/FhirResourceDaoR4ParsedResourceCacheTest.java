@@ -0,0 +1,139 @@
+package ca.uhn.fhir.jpa.dao.r4;
+
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.cache.ParsedResourceCacheSvc;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.jpa.test.BaseJpaR4Test;
+import ca.uhn.fhir.model.api.ResourceMetadataKeyEnum;
+import ca.uhn.fhir.model.valueset.BundleEntrySearchModeEnum;
+import ca.uhn.fhir.rest.param.TokenParam;
+import ca.uhn.fhir.rest.server.exceptions.ResourceGoneException;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.instance.model.api.IIdType;
+import org.hl7.fhir.r4.model.Coding;
+import org.hl7.fhir.r4.model.Meta;
+import org.hl7.fhir.r4.model.Organization;
+import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class FhirResourceDaoR4ParsedResourceCacheTest extends BaseJpaR4Test {
+
+	@Autowired
+	private ParsedResourceCacheSvc myParsedResourceCacheSvc;
+
+	@BeforeEach
+	public void beforeEach() {
+		myStorageSettings.setParsedResourceCacheMaximumSize(1000);
+		myParsedResourceCacheSvc.clear();
+	}
+
+	@AfterEach
+	public void afterEach() {
+		JpaStorageSettings defaults = new JpaStorageSettings();
+		myStorageSettings.setParsedResourceCacheMaximumSize(defaults.getParsedResourceCacheMaximumSize());
+		myStorageSettings.setParsedResourceCacheMaximumResourceLength(defaults.getParsedResourceCacheMaximumResourceLength());
+		myParsedResourceCacheSvc.clear();
+	}
+
+	@Test
+	public void testReadIsServedFromCache() {
+		Patient patient = new Patient();
+		patient.setActive(true);
+		patient.addName().setFamily("Simpson");
+		IIdType id = myPatientDao.create(patient, mySrd).getId().toUnqualifiedVersionless();
+
+		Patient first = myPatientDao.read(id, mySrd);
+		assertEquals(0, myParsedResourceCacheSvc.getHitCount());
+
+		myCaptureQueriesListener.clear();
+		Patient second = myPatientDao.read(id, mySrd);
+		assertEquals(1, myParsedResourceCacheSvc.getHitCount());
+		assertEquals(1, myCaptureQueriesListener.countSelectQueries());
+
+		assertNotSame(first, second);
+		assertEquals(myFhirContext.newJsonParser().encodeResourceToString(first), myFhirContext.newJsonParser().encodeResourceToString(second));
+		assertEquals(id.withVersion("1").getValue(), second.getIdElement().getValue());
+		assertEquals(first.getMeta().getLastUpdated(), second.getMeta().getLastUpdated());
+
+		// Modifying the returned copy must not affect the cache
+		second.getNameFirstRep().setFamily("Flanders");
+		Patient third = myPatientDao.read(id, mySrd);
+		assertEquals("Simpson", third.getNameFirstRep().getFamily());
+	}
+
+	@Test
+	public void testCacheInvalidatedByUpdateMetaAndDelete() {
+		Patient patient = new Patient();
+		patient.setActive(true);
+		IIdType id = myPatientDao.create(patient, mySrd).getId().toUnqualifiedVersionless();
+		myPatientDao.read(id, mySrd);
+
+		patient.setId(id);
+		patient.setActive(false);
+		myPatientDao.update(patient, mySrd);
+		assertEquals(false, myPatientDao.read(id, mySrd).getActive());
+
+		Meta meta = new Meta();
+		meta.addTag(new Coding("http://foo", "bar", null));
+		myPatientDao.metaAddOperation(id, meta, mySrd);
+		assertEquals("bar", myPatientDao.read(id, mySrd).getMeta().getTagFirstRep().getCode());
+
+		myPatientDao.delete(id, mySrd);
+		assertThrows(ResourceGoneException.class, () -> myPatientDao.read(id, mySrd));
+	}
+
+	@Test
+	public void testIncludesAreServedFromCache() {
+		Organization org = new Organization();
+		org.setName("ORG");
+		IIdType orgId = myOrganizationDao.create(org, mySrd).getId().toUnqualifiedVersionless();
+
+		for (int i = 0; i < 3; i++) {
+			Patient patient = new Patient();
+			patient.setId("PT-" + i);
+			patient.setManagingOrganization(new org.hl7.fhir.r4.model.Reference(orgId));
+			myPatientDao.update(patient, mySrd);
+		}
+
+		SearchParameterMap map = SearchParameterMap.newSynchronous()
+			.add("_id", new TokenParam("PT-0"))
+			.addInclude(Patient.INCLUDE_ORGANIZATION);
+		List<IBaseResource> resources = myPatientDao.search(map, mySrd).getAllResources();
+		assertEquals(List.of("Patient/PT-0", orgId.getValue()), toUnqualifiedVersionlessIdValues(resources));
+		assertEquals(0, myParsedResourceCacheSvc.getHitCount());
+
+		map = SearchParameterMap.newSynchronous()
+			.add("_id", new TokenParam("PT-1"))
+			.addInclude(Patient.INCLUDE_ORGANIZATION);
+		resources = myPatientDao.search(map, mySrd).getAllResources();
+		assertEquals(List.of("Patient/PT-1", orgId.getValue()), toUnqualifiedVersionlessIdValues(resources));
+		assertEquals(1, myParsedResourceCacheSvc.getHitCount());
+		assertEquals(BundleEntrySearchModeEnum.MATCH, ResourceMetadataKeyEnum.ENTRY_SEARCH_MODE.get(resources.get(0)));
+		assertEquals(BundleEntrySearchModeEnum.INCLUDE, ResourceMetadataKeyEnum.ENTRY_SEARCH_MODE.get(resources.get(1)));
+		assertEquals("ORG", ((Organization) resources.get(1)).getName());
+	}
+
+	@Test
+	public void testLargeResourcesAreNotCached() {
+		myStorageSettings.setParsedResourceCacheMaximumResourceLength(10);
+
+		Patient patient = new Patient();
+		patient.setActive(true);
+		IIdType id = myPatientDao.create(patient, mySrd).getId().toUnqualifiedVersionless();
+
+		myPatientDao.read(id, mySrd);
+		myPatientDao.read(id, mySrd);
+		assertEquals(0, myParsedResourceCacheSvc.getHitCount());
+		assertEquals(2, myParsedResourceCacheSvc.getMissCount());
+	}
+
+}
@@ -173,12 +173,12 @@ public class FhirResourceDaoR4QueryCountTest extends BaseResourceProviderR4Test
 		myCaptureQueriesListener.clear();
 		Group group = createGroup(patientList.subList(0, initialPatientsCount));
 
-		assertQueryCount(31, 0, 4, 0);
+		assertQueryCount(2, 0, 4, 0);
 
 		myCaptureQueriesListener.clear();
 		group = updateGroup(group, patientList.subList(initialPatientsCount, allPatientsCount));
 
-		assertQueryCount(10, 1, 2, 0);
+		assertQueryCount(6, 1, 2, 0);
 
 		assertEquals(allPatientsCount, group.getMember().size());
 
@@ -192,7 +192,7 @@ public class FhirResourceDaoR4QueryCountTest extends BaseResourceProviderR4Test
 		myCaptureQueriesListener.clear();
 		Group group = createGroup(patientList);
 
-		assertQueryCount(31, 0, 4, 0);
+		assertQueryCount(2, 0, 4, 0);
 
 		// Make a change to the group, but don't touch any references in it
 		myCaptureQueriesListener.clear();
@@ -1707,7 +1707,7 @@ public class FhirResourceDaoR4QueryCountTest extends BaseResourceProviderR4Test
 		myCaptureQueriesListener.clear();
 		mySystemDao.transaction(mySrd, input);
 		myCaptureQueriesListener.logSelectQueriesForCurrentThread();
-		assertEquals(2, myCaptureQueriesListener.countSelectQueriesForCurrentThread());
+		assertEquals(1, myCaptureQueriesListener.countSelectQueriesForCurrentThread());
 		assertEquals(7, runInTransaction(() -> myResourceTableDao.count()));
 
 		// Second identical pass
@@ -2204,6 +2204,46 @@ public class FhirResourceDaoR4QueryCountTest extends BaseResourceProviderR4Test
 
 	}
 
+	/**
+	 * The targets of all of the references in a resource should be looked up
+	 * together, with one query per target resource type
+	 */
+	@Test
+	public void testTransactionWithManyPreExistingReferences_ForcedId() {
+		myStorageSettings.setDeleteEnabled(true);
+
+		List<String> practitionerIds = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			Practitioner practitioner = new Practitioner();
+			practitioner.setId("Practitioner/P" + i);
+			practitioner.setActive(true);
+			practitionerIds.add(myPractitionerDao.update(practitioner, mySrd).getId().toUnqualifiedVersionless().getValue());
+		}
+
+		Patient patient = new Patient();
+		patient.setId("Patient/A");
+		patient.setActive(true);
+		myPatientDao.update(patient, mySrd);
+
+		BundleBuilder bb = new BundleBuilder(myFhirContext);
+		ServiceRequest sr = new ServiceRequest();
+		sr.getSubject().setReference("Patient/A");
+		practitionerIds.forEach(t -> sr.addPerformer().setReference(t));
+		bb.addTransactionCreateEntry(sr);
+		Bundle input = (Bundle) bb.getBundle();
+
+		myCaptureQueriesListener.clear();
+		mySystemDao.transaction(mySrd, input);
+
+		myCaptureQueriesListener.logSelectQueriesForCurrentThread();
+		assertEquals(2, myCaptureQueriesListener.countSelectQueriesForCurrentThread());
+
+		runInTransaction(() -> {
+			ResourceTable table = myResourceTableDao.findAll().stream().filter(t -> t.getResourceType().equals("ServiceRequest")).findFirst().orElseThrow();
+			assertEquals(10, table.getResourceLinks().stream().filter(t -> t.getTargetResourceType().equals("Practitioner")).count());
+		});
+	}
+
 	@Test
 	public void testTransactionWithMultiplePreExistingReferences_Numeric() {
 		myStorageSettings.setDeleteEnabled(true);
@@ -2248,7 +2288,7 @@ public class FhirResourceDaoR4QueryCountTest extends BaseResourceProviderR4Test
 		// Lookup the two existing IDs to make sure they are legit
 		myCaptureQueriesListener.logInsertQueriesForCurrentThread();
 		myCaptureQueriesListener.logUpdateQueriesForCurrentThread();
-		assertEquals(2, myCaptureQueriesListener.countSelectQueriesForCurrentThread());
+		assertEquals(1, myCaptureQueriesListener.countSelectQueriesForCurrentThread());
 		assertEquals(10, myCaptureQueriesListener.countInsertQueriesForCurrentThread());
 		assertEquals(0, myCaptureQueriesListener.countUpdateQueriesForCurrentThread());
 		assertEquals(0, myCaptureQueriesListener.countDeleteQueriesForCurrentThread());
@@ -2286,7 +2326,7 @@ public class FhirResourceDaoR4QueryCountTest extends BaseResourceProviderR4Test
 
 		// Lookup the two existing IDs to make sure they are legit
 		myCaptureQueriesListener.logSelectQueriesForCurrentThread();
-		assertEquals(2, myCaptureQueriesListener.countSelectQueriesForCurrentThread());
+		assertEquals(1, myCaptureQueriesListener.countSelectQueriesForCurrentThread());
 		assertEquals(10, myCaptureQueriesListener.countInsertQueriesForCurrentThread());
 		assertEquals(0, myCaptureQueriesListener.countUpdateQueriesForCurrentThread());
 		assertEquals(0, myCaptureQueriesListener.countDeleteQueriesForCurrentThread());
@@ -5,12 +5,15 @@ import ca.uhn.fhir.jpa.search.PersistedJpaSearchFirstPageBundleProvider;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
 import ca.uhn.fhir.jpa.test.BaseJpaR4Test;
 import ca.uhn.fhir.model.api.Include;
+import ca.uhn.fhir.model.api.ResourceMetadataKeyEnum;
+import ca.uhn.fhir.model.valueset.BundleEntrySearchModeEnum;
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
 import ca.uhn.fhir.rest.param.TokenParam;
 import ca.uhn.fhir.rest.server.SimpleBundleProvider;
 import org.hamcrest.Matcher;
 import org.hamcrest.Matchers;
 import org.hamcrest.collection.IsIterableContainingInAnyOrder;
+import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.r4.model.BodyStructure;
 import org.hl7.fhir.r4.model.CarePlan;
 import org.hl7.fhir.r4.model.Enumerations;
@@ -41,6 +44,7 @@ public class FhirResourceDaoR4SearchIncludeTest extends BaseJpaR4Test {
 	@AfterEach
 	public void afterEach() {
 		myStorageSettings.setMaximumIncludesToLoadPerPage(JpaStorageSettings.DEFAULT_MAXIMUM_INCLUDES_TO_LOAD_PER_PAGE);
+		myStorageSettings.setSearchResourceDecodeThreadCount(new JpaStorageSettings().getSearchResourceDecodeThreadCount());
 	}
 
 	@Test
@@ -231,6 +235,29 @@ public class FhirResourceDaoR4SearchIncludeTest extends BaseJpaR4Test {
 
 	}
 
+	@Test
+	public void testRevIncludesWithParallelDecode() {
+		createOrganizationWithReferencingEpisodesOfCare(10);
+
+		SearchParameterMap map = SearchParameterMap.newSynchronous()
+			.add("_id", new TokenParam("ORG-0"))
+			.addRevInclude(EpisodeOfCare.INCLUDE_ORGANIZATION);
+		List<IBaseResource> serialResources = myOrganizationDao.search(map, mySrd).getAllResources();
+
+		myStorageSettings.setSearchResourceDecodeThreadCount(4);
+		List<IBaseResource> parallelResources = myOrganizationDao.search(map, mySrd).getAllResources();
+
+		List<String> serialIds = toUnqualifiedVersionlessIdValues(serialResources);
+		List<String> parallelIds = toUnqualifiedVersionlessIdValues(parallelResources);
+		assertEquals(11, parallelIds.size());
+		assertEquals(serialIds, parallelIds);
+
+		for (IBaseResource next : parallelResources) {
+			BundleEntrySearchModeEnum expected = next instanceof Organization ? BundleEntrySearchModeEnum.MATCH : BundleEntrySearchModeEnum.INCLUDE;
+			assertEquals(expected, ResourceMetadataKeyEnum.ENTRY_SEARCH_MODE.get(next), next.getIdElement().getValue());
+		}
+	}
+
 	private void createOrganizationWithReferencingEpisodesOfCare(int theEocCount) {
 		Organization org = new Organization();
 		org.setId("Organization/ORG-P");
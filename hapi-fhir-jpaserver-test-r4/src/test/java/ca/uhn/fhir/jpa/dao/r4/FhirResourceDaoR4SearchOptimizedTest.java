@@ -105,6 +105,7 @@ public class FhirResourceDaoR4SearchOptimizedTest extends BaseJpaR4Test {
 		myStorageSettings.setSearchPreFetchThresholds(new JpaStorageSettings().getSearchPreFetchThresholds());
 		myCaptureQueriesListener.setCaptureQueryStackTrace(false);
 		myStorageSettings.setIndexMissingFields(new JpaStorageSettings().getIndexMissingFields());
+		myStorageSettings.setSearchResultPidsMaximumInMemory(new JpaStorageSettings().getSearchResultPidsMaximumInMemory());
 	}
 
 	private void create200Patients() {
@@ -563,6 +564,32 @@ public class FhirResourceDaoR4SearchOptimizedTest extends BaseJpaR4Test {
 	}
 
 
+	@Test
+	public void testFetchAllPagesWithResultPidsSpilledToDisk() {
+		create200Patients();
+
+		myStorageSettings.setSearchPreFetchThresholds(Arrays.asList(-1));
+		myStorageSettings.setSearchResultPidsMaximumInMemory(15);
+		mySearchCoordinatorSvcImpl.setSyncSizeForUnitTests(10);
+
+		SearchParameterMap params = new SearchParameterMap();
+		params.setSort(new SortSpec(Patient.SP_NAME));
+		IBundleProvider results = myPatientDao.search(params);
+		String uuid = results.getUuid();
+
+		// Crosses from the PIDs held on the heap into the ones written to disk
+		List<String> ids = toUnqualifiedVersionlessIdValues(results, 0, 50, true);
+		assertEquals("Patient/PT00000", ids.get(0));
+		assertEquals("Patient/PT00049", ids.get(49));
+
+		results = myDatabaseBackedPagingProvider.retrieveResultList(null, uuid);
+		ids = toUnqualifiedVersionlessIdValues(results, 50, 200, true);
+		assertEquals(150, ids.size());
+		for (int i = 0; i < ids.size(); i++) {
+			assertEquals("Patient/PT" + leftPad(Integer.toString(i + 50), 5, '0'), ids.get(i));
+		}
+	}
+
 	@Test
 	public void testFetchUnlimited() {
 		create200Patients();
@@ -1,7 +1,9 @@
 package ca.uhn.fhir.jpa.dao.r4;
 
 import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
 import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.model.cross.IResourceLookup;
 import ca.uhn.fhir.jpa.model.dao.JpaPid;
 import ca.uhn.fhir.jpa.model.entity.ResourceHistoryTable;
 import ca.uhn.fhir.jpa.model.entity.ResourceTable;
@@ -52,6 +54,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.eq;
@@ -93,6 +96,31 @@ public class FhirResourceDaoR4UpdateTest extends BaseJpaR4Test {
 	}
 
 
+	/**
+	 * A lookup which found that a client assigned ID didn't exist yet must not
+	 * survive the creation of that resource later in the same transaction
+	 */
+	@Test
+	public void testCreateWithClientAssignedId_EarlierLookupInSameTransactionIsDiscarded() {
+		runInTransaction(() -> {
+			try {
+				myIdHelperService.resolveResourceIdentity(RequestPartitionId.allPartitions(), "Patient", "A");
+				fail();
+			} catch (ResourceNotFoundException e) {
+				// good
+			}
+
+			Patient p = new Patient();
+			p.setId("Patient/A");
+			p.setActive(true);
+			myPatientDao.update(p, mySrd);
+
+			IResourceLookup<JpaPid> lookup = myIdHelperService.resolveResourceIdentity(RequestPartitionId.allPartitions(), "Patient", "A");
+			assertEquals("Patient", lookup.getResourceType());
+			assertNull(lookup.getDeleted());
+		});
+	}
+
 	@Test
 	public void testCreateAndUpdateWithoutRequest() {
 		String methodName = "testUpdateByUrl";
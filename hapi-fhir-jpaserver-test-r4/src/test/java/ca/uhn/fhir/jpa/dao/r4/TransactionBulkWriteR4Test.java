@@ -0,0 +1,167 @@
+package ca.uhn.fhir.jpa.dao.r4;
+
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.rest.server.exceptions.BaseServerResponseException;
+import ca.uhn.fhir.rest.server.exceptions.PreconditionFailedException;
+import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
+import org.hl7.fhir.instance.model.api.IIdType;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.IdType;
+import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.Patient;
+import org.hl7.fhir.r4.model.Reference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TransactionBulkWriteR4Test extends BaseJpaR4SystemTest {
+
+	@BeforeEach
+	public void beforeEnableBulkWrite() {
+		myStorageSettings.setAllowInlineMatchUrlReferences(true);
+	}
+
+	@AfterEach
+	public void after() {
+		myStorageSettings.setAllowInlineMatchUrlReferences(new JpaStorageSettings().isAllowInlineMatchUrlReferences());
+		myStorageSettings.setTransactionBulkWriteThreshold(new JpaStorageSettings().getTransactionBulkWriteThreshold());
+	}
+
+	@Test
+	public void testBulkWrite_ReferencesResolvedUpFront() {
+		createPatient(withId("A"), withActiveTrue());
+		createPatient(withId("B"), withActiveTrue());
+		Patient patientC = new Patient();
+		patientC.addIdentifier().setSystem("http://foo").setValue("C");
+		IIdType patientCId = myPatientDao.create(patientC, mySrd).getId().toUnqualifiedVersionless();
+
+		// Bulk mode disabled
+		myCaptureQueriesListener.clear();
+		Bundle outcome = mySystemDao.transaction(mySrd, createObservationBundle());
+		int selectCountWithoutBulkMode = myCaptureQueriesListener.countSelectQueriesForCurrentThread();
+		assertEquals(30, outcome.getEntry().size());
+
+		// Bulk mode enabled
+		myStorageSettings.setTransactionBulkWriteThreshold(10);
+		myCaptureQueriesListener.clear();
+		outcome = mySystemDao.transaction(mySrd, createObservationBundle());
+		int selectCountWithBulkMode = myCaptureQueriesListener.countSelectQueriesForCurrentThread();
+		assertEquals(30, outcome.getEntry().size());
+		assertThat(selectCountWithBulkMode, lessThan(selectCountWithoutBulkMode));
+
+		// Make sure the links are correct
+		for (int i = 0; i < 30; i++) {
+			Observation obs = myObservationDao.read(new IdType(outcome.getEntry().get(i).getResponse().getLocation()), mySrd);
+			assertEquals(i % 2 == 0 ? "Patient/A" : "Patient/B", obs.getSubject().getReference());
+			assertEquals(patientCId.getValue(), obs.getPerformerFirstRep().getReference());
+		}
+	}
+
+	@Test
+	public void testBulkWrite_ConditionalReferenceWithNoMatchIsRejected() {
+		myStorageSettings.setTransactionBulkWriteThreshold(2);
+
+		Bundle bundle = new Bundle();
+		bundle.setType(Bundle.BundleType.TRANSACTION);
+		for (int i = 0; i < 2; i++) {
+			Observation obs = new Observation();
+			obs.setSubject(new Reference("Patient?identifier=http://foo|MISSING"));
+			bundle.addEntry().setResource(obs).getRequest().setMethod(Bundle.HTTPVerb.POST).setUrl("Observation");
+		}
+
+		assertThrows(ResourceNotFoundException.class, () -> mySystemDao.transaction(mySrd, bundle));
+	}
+
+	@Test
+	public void testBulkWrite_ConditionalReferenceWithMultipleMatchesIsRejected() {
+		myStorageSettings.setTransactionBulkWriteThreshold(2);
+		for (int i = 0; i < 2; i++) {
+			Patient patient = new Patient();
+			patient.addIdentifier().setSystem("http://foo").setValue("DUPLICATE");
+			myPatientDao.create(patient, mySrd);
+		}
+
+		Bundle bundle = new Bundle();
+		bundle.setType(Bundle.BundleType.TRANSACTION);
+		for (int i = 0; i < 2; i++) {
+			Observation obs = new Observation();
+			obs.setSubject(new Reference("Patient?identifier=http://foo|DUPLICATE"));
+			bundle.addEntry().setResource(obs).getRequest().setMethod(Bundle.HTTPVerb.POST).setUrl("Observation");
+		}
+
+		assertThrows(PreconditionFailedException.class, () -> mySystemDao.transaction(mySrd, bundle));
+	}
+
+	@Test
+	public void testBulkWrite_ConditionalCreateWithMultipleMatchesIsRejected() {
+		myStorageSettings.setTransactionBulkWriteThreshold(2);
+		for (int i = 0; i < 2; i++) {
+			Patient patient = new Patient();
+			patient.addIdentifier().setSystem("http://foo").setValue("DUPLICATE");
+			myPatientDao.create(patient, mySrd);
+		}
+
+		Bundle bundle = new Bundle();
+		bundle.setType(Bundle.BundleType.TRANSACTION);
+		Patient patient = new Patient();
+		patient.addIdentifier().setSystem("http://foo").setValue("DUPLICATE");
+		bundle.addEntry().setResource(patient).getRequest().setMethod(Bundle.HTTPVerb.POST).setUrl("Patient").setIfNoneExist("Patient?identifier=http://foo|DUPLICATE");
+		Observation obs = new Observation();
+		obs.setStatus(Observation.ObservationStatus.FINAL);
+		bundle.addEntry().setResource(obs).getRequest().setMethod(Bundle.HTTPVerb.POST).setUrl("Observation");
+
+		assertThrows(PreconditionFailedException.class, () -> mySystemDao.transaction(mySrd, bundle));
+	}
+
+	@Test
+	public void testBulkWrite_ReferenceToDeletedResourceIsRejected() {
+		myStorageSettings.setTransactionBulkWriteThreshold(2);
+		IIdType patientId = createPatient(withId("A"), withActiveTrue());
+		myPatientDao.delete(patientId, mySrd);
+
+		Bundle bundle = new Bundle();
+		bundle.setType(Bundle.BundleType.TRANSACTION);
+		for (int i = 0; i < 2; i++) {
+			Observation obs = new Observation();
+			obs.setSubject(new Reference("Patient/A"));
+			bundle.addEntry().setResource(obs).getRequest().setMethod(Bundle.HTTPVerb.POST).setUrl("Observation");
+		}
+
+		assertThrows(BaseServerResponseException.class, () -> mySystemDao.transaction(mySrd, bundle));
+	}
+
+	@Test
+	public void testBulkWrite_ReferenceToWrongResourceTypeIsRejected() {
+		myStorageSettings.setTransactionBulkWriteThreshold(2);
+		IIdType patientId = createPatient(withActiveTrue());
+
+		Bundle bundle = new Bundle();
+		bundle.setType(Bundle.BundleType.TRANSACTION);
+		for (int i = 0; i < 2; i++) {
+			Observation obs = new Observation();
+			obs.addBasedOn(new Reference("ServiceRequest/" + patientId.getIdPart()));
+			bundle.addEntry().setResource(obs).getRequest().setMethod(Bundle.HTTPVerb.POST).setUrl("Observation");
+		}
+
+		assertThrows(BaseServerResponseException.class, () -> mySystemDao.transaction(mySrd, bundle));
+	}
+
+	private Bundle createObservationBundle() {
+		Bundle bundle = new Bundle();
+		bundle.setType(Bundle.BundleType.TRANSACTION);
+		for (int i = 0; i < 30; i++) {
+			Observation obs = new Observation();
+			obs.setStatus(Observation.ObservationStatus.FINAL);
+			obs.setSubject(new Reference(i % 2 == 0 ? "Patient/A" : "Patient/B"));
+			obs.addPerformer(new Reference("Patient?identifier=http://foo|C"));
+			bundle.addEntry().setResource(obs).getRequest().setMethod(Bundle.HTTPVerb.POST).setUrl("Observation");
+		}
+		return bundle;
+	}
+
+}
@@ -1,9 +1,11 @@
 package ca.uhn.fhir.jpa.provider.r4;
 
 import ca.uhn.fhir.jpa.dao.data.ISearchDao;
+import ca.uhn.fhir.jpa.dao.data.ISearchResultBlockDao;
 import ca.uhn.fhir.jpa.dao.data.ISearchResultDao;
 import ca.uhn.fhir.jpa.entity.Search;
 import ca.uhn.fhir.jpa.entity.SearchResult;
+import ca.uhn.fhir.jpa.entity.SearchResultBlock;
 import ca.uhn.fhir.jpa.entity.SearchTypeEnum;
 import ca.uhn.fhir.jpa.model.entity.ResourceTable;
 import ca.uhn.fhir.jpa.model.search.SearchStatusEnum;
@@ -41,6 +43,8 @@ public class StaleSearchDeletingSvcR4Test extends BaseResourceProviderR4Test {
 	private ISearchDao mySearchEntityDao;
 	@Autowired
 	private ISearchResultDao mySearchResultDao;
+	@Autowired
+	private ISearchResultBlockDao mySearchResultBlockDao;
 
 	@Override
 	@AfterEach()
@@ -144,6 +148,38 @@ public class StaleSearchDeletingSvcR4Test extends BaseResourceProviderR4Test {
 
 	}
 
+	@Test
+	public void testDeleteVeryLargeSearchStoredAsBlocks() {
+		DatabaseSearchCacheSvcImpl.setMaximumResultsToDeleteForUnitTest(10);
+		DatabaseSearchCacheSvcImpl.setMaximumResultsToDeleteInOnePassForUnitTest(10);
+
+		runInTransaction(() -> {
+			Search search = new Search();
+			search.setStatus(SearchStatusEnum.FINISHED);
+			search.setUuid(UUID.randomUUID().toString());
+			search.setCreated(DateUtils.addDays(new Date(), -10000));
+			search.setSearchType(SearchTypeEnum.SEARCH);
+			search.setResourceType("Patient");
+			search = mySearchEntityDao.save(search);
+
+			for (int i = 0; i < 15; i++) {
+				SearchResultBlock block = new SearchResultBlock(search);
+				block.setFirstOrder(i);
+				block.setPidCount(1);
+				block.setPidData(new byte[]{(byte) (i * 2)});
+				mySearchResultBlockDao.save(block);
+			}
+		});
+
+		// It should take two passes to delete the search fully
+		runInTransaction(() -> assertEquals(1, mySearchEntityDao.count()));
+		myStaleSearchDeletingSvc.pollForStaleSearchesAndDeleteThem();
+		runInTransaction(() -> assertEquals(1, mySearchEntityDao.count()));
+		myStaleSearchDeletingSvc.pollForStaleSearchesAndDeleteThem();
+		runInTransaction(() -> assertEquals(0, mySearchEntityDao.count()));
+		runInTransaction(() -> assertEquals(0, mySearchResultBlockDao.count()));
+	}
+
 	@Test
 	public void testDeleteVerySmallSearch() {
 		DatabaseSearchCacheSvcImpl.setMaximumResultsToDeleteForUnitTest(10);
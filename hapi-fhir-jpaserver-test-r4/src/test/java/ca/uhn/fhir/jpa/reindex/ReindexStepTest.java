@@ -4,8 +4,11 @@ import ca.uhn.fhir.batch2.api.IJobDataSink;
 import ca.uhn.fhir.batch2.api.RunOutcome;
 import ca.uhn.fhir.batch2.api.VoidModel;
 import ca.uhn.fhir.batch2.jobs.chunk.ResourceIdListWorkChunkJson;
+import ca.uhn.fhir.batch2.jobs.reindex.ReindexJobParameters;
 import ca.uhn.fhir.batch2.jobs.reindex.ReindexStep;
 import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.model.entity.ResourceEncodingEnum;
+import ca.uhn.fhir.jpa.model.entity.ResourceHistoryTable;
 import ca.uhn.fhir.jpa.model.entity.ResourceTable;
 import ca.uhn.fhir.jpa.test.BaseJpaR4Test;
 import org.hl7.fhir.instance.model.api.IIdType;
@@ -20,6 +23,8 @@ import org.mockito.Captor;
 import org.mockito.Mock;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.List;
+
 import static ca.uhn.fhir.jpa.dao.BaseHapiFhirDao.INDEX_STATUS_INDEXED;
 import static ca.uhn.fhir.jpa.dao.BaseHapiFhirDao.INDEX_STATUS_INDEXING_FAILED;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -40,6 +45,46 @@ public class ReindexStepTest extends BaseJpaR4Test {
 	@AfterEach
 	public void after() {
 		myStorageSettings.setIndexMissingFields(new JpaStorageSettings().getIndexMissingFields());
+		myStorageSettings.setResourceEncoding(new JpaStorageSettings().getResourceEncoding());
+	}
+
+	@Test
+	public void testReindex_OptimizeStorage() {
+
+		// Setup
+
+		myStorageSettings.setResourceEncoding(ResourceEncodingEnum.JSONC);
+		IIdType id = createPatient(withActiveTrue(), withFamily("SIMPSON"));
+		Patient patient = new Patient();
+		patient.setId(id.toUnqualifiedVersionless());
+		patient.setActive(false);
+		patient.addName().setFamily("SIMPSON");
+		myPatientDao.update(patient, mySrd);
+
+		myStorageSettings.setResourceEncoding(ResourceEncodingEnum.JSOND);
+
+		ResourceIdListWorkChunkJson data = new ResourceIdListWorkChunkJson();
+		data.addTypedPid("Patient", id.getIdPartAsLong());
+
+		// Execute
+
+		RunOutcome outcome = myReindexStep.doReindex(data, myDataSink, "index-id", "chunk-id", new ReindexJobParameters().setOptimizeStorage(true));
+
+		// Verify
+		assertEquals(1, outcome.getRecordsProcessed());
+		runInTransaction(() -> {
+			List<ResourceHistoryTable> versions = myResourceHistoryTableDao.findAllVersionsForResourceIdInOrder(id.getIdPartAsLong());
+			assertEquals(2, versions.size());
+			for (ResourceHistoryTable next : versions) {
+				assertEquals(ResourceEncodingEnum.JSOND, next.getEncoding());
+			}
+		});
+		assertEquals(true, myPatientDao.read(id.withVersion("1"), mySrd).getActive());
+		assertEquals(false, myPatientDao.read(id.toUnqualifiedVersionless(), mySrd).getActive());
+
+		// An update with no changes should still be detected as a no-op
+		Patient unchanged = myPatientDao.read(id.toUnqualifiedVersionless(), mySrd);
+		assertEquals("2", myPatientDao.update(unchanged, mySrd).getId().getVersionIdPart());
 	}
 
 	@Test
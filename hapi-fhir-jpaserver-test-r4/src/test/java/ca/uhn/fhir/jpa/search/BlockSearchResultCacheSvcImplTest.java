@@ -0,0 +1,102 @@
+package ca.uhn.fhir.jpa.search;
+
+import ca.uhn.fhir.jpa.dao.data.ISearchDao;
+import ca.uhn.fhir.jpa.dao.data.ISearchResultBlockDao;
+import ca.uhn.fhir.jpa.dao.data.ISearchResultDao;
+import ca.uhn.fhir.jpa.entity.Search;
+import ca.uhn.fhir.jpa.entity.SearchResult;
+import ca.uhn.fhir.jpa.entity.SearchTypeEnum;
+import ca.uhn.fhir.jpa.model.dao.JpaPid;
+import ca.uhn.fhir.jpa.model.search.SearchStatusEnum;
+import ca.uhn.fhir.jpa.search.cache.BlockSearchResultCacheSvcImpl;
+import ca.uhn.fhir.jpa.search.cache.ISearchResultCacheSvc;
+import ca.uhn.fhir.jpa.test.BaseJpaR4Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.AopTestUtils;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class BlockSearchResultCacheSvcImplTest extends BaseJpaR4Test {
+
+	@Autowired
+	private ISearchDao mySearchEntityDao;
+	@Autowired
+	private ISearchResultDao mySearchResultDao;
+	@Autowired
+	private ISearchResultBlockDao mySearchResultBlockDao;
+	private ISearchResultCacheSvc mySvc;
+
+	@BeforeEach
+	public void beforeCreateSvc() {
+		mySvc = (ISearchResultCacheSvc) myAppCtx.getAutowireCapableBeanFactory().createBean(BlockSearchResultCacheSvcImpl.class);
+		BlockSearchResultCacheSvcImpl svc = AopTestUtils.getTargetObject(mySvc);
+		svc.setBlockSizeForUnitTest(10);
+	}
+
+	@Test
+	public void testStoreAndFetch() {
+		Search search = createSearch();
+
+		// Results are stored in several passes, as they are by the search coordinator
+		List<JpaPid> allPids = new ArrayList<>();
+		for (int pass = 0; pass < 3; pass++) {
+			List<JpaPid> newPids = pids(pass * 15L, pass * 15L + 15);
+			List<JpaPid> previousPids = new ArrayList<>(allPids);
+			mySvc.storeResults(search, previousPids, newPids);
+			allPids.addAll(newPids);
+		}
+
+		runInTransaction(() -> assertEquals(6, mySearchResultBlockDao.count()));
+		runInTransaction(() -> assertEquals(0, mySearchResultDao.count()));
+
+		assertEquals(allPids, mySvc.fetchAllResultPids(search));
+		assertEquals(pids(0, 10), mySvc.fetchResultPids(search, 0, 10));
+		assertEquals(pids(8, 33), mySvc.fetchResultPids(search, 8, 33));
+		assertEquals(pids(40, 45), mySvc.fetchResultPids(search, 40, 100));
+		assertEquals(0, mySvc.fetchResultPids(search, 45, 50).size());
+	}
+
+	@Test
+	public void testFetchResultsStoredAsRows() {
+		Search search = createSearch();
+		runInTransaction(() -> {
+			for (int i = 0; i < 5; i++) {
+				SearchResult result = new SearchResult(search);
+				result.setOrder(i);
+				result.setResourcePid((long) i);
+				mySearchResultDao.save(result);
+			}
+		});
+
+		assertEquals(pids(0, 5), mySvc.fetchAllResultPids(search));
+		assertEquals(pids(1, 3), mySvc.fetchResultPids(search, 1, 3));
+	}
+
+	private Search createSearch() {
+		return runInTransaction(() -> {
+			Search search = new Search();
+			search.setStatus(SearchStatusEnum.FINISHED);
+			search.setUuid(UUID.randomUUID().toString());
+			search.setCreated(new Date());
+			search.setSearchType(SearchTypeEnum.SEARCH);
+			search.setResourceType("Patient");
+			return mySearchEntityDao.save(search);
+		});
+	}
+
+	private static List<JpaPid> pids(long theFrom, long theTo) {
+		List<JpaPid> retVal = new ArrayList<>();
+		for (long i = theFrom; i < theTo; i++) {
+			retVal.add(JpaPid.fromId(i));
+		}
+		return retVal;
+	}
+
+}
@@ -185,6 +185,7 @@ public class GiantTransactionPerfTest {
 		myTransactionProcessor.setEntityManagerForUnitTest(myEntityManager);
 		myTransactionProcessor.setVersionAdapter(new TransactionProcessorVersionAdapterR4());
 		myTransactionProcessor.setStorageSettings(myStorageSettings);
+		myTransactionProcessor.setStorageSettingsForUnitTest(myStorageSettings);
 		myTransactionProcessor.setHapiTransactionService(myHapiTransactionService);
 		myTransactionProcessor.setDaoRegistry(myDaoRegistry);
 		myTransactionProcessor.setPartitionSettingsForUnitTest(this.myPartitionSettings);
@@ -0,0 +1,134 @@
+package ca.uhn.fhir.jpa.subscription.module.matcher;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.jpa.searchparam.MatchUrlService;
+import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryResourceMatcher;
+import ca.uhn.fhir.jpa.searchparam.matcher.IndexedSearchParamExtractor;
+import ca.uhn.fhir.jpa.searchparam.matcher.SearchParamMatcher;
+import ca.uhn.fhir.jpa.subscription.match.matcher.matching.SubscriptionCandidateIndex;
+import ca.uhn.fhir.jpa.subscription.match.matcher.matching.SubscriptionMatchingContext;
+import ca.uhn.fhir.jpa.subscription.match.matcher.subscriber.SubscriptionCriteriaParser;
+import ca.uhn.fhir.jpa.subscription.match.registry.ActiveSubscription;
+import ca.uhn.fhir.jpa.subscription.model.CanonicalSubscription;
+import ca.uhn.fhir.jpa.test.config.TestHSearchAddInConfig;
+import ca.uhn.fhir.jpa.test.config.TestR4Config;
+import ca.uhn.fhir.rest.server.util.ISearchParamRegistry;
+import org.hl7.fhir.r4.model.IdType;
+import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.Quantity;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = {TestR4Config.class, TestHSearchAddInConfig.NoFT.class})
+public class SubscriptionCandidateIndexR4Test {
+
+	@Autowired
+	FhirContext myFhirContext;
+	@Autowired
+	MatchUrlService myMatchUrlService;
+	@Autowired
+	ISearchParamRegistry mySearchParamRegistry;
+	@Autowired
+	InMemoryResourceMatcher myInMemoryResourceMatcher;
+	@Autowired
+	IndexedSearchParamExtractor myIndexedSearchParamExtractor;
+	@Autowired
+	SearchParamMatcher mySearchParamMatcher;
+
+	@Test
+	public void testCandidatesArePruned() {
+		List<ActiveSubscription> subscriptions = new ArrayList<>();
+		subscriptions.add(newSubscription("code-match", "Observation?code=http://loinc.org|1234-5"));
+		subscriptions.add(newSubscription("code-case", "Observation?code=1234-5,ABC"));
+		subscriptions.add(newSubscription("code-other", "Observation?code=http://loinc.org|9999-9"));
+		subscriptions.add(newSubscription("status-other", "Observation?status=final&code=1234-5"));
+		subscriptions.add(newSubscription("subject-match", "Observation?subject=Patient/123"));
+		subscriptions.add(newSubscription("patient-match", "Observation?patient=Patient/123"));
+		subscriptions.add(newSubscription("subject-other", "Observation?subject=Patient/456"));
+		subscriptions.add(newSubscription("code-not", "Observation?code:not=9999-9"));
+		subscriptions.add(newSubscription("quantity", "Observation?value-quantity=gt5"));
+		subscriptions.add(newSubscription("star", "[*]"));
+		subscriptions.add(newSubscription("patient", "Patient?birthdate=gt2000"));
+
+		Observation obs = new Observation();
+		obs.setId("Observation/OBS");
+		obs.setStatus(Observation.ObservationStatus.AMENDED);
+		obs.getCode().addCoding().setSystem("http://loinc.org").setCode("1234-5");
+		obs.getCode().addCoding().setSystem("http://foo").setCode("abc");
+		obs.getSubject().setReference("Patient/123");
+		obs.setValue(new Quantity(10));
+
+		SubscriptionCandidateIndex index = new SubscriptionCandidateIndex(myFhirContext, myMatchUrlService, mySearchParamRegistry, myInMemoryResourceMatcher, subscriptions);
+		assertTrue(index.isCurrent());
+		assertTrue(index.hasIndexedCandidates("Observation"));
+		assertFalse(index.hasIndexedCandidates("Patient"));
+
+		SubscriptionMatchingContext context = new SubscriptionMatchingContext(myFhirContext, myIndexedSearchParamExtractor, obs);
+		List<SubscriptionCandidateIndex.Candidate> candidates = index.getCandidates("Observation", context.getIndexedSearchParams());
+		List<String> candidateIds = candidates.stream().map(t -> t.getActiveSubscription().getId()).collect(Collectors.toList());
+		assertThat(candidateIds, containsInAnyOrder("code-match", "code-case", "status-other", "subject-match", "patient-match", "code-not", "quantity", "star"));
+
+		// Every subscription which matches the resource must be a candidate
+		for (ActiveSubscription next : subscriptions) {
+			if (next.getCriteria().getType() == SubscriptionCriteriaParser.TypeEnum.SEARCH_EXPRESSION && next.getCriteria().getApplicableResourceTypes().contains("Observation")) {
+				boolean matched = mySearchParamMatcher.match(next.getCriteria().getCriteria(), obs, null).matched();
+				assertTrue(!matched || candidateIds.contains(next.getId()), next.getId());
+			}
+		}
+
+		// Without the indexes, nothing is pruned
+		assertEquals(10, index.getCandidates("Observation", null).size());
+		assertEquals(1, index.getCandidates("Encounter", null).size());
+	}
+
+	@Test
+	public void testOnlyMatchingCodeIsCandidate() {
+		List<ActiveSubscription> subscriptions = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			subscriptions.add(newSubscription("S" + i, "Observation?code=http://loinc.org|CODE-" + i));
+		}
+		SubscriptionCandidateIndex index = new SubscriptionCandidateIndex(myFhirContext, myMatchUrlService, mySearchParamRegistry, myInMemoryResourceMatcher, subscriptions);
+
+		Observation obs = new Observation();
+		obs.setId("Observation/OBS");
+		obs.getCode().addCoding().setSystem("http://loinc.org").setCode("CODE-50");
+
+		Set<String> matchedWithoutIndex = new TreeSet<>();
+		for (ActiveSubscription next : subscriptions) {
+			if (mySearchParamMatcher.match(next.getCriteria().getCriteria(), obs, null).matched()) {
+				matchedWithoutIndex.add(next.getId());
+			}
+		}
+
+		SubscriptionMatchingContext context = new SubscriptionMatchingContext(myFhirContext, myIndexedSearchParamExtractor, obs);
+		List<SubscriptionCandidateIndex.Candidate> candidates = index.getCandidates("Observation", context.getIndexedSearchParams());
+		List<String> candidateIds = candidates.stream().map(t -> t.getActiveSubscription().getId()).collect(Collectors.toList());
+
+		assertEquals(Set.of("S50"), matchedWithoutIndex);
+		assertEquals(List.of("S50"), candidateIds);
+	}
+
+	private static ActiveSubscription newSubscription(String theId, String theCriteria) {
+		CanonicalSubscription subscription = new CanonicalSubscription();
+		subscription.setIdElement(new IdType("Subscription", theId));
+		subscription.setCriteriaString(theCriteria);
+		return new ActiveSubscription(subscription, "channel");
+	}
+
+}
@@ -4,6 +4,7 @@ import ca.uhn.fhir.context.support.IValidationSupport;
 import ca.uhn.fhir.context.support.ValidationSupportContext;
 import ca.uhn.fhir.i18n.Msg;
 import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.dao.data.ITermConceptClosureDao;
 import ca.uhn.fhir.jpa.entity.TermConcept;
 import ca.uhn.fhir.jpa.entity.TermConceptParentChildLink;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
@@ -18,7 +19,9 @@ import org.hl7.fhir.r4.model.CodeType;
 import org.hl7.fhir.r4.model.Coding;
 import org.hl7.fhir.r4.model.Parameters;
 import org.hl7.fhir.r4.model.StringType;
+import org.hl7.fhir.r4.model.UriType;
 import org.hl7.fhir.r4.model.ValueSet;
+import org.hl7.fhir.r4.model.codesystems.ConceptSubsumptionOutcome;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
@@ -38,10 +41,13 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.matchesPattern;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 public class TerminologySvcDeltaR4Test extends BaseJpaR4Test {
 	private static final Logger ourLog = LoggerFactory.getLogger(TerminologySvcDeltaR4Test.class);
+	@Autowired
+	private ITermConceptClosureDao myConceptClosureDao;
 
 	@AfterEach
 	public void after() {
@@ -584,6 +590,64 @@ public class TerminologySvcDeltaR4Test extends BaseJpaR4Test {
 	}
 
 
+	@Test
+	public void testAddAndRemoveWithHierarchyClosure() {
+		CodeSystem cs = new CodeSystem();
+		cs.setUrl("http://foo/cs");
+		cs.setContent(CodeSystem.CodeSystemContentMode.NOTPRESENT);
+		myCodeSystemDao.create(cs);
+
+		CustomTerminologySet delta = new CustomTerminologySet();
+		TermConcept codeA = delta.addRootConcept("codeA", "displayA");
+		TermConcept codeAA = codeA
+			.addChild(TermConceptParentChildLink.RelationshipTypeEnum.ISA)
+			.setCode("codeAA")
+			.setDisplay("displayAA");
+		codeAA
+			.addChild(TermConceptParentChildLink.RelationshipTypeEnum.ISA)
+			.setCode("codeAAA")
+			.setDisplay("displayAAA");
+		myTermCodeSystemStorageSvc.applyDeltaCodeSystemsAdd("http://foo/cs", delta);
+		myTermDeferredStorageSvc.saveAllDeferred();
+
+		runInTransaction(() -> {
+			assertTrue(myTermCodeSystemDao.findByCodeSystemUri("http://foo/cs").getCurrentVersion().isHierarchyClosureBuilt());
+			assertEquals(3, myConceptClosureDao.count());
+		});
+		assertEquals(ConceptSubsumptionOutcome.SUBSUMES, subsumes("codeA", "codeAAA"));
+
+		// Adding a concept invalidates the closure until it has been rebuilt
+		delta = new CustomTerminologySet();
+		delta.addRootConcept("codeAA", "displayAA")
+			.addChild(TermConceptParentChildLink.RelationshipTypeEnum.ISA)
+			.setCode("codeAAB")
+			.setDisplay("displayAAB");
+		myTermCodeSystemStorageSvc.applyDeltaCodeSystemsAdd("http://foo/cs", delta);
+		runInTransaction(() -> assertFalse(myTermCodeSystemDao.findByCodeSystemUri("http://foo/cs").getCurrentVersion().isHierarchyClosureBuilt()));
+		assertEquals(ConceptSubsumptionOutcome.SUBSUMES, subsumes("codeA", "codeAAB"));
+
+		myTermDeferredStorageSvc.saveAllDeferred();
+		runInTransaction(() -> {
+			assertTrue(myTermCodeSystemDao.findByCodeSystemUri("http://foo/cs").getCurrentVersion().isHierarchyClosureBuilt());
+			assertEquals(5, myConceptClosureDao.count());
+		});
+		assertEquals(ConceptSubsumptionOutcome.SUBSUMES, subsumes("codeA", "codeAAB"));
+
+		// Removing a concept removes its rows but leaves the closure usable
+		delta = new CustomTerminologySet();
+		delta.addRootConcept("codeAAA");
+		myTermCodeSystemStorageSvc.applyDeltaCodeSystemsRemove("http://foo/cs", delta);
+		runInTransaction(() -> {
+			assertTrue(myTermCodeSystemDao.findByCodeSystemUri("http://foo/cs").getCurrentVersion().isHierarchyClosureBuilt());
+			assertEquals(3, myConceptClosureDao.count());
+		});
+		assertEquals(ConceptSubsumptionOutcome.SUBSUMEDBY, subsumes("codeAAB", "codeA"));
+	}
+
+	private ConceptSubsumptionOutcome subsumes(String theCodeA, String theCodeB) {
+		return myTermSvc.subsumes(new CodeType(theCodeA), new CodeType(theCodeB), new UriType("http://foo/cs"), null, null).getOutcome();
+	}
+
 	@Test
 	public void testRemove_UnknownSystem() {
 
@@ -5,24 +5,30 @@ import ca.uhn.fhir.context.support.IValidationSupport;
 import ca.uhn.fhir.context.support.ValidationSupportContext;
 import ca.uhn.fhir.i18n.Msg;
 import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.dao.data.ITermConceptClosureDao;
 import ca.uhn.fhir.jpa.entity.TermCodeSystem;
 import ca.uhn.fhir.jpa.entity.TermCodeSystemVersion;
 import ca.uhn.fhir.jpa.entity.TermConcept;
+import ca.uhn.fhir.jpa.entity.TermConceptClosure;
 import ca.uhn.fhir.jpa.entity.TermValueSet;
 import ca.uhn.fhir.jpa.test.Batch2JobHelper;
 import ca.uhn.fhir.rest.server.exceptions.UnprocessableEntityException;
 import org.hl7.fhir.instance.model.api.IIdType;
 import org.hl7.fhir.r4.model.CodeSystem;
+import org.hl7.fhir.r4.model.CodeType;
 import org.hl7.fhir.r4.model.CodeableConcept;
 import org.hl7.fhir.r4.model.Coding;
 import org.hl7.fhir.r4.model.ConceptMap;
+import org.hl7.fhir.r4.model.UriType;
 import org.hl7.fhir.r4.model.ValueSet;
+import org.hl7.fhir.r4.model.codesystems.ConceptSubsumptionOutcome;
 import org.hl7.fhir.r4.model.codesystems.HttpVerb;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.AopTestUtils;
 import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.support.TransactionCallbackWithoutResult;
 import org.springframework.transaction.support.TransactionTemplate;
@@ -50,6 +56,8 @@ public class TerminologySvcImplR4Test extends BaseTermR4Test {
 
 	@Autowired
 	private Batch2JobHelper myBatch2JobHelper;
+	@Autowired
+	private ITermConceptClosureDao myConceptClosureDao;
 
 	ConceptValidationOptions optsNoGuess = new ConceptValidationOptions();
 	ConceptValidationOptions optsGuess = new ConceptValidationOptions().setInferSystem(true);
@@ -406,6 +414,127 @@ public class TerminologySvcImplR4Test extends BaseTermR4Test {
 		});
 	}
 
+	@Test
+	public void testHierarchyClosure() {
+		IIdType id = createCodeSystem();
+
+		myTerminologyDeferredStorageSvc.saveAllDeferred();
+
+		Long csvPid = runInTransaction(() -> {
+			TermCodeSystemVersion csv = myTermCodeSystemDao.findByCodeSystemUri(CS_URL).getCurrentVersion();
+			assertTrue(csv.isHierarchyClosureBuilt());
+			// childAA, childAB, childAAA (2 ancestors), childAAB (2 ancestors)
+			assertEquals(6, myConceptClosureDao.count());
+			return csv.getPid();
+		});
+
+		Set<TermConcept> codes = myTermSvc.findCodesBelow(id.getIdPartAsLong(), csvPid, "ParentA");
+		assertThat(toCodes(codes), containsInAnyOrder("ParentA", "childAA", "childAAA", "childAAB", "childAB"));
+		codes = myTermSvc.findCodesBelow(id.getIdPartAsLong(), csvPid, "childAB");
+		assertThat(toCodes(codes), containsInAnyOrder("childAB"));
+		codes = myTermSvc.findCodesAbove(id.getIdPartAsLong(), csvPid, "childAAA");
+		assertThat(toCodes(codes), containsInAnyOrder("childAAA", "childAA", "ParentA"));
+
+		assertEquals(ConceptSubsumptionOutcome.SUBSUMES, subsumes("ParentA", "childAAB"));
+		assertEquals(ConceptSubsumptionOutcome.SUBSUMEDBY, subsumes("childAAB", "ParentA"));
+		assertEquals(ConceptSubsumptionOutcome.NOTSUBSUMED, subsumes("ParentB", "childAA"));
+		assertEquals(ConceptSubsumptionOutcome.NOTSUBSUMED, subsumes("childAB", "childAAA"));
+	}
+
+	/**
+	 * A build which was still queued when the server stopped (or a code system stored before
+	 * the closure existed) is picked up from the flag on the code system version
+	 */
+	@Test
+	public void testHierarchyClosureBackfill() {
+		createCodeSystem();
+		myTerminologyDeferredStorageSvc.saveAllDeferred();
+
+		Long csvPid = runInTransaction(() -> {
+			TermCodeSystemVersion csv = myTermCodeSystemDao.findByCodeSystemUri(CS_URL).getCurrentVersion();
+			csv.setHierarchyClosureBuilt(false);
+			myTermCodeSystemVersionDao.save(csv);
+			myConceptClosureDao.deleteAll();
+			return csv.getPid();
+		});
+		AopTestUtils.<TermDeferredStorageSvcImpl>getTargetObject(myTerminologyDeferredStorageSvc).clearDeferred();
+
+		myTerminologyDeferredStorageSvc.saveAllDeferred();
+		runInTransaction(() -> assertFalse(myTermCodeSystemVersionDao.findById(csvPid).orElseThrow().isHierarchyClosureBuilt()));
+
+		myTerminologyDeferredStorageSvc.addUnbuiltHierarchyClosuresToStorageQueue();
+		myTerminologyDeferredStorageSvc.saveAllDeferred();
+
+		runInTransaction(() -> {
+			assertTrue(myTermCodeSystemVersionDao.findById(csvPid).orElseThrow().isHierarchyClosureBuilt());
+			assertEquals(6, myConceptClosureDao.count());
+		});
+	}
+
+	/**
+	 * Two servers building the closure for the same version at once: only the build which
+	 * started last writes any rows
+	 */
+	@Test
+	public void testHierarchyClosureInterleavedBuilds() {
+		createCodeSystem();
+		myTerminologyDeferredStorageSvc.saveAllDeferred();
+		Long csvPid = runInTransaction(() -> myTermCodeSystemDao.findByCodeSystemUri(CS_URL).getCurrentVersion().getPid());
+
+		TermDeferredStorageSvcImpl svcA = AopTestUtils.getTargetObject(myTerminologyDeferredStorageSvc);
+		TermDeferredStorageSvcImpl svcB = new TermDeferredStorageSvcImpl();
+		myAppCtx.getAutowireCapableBeanFactory().autowireBean(svcB);
+		svcA.addHierarchyClosureToStorageQueue(csvPid);
+		svcB.addHierarchyClosureToStorageQueue(csvPid);
+
+		// Both start, so B takes the version over from A and A's next chunk writes nothing
+		svcA.saveDeferredHierarchyClosure();
+		svcB.saveDeferredHierarchyClosure();
+		svcA.saveDeferredHierarchyClosure();
+		runInTransaction(() -> {
+			assertFalse(myTermCodeSystemVersionDao.findById(csvPid).orElseThrow().isHierarchyClosureBuilt());
+			assertEquals(0, myConceptClosureDao.count());
+		});
+
+		svcB.saveDeferredHierarchyClosure();
+		runInTransaction(() -> {
+			TermCodeSystemVersion csv = myTermCodeSystemVersionDao.findById(csvPid).orElseThrow();
+			assertTrue(csv.isHierarchyClosureBuilt());
+			assertNull(csv.getHierarchyClosureBuildId());
+			assertEquals(6, myConceptClosureDao.count());
+		});
+	}
+
+	/**
+	 * A build which fails partway through is queued again
+	 */
+	@Test
+	public void testHierarchyClosureFailedChunkIsRetried() {
+		createCodeSystem();
+		myTerminologyDeferredStorageSvc.saveAllDeferred();
+		Long csvPid = runInTransaction(() -> myTermCodeSystemDao.findByCodeSystemUri(CS_URL).getCurrentVersion().getPid());
+		TermConceptClosure existing = runInTransaction(() -> myConceptClosureDao.findAll().get(0));
+
+		TermDeferredStorageSvcImpl svc = AopTestUtils.getTargetObject(myTerminologyDeferredStorageSvc);
+		svc.addHierarchyClosureToStorageQueue(csvPid);
+		svc.saveDeferredHierarchyClosure();
+
+		// Make the chunk fail by adding a row which the chunk also writes
+		runInTransaction(() -> myConceptClosureDao.save(new TermConceptClosure(csvPid, existing.getAncestorPid(), existing.getDescendantPid())));
+		svc.saveDeferredHierarchyClosure();
+		runInTransaction(() -> assertFalse(myTermCodeSystemVersionDao.findById(csvPid).orElseThrow().isHierarchyClosureBuilt()));
+
+		myTerminologyDeferredStorageSvc.saveAllDeferred();
+		runInTransaction(() -> {
+			assertTrue(myTermCodeSystemVersionDao.findById(csvPid).orElseThrow().isHierarchyClosureBuilt());
+			assertEquals(6, myConceptClosureDao.count());
+		});
+	}
+
+	private ConceptSubsumptionOutcome subsumes(String theCodeA, String theCodeB) {
+		return myTermSvc.subsumes(new CodeType(theCodeA), new CodeType(theCodeB), new UriType(CS_URL), null, null).getOutcome();
+	}
+
 	@Test
 	public void testUpdateCodeSystemUrlAndVersion() {
 		// create code system
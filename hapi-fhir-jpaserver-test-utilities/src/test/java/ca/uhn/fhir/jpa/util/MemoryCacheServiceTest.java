@@ -12,6 +12,9 @@ import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -25,8 +28,12 @@ import java.util.concurrent.TimeoutException;
 import java.util.function.Predicate;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.awaitility.Awaitility.await;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
@@ -60,6 +67,110 @@ class MemoryCacheServiceTest {
 		assertThat(retVal, equalTo(tagDef));
 	}
 
+	@Test
+	public void testMetrics() {
+		MemoryCacheService.CacheEnum cache = MemoryCacheService.CacheEnum.MATCH_URL;
+
+		assertThat(mySvc.getIfPresent(cache, "Patient?identifier=a"), nullValue());
+		mySvc.put(cache, "Patient?identifier=a", 1L);
+		assertThat(mySvc.getIfPresent(cache, "Patient?identifier=a"), equalTo(1L));
+		assertThat(mySvc.get(cache, "Patient?identifier=b", k -> 2L), equalTo(2L));
+		assertThat(mySvc.get(cache, "Patient?identifier=b", k -> 3L), equalTo(2L));
+
+		MemoryCacheService.CacheMetrics metrics = mySvc.getMetrics(cache);
+		assertEquals(2, metrics.getHitCount());
+		assertEquals(2, metrics.getMissCount());
+		assertEquals(0, metrics.getRemoteHitCount());
+	}
+
+	@Test
+	public void testPerCacheSizeOverride() {
+		JpaStorageSettings storageSettings = new JpaStorageSettings();
+		storageSettings.setMemoryCacheMaximumSize(MemoryCacheService.CacheEnum.MATCH_URL, 10);
+		storageSettings.setMemoryCacheExpireAfterWriteMillis(MemoryCacheService.CacheEnum.MATCH_URL, TimeUnit.HOURS.toMillis(1));
+		mySvc = new MemoryCacheService(storageSettings);
+
+		for (long i = 0; i < 100; i++) {
+			mySvc.put(MemoryCacheService.CacheEnum.MATCH_URL, "Patient?identifier=" + i, i);
+			mySvc.put(MemoryCacheService.CacheEnum.FORCED_ID_TO_PID, "Patient/" + i, i);
+		}
+
+		await().until(() -> mySvc.getMetrics(MemoryCacheService.CacheEnum.MATCH_URL).getEvictionCount(), greaterThanOrEqualTo(90L));
+		assertThat(mySvc.getEstimatedSize(MemoryCacheService.CacheEnum.MATCH_URL), lessThanOrEqualTo(10L));
+		assertEquals(100, mySvc.getEstimatedSize(MemoryCacheService.CacheEnum.FORCED_ID_TO_PID));
+		assertEquals(0, mySvc.getMetrics(MemoryCacheService.CacheEnum.FORCED_ID_TO_PID).getEvictionCount());
+	}
+
+	@Test
+	public void testDistributedCacheBackend() {
+		LocalDistributedCacheBackend backend = new LocalDistributedCacheBackend(MemoryCacheService.CacheEnum.FORCED_ID_TO_PID);
+		MemoryCacheService node1 = new MemoryCacheService(new JpaStorageSettings());
+		MemoryCacheService node2 = new MemoryCacheService(new JpaStorageSettings());
+		node1.setDistributedCacheBackend(backend);
+		node2.setDistributedCacheBackend(backend);
+
+		// Values resolved by one node are visible to the other
+		node1.putAfterCommit(MemoryCacheService.CacheEnum.FORCED_ID_TO_PID, "Patient/A", 1L);
+		assertThat(node2.getIfPresent(MemoryCacheService.CacheEnum.FORCED_ID_TO_PID, "Patient/A"), equalTo(1L));
+		assertThat(node2.getIfPresent(MemoryCacheService.CacheEnum.FORCED_ID_TO_PID, "Patient/A"), equalTo(1L));
+		assertEquals(1, node2.getMetrics(MemoryCacheService.CacheEnum.FORCED_ID_TO_PID).getRemoteHitCount());
+		assertEquals(1, node2.getMetrics(MemoryCacheService.CacheEnum.FORCED_ID_TO_PID).getHitCount());
+
+		// A change on one node invalidates the near cache on the other
+		node1.putAfterCommit(MemoryCacheService.CacheEnum.FORCED_ID_TO_PID, "Patient/A", 2L);
+		assertThat(node2.getIfPresent(MemoryCacheService.CacheEnum.FORCED_ID_TO_PID, "Patient/A"), equalTo(2L));
+
+		// Values computed by a supplier or put directly stay local
+		assertThat(node2.get(MemoryCacheService.CacheEnum.FORCED_ID_TO_PID, "Patient/B", k -> 3L), equalTo(3L));
+		assertThat(node1.get(MemoryCacheService.CacheEnum.FORCED_ID_TO_PID, "Patient/B", k -> 4L), equalTo(4L));
+		node1.put(MemoryCacheService.CacheEnum.FORCED_ID_TO_PID, "Patient/C", 5L);
+		assertThat(node2.getIfPresent(MemoryCacheService.CacheEnum.FORCED_ID_TO_PID, "Patient/C"), nullValue());
+		assertEquals(1, backend.size(MemoryCacheService.CacheEnum.FORCED_ID_TO_PID));
+
+		// Caches which the backend is not enabled for stay local
+		node1.putAfterCommit(MemoryCacheService.CacheEnum.MATCH_URL, "Patient?identifier=a", 1L);
+		assertThat(node2.getIfPresent(MemoryCacheService.CacheEnum.MATCH_URL, "Patient?identifier=a"), nullValue());
+		assertEquals(0, backend.size(MemoryCacheService.CacheEnum.MATCH_URL));
+
+		node2.invalidateAllCaches();
+		assertThat(node1.getIfPresent(MemoryCacheService.CacheEnum.FORCED_ID_TO_PID, "Patient/A"), nullValue());
+	}
+
+	@Test
+	public void testDistributedCacheBackendOnlySeesCommittedValues() {
+		LocalDistributedCacheBackend backend = new LocalDistributedCacheBackend(MemoryCacheService.CacheEnum.FORCED_ID_TO_PID);
+		MemoryCacheService node1 = new MemoryCacheService(new JpaStorageSettings());
+		MemoryCacheService node2 = new MemoryCacheService(new JpaStorageSettings());
+		node1.setDistributedCacheBackend(backend);
+		node2.setDistributedCacheBackend(backend);
+
+		// Rolled back
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			node1.putAfterCommit(MemoryCacheService.CacheEnum.FORCED_ID_TO_PID, "Patient/A", 1L);
+			assertThat(node1.get(MemoryCacheService.CacheEnum.FORCED_ID_TO_PID, "Patient/B", k -> 2L), equalTo(2L));
+			TransactionSynchronizationUtils.invokeAfterCompletion(TransactionSynchronizationManager.getSynchronizations(), TransactionSynchronization.STATUS_ROLLED_BACK);
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		assertThat(backend.get(MemoryCacheService.CacheEnum.FORCED_ID_TO_PID, "Patient/A"), nullValue());
+		assertThat(backend.get(MemoryCacheService.CacheEnum.FORCED_ID_TO_PID, "Patient/B"), nullValue());
+		assertThat(node2.getIfPresent(MemoryCacheService.CacheEnum.FORCED_ID_TO_PID, "Patient/A"), nullValue());
+		assertThat(node2.getIfPresent(MemoryCacheService.CacheEnum.FORCED_ID_TO_PID, "Patient/B"), nullValue());
+
+		// Committed
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			node1.putAfterCommit(MemoryCacheService.CacheEnum.FORCED_ID_TO_PID, "Patient/A", 1L);
+			assertThat(backend.get(MemoryCacheService.CacheEnum.FORCED_ID_TO_PID, "Patient/A"), nullValue());
+			TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		assertThat(backend.get(MemoryCacheService.CacheEnum.FORCED_ID_TO_PID, "Patient/A"), equalTo(1L));
+		assertThat(node2.getIfPresent(MemoryCacheService.CacheEnum.FORCED_ID_TO_PID, "Patient/A"), equalTo(1L));
+	}
+
 	@Nested
 	public static class CaffeineAbuseTest {
 
@@ -55,4 +55,17 @@ public interface IMdmSettings {
 	}
 
 	int getCandidateSearchLimit();
+
+	/**
+	 * If enabled, MDM maintains a persisted index of blocking keys (normalized candidate search parameter values)
+	 * for every MDM source resource, and candidate lookup uses that index instead of running one FHIR search per
+	 * candidate search parameter set. Note that indexed values are compared exactly after normalization, whereas
+	 * a string search would also match on a prefix. Resources which were processed by MDM before this was enabled
+	 * have no keys until they are processed again, e.g. using <code>$mdm-submit</code>.
+	 *
+	 * @since 6.6.0
+	 */
+	default boolean isCandidateSearchUsingBlockingKeys() {
+		return false;
+	}
 }
@@ -0,0 +1,59 @@
+package ca.uhn.fhir.mdm.dao;
+
+/*-
+ * #%L
+ * HAPI FHIR - Master Data Management
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.rest.api.server.storage.IResourcePersistentId;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Storage for MDM blocking keys, which are hashes of the normalized candidate search parameter values of
+ * MDM source resources. These are used to find match candidates when
+ * {@link ca.uhn.fhir.mdm.api.IMdmSettings#isCandidateSearchUsingBlockingKeys()} is enabled.
+ *
+ * @since 6.6.0
+ */
+public interface IMdmBlockingKeyDao<P extends IResourcePersistentId> {
+
+	/**
+	 * Replaces all stored keys of the given resource
+	 *
+	 * @return The number of keys that were added or removed
+	 */
+	int replaceBlockingKeys(P theResourcePid, String theResourceType, Collection<Long> theKeyHashes, @Nullable RequestPartitionId theResourcePartitionId);
+
+	/**
+	 * @param theMaximumKeys The maximum number of stored keys to load
+	 * @return Optional.empty() if more than <code>theMaximumKeys</code> stored keys match, otherwise for each of
+	 * the given key hashes that is stored for at least one resource in the given partitions, the IDs of those resources
+	 */
+	Optional<Map<Long, Set<P>>> findResourcePidsByKeyHashes(Collection<Long> theKeyHashes, @Nullable RequestPartitionId theRequestPartitionId, int theMaximumKeys);
+
+	/**
+	 * Removes all stored keys of the given resources
+	 */
+	void deleteBlockingKeys(Collection<P> theResourcePids);
+}
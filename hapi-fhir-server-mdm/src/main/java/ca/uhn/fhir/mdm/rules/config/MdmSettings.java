@@ -57,6 +57,11 @@ public class MdmSettings implements IMdmSettings {
 	 */
 	private int myCandidateSearchLimit = DEFAULT_CANDIDATE_SEARCH_LIMIT;
 
+	/**
+	 * When searching for matching candidates, use the persisted blocking key index instead of FHIR searches
+	 */
+	private boolean myCandidateSearchUsingBlockingKeys;
+
 	@Autowired
 	public MdmSettings(IMdmRuleValidator theMdmRuleValidator) {
 		myMdmRuleValidator = theMdmRuleValidator;
@@ -139,4 +144,18 @@ public class MdmSettings implements IMdmSettings {
 	public void setCandidateSearchLimit(int theCandidateSearchLimit) {
 		myCandidateSearchLimit = theCandidateSearchLimit;
 	}
+
+	@Override
+	public boolean isCandidateSearchUsingBlockingKeys() {
+		return myCandidateSearchUsingBlockingKeys;
+	}
+
+	/**
+	 * @see IMdmSettings#isCandidateSearchUsingBlockingKeys()
+	 * @since 6.6.0
+	 */
+	public MdmSettings setCandidateSearchUsingBlockingKeys(boolean theCandidateSearchUsingBlockingKeys) {
+		myCandidateSearchUsingBlockingKeys = theCandidateSearchUsingBlockingKeys;
+		return this;
+	}
 }
@@ -0,0 +1,75 @@
+package ca.uhn.fhir.mdm.rules.svc;
+
+/*-
+ * #%L
+ * HAPI FHIR - Master Data Management
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.hl7.fhir.instance.model.api.IBase;
+import org.hl7.fhir.instance.model.api.IIdType;
+
+import java.util.List;
+
+/**
+ * The values of every MDM match field in a single resource, extracted once so that the resource can be
+ * scored against any number of other resources without evaluating the field paths again.
+ * Instances are created by {@link MdmResourceMatcherSvc#extractFieldValues(org.hl7.fhir.instance.model.api.IBaseResource)}
+ * and are only valid for the rules that were active when they were created.
+ *
+ * @since 6.6.0
+ */
+public class MdmExtractedFieldValues {
+
+	private final String myResourceType;
+	private final IIdType myResourceId;
+	private final List<MdmResourceFieldMatcher> myFieldMatchers;
+	private final List<List<IBase>> myFieldValues;
+
+	MdmExtractedFieldValues(String theResourceType, IIdType theResourceId, List<MdmResourceFieldMatcher> theFieldMatchers, List<List<IBase>> theFieldValues) {
+		myResourceType = theResourceType;
+		myResourceId = theResourceId;
+		myFieldMatchers = theFieldMatchers;
+		myFieldValues = theFieldValues;
+	}
+
+	public String getResourceType() {
+		return myResourceType;
+	}
+
+	/**
+	 * The ID of the resource the values were extracted from (may be empty if the resource has no ID)
+	 */
+	public IIdType getResourceId() {
+		return myResourceId;
+	}
+
+	/**
+	 * The matchers these values were extracted for
+	 */
+	List<MdmResourceFieldMatcher> getFieldMatchers() {
+		return myFieldMatchers;
+	}
+
+	/**
+	 * @return The values for the field matcher at the given index, or <code>null</code> if that
+	 * matcher does not apply to this resource type
+	 */
+	List<IBase> getFieldValues(int theMatcherIndex) {
+		return myFieldValues.get(theMatcherIndex);
+	}
+}
@@ -21,11 +21,9 @@ package ca.uhn.fhir.mdm.rules.svc;
  */
 
 import ca.uhn.fhir.context.FhirContext;
-import ca.uhn.fhir.fhirpath.IFhirPath;
 import ca.uhn.fhir.mdm.api.MdmMatchEvaluation;
 import ca.uhn.fhir.mdm.rules.json.MdmFieldMatchJson;
 import ca.uhn.fhir.mdm.rules.json.MdmRulesJson;
-import ca.uhn.fhir.util.FhirTerser;
 import org.apache.commons.lang3.Validate;
 import org.hl7.fhir.instance.model.api.IBase;
 import org.hl7.fhir.instance.model.api.IBaseResource;
@@ -73,26 +71,33 @@ public class MdmResourceFieldMatcher {
 	 */
 	@SuppressWarnings("rawtypes")
 	public MdmMatchEvaluation match(IBaseResource theLeftResource, IBaseResource theRightResource) {
-		validate(theLeftResource);
-		validate(theRightResource);
+		return match(extractValues(theLeftResource), extractValues(theRightResource));
+	}
 
-		List<IBase> leftValues;
-		List<IBase> rightValues;
+	/**
+	 * Returns the values of this field in the given resource, which can then be matched against the values
+	 * of any number of other resources using {@link #match(List, List)}.
+	 *
+	 * @since 6.6.0
+	 */
+	public List<IBase> extractValues(IBaseResource theResource) {
+		validate(theResource);
 
 		if (myIsFhirPathExpression) {
-			IFhirPath fhirPath = myFhirContext.newFhirPath();
-			leftValues = fhirPath.evaluate(theLeftResource, myFhirPath, IBase.class);
-			rightValues = fhirPath.evaluate(theRightResource, myFhirPath, IBase.class);
+			return myFhirContext.newFhirPath().evaluate(theResource, myFhirPath, IBase.class);
 		} else {
-			FhirTerser fhirTerser = myFhirContext.newTerser();
-			leftValues = fhirTerser.getValues(theLeftResource, myResourcePath, IBase.class);
-			rightValues = fhirTerser.getValues(theRightResource, myResourcePath, IBase.class);
+			return myFhirContext.newTerser().getValues(theResource, myResourcePath, IBase.class);
 		}
-		return match(leftValues, rightValues);
 	}
 
+	/**
+	 * Compares the values of this field in two resources, as returned by {@link #extractValues(IBaseResource)}.
+	 * If any of the left values match any of the right values, the match is successful.
+	 *
+	 * @since 6.6.0
+	 */
 	@SuppressWarnings("rawtypes")
-	private MdmMatchEvaluation match(List<IBase> theLeftValues, List<IBase> theRightValues) {
+	public MdmMatchEvaluation match(List<IBase> theLeftValues, List<IBase> theRightValues) {
 		MdmMatchEvaluation retval = new MdmMatchEvaluation(false, 0.0);
 
 		boolean isMatchingEmptyFieldValues = (theLeftValues.isEmpty() && theRightValues.isEmpty());
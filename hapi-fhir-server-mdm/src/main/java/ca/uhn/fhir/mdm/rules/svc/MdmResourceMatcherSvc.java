@@ -31,11 +31,19 @@ import ca.uhn.fhir.mdm.api.MdmMatchResultEnum;
 import ca.uhn.fhir.mdm.log.Logs;
 import ca.uhn.fhir.mdm.rules.json.MdmFieldMatchJson;
 import ca.uhn.fhir.mdm.rules.json.MdmRulesJson;
+import ca.uhn.fhir.sl.cache.Cache;
+import ca.uhn.fhir.sl.cache.CacheFactory;
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.time.DateUtils;
+import org.hl7.fhir.instance.model.api.IBase;
 import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.instance.model.api.IIdType;
 import org.slf4j.Logger;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -47,10 +55,12 @@ import java.util.List;
 @Service
 public class MdmResourceMatcherSvc {
 	private static final Logger ourLog = Logs.getMdmTroubleshootingLog();
+	private static final int STORED_FIELD_VALUES_CACHE_SIZE = 10000;
 
 	private final FhirContext myFhirContext;
+	private final Cache<String, MdmExtractedFieldValues> myStoredFieldValuesCache = CacheFactory.build(10 * DateUtils.MILLIS_PER_MINUTE, STORED_FIELD_VALUES_CACHE_SIZE);
 	private MdmRulesJson myMdmRulesJson;
-	private final List<MdmResourceFieldMatcher> myFieldMatchers = new ArrayList<>();
+	private volatile List<MdmResourceFieldMatcher> myFieldMatchers = Collections.emptyList();
 
 	public MdmResourceMatcherSvc(FhirContext theFhirContext, IMdmSettings theMdmSettings) {
 		myFhirContext = theFhirContext;
@@ -68,10 +78,60 @@ public class MdmResourceMatcherSvc {
 		if (myMdmRulesJson == null) {
 			throw new ConfigurationException(Msg.code(1521) + "Failed to load MDM Rules.  If MDM is enabled, then MDM rules must be available in context.");
 		}
-		myFieldMatchers.clear();
+		List<MdmResourceFieldMatcher> fieldMatchers = new ArrayList<>();
 		for (MdmFieldMatchJson matchFieldJson : myMdmRulesJson.getMatchFields()) {
-			myFieldMatchers.add(new MdmResourceFieldMatcher( myFhirContext, matchFieldJson, myMdmRulesJson));
+			fieldMatchers.add(new MdmResourceFieldMatcher( myFhirContext, matchFieldJson, myMdmRulesJson));
 		}
+		myFieldMatchers = Collections.unmodifiableList(fieldMatchers);
+		myStoredFieldValuesCache.invalidateAll();
+	}
+
+	/**
+	 * Extracts the values of every match field that applies to the given resource. The returned object can then
+	 * be scored against any number of other resources using {@link #getMatchResult(MdmExtractedFieldValues, MdmExtractedFieldValues)}
+	 * without evaluating the field paths again.
+	 *
+	 * @since 6.6.0
+	 */
+	public MdmExtractedFieldValues extractFieldValues(IBaseResource theResource) {
+		List<MdmResourceFieldMatcher> fieldMatchers = myFieldMatchers;
+		String resourceType = myFhirContext.getResourceType(theResource);
+
+		List<List<IBase>> fieldValues = new ArrayList<>(fieldMatchers.size());
+		for (MdmResourceFieldMatcher fieldMatcher : fieldMatchers) {
+			if (isValidResourceType(resourceType, fieldMatcher.getResourceType())) {
+				fieldValues.add(fieldMatcher.extractValues(theResource));
+			} else {
+				fieldValues.add(null);
+			}
+		}
+
+		return new MdmExtractedFieldValues(resourceType, theResource.getIdElement(), fieldMatchers, fieldValues);
+	}
+
+	/**
+	 * Like {@link #extractFieldValues(IBaseResource)}, but the values are cached using the resource ID, version and
+	 * last updated time, so repeated matching against the same stored resource (e.g. a candidate that is returned
+	 * for many incoming resources) only extracts its values once. This method must only be used for resources
+	 * that have not been modified since they were read from the repository.
+	 *
+	 * @since 6.6.0
+	 */
+	public MdmExtractedFieldValues extractStoredResourceFieldValues(IBaseResource theResource) {
+		IIdType id = theResource.getIdElement();
+		Date lastUpdated = theResource.getMeta().getLastUpdated();
+		if (id.isEmpty() || !id.hasResourceType() || !id.hasVersionIdPart() || lastUpdated == null) {
+			return extractFieldValues(theResource);
+		}
+
+		String key = id.toUnqualified().getValue() + "|" + lastUpdated.getTime();
+		MdmExtractedFieldValues retVal = myStoredFieldValuesCache.get(key, t -> extractFieldValues(theResource));
+		if (retVal.getFieldMatchers() != myFieldMatchers) {
+			// The rules changed while the values were being extracted
+			retVal = extractFieldValues(theResource);
+			myStoredFieldValuesCache.put(key, retVal);
+		}
+		return retVal;
 	}
 
 	/**
@@ -87,12 +147,32 @@ public class MdmResourceMatcherSvc {
 		return match(theLeftResource, theRightResource);
 	}
 
+	/**
+	 * Given the extracted field values of two resources, perform all comparisons on them to determine an
+	 * {@link MdmMatchResultEnum}, indicating to what level the two resources are considered to be matching.
+	 *
+	 * @param theLeftValues The values of the first resource, as returned by {@link #extractFieldValues(IBaseResource)}
+	 * @param theRightValues The values of the second resource, as returned by {@link #extractFieldValues(IBaseResource)}
+	 *
+	 * @return an {@link MdmMatchResultEnum} indicating the result of the comparison.
+	 * @since 6.6.0
+	 */
+	public MdmMatchOutcome getMatchResult(MdmExtractedFieldValues theLeftValues, MdmExtractedFieldValues theRightValues) {
+		return match(theLeftValues, theRightValues);
+	}
+
 	MdmMatchOutcome match(IBaseResource theLeftResource, IBaseResource theRightResource) {
-		MdmMatchOutcome matchResult = getMatchOutcome(theLeftResource, theRightResource);
+		return match(extractFieldValues(theLeftResource), extractFieldValues(theRightResource));
+	}
+
+	private MdmMatchOutcome match(MdmExtractedFieldValues theLeftValues, MdmExtractedFieldValues theRightValues) {
+		Validate.isTrue(theLeftValues.getFieldMatchers() == theRightValues.getFieldMatchers(), "Field values were extracted using different MDM rules");
+
+		MdmMatchOutcome matchResult = getMatchOutcome(theLeftValues, theRightValues);
 		MdmMatchResultEnum matchResultEnum = myMdmRulesJson.getMatchResult(matchResult.getVector());
 		matchResult.setMatchResultEnum(matchResultEnum);
 		if (ourLog.isDebugEnabled()) {
-				ourLog.debug("{} {}: {}", matchResult.getMatchResultEnum(), theRightResource.getIdElement().toUnqualifiedVersionless(), matchResult);
+				ourLog.debug("{} {}: {}", matchResult.getMatchResultEnum(), theRightValues.getResourceId().toUnqualifiedVersionless(), matchResult);
 			 if (ourLog.isTraceEnabled()) {
 				ourLog.trace("Field matcher results:\n{}", myMdmRulesJson.getDetailedFieldMatchResultWithSuccessInformation(matchResult.getVector()));
 			}
@@ -115,23 +195,27 @@ public class MdmResourceMatcherSvc {
 	 * 0001|0010 = 0011
 	 * The binary string is now `0011`, which when you return it as a long becomes `3`.
 	 */
-	private MdmMatchOutcome getMatchOutcome(IBaseResource theLeftResource, IBaseResource theRightResource) {
+	private MdmMatchOutcome getMatchOutcome(MdmExtractedFieldValues theLeftValues, MdmExtractedFieldValues theRightValues) {
 		long vector = 0;
 		double score = 0.0;
 		int appliedRuleCount = 0;
 
 		//TODO GGG MDM: This grabs ALL comparators, not just the ones we care about (e.g. the ones for Medication)
-		String resourceType = myFhirContext.getResourceType(theLeftResource);
+		String resourceType = theLeftValues.getResourceType();
+		List<MdmResourceFieldMatcher> fieldMatchers = theLeftValues.getFieldMatchers();
 
-		for (int i = 0; i < myFieldMatchers.size(); ++i) {
+		for (int i = 0; i < fieldMatchers.size(); ++i) {
 			//any that are not for the resourceType in question.
-			MdmResourceFieldMatcher fieldComparator = myFieldMatchers.get(i);
-			if (!isValidResourceType(resourceType, fieldComparator.getResourceType())) {
+			MdmResourceFieldMatcher fieldComparator = fieldMatchers.get(i);
+			List<IBase> leftValues = theLeftValues.getFieldValues(i);
+			if (leftValues == null) {
 				ourLog.debug("Matcher {} is not valid for resource type: {}. Skipping it.", fieldComparator.getName(), resourceType);
 				continue;
 			}
+			List<IBase> rightValues = theRightValues.getFieldValues(i);
+			Validate.isTrue(rightValues != null, "Expecting resource type %s got resource type %s", fieldComparator.getResourceType(), theRightValues.getResourceType());
 			ourLog.trace("Matcher {} is valid for resource type: {}. Evaluating match.", fieldComparator.getName(), resourceType);
-			MdmMatchEvaluation matchEvaluation = fieldComparator.match(theLeftResource, theRightResource);
+			MdmMatchEvaluation matchEvaluation = fieldComparator.match(leftValues, rightValues);
 			if (matchEvaluation.match) {
 				vector |= (1L << i);
 				ourLog.trace("Match: Successfully matched matcher {} with score {}. New vector: {}", fieldComparator.getName(), matchEvaluation.score, vector);
@@ -3,10 +3,19 @@ package ca.uhn.fhir.mdm.rules.svc;
 import ca.uhn.fhir.context.RuntimeSearchParam;
 import ca.uhn.fhir.mdm.api.MdmMatchOutcome;
 import ca.uhn.fhir.mdm.api.MdmMatchResultEnum;
+import ca.uhn.fhir.mdm.rules.config.MdmRuleValidator;
+import ca.uhn.fhir.mdm.rules.config.MdmSettings;
 import org.hl7.fhir.r4.model.Patient;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -58,4 +67,61 @@ public class MdmResourceMatcherSvcR4Test extends BaseMdmRulesR4Test {
 		patient3.addName().addGiven("Henry");
 		assertMatchResult(MdmMatchResultEnum.NO_MATCH, 0L, 0.0, false, false, myMdmResourceMatcherSvc.getMatchResult(myJohn, patient3));
 	}
+
+	@Test
+	public void testMatchResultUsingExtractedFieldValues() {
+		myJohn.addName().setFamily("Smith");
+		myJohny.addName().setFamily("Smith");
+		MdmExtractedFieldValues johnValues = myMdmResourceMatcherSvc.extractFieldValues(myJohn);
+		assertEquals("Patient", johnValues.getResourceType());
+		assertMatchResult(MdmMatchResultEnum.MATCH, 3L, 1.816, false, false, myMdmResourceMatcherSvc.getMatchResult(johnValues, myMdmResourceMatcherSvc.extractFieldValues(myJohny)));
+
+		Patient patient3 = new Patient();
+		patient3.setId("Patient/3");
+		patient3.addName().addGiven("Henry");
+		assertMatchResult(MdmMatchResultEnum.NO_MATCH, 0L, 0.0, false, false, myMdmResourceMatcherSvc.getMatchResult(johnValues, myMdmResourceMatcherSvc.extractFieldValues(patient3)));
+	}
+
+	@Test
+	public void testExtractStoredResourceFieldValuesIsCachedByVersion() {
+		myJohny.setId("Patient/2/_history/1");
+		myJohny.getMeta().setLastUpdated(new Date());
+
+		MdmExtractedFieldValues values = myMdmResourceMatcherSvc.extractStoredResourceFieldValues(myJohny);
+		assertSame(values, myMdmResourceMatcherSvc.extractStoredResourceFieldValues(myJohny));
+
+		// A new version must be extracted again
+		Patient johnyV2 = myJohny.copy();
+		johnyV2.setId("Patient/2/_history/2");
+		assertNotSame(values, myMdmResourceMatcherSvc.extractStoredResourceFieldValues(johnyV2));
+
+		// Resources without a version are never cached
+		assertNotSame(myMdmResourceMatcherSvc.extractStoredResourceFieldValues(myJohn), myMdmResourceMatcherSvc.extractStoredResourceFieldValues(myJohn));
+
+		// Changing the rules invalidates the cache
+		myMdmResourceMatcherSvc.setMdmSettings(new MdmSettings(new MdmRuleValidator(ourFhirContext, mySearchParamRetriever)).setMdmRules(buildActiveBirthdateIdRules()));
+		assertNotSame(values, myMdmResourceMatcherSvc.extractStoredResourceFieldValues(myJohny));
+	}
+
+	@Test
+	public void testMatchResultUsingExtractedFieldValuesMatchesPerPairResult() {
+		List<Patient> candidates = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			Patient candidate = new Patient();
+			candidate.setId("Patient/" + i + "/_history/1");
+			candidate.getMeta().setLastUpdated(new Date());
+			candidate.addName().setFamily("Smith" + (i % 2 == 0 ? "" : i)).addGiven(i % 3 == 0 ? "John" : "Henry");
+			candidates.add(candidate);
+		}
+		myJohn.addName().setFamily("Smith");
+
+		MdmExtractedFieldValues johnValues = myMdmResourceMatcherSvc.extractFieldValues(myJohn);
+		for (Patient candidate : candidates) {
+			MdmMatchOutcome expected = myMdmResourceMatcherSvc.getMatchResult(myJohn, candidate);
+			MdmMatchOutcome actual = myMdmResourceMatcherSvc.getMatchResult(johnValues, myMdmResourceMatcherSvc.extractStoredResourceFieldValues(candidate));
+			assertEquals(expected.getVector(), actual.getVector());
+			assertEquals(expected.getScore(), actual.getScore(), 0.0001);
+			assertEquals(expected.getMatchResultEnum(), actual.getMatchResultEnum());
+		}
+	}
 }
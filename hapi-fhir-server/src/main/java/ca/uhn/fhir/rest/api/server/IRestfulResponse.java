@@ -82,6 +82,29 @@ public interface IRestfulResponse {
 	@Nonnull
 	OutputStream getResponseOutputStream(int theStatusCode, String theContentType, @Nullable Integer theContentLength) throws IOException;
 
+	/**
+	 * Initiate a new textual response which will be written as already-encoded bytes, rather
+	 * than through a {@link Writer}. The OutputStream returned by this method must be finalized by
+	 * calling {@link #commitResponse(Closeable)} later, exactly as for
+	 * {@link #getResponseWriter(int, String, String, boolean)}.
+	 * <p>
+	 * Implementations which are not able to supply a textual byte stream should return {@literal null}
+	 * (which is the default), in which case the caller must fall back to
+	 * {@link #getResponseWriter(int, String, String, boolean)}.
+	 * </p>
+	 *
+	 * @param theStatusCode  The HTTP status code.
+	 * @param theContentType The HTTP response content type.
+	 * @param theCharset     The HTTP response charset. Content written to the stream must use this charset.
+	 * @param theRespondGzip Should the response be GZip encoded?
+	 * @return Returns an {@link OutputStream} that can accept the encoded response body, or {@literal null}
+	 * @since 6.6.0
+	 */
+	@Nullable
+	default OutputStream getResponseOutputStream(int theStatusCode, String theContentType, String theCharset, boolean theRespondGzip) throws IOException {
+		return null;
+	}
+
 	/**
 	 * Finalizes the response streaming using the writer that was returned by calling either
 	 * {@link #getResponseWriter(int, String, String, boolean)} or
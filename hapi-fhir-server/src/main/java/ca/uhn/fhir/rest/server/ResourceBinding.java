@@ -22,11 +22,19 @@ package ca.uhn.fhir.rest.server;
 
 import ca.uhn.fhir.rest.api.server.RequestDetails;
 import ca.uhn.fhir.rest.server.method.BaseMethodBinding;
-import ca.uhn.fhir.rest.server.method.BaseMethodBinding;
 import ca.uhn.fhir.rest.server.method.MethodMatchEnum;
+import ca.uhn.fhir.rest.server.method.RequestRouteKey;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
 
 /**
  * Holds all method bindings for an individual resource type
@@ -37,6 +45,7 @@ public class ResourceBinding {
 
 	private String resourceName;
 	private LinkedList<BaseMethodBinding> myMethodBindings = new LinkedList<>();
+	private volatile RouteTable myRouteTable;
 
 	/**
 	 * Constructor
@@ -54,13 +63,14 @@ public class ResourceBinding {
 		ourLog.debug("Looking for a handler for {}", theRequest);
 
 		/*
-		 * Look for the method with the highest match strength
+		 * Look for the method with the highest match strength, among the
+		 * methods which the route table says could match this request
 		 */
 
 		BaseMethodBinding matchedMethod = null;
 		MethodMatchEnum matchedMethodStrength = null;
 
-		for (BaseMethodBinding rm : myMethodBindings) {
+		for (BaseMethodBinding rm : getRouteCandidates(RequestRouteKey.fromRequest(theRequest))) {
 			MethodMatchEnum nextMethodMatch = rm.incomingServerRequestMatchesMethod(theRequest);
 			if (nextMethodMatch != MethodMatchEnum.NONE) {
 				if (matchedMethodStrength == null || matchedMethodStrength.ordinal() < nextMethodMatch.ordinal()) {
@@ -76,6 +86,34 @@ public class ResourceBinding {
 		return matchedMethod;
 	}
 
+	/**
+	 * Returns the method bindings which could possibly match a request with the given
+	 * route key, in the same order as {@link #getMethodBindings()}.
+	 */
+	List<BaseMethodBinding> getRouteCandidates(RequestRouteKey theRouteKey) {
+		RouteTable routeTable = myRouteTable;
+		if (routeTable == null) {
+			routeTable = compileRouteTable();
+		}
+		return routeTable.getCandidates(theRouteKey);
+	}
+
+	/**
+	 * Compiles the route table from the current method bindings. This is called by the
+	 * server once providers have been registered, and is otherwise done on demand.
+	 *
+	 * @since 6.6.0
+	 */
+	public void compileRoutes() {
+		compileRouteTable();
+	}
+
+	private RouteTable compileRouteTable() {
+		RouteTable retVal = new RouteTable(new ArrayList<>(myMethodBindings));
+		myRouteTable = retVal;
+		return retVal;
+	}
+
 	public String getResourceName() {
 		return resourceName;
 	}
@@ -84,12 +122,37 @@ public class ResourceBinding {
 		this.resourceName = resourceName;
 	}
 
+	/**
+	 * Note that if the returned list is modified directly, {@link #invalidateRouteTable()}
+	 * must be called afterward.
+	 */
 	public List<BaseMethodBinding> getMethodBindings() {
 		return myMethodBindings;
 	}
 
 	public void addMethod(BaseMethodBinding method) {
 		this.myMethodBindings.push(method);
+		invalidateRouteTable();
+	}
+
+	/**
+	 * Removes a method binding
+	 *
+	 * @since 6.6.0
+	 */
+	public void removeMethod(BaseMethodBinding theMethod) {
+		this.myMethodBindings.remove(theMethod);
+		invalidateRouteTable();
+	}
+
+	/**
+	 * Discards the compiled route table, so that it will be rebuilt from the current
+	 * method bindings the next time a request is routed.
+	 *
+	 * @since 6.6.0
+	 */
+	public void invalidateRouteTable() {
+		myRouteTable = null;
 	}
 
 	@Override
@@ -104,4 +167,42 @@ public class ResourceBinding {
 		return 0;
 	}
 
+	/**
+	 * Maps each distinct {@link RequestRouteKey} to the method bindings which could match it,
+	 * so that only those bindings need to examine the request parameters. The table is
+	 * compiled from a snapshot of the method bindings, and the candidate list for each key
+	 * is computed the first time that key is seen. Keys whose operation name is not known
+	 * to any binding are not cached, so that arbitrary client-supplied operation names can't
+	 * grow the table.
+	 */
+	private static class RouteTable {
+
+		private final List<BaseMethodBinding> myMethodBindings;
+		private final Set<String> myRouteOperationNames = new HashSet<>();
+		private final Map<RequestRouteKey, List<BaseMethodBinding>> myRouteKeyToCandidates = new ConcurrentHashMap<>();
+
+		RouteTable(List<BaseMethodBinding> theMethodBindings) {
+			myMethodBindings = theMethodBindings;
+			for (BaseMethodBinding next : theMethodBindings) {
+				myRouteOperationNames.addAll(next.getRouteOperationNames());
+			}
+		}
+
+		List<BaseMethodBinding> getCandidates(RequestRouteKey theRouteKey) {
+			List<BaseMethodBinding> retVal = myRouteKeyToCandidates.get(theRouteKey);
+			if (retVal == null) {
+				retVal = myMethodBindings
+					.stream()
+					.filter(t -> t.isRouteCandidate(theRouteKey))
+					.collect(Collectors.toList());
+				String operation = theRouteKey.getOperation();
+				if (isBlank(operation) || myRouteOperationNames.contains(operation)) {
+					myRouteKeyToCandidates.put(theRouteKey, retVal);
+				}
+			}
+			return retVal;
+		}
+
+	}
+
 }
@@ -99,7 +99,6 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
@@ -432,6 +431,16 @@ public class RestfulServer extends HttpServlet implements IRestfulServer<Servlet
 		handleRequest(RequestTypeEnum.PUT, request, response);
 	}
 
+	/**
+	 * Compiles the route table of each resource binding, so that the first requests
+	 * after providers are registered don't pay this cost
+	 */
+	private void compileRoutes() {
+		myResourceNameToBinding.values().forEach(ResourceBinding::compileRoutes);
+		myServerBinding.compileRoutes();
+		myGlobalBinding.compileRoutes();
+	}
+
 	private void findResourceMethods(Object theProvider) {
 
 		ourLog.debug("Scanning type for RESTful methods: {}", theProvider.getClass());
@@ -1403,6 +1412,7 @@ public class RestfulServer extends HttpServlet implements IRestfulServer<Servlet
 				 * an alternate implementation, but this isn't currently possible..
 				 */
 				findResourceMethods(new PageProvider());
+				compileRoutes();
 
 			} catch (Exception e) {
 				ourLog.error("An error occurred while loading request handlers!", e);
@@ -1745,6 +1755,9 @@ public class RestfulServer extends HttpServlet implements IRestfulServer<Servlet
 					findResourceMethods(provider);
 				}
 			}
+			if (!inInit) {
+				compileRoutes();
+			}
 			if (!inInit) {
 				ourLog.trace("Invoking provider initialize methods");
 				if (!newResourceProviders.isEmpty()) {
@@ -1786,10 +1799,9 @@ public class RestfulServer extends HttpServlet implements IRestfulServer<Servlet
 				continue;
 			}
 
-			for (Iterator<BaseMethodBinding> it = resourceBinding.getMethodBindings().iterator(); it.hasNext(); ) {
-				BaseMethodBinding binding = it.next();
+			for (BaseMethodBinding binding : new ArrayList<>(resourceBinding.getMethodBindings())) {
 				if (theProvider.equals(binding.getProvider())) {
-					it.remove();
+					resourceBinding.removeMethod(binding);
 					ourLog.info("{} binding of {} was removed", resourceName, binding);
 				}
 			}
@@ -1016,10 +1016,25 @@ public class RestfulServerUtils {
 		}
 		String charset = Constants.CHARSET_NAME_UTF8;
 
+		/*
+		 * If nothing needs to decorate the response Writer, encode the resource as
+		 * UTF-8 bytes straight to the response stream
+		 */
+		boolean haveWriterHooks = theServer.getInterceptorService() != null && theServer.getInterceptorService().hasHooks(Pointcut.SERVER_OUTGOING_WRITER_CREATED);
+		if (theResource != null && !encodingDomainResourceAsText && !haveWriterHooks) {
+			OutputStream outputStream = response.getResponseOutputStream(theStatusCode, contentType, charset, respondGzip);
+			if (outputStream != null) {
+				FhirVersionEnum forVersion = theResource.getStructureFhirVersionEnum();
+				IParser parser = getNewParser(theServer.getFhirContext(), forVersion, theRequestDetails);
+				parser.encodeResourceToOutputStream(theResource, outputStream);
+				return response.commitResponse(outputStream);
+			}
+		}
+
 		Writer writer = response.getResponseWriter(theStatusCode, contentType, charset, respondGzip);
 
 		// Interceptor call: SERVER_OUTGOING_WRITER_CREATED
-		if (theServer.getInterceptorService() != null && theServer.getInterceptorService().hasHooks(Pointcut.SERVER_OUTGOING_WRITER_CREATED)) {
+		if (haveWriterHooks) {
 			HookParams params = new HookParams()
 				.add(Writer.class, writer)
 				.add(RequestDetails.class, theRequestDetails)
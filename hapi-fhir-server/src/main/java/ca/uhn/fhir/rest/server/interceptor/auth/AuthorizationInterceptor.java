@@ -49,10 +49,13 @@ import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.apache.commons.lang3.StringUtils.defaultString;
@@ -74,17 +77,20 @@ import static org.apache.commons.lang3.StringUtils.isNotBlank;
 public class AuthorizationInterceptor implements IRuleApplier {
 
 	public static final String REQUEST_ATTRIBUTE_BULK_DATA_EXPORT_OPTIONS = AuthorizationInterceptor.class.getName() + "_BulkDataExportOptions";
+	private static final int RULE_LIST_CACHE_MAX_SIZE = 10000;
 	private static final AtomicInteger ourInstanceCount = new AtomicInteger(0);
 	private static final Logger ourLog = LoggerFactory.getLogger(AuthorizationInterceptor.class);
 	private final int myInstanceIndex = ourInstanceCount.incrementAndGet();
 	private final String myRequestSeenResourcesKey = AuthorizationInterceptor.class.getName() + "_" + myInstanceIndex + "_SEENRESOURCES";
 	private final String myRequestRuleListKey = AuthorizationInterceptor.class.getName() + "_" + myInstanceIndex + "_RULELIST";
+	private final Map<String, CachedRuleList> myRuleListCache = new ConcurrentHashMap<>();
 	private PolicyEnum myDefaultPolicy = PolicyEnum.DENY;
 	private Set<AuthorizationFlagsEnum> myFlags = Collections.emptySet();
 	private IValidationSupport myValidationSupport;
 
 	private IAuthorizationSearchParamMatcher myAuthorizationSearchParamMatcher;
 	private Logger myTroubleshootingLog;
+	private volatile long myRuleListCacheMillis = 0;
 
 	/**
 	 * Constructor
@@ -129,24 +135,31 @@ public class AuthorizationInterceptor implements IRuleApplier {
 	@Override
 	public Verdict applyRulesAndReturnDecision(RestOperationTypeEnum theOperation, RequestDetails theRequestDetails, IBaseResource theInputResource, IIdType theInputResourceId,
 															 IBaseResource theOutputResource, Pointcut thePointcut) {
-		@SuppressWarnings("unchecked")
-		List<IAuthRule> rules = (List<IAuthRule>) theRequestDetails.getUserData().get(myRequestRuleListKey);
-		if (rules == null) {
-			rules = buildRuleList(theRequestDetails);
-			theRequestDetails.getUserData().put(myRequestRuleListKey, rules);
+		CompiledRuleList compiledRules = (CompiledRuleList) theRequestDetails.getUserData().get(myRequestRuleListKey);
+		if (compiledRules == null) {
+			compiledRules = getCompiledRuleList(theRequestDetails);
+			theRequestDetails.getUserData().put(myRequestRuleListKey, compiledRules);
 		}
+		List<IAuthRule> rules = compiledRules.getCandidateRules(theOperation, theOutputResource != null);
 		Set<AuthorizationFlagsEnum> flags = getFlags();
 		ourLog.trace("Applying {} rules to render an auth decision for operation {}, theInputResource type={}, theOutputResource type={} ", rules.size(), theOperation,
 			((theInputResource != null) && (theInputResource.getIdElement() != null)) ? theInputResource.getIdElement().getResourceType() : "",
 			((theOutputResource != null) && (theOutputResource.getIdElement() != null)) ? theOutputResource.getIdElement().getResourceType() : "");
 
+		boolean startedCompartmentOwnerCacheScope = CompartmentOwnerCache.beginScope(theRequestDetails);
 		Verdict verdict = null;
-		for (IAuthRule nextRule : rules) {
-			ourLog.trace("Rule being applied - {}", nextRule);
-			verdict = nextRule.applyRule(theOperation, theRequestDetails, theInputResource, theInputResourceId, theOutputResource, this, flags, thePointcut);
-			if (verdict != null) {
-				ourLog.trace("Rule {} returned decision {}", nextRule, verdict.getDecision());
-				break;
+		try {
+			for (IAuthRule nextRule : rules) {
+				ourLog.trace("Rule being applied - {}", nextRule);
+				verdict = nextRule.applyRule(theOperation, theRequestDetails, theInputResource, theInputResourceId, theOutputResource, this, flags, thePointcut);
+				if (verdict != null) {
+					ourLog.trace("Rule {} returned decision {}", nextRule, verdict.getDecision());
+					break;
+				}
+			}
+		} finally {
+			if (startedCompartmentOwnerCacheScope) {
+				CompartmentOwnerCache.endScope(theRequestDetails);
 			}
 		}
 
@@ -158,6 +171,94 @@ public class AuthorizationInterceptor implements IRuleApplier {
 		return verdict;
 	}
 
+	@Nonnull
+	private CompiledRuleList getCompiledRuleList(RequestDetails theRequestDetails) {
+		long cacheMillis = myRuleListCacheMillis;
+		String cacheKey = cacheMillis > 0 ? getRuleListCacheKey(theRequestDetails) : null;
+		if (cacheKey == null) {
+			return new CompiledRuleList(buildRuleList(theRequestDetails));
+		}
+
+		long now = System.currentTimeMillis();
+		CachedRuleList cached = myRuleListCache.get(cacheKey);
+		if (cached != null && cached.getExpires() > now) {
+			return cached.getRuleList();
+		}
+
+		CompiledRuleList retVal = new CompiledRuleList(buildRuleList(theRequestDetails));
+		if (myRuleListCache.size() >= RULE_LIST_CACHE_MAX_SIZE) {
+			myRuleListCache.clear();
+		}
+		myRuleListCache.put(cacheKey, new CachedRuleList(retVal, now + cacheMillis));
+		return retVal;
+	}
+
+	/**
+	 * If rule list caching is enabled (see {@link #setRuleListCacheMillis(long)}), this method
+	 * is called for each request in order to determine a key that uniquely identifies the rules
+	 * which {@link #buildRuleList(RequestDetails)} would produce for the request. Typically this
+	 * is an identifier for the authenticated principal (e.g. a user ID, or a hash of the access
+	 * token and its scopes). Requests returning the same key will share a single rule list until
+	 * the cache entry expires.
+	 * <p>
+	 * The default implementation returns <code>null</code>, meaning that the rule list is
+	 * never cached.
+	 * </p>
+	 *
+	 * @param theRequestDetails The individual request currently being applied
+	 * @return A key identifying the rule list for the request, or <code>null</code> if the rule list for this request should not be cached
+	 * @since 6.6.0
+	 */
+	@Nullable
+	protected String getRuleListCacheKey(RequestDetails theRequestDetails) {
+		return null;
+	}
+
+	/**
+	 * Returns the number of milliseconds that a rule list will be cached for (default is <code>0</code>, meaning
+	 * that caching is disabled)
+	 *
+	 * @see #setRuleListCacheMillis(long)
+	 * @since 6.6.0
+	 */
+	public long getRuleListCacheMillis() {
+		return myRuleListCacheMillis;
+	}
+
+	/**
+	 * Sets the number of milliseconds that the rule list returned by {@link #buildRuleList(RequestDetails)}
+	 * will be cached for and reused across requests. Caching only applies to requests for which
+	 * {@link #getRuleListCacheKey(RequestDetails)} returns a non-null key, so subclasses must also
+	 * override that method in order to enable caching.
+	 * <p>
+	 * Note that cached rules are shared between concurrent requests, so they must not hold any
+	 * request-specific state. Rules created using {@link RuleBuilder} are safe to share. Changes
+	 * to the rules for a given key will not be seen until the cache entry expires, or until
+	 * {@link #clearRuleListCache()} is called.
+	 * </p>
+	 *
+	 * @param theRuleListCacheMillis The number of milliseconds, or <code>0</code> (the default) to disable caching
+	 * @since 6.6.0
+	 */
+	public AuthorizationInterceptor setRuleListCacheMillis(long theRuleListCacheMillis) {
+		Validate.isTrue(theRuleListCacheMillis >= 0, "theRuleListCacheMillis must not be negative");
+		myRuleListCacheMillis = theRuleListCacheMillis;
+		if (theRuleListCacheMillis == 0) {
+			clearRuleListCache();
+		}
+		return this;
+	}
+
+	/**
+	 * Discards any cached rule lists
+	 *
+	 * @see #setRuleListCacheMillis(long)
+	 * @since 6.6.0
+	 */
+	public void clearRuleListCache() {
+		myRuleListCache.clear();
+	}
+
 	/**
 	 * @since 6.0.0
 	 */
@@ -522,6 +623,69 @@ public class AuthorizationInterceptor implements IRuleApplier {
 		return retVal;
 	}
 
+	/**
+	 * A rule list, along with an index of the rules which are candidates for
+	 * each operation type, so that rules which could never apply to a given
+	 * operation don't need to be evaluated. The candidate lists preserve the
+	 * order of the original rule list, since the first rule to return a
+	 * verdict wins.
+	 */
+	private static class CompiledRuleList {
+
+		private final List<IAuthRule> myRules;
+		private final Map<RestOperationTypeEnum, List<IAuthRule>> myOperationToInputRules = new EnumMap<>(RestOperationTypeEnum.class);
+		private final Map<RestOperationTypeEnum, List<IAuthRule>> myOperationToOutputRules = new EnumMap<>(RestOperationTypeEnum.class);
+
+		CompiledRuleList(List<IAuthRule> theRules) {
+			myRules = theRules;
+			for (RestOperationTypeEnum nextOperation : RestOperationTypeEnum.values()) {
+				myOperationToInputRules.put(nextOperation, filterRules(theRules, nextOperation, false));
+				myOperationToOutputRules.put(nextOperation, filterRules(theRules, nextOperation, true));
+			}
+		}
+
+		List<IAuthRule> getCandidateRules(@Nullable RestOperationTypeEnum theOperation, boolean theHaveOutputResource) {
+			if (theOperation == null) {
+				return myRules;
+			}
+			if (theHaveOutputResource) {
+				return myOperationToOutputRules.get(theOperation);
+			}
+			return myOperationToInputRules.get(theOperation);
+		}
+
+		private static List<IAuthRule> filterRules(List<IAuthRule> theRules, RestOperationTypeEnum theOperation, boolean theHaveOutputResource) {
+			List<IAuthRule> retVal = new ArrayList<>(theRules.size());
+			for (IAuthRule next : theRules) {
+				if (!(next instanceof BaseRule) || ((BaseRule) next).isCandidateForOperation(theOperation, theHaveOutputResource)) {
+					retVal.add(next);
+				}
+			}
+			return retVal;
+		}
+
+	}
+
+	private static class CachedRuleList {
+
+		private final CompiledRuleList myRuleList;
+		private final long myExpires;
+
+		CachedRuleList(CompiledRuleList theRuleList, long theExpires) {
+			myRuleList = theRuleList;
+			myExpires = theExpires;
+		}
+
+		CompiledRuleList getRuleList() {
+			return myRuleList;
+		}
+
+		long getExpires() {
+			return myExpires;
+		}
+
+	}
+
 	public static class Verdict {
 
 		private final IAuthRule myDecidingRule;
@@ -30,6 +30,7 @@ import org.apache.commons.lang3.builder.ToStringStyle;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.instance.model.api.IIdType;
 
+import javax.annotation.Nonnull;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -110,6 +111,18 @@ abstract class BaseRule implements IAuthRule {
 		return new Verdict(myMode, this);
 	}
 
+	/**
+	 * Returns <code>false</code> if this rule can never return a verdict for the given
+	 * operation, so that it can be skipped without being applied. Rules which aren't sure
+	 * must return <code>true</code>.
+	 *
+	 * @param theOperation          The operation being authorized (never null)
+	 * @param theHaveOutputResource Is the operation being authorized on the way out (i.e. with an output resource)
+	 */
+	boolean isCandidateForOperation(@Nonnull RestOperationTypeEnum theOperation, boolean theHaveOutputResource) {
+		return true;
+	}
+
 	protected boolean isResourceAccess(Pointcut thePointcut) {
 		return thePointcut.equals(Pointcut.STORAGE_PREACCESS_RESOURCES) || thePointcut.equals(Pointcut.STORAGE_PRESHOW_RESOURCES);
 	}
@@ -0,0 +1,92 @@
+package ca.uhn.fhir.rest.server.interceptor.auth;
+
+/*
+ * #%L
+ * HAPI FHIR - Server Framework
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.rest.api.server.RequestDetails;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.instance.model.api.IIdType;
+
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Remembers which compartments a resource belongs to for the duration of a single
+ * authorization decision, so that a policy containing many compartment rules only
+ * needs to examine each resource once.
+ * <p>
+ * The cache is scoped to a single (outermost) call to
+ * {@link AuthorizationInterceptor#applyRulesAndReturnDecision(ca.uhn.fhir.rest.api.RestOperationTypeEnum, RequestDetails, IBaseResource, IIdType, IBaseResource, ca.uhn.fhir.interceptor.api.Pointcut)}
+ * and is discarded afterward, since resources can be modified between one pointcut
+ * and the next (e.g. placeholder references being replaced with real IDs during
+ * a transaction).
+ * </p>
+ */
+class CompartmentOwnerCache {
+
+	private static final String REQUEST_KEY = CompartmentOwnerCache.class.getName();
+
+	private final Map<IBaseResource, Map<String, Set<String>>> myResourceToCompartmentKeyToOwners = new IdentityHashMap<>();
+
+	/**
+	 * Starts a cache scope for the given request if one is not already active.
+	 *
+	 * @return Returns <code>true</code> if a new scope was started, in which case the caller is
+	 * responsible for calling {@link #endScope(RequestDetails)}
+	 */
+	static boolean beginScope(RequestDetails theRequestDetails) {
+		if (theRequestDetails == null || theRequestDetails.getUserData().containsKey(REQUEST_KEY)) {
+			return false;
+		}
+		theRequestDetails.getUserData().put(REQUEST_KEY, new CompartmentOwnerCache());
+		return true;
+	}
+
+	static void endScope(RequestDetails theRequestDetails) {
+		theRequestDetails.getUserData().remove(REQUEST_KEY);
+	}
+
+	/**
+	 * Equivalent to {@link ca.uhn.fhir.util.FhirTerser#isSourceInCompartmentForTarget(String, IBaseResource, IIdType, Set)},
+	 * but uses the compartment owners cached for the current scope if one is active.
+	 */
+	static boolean isSourceInCompartmentForTarget(RequestDetails theRequestDetails, String theCompartmentName, IBaseResource theSource, IIdType theTarget, @Nullable Set<String> theAdditionalCompartmentParamNames) {
+		CompartmentOwnerCache cache = (CompartmentOwnerCache) theRequestDetails.getUserData().get(REQUEST_KEY);
+		if (cache == null) {
+			return theRequestDetails.getFhirContext().newTerser().isSourceInCompartmentForTarget(theCompartmentName, theSource, theTarget, theAdditionalCompartmentParamNames);
+		}
+
+		String compartmentKey = theCompartmentName;
+		if (theAdditionalCompartmentParamNames != null && !theAdditionalCompartmentParamNames.isEmpty()) {
+			compartmentKey = theCompartmentName + new TreeSet<>(theAdditionalCompartmentParamNames);
+		}
+
+		Set<String> owners = cache.myResourceToCompartmentKeyToOwners
+			.computeIfAbsent(theSource, t -> new HashMap<>())
+			.computeIfAbsent(compartmentKey, t -> theRequestDetails.getFhirContext().newTerser().getCompartmentOwnersForResource(theCompartmentName, theSource, theAdditionalCompartmentParamNames));
+
+		return owners.contains(theTarget.toUnqualifiedVersionless().getValue());
+	}
+
+}
@@ -14,7 +14,6 @@ import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
 import ca.uhn.fhir.rest.server.exceptions.UnprocessableEntityException;
 import ca.uhn.fhir.rest.server.interceptor.auth.AuthorizationInterceptor.Verdict;
 import ca.uhn.fhir.util.BundleUtil;
-import ca.uhn.fhir.util.FhirTerser;
 import ca.uhn.fhir.util.UrlUtil;
 import ca.uhn.fhir.util.bundle.BundleEntryParts;
 import com.google.common.annotations.VisibleForTesting;
@@ -343,9 +342,60 @@ class RuleImplOp extends BaseRule /* implements IAuthRule */ {
 		}
 	}
 
+	@Override
+	boolean isCandidateForOperation(@Nonnull RestOperationTypeEnum theOperation, boolean theHaveOutputResource) {
+		if (myOp == null) {
+			return true;
+		}
+		switch (myOp) {
+			case READ:
+				if (theHaveOutputResource) {
+					return true;
+				}
+				switch (theOperation) {
+					case READ:
+					case VREAD:
+					case SEARCH_SYSTEM:
+					case SEARCH_TYPE:
+					case HISTORY_SYSTEM:
+					case HISTORY_TYPE:
+					case HISTORY_INSTANCE:
+					case GET_PAGE:
+						return true;
+					default:
+						return false;
+				}
+			case WRITE:
+				switch (theOperation) {
+					case CREATE:
+					case UPDATE:
+					case ADD_TAGS:
+					case DELETE_TAGS:
+					case META_ADD:
+					case META_DELETE:
+					case PATCH:
+						return true;
+					default:
+						return false;
+				}
+			case CREATE:
+				return theOperation == RestOperationTypeEnum.CREATE;
+			case DELETE:
+				return theOperation == RestOperationTypeEnum.DELETE;
+			case GRAPHQL:
+				return theOperation == RestOperationTypeEnum.GRAPHQL_REQUEST;
+			case TRANSACTION:
+				return theOperation == RestOperationTypeEnum.TRANSACTION;
+			case METADATA:
+				return theOperation == RestOperationTypeEnum.METADATA;
+			case ALL:
+			default:
+				return true;
+		}
+	}
+
 	@Nullable
 	private Verdict applyRuleToCompartment(RestOperationTypeEnum theOperation, RequestDetails theRequestDetails, IBaseResource theInputResource, IIdType theInputResourceId, IBaseResource theOutputResource, Set<AuthorizationFlagsEnum> theFlags, FhirContext ctx, RuleTarget target, IRuleApplier theRuleApplier) {
-		FhirTerser t = ctx.newTerser();
 		boolean foundMatch = false;
 
 		if (target.resourceIds != null && target.resourceIds.size() > 0) {
@@ -364,7 +414,7 @@ class RuleImplOp extends BaseRule /* implements IAuthRule */ {
 				if (myAdditionalCompartmentSearchParamMap != null) {
 					additionalSearchParamNames = myAdditionalCompartmentSearchParamMap.getSearchParamNamesForResourceType(ctx.getResourceType(target.resource));
 				}
-				if (t.isSourceInCompartmentForTarget(myClassifierCompartmentName, target.resource, next, additionalSearchParamNames)) {
+				if (CompartmentOwnerCache.isSourceInCompartmentForTarget(theRequestDetails, myClassifierCompartmentName, target.resource, next, additionalSearchParamNames)) {
 					foundMatch = true;
 					break;
 				}
@@ -50,6 +50,7 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -234,6 +235,31 @@ public abstract class BaseMethodBinding {
 
 	public abstract MethodMatchEnum incomingServerRequestMatchesMethod(RequestDetails theRequest);
 
+	/**
+	 * Returns <code>false</code> if this method can never match a request with the given route key,
+	 * regardless of the request parameters. This is used to compile the route table held by
+	 * {@link ca.uhn.fhir.rest.server.ResourceBinding}, so implementations must be conservative:
+	 * they may only return <code>false</code> if {@link #incomingServerRequestMatchesMethod(RequestDetails)}
+	 * would return {@link MethodMatchEnum#NONE} for every such request. Any operation name
+	 * compared here must also be returned by {@link #getRouteOperationNames()}.
+	 *
+	 * @since 6.6.0
+	 */
+	public boolean isRouteCandidate(RequestRouteKey theRouteKey) {
+		return true;
+	}
+
+	/**
+	 * Returns the operation names (as returned by {@link RequestDetails#getOperation()}) that
+	 * {@link #isRouteCandidate(RequestRouteKey)} distinguishes between. Routes for requests
+	 * with any other operation name are not cached.
+	 *
+	 * @since 6.6.0
+	 */
+	public Collection<String> getRouteOperationNames() {
+		return Collections.emptyList();
+	}
+
 	public abstract Object invokeServer(IRestfulServer<?> theServer, RequestDetails theRequest) throws BaseServerResponseException, IOException;
 
 	protected final Object invokeServerMethod(RequestDetails theRequest, Object[] theMethodParams) {
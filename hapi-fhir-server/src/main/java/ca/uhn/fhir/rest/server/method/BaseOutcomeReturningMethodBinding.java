@@ -40,6 +40,7 @@ import org.hl7.fhir.instance.model.api.IPrimitiveType;
 
 import java.io.IOException;
 import java.lang.reflect.Method;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.Set;
@@ -113,6 +114,24 @@ abstract class BaseOutcomeReturningMethodBinding extends BaseMethodBinding {
 		}
 	}
 
+	@Override
+	public boolean isRouteCandidate(RequestRouteKey theRouteKey) {
+		if (!provideAllowableRequestTypes().contains(theRouteKey.getRequestType())) {
+			return false;
+		}
+		String matchingOperation = getMatchingOperation();
+		if (matchingOperation == null) {
+			return StringUtils.isBlank(theRouteKey.getOperation());
+		}
+		return matchingOperation.equals(theRouteKey.getOperation());
+	}
+
+	@Override
+	public Collection<String> getRouteOperationNames() {
+		String matchingOperation = getMatchingOperation();
+		return matchingOperation != null ? Collections.singletonList(matchingOperation) : Collections.emptyList();
+	}
+
 	@Override
 	public MethodMatchEnum incomingServerRequestMatchesMethod(RequestDetails theRequest) {
 		Set<RequestTypeEnum> allowableRequestTypes = provideAllowableRequestTypes();
@@ -43,6 +43,7 @@ import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.io.Writer;
 import java.lang.reflect.Method;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Set;
 
@@ -98,6 +99,16 @@ public class GraphQLMethodBinding extends OperationMethodBinding {
 		return myIdParamIndex != null;
 	}
 
+	@Override
+	public boolean isRouteCandidate(RequestRouteKey theRouteKey) {
+		return Constants.OPERATION_NAME_GRAPHQL.equals(theRouteKey.getOperation()) && myMethodRequestType.equals(theRouteKey.getRequestType());
+	}
+
+	@Override
+	public Collection<String> getRouteOperationNames() {
+		return Collections.singletonList(Constants.OPERATION_NAME_GRAPHQL);
+	}
+
 	@Override
 	public MethodMatchEnum incomingServerRequestMatchesMethod(RequestDetails theRequest) {
 		if (Constants.OPERATION_NAME_GRAPHQL.equals(theRequest.getOperation()) && myMethodRequestType.equals(theRequest.getRequestType())) {
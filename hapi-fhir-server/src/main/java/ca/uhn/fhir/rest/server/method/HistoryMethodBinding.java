@@ -43,6 +43,8 @@ import org.hl7.fhir.instance.model.api.IPrimitiveType;
 import javax.annotation.Nonnull;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 
@@ -109,6 +111,16 @@ public class HistoryMethodBinding extends BaseResourceReturningMethodBinding {
 		return true;
 	}
 
+	@Override
+	public boolean isRouteCandidate(RequestRouteKey theRouteKey) {
+		return Constants.PARAM_HISTORY.equals(theRouteKey.getOperation()) && !theRouteKey.hasVersion();
+	}
+
+	@Override
+	public Collection<String> getRouteOperationNames() {
+		return Collections.singletonList(Constants.PARAM_HISTORY);
+	}
+
 	// ObjectUtils.equals is replaced by a JDK7 method..
 	@Override
 	public MethodMatchEnum incomingServerRequestMatchesMethod(RequestDetails theRequest) {
@@ -50,6 +50,7 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -235,6 +236,29 @@ public class OperationMethodBinding extends BaseResourceReturningMethodBinding {
 		return myReturnType;
 	}
 
+	@Override
+	public boolean isRouteCandidate(RequestRouteKey theRouteKey) {
+		if (isBlank(theRouteKey.getOperation())) {
+			return false;
+		}
+		if (!myName.equals(theRouteKey.getOperation()) && !myName.equals(WILDCARD_NAME)) {
+			return false;
+		}
+		RequestTypeEnum requestType = theRouteKey.getRequestType();
+		if (requestType != RequestTypeEnum.GET && requestType != RequestTypeEnum.POST && requestType != RequestTypeEnum.DELETE) {
+			return false;
+		}
+		return !theRouteKey.hasId() || myCanOperateAtInstanceLevel;
+	}
+
+	@Override
+	public Collection<String> getRouteOperationNames() {
+		if (myName.equals(WILDCARD_NAME)) {
+			return Collections.emptyList();
+		}
+		return Collections.singletonList(myName);
+	}
+
 	@Override
 	public MethodMatchEnum incomingServerRequestMatchesMethod(RequestDetails theRequest) {
 		if (isBlank(theRequest.getOperation())) {
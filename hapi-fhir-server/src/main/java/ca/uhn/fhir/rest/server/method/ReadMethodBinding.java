@@ -50,6 +50,8 @@ import org.hl7.fhir.instance.model.api.IIdType;
 import javax.annotation.Nonnull;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Set;
@@ -114,6 +116,28 @@ public class ReadMethodBinding extends BaseResourceReturningMethodBinding {
 		return ReturnTypeEnum.RESOURCE;
 	}
 
+	@Override
+	public boolean isRouteCandidate(RequestRouteKey theRouteKey) {
+		if (!theRouteKey.hasId() || theRouteKey.hasCompartment()) {
+			return false;
+		}
+		if (!mySupportsVersion && theRouteKey.hasVersion()) {
+			return false;
+		}
+		if (theRouteKey.getRequestType() != RequestTypeEnum.GET && theRouteKey.getRequestType() != RequestTypeEnum.HEAD) {
+			return false;
+		}
+		if (Constants.PARAM_HISTORY.equals(theRouteKey.getOperation())) {
+			return mySupportsVersion && theRouteKey.hasVersion();
+		}
+		return StringUtils.isBlank(theRouteKey.getOperation());
+	}
+
+	@Override
+	public Collection<String> getRouteOperationNames() {
+		return Collections.singletonList(Constants.PARAM_HISTORY);
+	}
+
 	@Override
 	public MethodMatchEnum incomingServerRequestMatchesMethod(RequestDetails theRequest) {
 		if (!theRequest.getResourceName().equals(getResourceName())) {
@@ -0,0 +1,141 @@
+package ca.uhn.fhir.rest.server.method;
+
+/*-
+ * #%L
+ * HAPI FHIR - Server Framework
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.rest.api.RequestTypeEnum;
+import ca.uhn.fhir.rest.api.server.RequestDetails;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+import org.hl7.fhir.instance.model.api.IIdType;
+
+import java.util.Objects;
+
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+/**
+ * The parts of an incoming request which are used to select candidate method bindings
+ * from the route table held by {@link ca.uhn.fhir.rest.server.ResourceBinding}, before
+ * the candidates are asked to match the request parameters. This object is immutable.
+ *
+ * @see BaseMethodBinding#isRouteCandidate(RequestRouteKey)
+ * @since 6.6.0
+ */
+public final class RequestRouteKey {
+
+	private final RequestTypeEnum myRequestType;
+	private final String myOperation;
+	private final boolean myHasId;
+	private final boolean myHasVersion;
+	private final boolean myHasCompartment;
+	private final int myHashCode;
+
+	/**
+	 * Constructor
+	 *
+	 * @param theRequestType    The HTTP verb
+	 * @param theOperation      The operation, exactly as returned by {@link RequestDetails#getOperation()}
+	 * @param theHasId          Does the request have a resource ID
+	 * @param theHasVersion     Does the request have a resource ID with a version
+	 * @param theHasCompartment Does the request have a (non-blank) compartment name
+	 */
+	public RequestRouteKey(RequestTypeEnum theRequestType, String theOperation, boolean theHasId, boolean theHasVersion, boolean theHasCompartment) {
+		myRequestType = theRequestType;
+		myOperation = theOperation;
+		myHasId = theHasId;
+		myHasVersion = theHasVersion;
+		myHasCompartment = theHasCompartment;
+		myHashCode = Objects.hash(theRequestType, theOperation, theHasId, theHasVersion, theHasCompartment);
+	}
+
+	public RequestTypeEnum getRequestType() {
+		return myRequestType;
+	}
+
+	/**
+	 * Returns the operation, exactly as returned by {@link RequestDetails#getOperation()}. May be
+	 * <code>null</code> or blank.
+	 */
+	public String getOperation() {
+		return myOperation;
+	}
+
+	/**
+	 * Returns <code>true</code> if {@link RequestDetails#getId()} is not <code>null</code>
+	 */
+	public boolean hasId() {
+		return myHasId;
+	}
+
+	/**
+	 * Returns <code>true</code> if {@link RequestDetails#getId()} has a version ID part
+	 */
+	public boolean hasVersion() {
+		return myHasVersion;
+	}
+
+	/**
+	 * Returns <code>true</code> if {@link RequestDetails#getCompartmentName()} is not blank
+	 */
+	public boolean hasCompartment() {
+		return myHasCompartment;
+	}
+
+	@Override
+	public boolean equals(Object theO) {
+		if (this == theO) {
+			return true;
+		}
+		if (!(theO instanceof RequestRouteKey)) {
+			return false;
+		}
+		RequestRouteKey that = (RequestRouteKey) theO;
+		return myRequestType == that.myRequestType
+			&& myHasId == that.myHasId
+			&& myHasVersion == that.myHasVersion
+			&& myHasCompartment == that.myHasCompartment
+			&& Objects.equals(myOperation, that.myOperation);
+	}
+
+	@Override
+	public int hashCode() {
+		return myHashCode;
+	}
+
+	@Override
+	public String toString() {
+		return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+			.append("requestType", myRequestType)
+			.append("operation", myOperation)
+			.append("hasId", myHasId)
+			.append("hasVersion", myHasVersion)
+			.append("hasCompartment", myHasCompartment)
+			.toString();
+	}
+
+	public static RequestRouteKey fromRequest(RequestDetails theRequest) {
+		IIdType id = theRequest.getId();
+		boolean hasId = id != null;
+		boolean hasVersion = hasId && id.hasVersionIdPart();
+		boolean hasCompartment = isNotBlank(theRequest.getCompartmentName());
+		return new RequestRouteKey(theRequest.getRequestType(), theRequest.getOperation(), hasId, hasVersion, hasCompartment);
+	}
+
+}
@@ -43,6 +43,7 @@ import org.hl7.fhir.instance.model.api.IBaseResource;
 
 import javax.annotation.Nonnull;
 import java.lang.reflect.Method;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
@@ -138,6 +139,32 @@ public class SearchMethodBinding extends BaseResourceReturningMethodBinding {
 		return ReturnTypeEnum.BUNDLE;
 	}
 
+	@Override
+	public boolean isRouteCandidate(RequestRouteKey theRouteKey) {
+		RequestTypeEnum requestType = theRouteKey.getRequestType();
+		String operation = theRouteKey.getOperation();
+		if (requestType == RequestTypeEnum.GET) {
+			if (operation != null && !Constants.PARAM_SEARCH.equals(operation)) {
+				return false;
+			}
+		} else if (requestType == RequestTypeEnum.POST) {
+			if (!Constants.PARAM_SEARCH.equals(operation)) {
+				return false;
+			}
+		} else {
+			return false;
+		}
+		if (theRouteKey.hasId() && myIdParamIndex == null) {
+			return false;
+		}
+		return (myCompartmentName != null) == theRouteKey.hasCompartment();
+	}
+
+	@Override
+	public Collection<String> getRouteOperationNames() {
+		return Collections.singletonList(Constants.PARAM_SEARCH);
+	}
+
 	@Override
 	public MethodMatchEnum incomingServerRequestMatchesMethod(RequestDetails theRequest) {
 
@@ -183,6 +183,12 @@ public class ProviderConstants {
 	 */
 	public static final String OPERATION_REINDEX_PARAM_EVERYTHING = "everything";
 
+	/**
+	 * Whether the $reindex operation should also rewrite the stored body of every resource
+	 * version using the currently configured resource encoding
+	 */
+	public static final String OPERATION_REINDEX_PARAM_OPTIMIZE_STORAGE = "optimizeStorage";
+
 	/**
 	 * The Spring Batch job id of the delete expunge job created by a $delete-expunge operation
 	 */
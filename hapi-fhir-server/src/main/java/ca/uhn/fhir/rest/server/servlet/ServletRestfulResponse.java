@@ -27,6 +27,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletResponse;
 import java.io.Closeable;
@@ -69,6 +70,26 @@ public class ServletRestfulResponse extends BaseRestfulResponse<ServletRequestDe
 		return myOutputStream;
 	}
 
+	@Nullable
+	@Override
+	public OutputStream getResponseOutputStream(int theStatusCode, String theContentType, String theCharset, boolean theRespondGzip) throws IOException {
+		Validate.isTrue(myOutputStream == null, "getResponseOutputStream(int, String, String, boolean) called after getResponseOutputStream(int, String, Integer)");
+
+		// Like getResponseWriter(), this may be called again to write an error response
+		// after the servlet response has been reset, so we don't hold on to the stream
+		addHeaders();
+		HttpServletResponse httpResponse = getRequestDetails().getServletResponse();
+		httpResponse.setCharacterEncoding(theCharset);
+		httpResponse.setStatus(theStatusCode);
+		httpResponse.setContentType(theContentType);
+		OutputStream outputStream = httpResponse.getOutputStream();
+		if (theRespondGzip) {
+			httpResponse.addHeader(Constants.HEADER_CONTENT_ENCODING, Constants.ENCODING_GZIP);
+			outputStream = new GZIPOutputStream(outputStream);
+		}
+		return outputStream;
+	}
+
 	@Nonnull
 	@Override
 	public Writer getResponseWriter(int theStatusCode, String theContentType, String theCharset, boolean theRespondGzip) throws IOException {
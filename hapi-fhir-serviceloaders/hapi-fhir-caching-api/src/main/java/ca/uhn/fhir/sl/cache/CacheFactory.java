@@ -35,6 +35,15 @@ public class CacheFactory {
 		return cacheProvider.create(theTimeoutMillis, theMaximumSize);
 	}
 
+	/**
+	 * @param theEvictionListener Invoked every time an entry is evicted because of the size limit or expiry
+	 * @since 6.6.0
+	 */
+	public static  <K, V> Cache<K, V> build(long theTimeoutMillis, long theMaximumSize, Runnable theEvictionListener) {
+		CacheProvider<Object, Object> cacheProvider = getCacheProvider();
+		return cacheProvider.create(theTimeoutMillis, theMaximumSize, theEvictionListener);
+	}
+
 	public static  <K, V> LoadingCache<K, V> build(long theTimeoutMillis, long theMaximumSize, CacheLoader<K, V> cacheLoader) {
 		CacheProvider<K, V> cacheProvider = getCacheProvider();
 		return cacheProvider.create(theTimeoutMillis, theMaximumSize, cacheLoader);
@@ -5,6 +5,17 @@ public interface CacheProvider<K,V> {
 
     Cache create(long timeoutMillis, long maximumSize);
 
+    /**
+     * Creates a size-bounded cache which invokes the given listener every time an entry
+     * is evicted because of the size limit or expiry. Providers which can not report
+     * evictions may ignore the listener.
+     *
+     * @since 6.6.0
+     */
+    default Cache create(long timeoutMillis, long maximumSize, Runnable theEvictionListener) {
+        return create(timeoutMillis, maximumSize);
+    }
+
     LoadingCache create(long timeoutMillis, CacheLoader<K,V> cacheLoader);
 
     LoadingCache create(long timeoutMillis, long maximumSize, CacheLoader<K,V> cacheLoader);
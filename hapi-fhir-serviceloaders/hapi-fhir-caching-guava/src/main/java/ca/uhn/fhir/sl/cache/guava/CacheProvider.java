@@ -39,6 +39,21 @@ public class CacheProvider<K,V> implements ca.uhn.fhir.sl.cache.CacheProvider<K,
 		);
 	}
 
+	@Override
+	public Cache<K,V> create(long timeoutMillis, long maximumSize, Runnable theEvictionListener) {
+		return new CacheDelegator<K,V>(
+			CacheBuilder.newBuilder()
+				.expireAfterWrite(timeoutMillis, TimeUnit.MILLISECONDS)
+				.maximumSize(maximumSize)
+				.<K,V>removalListener(notification -> {
+					if (notification.wasEvicted()) {
+						theEvictionListener.run();
+					}
+				})
+				.build()
+		);
+	}
+
 	public LoadingCache<K,V> create(long timeoutMillis, long maximumSize, CacheLoader<K,V> loading) {
 		return new LoadingCacheDelegator<K,V>(
 			CacheBuilder.newBuilder()
@@ -0,0 +1,195 @@
+package ca.uhn.fhir.batch2.jobs.export;
+
+/*-
+ * #%L
+ * hapi-fhir-storage-batch2-jobs
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import ca.uhn.fhir.batch2.api.IJobDataSink;
+import ca.uhn.fhir.batch2.jobs.export.models.ExpandedResourcesList;
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.api.dao.IFhirResourceDao;
+import ca.uhn.fhir.jpa.binary.api.IBinaryStorageSvc;
+import ca.uhn.fhir.jpa.model.util.JpaConstants;
+import ca.uhn.fhir.parser.IParser;
+import ca.uhn.fhir.rest.api.Constants;
+import ca.uhn.fhir.rest.api.server.SystemRequestDetails;
+import ca.uhn.fhir.util.BinaryUtil;
+import ca.uhn.fhir.util.HapiExtensions;
+import com.google.common.io.CountingOutputStream;
+import com.google.common.io.FileBackedOutputStream;
+import org.hl7.fhir.instance.model.api.IBaseBinary;
+import org.hl7.fhir.instance.model.api.IBaseExtension;
+import org.hl7.fhir.instance.model.api.IBaseHasExtensions;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.instance.model.api.IIdType;
+import org.hl7.fhir.instance.model.api.IPrimitiveType;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Writes the resources of one type for a bulk export step as NDJSON straight into
+ * {@link IBinaryStorageSvc binary storage}. Each resource is encoded directly into the
+ * output stream of the current file, so the encoded resources are never collected into a
+ * list or stored as work chunk data. Once a file reaches the maximum size, it is stored
+ * and a new file is started.
+ * <p>
+ * Each file becomes a <code>Binary</code> resource whose data refers to the stored blob
+ * (the same way the binary storage interceptor externalizes large binaries), and a reference
+ * to that Binary is passed to the data sink.
+ * </p>
+ * <p>
+ * Data for the current file is held in memory up to {@link #IN_MEMORY_THRESHOLD} bytes, and
+ * spills over to a temporary file beyond that.
+ * </p>
+ */
+class BulkExportBinaryFileWriter {
+	static final int IN_MEMORY_THRESHOLD = 1024 * 1024;
+	private static final Logger ourLog = getLogger(BulkExportBinaryFileWriter.class);
+	private final FhirContext myFhirContext;
+	private final IFhirResourceDao<IBaseBinary> myBinaryDao;
+	private final IBinaryStorageSvc myBinaryStorageSvc;
+	private final IParser myParser;
+	private final String myResourceType;
+	private final long myFileMaximumSize;
+	private final IJobDataSink<ExpandedResourcesList> myDataSink;
+	private FileBackedOutputStream myFileOutputStream;
+	private CountingOutputStream myCountingOutputStream;
+	private Writer myWriter;
+	private int myResourceCount;
+	private int myFileCount;
+
+	/**
+	 * Constructor
+	 *
+	 * @param theResourceType    The resource type being written
+	 * @param theFileMaximumSize A file is stored and a new one is started once it has at least this many bytes
+	 * @param theDataSink        Receives a reference to each Binary which is created
+	 */
+	BulkExportBinaryFileWriter(FhirContext theFhirContext, IFhirResourceDao<IBaseBinary> theBinaryDao, IBinaryStorageSvc theBinaryStorageSvc, IParser theParser, String theResourceType, long theFileMaximumSize, IJobDataSink<ExpandedResourcesList> theDataSink) {
+		myFhirContext = theFhirContext;
+		myBinaryDao = theBinaryDao;
+		myBinaryStorageSvc = theBinaryStorageSvc;
+		myParser = theParser;
+		myResourceType = theResourceType;
+		myFileMaximumSize = theFileMaximumSize;
+		myDataSink = theDataSink;
+	}
+
+	/**
+	 * Encodes the resource as one line of the current file
+	 */
+	void write(IBaseResource theResource) throws IOException {
+		if (myWriter == null) {
+			myFileOutputStream = new FileBackedOutputStream(IN_MEMORY_THRESHOLD, true);
+			myCountingOutputStream = new CountingOutputStream(myFileOutputStream);
+			myWriter = new OutputStreamWriter(myCountingOutputStream, Constants.CHARSET_UTF8);
+			myResourceCount = 0;
+		}
+
+		myParser.encodeResourceToWriter(theResource, myWriter);
+		myWriter.append('\n');
+		myWriter.flush();
+		myResourceCount++;
+
+		if (myCountingOutputStream.getCount() >= myFileMaximumSize) {
+			storeFile();
+		}
+	}
+
+	/**
+	 * Stores the current file, if any resources have been written to it since the last one was stored
+	 */
+	void flush() throws IOException {
+		if (myWriter != null) {
+			storeFile();
+		}
+	}
+
+	/**
+	 * Discards the current file without storing it
+	 */
+	void discard() throws IOException {
+		if (myWriter != null) {
+			myWriter.close();
+			myFileOutputStream.reset();
+			myWriter = null;
+		}
+	}
+
+	int getFileCount() {
+		return myFileCount;
+	}
+
+	private void storeFile() throws IOException {
+		myWriter.close();
+		long size = myCountingOutputStream.getCount();
+		try {
+			String blobId = myBinaryStorageSvc.newBlobId();
+
+			IBaseBinary binary = BinaryUtil.newBinary(myFhirContext);
+			binary.setContentType(Constants.CT_FHIR_NDJSON);
+			addExternalizedBinaryId(binary, blobId);
+
+			IIdType id = myBinaryDao
+				.create(binary, new SystemRequestDetails().setRequestPartitionId(RequestPartitionId.defaultPartition()))
+				.getId()
+				.toUnqualifiedVersionless();
+
+			try (InputStream inputStream = myFileOutputStream.asByteSource().openStream()) {
+				myBinaryStorageSvc.storeBlob(id, blobId, Constants.CT_FHIR_NDJSON, inputStream);
+			}
+
+			ExpandedResourcesList output = new ExpandedResourcesList();
+			output.setResourceType(myResourceType);
+			output.setBinaryId(id.getValueAsString());
+			output.setBinaryResourceCount(myResourceCount);
+			myDataSink.accept(output);
+			myFileCount++;
+
+			ourLog.info("Streamed {} resources of type {} ({} bytes) to binary {}", myResourceCount, myResourceType, size, id.getValue());
+		} finally {
+			myFileOutputStream.reset();
+			myWriter = null;
+		}
+	}
+
+	/**
+	 * Points the data of the Binary at the stored blob. The extension is flagged as system defined, so
+	 * that the binary storage interceptor accepts it.
+	 */
+	@SuppressWarnings("unchecked")
+	private void addExternalizedBinaryId(IBaseBinary theBinary, String theBlobId) {
+		IBaseHasExtensions data = (IBaseHasExtensions) BinaryUtil.getOrCreateData(myFhirContext, theBinary);
+		IBaseExtension<?, ?> ext = data.addExtension();
+		ext.setUrl(HapiExtensions.EXT_EXTERNALIZED_BINARY_ID);
+		ext.setUserData(JpaConstants.EXTENSION_EXT_SYSTEMDEFINED, Boolean.TRUE);
+		IPrimitiveType<String> blobId = (IPrimitiveType<String>) myFhirContext.getElementDefinition("string").newInstance();
+		blobId.setValueAsString(theBlobId);
+		ext.setValue(blobId);
+	}
+
+}
@@ -30,23 +30,30 @@ import ca.uhn.fhir.batch2.jobs.export.models.ExpandedResourcesList;
 import ca.uhn.fhir.batch2.jobs.export.models.ResourceIdList;
 import ca.uhn.fhir.batch2.jobs.models.BatchResourceId;
 import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.i18n.Msg;
 import ca.uhn.fhir.jpa.api.dao.DaoRegistry;
 import ca.uhn.fhir.jpa.api.dao.IFhirResourceDao;
 import ca.uhn.fhir.jpa.api.svc.IIdHelperService;
+import ca.uhn.fhir.jpa.binary.api.IBinaryStorageSvc;
 import ca.uhn.fhir.jpa.bulk.export.api.IBulkExportProcessor;
 import ca.uhn.fhir.jpa.model.entity.StorageSettings;
 import ca.uhn.fhir.parser.IParser;
 import ca.uhn.fhir.rest.server.interceptor.ResponseTerminologyTranslationSvc;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ListMultimap;
+import org.hl7.fhir.instance.model.api.IBaseBinary;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.slf4j.LoggerFactory.getLogger;
 
@@ -73,6 +80,8 @@ public class ExpandResourcesStep implements IJobStepWorker<BulkExportJobParamete
 
 	private volatile ResponseTerminologyTranslationSvc myResponseTerminologyTranslationSvc;
 
+	private volatile IBinaryStorageSvc myBinaryStorageSvc;
+
 	@Nonnull
 	@Override
 	public RunOutcome run(@Nonnull StepExecutionDetails<BulkExportJobParameters, ResourceIdList> theStepExecutionDetails,
@@ -102,6 +111,13 @@ public class ExpandResourcesStep implements IJobStepWorker<BulkExportJobParamete
 			terminologyTranslationSvc.processResourcesForTerminologyTranslation(allResources);
 		}
 
+		// stream them straight to binary storage if possible
+		IBinaryStorageSvc binaryStorageSvc = getBinaryStorageSvcForStreaming();
+		if (binaryStorageSvc != null) {
+			streamToBinaryStorage(allResources, jobParameters, binaryStorageSvc, theDataSink);
+			return RunOutcome.SUCCESS;
+		}
+
 		// encode them
 		ListMultimap<String, String> resources = encodeToString(allResources, jobParameters);
 
@@ -124,6 +140,66 @@ public class ExpandResourcesStep implements IJobStepWorker<BulkExportJobParamete
 		return RunOutcome.SUCCESS;
 	}
 
+	/**
+	 * Returns the binary storage service if resources should be streamed straight
+	 * to binary storage, or <code>null</code> otherwise
+	 */
+	@Nullable
+	private IBinaryStorageSvc getBinaryStorageSvcForStreaming() {
+		if (!myStorageSettings.isBulkExportStreamToBinaryStorage()) {
+			return null;
+		}
+		IBinaryStorageSvc binaryStorageSvc = myBinaryStorageSvc;
+		if (binaryStorageSvc == null) {
+			binaryStorageSvc = myApplicationContext.getBeanProvider(IBinaryStorageSvc.class).getIfAvailable();
+			if (binaryStorageSvc == null) {
+				ourLog.warn("Bulk export streaming to binary storage is enabled, but no binary storage service is available");
+				return null;
+			}
+			myBinaryStorageSvc = binaryStorageSvc;
+		}
+		return binaryStorageSvc;
+	}
+
+	/**
+	 * Encodes each resource straight into a file in binary storage, and passes only
+	 * a reference to each file to the data sink. Files are rolled over once they reach
+	 * the maximum size.
+	 */
+	private void streamToBinaryStorage(List<IBaseResource> theResources, BulkExportJobParameters theParameters, IBinaryStorageSvc theBinaryStorageSvc, IJobDataSink<ExpandedResourcesList> theDataSink) {
+		IParser parser = getParser(theParameters);
+
+		@SuppressWarnings("unchecked")
+		IFhirResourceDao<IBaseBinary> binaryDao = myDaoRegistry.getResourceDao("Binary");
+
+		Map<String, BulkExportBinaryFileWriter> writers = new LinkedHashMap<>();
+		try {
+			for (IBaseResource resource : theResources) {
+				String type = myFhirContext.getResourceType(resource);
+				BulkExportBinaryFileWriter writer = writers.computeIfAbsent(type, t -> new BulkExportBinaryFileWriter(myFhirContext, binaryDao, theBinaryStorageSvc, parser, t, myStorageSettings.getBulkExportFileMaximumSize(), theDataSink));
+				writer.write(resource);
+			}
+			for (BulkExportBinaryFileWriter next : writers.values()) {
+				next.flush();
+			}
+		} catch (IOException e) {
+			for (BulkExportBinaryFileWriter next : writers.values()) {
+				try {
+					next.discard();
+				} catch (IOException e2) {
+					ourLog.warn("Failed to discard bulk export file: {}", e2.toString());
+				}
+			}
+			String errorMsg = "Failure to stream resources to binary storage: " + e.getMessage();
+			ourLog.error(errorMsg, e);
+			throw new JobExecutionFailedException(Msg.code(2285) + errorMsg);
+		}
+
+		for (Map.Entry<String, BulkExportBinaryFileWriter> next : writers.entrySet()) {
+			ourLog.info("Streaming of resources of type {} completed in {} file(s)", next.getKey(), next.getValue().getFileCount());
+		}
+	}
+
 	private List<IBaseResource> fetchAllResources(ResourceIdList theIds) {
 		List<IBaseResource> resources = new ArrayList<>();
 
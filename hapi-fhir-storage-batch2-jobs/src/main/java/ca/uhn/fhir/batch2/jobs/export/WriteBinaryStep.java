@@ -64,6 +64,22 @@ public class WriteBinaryStep implements IJobStepWorker<BulkExportJobParameters,
 								 @Nonnull IJobDataSink<BulkExportBinaryFileId> theDataSink) throws JobExecutionFailedException {
 
 		ExpandedResourcesList expandedResources = theStepExecutionDetails.getData();
+
+		if (expandedResources.getBinaryId() != null) {
+			// The resources were already streamed to binary storage by the previous step
+			BulkExportBinaryFileId bulkExportBinaryFileId = new BulkExportBinaryFileId();
+			bulkExportBinaryFileId.setBinaryId(expandedResources.getBinaryId());
+			bulkExportBinaryFileId.setResourceType(expandedResources.getResourceType());
+			theDataSink.accept(bulkExportBinaryFileId);
+
+			ourLog.info("Binary {} already contains {} resources of type {}",
+				expandedResources.getBinaryId(),
+				expandedResources.getBinaryResourceCount(),
+				expandedResources.getResourceType());
+
+			return new RunOutcome(expandedResources.getBinaryResourceCount());
+		}
+
 		final int numResourcesProcessed = expandedResources.getStringifiedResources().size();
 
 		ourLog.info("Write binary step of Job Export");
@@ -39,6 +39,21 @@ public class ExpandedResourcesList extends BulkExportJobBase {
 	@JsonProperty("resourceType")
 	private String myResourceType;
 
+	/**
+	 * When the resources were streamed straight to binary
+	 * storage, this is the ID of the Binary holding them
+	 * (and no stringified resources are included).
+	 */
+	@JsonProperty("binaryId")
+	private String myBinaryId;
+
+	/**
+	 * Number of resources in the Binary identified
+	 * by {@link #getBinaryId()}
+	 */
+	@JsonProperty("binaryResourceCount")
+	private int myBinaryResourceCount;
+
 	public List<String> getStringifiedResources() {
 		return myStringifiedResources;
 	}
@@ -54,4 +69,20 @@ public class ExpandedResourcesList extends BulkExportJobBase {
 	public void setResourceType(String theResourceType) {
 		myResourceType = theResourceType;
 	}
+
+	public String getBinaryId() {
+		return myBinaryId;
+	}
+
+	public void setBinaryId(String theBinaryId) {
+		myBinaryId = theBinaryId;
+	}
+
+	public int getBinaryResourceCount() {
+		return myBinaryResourceCount;
+	}
+
+	public void setBinaryResourceCount(int theBinaryResourceCount) {
+		myBinaryResourceCount = theBinaryResourceCount;
+	}
 }
@@ -52,6 +52,11 @@ public class BulkImportJobParameters implements IModelJson {
 	@Nullable
 	private Integer myMaxBatchResourceCount;
 
+	@JsonProperty(value = "maxConcurrentFileFetches", required = false)
+	@Min(1)
+	@Nullable
+	private Integer myMaxConcurrentFileFetches;
+
 	public List<String> getNdJsonUrls() {
 		if (myNdJsonUrls == null) {
 			myNdJsonUrls = new ArrayList<>();
@@ -78,6 +83,28 @@ public class BulkImportJobParameters implements IModelJson {
 		return this;
 	}
 
+	/**
+	 * The maximum number of NDJSON files that will be fetched concurrently. Defaults
+	 * to 1, meaning that files are fetched one at a time.
+	 *
+	 * @since 6.6.0
+	 */
+	@Nullable
+	public Integer getMaxConcurrentFileFetches() {
+		return myMaxConcurrentFileFetches;
+	}
+
+	/**
+	 * The maximum number of NDJSON files that will be fetched concurrently. Defaults
+	 * to 1, meaning that files are fetched one at a time.
+	 *
+	 * @since 6.6.0
+	 */
+	public BulkImportJobParameters setMaxConcurrentFileFetches(@Nullable Integer theMaxConcurrentFileFetches) {
+		myMaxConcurrentFileFetches = theMaxConcurrentFileFetches;
+		return this;
+	}
+
 	public BulkImportJobParameters addNdJsonUrl(String theUrl) {
 		Validate.notBlank(theUrl, "theUrl must not be blank or null");
 		getNdJsonUrls().add(theUrl);
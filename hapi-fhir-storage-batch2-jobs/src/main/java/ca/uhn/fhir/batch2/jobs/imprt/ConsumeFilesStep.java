@@ -42,6 +42,7 @@ import ca.uhn.fhir.rest.api.server.storage.IResourcePersistentId;
 import ca.uhn.fhir.rest.api.server.storage.TransactionDetails;
 import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
 import ca.uhn.fhir.rest.server.exceptions.PreconditionFailedException;
+import ca.uhn.fhir.util.StopWatch;
 import org.apache.commons.io.LineIterator;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.instance.model.api.IIdType;
@@ -55,6 +56,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
@@ -97,8 +99,11 @@ public class ConsumeFilesStep implements ILastJobStepWorker<BulkImportJobParamet
 
 		ourLog.info("Bulk loading {} resources from source {}", resources.size(), sourceName);
 
+		StopWatch sw = new StopWatch();
 		storeResources(resources);
 
+		ourLog.info("Bulk loaded {} resources from source {} in {} ({}/sec)", resources.size(), sourceName, sw, sw.formatThroughput(resources.size(), TimeUnit.SECONDS));
+
 		return new RunOutcome(resources.size());
 	}
 
@@ -134,6 +139,7 @@ public class ConsumeFilesStep implements ILastJobStepWorker<BulkImportJobParamet
 		}
 
 		mySystemDao.preFetchResources(resolvedIds);
+		mySystemDao.prepareForBulkWrite(theResources, theTransactionDetails);
 
 		for (IBaseResource next : theResources) {
 			updateResource(theRequestDetails, theTransactionDetails, next);
@@ -36,6 +36,7 @@ import ca.uhn.fhir.util.StopWatch;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.LineIterator;
 import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.impl.client.CloseableHttpClient;
@@ -48,8 +49,13 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
@@ -69,78 +75,132 @@ public class FetchFilesStep implements IFirstJobStepWorker<BulkImportJobParamete
 			maxBatchResourceCount = BulkImportAppCtx.PARAM_MAXIMUM_BATCH_SIZE_DEFAULT;
 		}
 
-		try (CloseableHttpClient httpClient = newHttpClient(theStepExecutionDetails)) {
+		Integer maxConcurrentFileFetches = theStepExecutionDetails
+			.getParameters()
+			.getMaxConcurrentFileFetches();
+		if (maxConcurrentFileFetches == null || maxConcurrentFileFetches <= 0) {
+			maxConcurrentFileFetches = 1;
+		}
+
+		List<String> urls = theStepExecutionDetails.getParameters().getNdJsonUrls();
+		int concurrency = Math.min(maxConcurrentFileFetches, urls.size());
+
+		try (CloseableHttpClient httpClient = newHttpClient(theStepExecutionDetails, concurrency)) {
 
 			StopWatch outerSw = new StopWatch();
-			List<String> urls = theStepExecutionDetails.getParameters().getNdJsonUrls();
 
-			for (String nextUrl : urls) {
+			if (concurrency <= 1) {
+				for (String nextUrl : urls) {
+					fetchUrl(httpClient, nextUrl, maxBatchResourceCount, theDataSink);
+				}
+			} else {
+				fetchUrlsConcurrently(httpClient, urls, concurrency, maxBatchResourceCount, theDataSink);
+			}
 
-				ourLog.info("Fetching URL: {}", nextUrl);
-				StopWatch urlSw = new StopWatch();
+			ourLog.info("Loaded and processed {} URLs in {}", urls.size(), outerSw);
 
-				try (CloseableHttpResponse response = httpClient.execute(new HttpGet(nextUrl))) {
-					int statusCode = response.getStatusLine().getStatusCode();
-					if (statusCode >= 400) {
-						throw new JobExecutionFailedException(Msg.code(2056) + "Received HTTP " + statusCode + " from URL: " + nextUrl);
-					}
+			return new RunOutcome(0);
 
-					String contentType = response.getEntity().getContentType().getValue();
-					Validate.isTrue(hasMatchingSubstring(contentType, ourValidContentTypes), "Received content type \"%s\" from URL: %s. This format is not one of the supported content type: %s", contentType, nextUrl, getContentTypesString());
-					if (hasMatchingSubstring(contentType, ourValidNonNdJsonContentTypes)) {
-						ourLog.info("Received non-NDJSON content type \"{}\" from URL: {}. It will be processed but it may not complete correctly if the actual data is not NDJSON.", contentType, nextUrl);
-					}
+		} catch (IOException e) {
+			throw new InternalErrorException(Msg.code(2054) + e.getMessage(), e);
+		}
+	}
 
-					try (InputStream inputStream = response.getEntity().getContent()) {
-						try (LineIterator lineIterator = new LineIterator(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+	private void fetchUrlsConcurrently(CloseableHttpClient theHttpClient, List<String> theUrls, int theConcurrency, int theMaxBatchResourceCount, IJobDataSink<NdJsonFileJson> theDataSink) {
+		ourLog.info("Fetching {} URLs using {} concurrent fetches", theUrls.size(), theConcurrency);
+
+		BasicThreadFactory threadFactory = new BasicThreadFactory.Builder()
+			.namingPattern("bulk-import-fetch-%d")
+			.daemon(false)
+			.build();
+		ExecutorService executor = Executors.newFixedThreadPool(theConcurrency, threadFactory);
+		try {
+			List<Future<Void>> futures = new ArrayList<>();
+			for (String nextUrl : theUrls) {
+				futures.add(executor.submit(() -> {
+					fetchUrl(theHttpClient, nextUrl, theMaxBatchResourceCount, theDataSink);
+					return null;
+				}));
+			}
+
+			for (Future<Void> next : futures) {
+				next.get();
+			}
 
-							int chunkCount = 0;
-							int lineCount = 0;
-							StringBuilder builder = new StringBuilder();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new InternalErrorException(Msg.code(2287) + cause.getMessage(), cause);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InternalErrorException(Msg.code(2288) + "Interrupted while fetching NDJSON files", e);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
 
-							while (lineIterator.hasNext()) {
+	private void fetchUrl(CloseableHttpClient theHttpClient, String theUrl, int theMaxBatchResourceCount, IJobDataSink<NdJsonFileJson> theDataSink) throws IOException {
+		ourLog.info("Fetching URL: {}", theUrl);
+		StopWatch urlSw = new StopWatch();
 
-								String nextLine = lineIterator.nextLine();
-								builder.append(nextLine).append('\n');
+		try (CloseableHttpResponse response = theHttpClient.execute(new HttpGet(theUrl))) {
+			int statusCode = response.getStatusLine().getStatusCode();
+			if (statusCode >= 400) {
+				throw new JobExecutionFailedException(Msg.code(2056) + "Received HTTP " + statusCode + " from URL: " + theUrl);
+			}
 
-								lineCount++;
-								int charCount = builder.length();
-								int batchSizeChars = (int) (20 * FileUtils.ONE_MB);
-								if (lineCount >= maxBatchResourceCount || charCount >= batchSizeChars || !lineIterator.hasNext()) {
+			String contentType = response.getEntity().getContentType().getValue();
+			Validate.isTrue(hasMatchingSubstring(contentType, ourValidContentTypes), "Received content type \"%s\" from URL: %s. This format is not one of the supported content type: %s", contentType, theUrl, getContentTypesString());
+			if (hasMatchingSubstring(contentType, ourValidNonNdJsonContentTypes)) {
+				ourLog.info("Received non-NDJSON content type \"{}\" from URL: {}. It will be processed but it may not complete correctly if the actual data is not NDJSON.", contentType, theUrl);
+			}
 
-									ourLog.info("Loaded chunk {} of {} NDJSON file with {} resources from URL: {}", chunkCount, FileUtil.formatFileSize(charCount), lineCount, nextUrl);
+			try (InputStream inputStream = response.getEntity().getContent()) {
+				try (LineIterator lineIterator = new LineIterator(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
 
-									NdJsonFileJson data = new NdJsonFileJson();
-									data.setNdJsonText(builder.toString());
-									data.setSourceName(nextUrl);
-									theDataSink.accept(data);
+					int chunkCount = 0;
+					int lineCount = 0;
+					StringBuilder builder = new StringBuilder();
 
-									builder.setLength(0);
-									lineCount = 0;
-									chunkCount++;
-								}
+					while (lineIterator.hasNext()) {
 
-							}
+						String nextLine = lineIterator.nextLine();
+						builder.append(nextLine).append('\n');
 
-						}
-					}
-				}
+						lineCount++;
+						int charCount = builder.length();
+						int batchSizeChars = (int) (20 * FileUtils.ONE_MB);
+						if (lineCount >= theMaxBatchResourceCount || charCount >= batchSizeChars || !lineIterator.hasNext()) {
 
-				ourLog.info("Loaded and processed URL in {}", urlSw);
+							ourLog.info("Loaded chunk {} of {} NDJSON file with {} resources from URL: {}", chunkCount, FileUtil.formatFileSize(charCount), lineCount, theUrl);
 
-			}
+							NdJsonFileJson data = new NdJsonFileJson();
+							data.setNdJsonText(builder.toString());
+							data.setSourceName(theUrl);
+							theDataSink.accept(data);
 
-			ourLog.info("Loaded and processed {} URLs in {}", urls.size(), outerSw);
+							builder.setLength(0);
+							lineCount = 0;
+							chunkCount++;
+						}
 
-			return new RunOutcome(0);
+					}
 
-		} catch (IOException e) {
-			throw new InternalErrorException(Msg.code(2054) + e.getMessage(), e);
+				}
+			}
 		}
+
+		ourLog.info("Loaded and processed URL {} in {}", theUrl, urlSw);
 	}
 
-	private CloseableHttpClient newHttpClient(StepExecutionDetails<BulkImportJobParameters, ?> theStepExecutionDetails) {
+	private CloseableHttpClient newHttpClient(StepExecutionDetails<BulkImportJobParameters, ?> theStepExecutionDetails, int theConcurrency) {
 		HttpClientBuilder builder = HttpClientBuilder.create();
+		if (theConcurrency > 1) {
+			builder.setMaxConnPerRoute(theConcurrency);
+			builder.setMaxConnTotal(theConcurrency);
+		}
 
 		String httpBasicCredentials = theStepExecutionDetails.getParameters().getHttpBasicCredentials();
 		if (isNotBlank(httpBasicCredentials)) {
@@ -21,7 +21,34 @@ package ca.uhn.fhir.batch2.jobs.reindex;
  */
 
 import ca.uhn.fhir.batch2.jobs.parameters.PartitionedUrlListJobParameters;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
 public class ReindexJobParameters extends PartitionedUrlListJobParameters {
 
+	@JsonProperty(value = "optimizeStorage", required = false)
+	private Boolean myOptimizeStorage;
+
+	/**
+	 * If <code>true</code>, the stored body of every version of each reindexed resource is also
+	 * rewritten using the currently configured resource encoding. This can be used to migrate
+	 * existing data after the storage encoding has been changed.
+	 *
+	 * @since 6.6.0
+	 */
+	public boolean isOptimizeStorage() {
+		return Boolean.TRUE.equals(myOptimizeStorage);
+	}
+
+	/**
+	 * If <code>true</code>, the stored body of every version of each reindexed resource is also
+	 * rewritten using the currently configured resource encoding. This can be used to migrate
+	 * existing data after the storage encoding has been changed.
+	 *
+	 * @since 6.6.0
+	 */
+	public ReindexJobParameters setOptimizeStorage(boolean theOptimizeStorage) {
+		myOptimizeStorage = theOptimizeStorage;
+		return this;
+	}
+
 }
@@ -57,10 +57,15 @@ public class ReindexProvider {
 		myUrlPartitioner = theUrlPartitioner;
 	}
 
+	public IBaseParameters Reindex(List<IPrimitiveType<String>> theUrlsToReindex, RequestDetails theRequestDetails) {
+		return Reindex(theUrlsToReindex, theRequestDetails, null);
+	}
+
 	@Operation(name = ProviderConstants.OPERATION_REINDEX, idempotent = false)
 	public IBaseParameters Reindex(
 		@OperationParam(name = ProviderConstants.OPERATION_REINDEX_PARAM_URL, typeName = "string", min = 0, max = OperationParam.MAX_UNLIMITED) List<IPrimitiveType<String>> theUrlsToReindex,
-		RequestDetails theRequestDetails
+		RequestDetails theRequestDetails,
+		@OperationParam(name = ProviderConstants.OPERATION_REINDEX_PARAM_OPTIMIZE_STORAGE, typeName = "boolean", min = 0, max = 1) IPrimitiveType<Boolean> theOptimizeStorage
 	) {
 
 		ReindexJobParameters params = new ReindexJobParameters();
@@ -71,6 +76,9 @@ public class ReindexProvider {
 				.map(url -> myUrlPartitioner.partitionUrl(url, theRequestDetails))
 				.forEach(params::addPartitionedUrl);
 		}
+		if (theOptimizeStorage != null && theOptimizeStorage.getValue() != null) {
+			params.setOptimizeStorage(theOptimizeStorage.getValue());
+		}
 
 		ReadPartitionIdRequestDetails details= new ReadPartitionIdRequestDetails(null, RestOperationTypeEnum.EXTENDED_OPERATION_SERVER, null, null, null);
 		RequestPartitionId requestPartition = myRequestPartitionHelperSvc.determineReadPartitionForRequest(theRequestDetails, null, details);
@@ -12,14 +12,23 @@ import ca.uhn.fhir.batch2.model.JobInstance;
 import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.jpa.api.dao.DaoRegistry;
 import ca.uhn.fhir.jpa.api.dao.IFhirResourceDao;
+import ca.uhn.fhir.jpa.api.model.DaoMethodOutcome;
 import ca.uhn.fhir.jpa.api.svc.IIdHelperService;
+import ca.uhn.fhir.jpa.binary.api.IBinaryStorageSvc;
+import ca.uhn.fhir.jpa.binstore.MemoryBinaryStorageSvcImpl;
 import ca.uhn.fhir.jpa.bulk.export.api.IBulkExportProcessor;
 import ca.uhn.fhir.jpa.model.dao.JpaPid;
 import ca.uhn.fhir.jpa.model.entity.StorageSettings;
+import ca.uhn.fhir.rest.api.Constants;
+import ca.uhn.fhir.rest.api.server.RequestDetails;
 import ca.uhn.fhir.rest.api.server.bulk.BulkDataExportOptions;
 import ca.uhn.fhir.rest.api.server.storage.BaseResourcePersistentId;
 import ca.uhn.fhir.rest.server.interceptor.ResponseTerminologyTranslationSvc;
+import ca.uhn.fhir.util.HapiExtensions;
+import org.hl7.fhir.instance.model.api.IBaseBinary;
 import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.Binary;
+import org.hl7.fhir.r4.model.IdType;
 import org.hl7.fhir.r4.model.Patient;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -28,16 +37,28 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationContext;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -56,6 +77,9 @@ public class ExpandResourcesStepTest {
 	@Mock
 	IIdHelperService myIdHelperService;
 
+	@Mock
+	private ApplicationContext myApplicationContext;
+
 	@Spy
 	private FhirContext myFhirContext = FhirContext.forR4Cached();
 
@@ -145,4 +169,102 @@ public class ExpandResourcesStepTest {
 		assertFalse(stringifiedElement.contains("\n"));
 		assertFalse(stringifiedElement.contains(" "));
 	}
+
+	@Test
+	public void jobComplete_streamToBinaryStorage_rollsFilesAndPassesReferences() throws IOException {
+		//setup
+		myStorageSettings.setBulkExportStreamToBinaryStorage(true);
+		myStorageSettings.setBulkExportFileMaximumSize(1000);
+		MemoryBinaryStorageSvcImpl binaryStorageSvc = new MemoryBinaryStorageSvcImpl();
+		ObjectProvider<IBinaryStorageSvc> binaryStorageSvcProvider = mock(ObjectProvider.class);
+		when(binaryStorageSvcProvider.getIfAvailable()).thenReturn(binaryStorageSvc);
+		when(myApplicationContext.getBeanProvider(IBinaryStorageSvc.class)).thenReturn(binaryStorageSvcProvider);
+
+		JobInstance instance = new JobInstance();
+		instance.setInstanceId("1");
+		IJobDataSink<ExpandedResourcesList> sink = mock(IJobDataSink.class);
+		IFhirResourceDao patientDao = mock(IFhirResourceDao.class);
+		IFhirResourceDao binaryDao = mock(IFhirResourceDao.class);
+		when(myDaoRegistry.getResourceDao(eq("Patient"))).thenReturn(patientDao);
+		when(myDaoRegistry.getResourceDao(eq("Binary"))).thenReturn(binaryDao);
+		AtomicInteger binaryCounter = new AtomicInteger();
+		when(binaryDao.create(any(IBaseBinary.class), any(RequestDetails.class))).thenAnswer(t -> {
+			DaoMethodOutcome outcome = new DaoMethodOutcome();
+			outcome.setId(new IdType("Binary/" + binaryCounter.incrementAndGet() + "/_history/1"));
+			return outcome;
+		});
+
+		ResourceIdList idList = new ResourceIdList();
+		idList.setResourceType("Patient");
+		ArrayList<IBaseResource> resources = new ArrayList<>();
+		ArrayList<BatchResourceId> batchResourceIds = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			String stringId = String.valueOf(i);
+			BatchResourceId batchResourceId = new BatchResourceId();
+			batchResourceId.setResourceType("Patient");
+			batchResourceId.setId(stringId);
+			batchResourceIds.add(batchResourceId);
+
+			Patient patient = new Patient();
+			patient.setId(stringId);
+			patient.addName().setFamily("Family " + i);
+			resources.add(patient);
+		}
+		idList.setIds(batchResourceIds);
+
+		StepExecutionDetails<BulkExportJobParameters, ResourceIdList> input = createInput(
+			idList,
+			createParameters(),
+			instance
+		);
+		ArrayList<IBaseResource> clone = new ArrayList<>(resources);
+		when(patientDao.readByPid(any(BaseResourcePersistentId.class))).thenAnswer(i -> clone.remove(0));
+		when(myIdHelperService.newPidFromStringIdAndResourceName(anyString(), anyString())).thenReturn(JpaPid.fromId(1L));
+
+		// test
+		RunOutcome outcome = mySecondStep.run(input, sink);
+
+		// verify
+		assertEquals(RunOutcome.SUCCESS, outcome);
+
+		ArgumentCaptor<ExpandedResourcesList> expandedCaptor = ArgumentCaptor.forClass(ExpandedResourcesList.class);
+		verify(sink, atLeast(2))
+			.accept(expandedCaptor.capture());
+		List<ExpandedResourcesList> files = expandedCaptor.getAllValues();
+		assertEquals(binaryCounter.get(), files.size());
+
+		ArgumentCaptor<IBaseBinary> binaryCaptor = ArgumentCaptor.forClass(IBaseBinary.class);
+		verify(binaryDao, times(files.size())).create(binaryCaptor.capture(), any(RequestDetails.class));
+
+		StringBuilder allLines = new StringBuilder();
+		int resourceCount = 0;
+		for (int i = 0; i < files.size(); i++) {
+			ExpandedResourcesList file = files.get(i);
+			assertEquals("Patient", file.getResourceType());
+			assertEquals("Binary/" + (i + 1), file.getBinaryId());
+			assertNull(file.getStringifiedResources());
+			resourceCount += file.getBinaryResourceCount();
+
+			// The Binary only refers to the blob, which holds the NDJSON
+			IBaseBinary binary = binaryCaptor.getAllValues().get(i);
+			assertEquals(Constants.CT_FHIR_NDJSON, binary.getContentType());
+			assertNull(binary.getContent());
+			String blobId = ((Binary) binary).getDataElement().getExtensionString(HapiExtensions.EXT_EXTERNALIZED_BINARY_ID);
+			byte[] blob = binaryStorageSvc.fetchBlob(new IdType(file.getBinaryId()), blobId);
+			String ndjson = new String(blob, StandardCharsets.UTF_8);
+			assertEquals(file.getBinaryResourceCount(), ndjson.split("\n").length);
+			if (i < files.size() - 1) {
+				assertThat(blob.length, greaterThanOrEqualTo(1000));
+			}
+			allLines.append(ndjson);
+		}
+		assertEquals(resources.size(), resourceCount);
+
+		String[] lines = allLines.toString().split("\n");
+		assertEquals(resources.size(), lines.length);
+		for (int i = 0; i < lines.length; i++) {
+			Patient patient = myFhirContext.newJsonParser().parseResource(Patient.class, lines[i]);
+			assertEquals("Family " + i, patient.getNameFirstRep().getFamily());
+		}
+	}
 }
@@ -25,6 +25,7 @@ import static ca.uhn.fhir.rest.api.Constants.CT_FHIR_NDJSON;
 import static ca.uhn.fhir.rest.api.Constants.CT_JSON;
 import static ca.uhn.fhir.rest.api.Constants.CT_TEXT;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -100,6 +101,47 @@ public class FetchFilesStepTest {
 
 	}
 
+	@Test
+	public void testFetchConcurrently() {
+
+		// Setup
+
+		BulkImportJobParameters parameters = new BulkImportJobParameters()
+			.setMaxConcurrentFileFetches(3);
+		for (int i = 0; i < 5; i++) {
+			String index = myBulkImportFileServlet.registerFileByContents("{\"resourceType\":\"Patient\"}\n{\"resourceType\":\"Patient\"}");
+			parameters.addNdJsonUrl(myHttpServletExtension.getBaseUrl() + "/download?index=" + index);
+		}
+		StepExecutionDetails<BulkImportJobParameters, VoidModel> details = new StepExecutionDetails<>(parameters, null, ourTestInstance, CHUNK_ID);
+
+		// Test
+
+		mySvc.run(details, myJobDataSink);
+
+		// Verify
+
+		assertEquals(5, myHttpServletExtension.getRequestHeaders().size());
+		verify(myJobDataSink, times(5)).accept(any(NdJsonFileJson.class));
+	}
+
+	@Test
+	public void testFetchConcurrently_Failure() {
+
+		// Setup
+
+		String index = myBulkImportFileServlet.registerFileByContents("{\"resourceType\":\"Patient\"}");
+		BulkImportJobParameters parameters = new BulkImportJobParameters()
+			.addNdJsonUrl(myHttpServletExtension.getBaseUrl() + "/download?index=" + index)
+			.addNdJsonUrl(myHttpServletExtension.getBaseUrl() + "/invalid")
+			.setMaxConcurrentFileFetches(2);
+		StepExecutionDetails<BulkImportJobParameters, VoidModel> details = new StepExecutionDetails<>(parameters, null, ourTestInstance, CHUNK_ID);
+
+		// Test & Verify
+
+		JobExecutionFailedException e = assertThrows(JobExecutionFailedException.class, () -> mySvc.run(details, myJobDataSink));
+		assertThat(e.getMessage(), containsString("Received HTTP 404"));
+	}
+
 	@Test
 	public void testFetchWithBasicAuth_InvalidCredential() {
 
@@ -32,6 +32,8 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.hasSize;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.times;
@@ -119,6 +121,30 @@ public class ReindexProviderTest {
 		ReindexJobParameters params = myStartRequestCaptor.getValue().getParameters(ReindexJobParameters.class);
 		assertThat(params.getPartitionedUrls(), hasSize(1));
 		assertEquals(url, params.getPartitionedUrls().get(0).getUrl());
+		assertFalse(params.isOptimizeStorage());
+	}
+
+	@Test
+	public void testReindex_OptimizeStorage() {
+		// setup
+		Parameters input = new Parameters();
+		input.addParameter(ProviderConstants.OPERATION_REINDEX_PARAM_OPTIMIZE_STORAGE, new BooleanType(true));
+
+		// Execute
+
+		myServerExtension
+			.getFhirClient()
+			.operation()
+			.onServer()
+			.named(ProviderConstants.OPERATION_REINDEX)
+			.withParameters(input)
+			.execute();
+
+		// Verify
+
+		verify(myJobCoordinator, times(1)).startInstance(myStartRequestCaptor.capture());
+		ReindexJobParameters params = myStartRequestCaptor.getValue().getParameters(ReindexJobParameters.class);
+		assertTrue(params.isOptimizeStorage());
 	}
 
 	@Test
@@ -20,8 +20,11 @@ package ca.uhn.fhir.batch2.api;
  * #L%
  */
 
+import ca.uhn.fhir.batch2.maintenance.JobDefinitionChunkMetrics;
 import com.google.common.annotations.VisibleForTesting;
 
+import java.util.Map;
+
 public interface IJobMaintenanceService {
 	/**
 	 * Do not wait for the next scheduled time for maintenance. Trigger it immediately.
@@ -29,6 +32,26 @@ public interface IJobMaintenanceService {
 	 */
 	boolean triggerMaintenancePass();
 
+	/**
+	 * Called when a work chunk belonging to the given step of a gated job instance has completed. If the step
+	 * no longer has any incomplete work chunks, a maintenance pass is triggered immediately so that the instance
+	 * advances to its next step without waiting for the next scheduled pass. This does nothing unless
+	 * {@link ca.uhn.fhir.jpa.api.config.JpaStorageSettings#isJobGatedStepAdvanceOnChunkCompletionEnabled()} is enabled.
+	 *
+	 * @return true if a request to run a maintenance pass was fired
+	 * @since 6.6.0
+	 */
+	boolean triggerMaintenancePassIfGatedStepComplete(String theInstanceId, String theStepId);
+
+	/**
+	 * Returns the work chunk metrics (queue depth and chunk latency) for each job definition that had running
+	 * instances during the most recently completed maintenance pass, keyed by job definition ID. The metrics are
+	 * only populated on the node that runs the maintenance pass.
+	 *
+	 * @since 6.6.0
+	 */
+	Map<String, JobDefinitionChunkMetrics> getChunkMetrics();
+
     void runMaintenancePass();
 
 	/**
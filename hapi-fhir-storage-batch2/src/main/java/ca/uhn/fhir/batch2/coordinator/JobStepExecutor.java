@@ -86,12 +86,20 @@ public class JobStepExecutor<PT extends IModelJson, IT extends IModelJson, OT ex
 			myJobInstanceStatusUpdater.setCompleted(myInstance);
 		}
 
+		boolean maintenanceTriggered = false;
 		if (myInstance.isFastTracking()) {
-			handleFastTracking(stepExecutorOutput.getDataSink());
+			maintenanceTriggered = handleFastTracking(stepExecutorOutput.getDataSink());
+		}
+
+		if (!maintenanceTriggered && isChunkInCurrentGatedStep()) {
+			myJobMaintenanceService.triggerMaintenancePassIfGatedStepComplete(myInstanceId, myCursor.getCurrentStepId());
 		}
 	}
 
-	private void handleFastTracking(BaseDataSink<PT, IT, OT> theDataSink) {
+	/**
+	 * @return true if a maintenance pass was triggered
+	 */
+	private boolean handleFastTracking(BaseDataSink<PT, IT, OT> theDataSink) {
 		if (theDataSink.getWorkChunkCount() <= 1) {
 			ourLog.debug("Gated job {} step {} produced exactly one chunk:  Triggering a maintenance pass.", myDefinition.getJobDefinitionId(), myCursor.currentStep.getStepId());
 			boolean success = myJobMaintenanceService.triggerMaintenancePass();
@@ -99,10 +107,22 @@ public class JobStepExecutor<PT extends IModelJson, IT extends IModelJson, OT ex
 				myInstance.setFastTracking(false);
 				myJobPersistence.updateInstance(myInstance);
 			}
+			return success;
 		} else {
 			ourLog.debug("Gated job {} step {} produced {} chunks:  Disabling fast tracking.", myDefinition.getJobDefinitionId(), myCursor.currentStep.getStepId(), theDataSink.getWorkChunkCount());
 			myInstance.setFastTracking(false);
 			myJobPersistence.updateInstance(myInstance);
+			return false;
 		}
 	}
+
+	/**
+	 * Only chunks belonging to the step that a gated instance is currently waiting on can unblock it. Chunks
+	 * for the final step never need to advance the instance, since the maintenance pass completes it.
+	 */
+	private boolean isChunkInCurrentGatedStep() {
+		return myDefinition.isGatedExecution()
+			&& !myCursor.isFinalStep()
+			&& myCursor.getCurrentStepId().equals(myInstance.getCurrentGatedStepId());
+	}
 }
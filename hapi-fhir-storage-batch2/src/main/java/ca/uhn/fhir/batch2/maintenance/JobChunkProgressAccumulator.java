@@ -31,8 +31,11 @@ import org.slf4j.Logger;
 
 import javax.annotation.Nonnull;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -51,6 +54,8 @@ public class JobChunkProgressAccumulator {
 
 	private final Set<String> myConsumedInstanceAndChunkIds = new HashSet<>();
 	private final Multimap<String, ChunkStatusCountValue> myInstanceIdToChunkStatuses = ArrayListMultimap.create();
+	private final Map<String, JobDefinitionChunkMetrics> myJobDefinitionIdToMetrics = new HashMap<>();
+	private final long myCreatedMillis = System.currentTimeMillis();
 
 	int countChunksWithStatus(String theInstanceId, String theStepId, StatusEnum... theStatuses) {
 		return getChunkIdsWithStatus(theInstanceId, theStepId, theStatuses).size();
@@ -83,9 +88,22 @@ public class JobChunkProgressAccumulator {
 		if (myConsumedInstanceAndChunkIds.add(instanceId + " " + chunkId)) {
 			ourLog.debug("Adding chunk to accumulator. [chunkId={}, instanceId={}, status={}]", chunkId, instanceId, theChunk.getStatus());
 			myInstanceIdToChunkStatuses.put(instanceId, new ChunkStatusCountValue(chunkId, theChunk.getTargetStepId(), theChunk.getStatus()));
+			if (theChunk.getJobDefinitionId() != null) {
+				myJobDefinitionIdToMetrics
+					.computeIfAbsent(theChunk.getJobDefinitionId(), JobDefinitionChunkMetrics::new)
+					.addChunk(theChunk, myCreatedMillis);
+			}
 		}
 	}
 
+	/**
+	 * Returns the chunk metrics for every job definition that had at least one chunk added to this
+	 * accumulator, keyed by job definition ID
+	 */
+	public Map<String, JobDefinitionChunkMetrics> getChunkMetrics() {
+		return Collections.unmodifiableMap(myJobDefinitionIdToMetrics);
+	}
+
 	private static class ChunkStatusCountValue {
 		public final String myChunkId;
 		public final String myStepId;
@@ -0,0 +1,169 @@
+package ca.uhn.fhir.batch2.maintenance;
+
+/*-
+ * #%L
+ * HAPI FHIR JPA Server - Batch2 Task Processor
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.batch2.model.StatusEnum;
+import ca.uhn.fhir.batch2.model.WorkChunk;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Work chunk metrics for a single job definition, collected across all of the running instances of
+ * that definition during a maintenance pass.
+ *
+ * @since 6.6.0
+ */
+public class JobDefinitionChunkMetrics {
+
+	private final String myJobDefinitionId;
+	private final Set<String> myInstanceIds = new HashSet<>();
+	private int myQueuedChunkCount;
+	private int myInProgressChunkCount;
+	private int myErroredChunkCount;
+	private int myCompletedChunkCount;
+	private int myFailedChunkCount;
+	private long myOldestQueuedChunkAgeMillis;
+	private long myTotalQueueWaitMillis;
+	private int myQueueWaitSampleCount;
+	private long myTotalProcessingMillis;
+	private int myProcessingSampleCount;
+
+	JobDefinitionChunkMetrics(String theJobDefinitionId) {
+		myJobDefinitionId = theJobDefinitionId;
+	}
+
+	void addChunk(WorkChunk theChunk, long theNow) {
+		myInstanceIds.add(theChunk.getInstanceId());
+
+		StatusEnum status = theChunk.getStatus();
+		switch (status) {
+			case QUEUED:
+				myQueuedChunkCount++;
+				if (theChunk.getCreateTime() != null) {
+					myOldestQueuedChunkAgeMillis = Math.max(myOldestQueuedChunkAgeMillis, theNow - theChunk.getCreateTime().getTime());
+				}
+				// Queued chunks have not been picked up yet, so there is no queue wait or processing time to record
+				return;
+			case IN_PROGRESS:
+				myInProgressChunkCount++;
+				break;
+			case ERRORED:
+				myErroredChunkCount++;
+				break;
+			case COMPLETED:
+				myCompletedChunkCount++;
+				break;
+			case FAILED:
+				myFailedChunkCount++;
+				break;
+			default:
+				break;
+		}
+
+		Date createTime = theChunk.getCreateTime();
+		Date startTime = theChunk.getStartTime();
+		Date endTime = theChunk.getEndTime();
+		if (createTime != null && startTime != null) {
+			myTotalQueueWaitMillis += Math.max(0, startTime.getTime() - createTime.getTime());
+			myQueueWaitSampleCount++;
+		}
+		if (status == StatusEnum.COMPLETED && startTime != null && endTime != null) {
+			myTotalProcessingMillis += Math.max(0, endTime.getTime() - startTime.getTime());
+			myProcessingSampleCount++;
+		}
+	}
+
+	public String getJobDefinitionId() {
+		return myJobDefinitionId;
+	}
+
+	/**
+	 * The number of running instances of this job definition
+	 */
+	public int getInstanceCount() {
+		return myInstanceIds.size();
+	}
+
+	/**
+	 * The queue depth, i.e. the number of work chunks that are waiting to be picked up by a worker
+	 */
+	public int getQueuedChunkCount() {
+		return myQueuedChunkCount;
+	}
+
+	public int getInProgressChunkCount() {
+		return myInProgressChunkCount;
+	}
+
+	public int getErroredChunkCount() {
+		return myErroredChunkCount;
+	}
+
+	public int getCompletedChunkCount() {
+		return myCompletedChunkCount;
+	}
+
+	public int getFailedChunkCount() {
+		return myFailedChunkCount;
+	}
+
+	/**
+	 * The time since the oldest work chunk that is still waiting to be picked up by a worker was created,
+	 * or <code>0</code> if there are no queued chunks
+	 */
+	public long getOldestQueuedChunkAgeMillis() {
+		return myOldestQueuedChunkAgeMillis;
+	}
+
+	/**
+	 * The average time between a work chunk being created and a worker starting to process it
+	 */
+	public long getAverageQueueWaitMillis() {
+		return myQueueWaitSampleCount > 0 ? myTotalQueueWaitMillis / myQueueWaitSampleCount : 0;
+	}
+
+	/**
+	 * The average time taken by a worker to process a work chunk that completed successfully
+	 */
+	public long getAverageProcessingMillis() {
+		return myProcessingSampleCount > 0 ? myTotalProcessingMillis / myProcessingSampleCount : 0;
+	}
+
+	@Override
+	public String toString() {
+		return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+			.append("jobDefinitionId", myJobDefinitionId)
+			.append("instances", getInstanceCount())
+			.append("queued", myQueuedChunkCount)
+			.append("inProgress", myInProgressChunkCount)
+			.append("errored", myErroredChunkCount)
+			.append("completed", myCompletedChunkCount)
+			.append("failed", myFailedChunkCount)
+			.append("oldestQueuedChunkAgeMillis", myOldestQueuedChunkAgeMillis)
+			.append("averageQueueWaitMillis", getAverageQueueWaitMillis())
+			.append("averageProcessingMillis", getAverageProcessingMillis())
+			.toString();
+	}
+}
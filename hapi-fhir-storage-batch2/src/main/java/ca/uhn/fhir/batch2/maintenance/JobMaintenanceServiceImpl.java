@@ -41,8 +41,10 @@ import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import javax.annotation.Nonnull;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
@@ -74,6 +76,8 @@ import java.util.concurrent.TimeUnit;
  * <p>
  *    The maintenance pass is run once per minute.  However if a gated job is fast-tracking (i.e. every step produced
  *    exactly one chunk, then the maintenance task will be triggered earlier than scheduled by the step executor.
+ *    Similarly, if {@link JpaStorageSettings#isJobGatedStepAdvanceOnChunkCompletionEnabled()} is enabled, the step
+ *    executor triggers the maintenance task as soon as the last chunk of the current gated step completes.
  * </p>
  */
 public class JobMaintenanceServiceImpl implements IJobMaintenanceService, IHasScheduledJobs {
@@ -95,6 +99,7 @@ public class JobMaintenanceServiceImpl implements IJobMaintenanceService, IHasSc
 	private long myScheduledJobFrequencyMillis = DateUtils.MILLIS_PER_MINUTE;
 	private Runnable myMaintenanceJobStartedCallback = () -> {};
 	private Runnable myMaintenanceJobFinishedCallback = () -> {};
+	private volatile Map<String, JobDefinitionChunkMetrics> myChunkMetrics = Collections.emptyMap();
 
 	/**
 	 * Constructor
@@ -144,15 +149,36 @@ public class JobMaintenanceServiceImpl implements IJobMaintenanceService, IHasSc
 		if (!myStorageSettings.isJobFastTrackingEnabled()) {
 			return false;
 		}
+		return doTriggerMaintenancePass();
+	}
+
+	@Override
+	public boolean triggerMaintenancePassIfGatedStepComplete(String theInstanceId, String theStepId) {
+		if (!myStorageSettings.isJobGatedStepAdvanceOnChunkCompletionEnabled()) {
+			return false;
+		}
+		if (!myJobPersistence.canAdvanceInstanceToNextStep(theInstanceId, theStepId)) {
+			return false;
+		}
+		ourLog.debug("All chunks for gated step {} of instance {} are complete.  Triggering a maintenance pass.", theStepId, theInstanceId);
+		return doTriggerMaintenancePass();
+	}
+
+	private boolean doTriggerMaintenancePass() {
 		if (mySchedulerService.isClusteredSchedulingEnabled()) {
-				mySchedulerService.triggerClusteredJobImmediately(buildJobDefinition());
-				return true;
+			mySchedulerService.triggerClusteredJobImmediately(buildJobDefinition());
+			return true;
 		} else {
 			// We are probably running a unit test
 			return runMaintenanceDirectlyWithTimeout();
 		}
 	}
 
+	@Override
+	public Map<String, JobDefinitionChunkMetrics> getChunkMetrics() {
+		return myChunkMetrics;
+	}
+
 	private boolean runMaintenanceDirectlyWithTimeout() {
 		if (getQueueLength() > 0) {
 			ourLog.debug("There are already {} threads waiting to run a maintenance pass.  Ignoring request.", getQueueLength());
@@ -223,6 +249,8 @@ public class JobMaintenanceServiceImpl implements IJobMaintenanceService, IHasSc
 				break;
 			}
 		}
+		myChunkMetrics = progressAccumulator.getChunkMetrics();
+		myChunkMetrics.values().forEach(t -> ourLog.debug("Work chunk metrics: {}", t));
 		myMaintenanceJobFinishedCallback.run();
 	}
 
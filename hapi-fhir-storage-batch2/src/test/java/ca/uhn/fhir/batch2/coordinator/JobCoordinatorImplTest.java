@@ -51,6 +51,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -260,6 +261,30 @@ public class JobCoordinatorImplTest extends BaseBatch2Test {
 		verify(myBatchJobSender, times(0)).sendWorkChannelMessage(any());
 	}
 
+	@Test
+	public void testPerformStep_GatedExecutionMode_ChecksWhetherStepIsComplete() {
+
+		// Setup
+
+		JobDefinition<TestJobParameters> jobDefinition = createJobDefinition(JobDefinition.Builder::gatedExecution);
+		mockJobRegistry(jobDefinition);
+		JobInstance instance = createInstance();
+		instance.setCurrentGatedStepId(STEP_2);
+		when(myJobInstancePersister.fetchInstance(eq(INSTANCE_ID))).thenReturn(Optional.of(instance));
+		when(myJobInstancePersister.fetchWorkChunkSetStartTimeAndMarkInProgress(eq(CHUNK_ID))).thenReturn(Optional.of(createWorkChunkStep2()));
+		when(myStep2Worker.run(any(), any())).thenReturn(new RunOutcome(50));
+		mySvc.start();
+
+		// Execute
+
+		myWorkChannelReceiver.send(new JobWorkNotificationJsonMessage(createWorkNotification(STEP_2)));
+
+		// Verify
+
+		verify(myJobInstancePersister, times(1)).markWorkChunkAsCompletedAndClearData(eq(CHUNK_ID), eq(50));
+		verify(myJobMaintenanceService, times(1)).triggerMaintenancePassIfGatedStepComplete(eq(INSTANCE_ID), eq(STEP_2));
+	}
+
 	@Test
 	public void testPerformStep_SecondStep() {
 
@@ -284,6 +309,7 @@ public class JobCoordinatorImplTest extends BaseBatch2Test {
 		assertEquals(PASSWORD_VALUE, params.getPassword());
 
 		verify(myJobInstancePersister, times(1)).markWorkChunkAsCompletedAndClearData(eq(CHUNK_ID), eq(50));
+		verify(myJobMaintenanceService, never()).triggerMaintenancePassIfGatedStepComplete(any(), any());
 	}
 
 	@Test
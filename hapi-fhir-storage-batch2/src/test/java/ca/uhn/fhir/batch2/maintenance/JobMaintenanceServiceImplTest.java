@@ -228,6 +228,68 @@ public class JobMaintenanceServiceImplTest extends BaseBatch2Test {
 		verifyNoMoreInteractions(myJobPersistence);
 	}
 
+	@Test
+	public void testTriggerMaintenancePassIfGatedStepComplete_Disabled() {
+		assertFalse(mySvc.triggerMaintenancePassIfGatedStepComplete(INSTANCE_ID, STEP_1));
+
+		verifyNoMoreInteractions(myJobPersistence);
+	}
+
+	@Test
+	public void testTriggerMaintenancePassIfGatedStepComplete_StepNotComplete() {
+		myStorageSettings.setJobGatedStepAdvanceOnChunkCompletionEnabled(true);
+		when(myJobPersistence.canAdvanceInstanceToNextStep(eq(INSTANCE_ID), eq(STEP_1))).thenReturn(false);
+
+		assertFalse(mySvc.triggerMaintenancePassIfGatedStepComplete(INSTANCE_ID, STEP_1));
+
+		verify(myJobPersistence, never()).fetchInstances(anyInt(), anyInt());
+	}
+
+	@Test
+	public void testTriggerMaintenancePassIfGatedStepComplete_StepComplete() {
+		myStorageSettings.setJobGatedStepAdvanceOnChunkCompletionEnabled(true);
+		when(myJobPersistence.canAdvanceInstanceToNextStep(eq(INSTANCE_ID), eq(STEP_1))).thenReturn(true);
+
+		assertTrue(mySvc.triggerMaintenancePassIfGatedStepComplete(INSTANCE_ID, STEP_1));
+
+		verify(myJobPersistence, times(1)).fetchInstances(anyInt(), eq(0));
+	}
+
+	@Test
+	public void testChunkMetricsCollectedDuringMaintenancePass() {
+		Date created = parseTime("2022-02-12T14:00:00-04:00");
+		List<WorkChunk> chunks = Arrays.asList(
+			createWorkChunkStep1().setStatus(StatusEnum.COMPLETED).setStartTime(parseTime("2022-02-12T14:00:02-04:00")).setEndTime(parseTime("2022-02-12T14:00:12-04:00")).setRecordsProcessed(25),
+			JobCoordinatorImplTest.createWorkChunkStep2().setStatus(StatusEnum.COMPLETED).setStartTime(parseTime("2022-02-12T14:00:04-04:00")).setEndTime(parseTime("2022-02-12T14:00:34-04:00")).setRecordsProcessed(25),
+			JobCoordinatorImplTest.createWorkChunkStep2().setStatus(StatusEnum.IN_PROGRESS).setStartTime(parseTime("2022-02-12T14:00:06-04:00")),
+			JobCoordinatorImplTest.createWorkChunkStep2().setStatus(StatusEnum.QUEUED).setStartTime(created)
+		);
+		for (int i = 0; i < chunks.size(); i++) {
+			chunks.get(i).setId("chunk-" + i);
+			chunks.get(i).setCreateTime(created);
+		}
+		myJobDefinitionRegistry.addJobDefinition(createJobDefinition());
+		when(myJobPersistence.fetchInstances(anyInt(), eq(0))).thenReturn(Lists.newArrayList(createInstance()));
+		when(myJobPersistence.fetchAllWorkChunksIterator(eq(INSTANCE_ID), eq(false)))
+			.thenReturn(chunks.iterator());
+
+		assertTrue(mySvc.getChunkMetrics().isEmpty());
+		mySvc.runMaintenancePass();
+
+		JobDefinitionChunkMetrics metrics = mySvc.getChunkMetrics().get(JOB_DEFINITION_ID);
+		assertNotNull(metrics);
+		assertEquals(1, metrics.getInstanceCount());
+		assertEquals(1, metrics.getQueuedChunkCount());
+		assertEquals(1, metrics.getInProgressChunkCount());
+		assertEquals(2, metrics.getCompletedChunkCount());
+		assertEquals(0, metrics.getFailedChunkCount());
+		assertTrue(metrics.getOldestQueuedChunkAgeMillis() > 0);
+		// Queue waits of 2s, 4s and 6s
+		assertEquals(4000, metrics.getAverageQueueWaitMillis());
+		// Processing times of 10s and 30s
+		assertEquals(20000, metrics.getAverageProcessingMillis());
+	}
+
 	@Test
 	public void testInProgress_CalculateProgress_AllStepsComplete() {
 		// Setup
@@ -4,6 +4,7 @@ import ca.uhn.fhir.jpa.api.model.HistoryCountModeEnum;
 import ca.uhn.fhir.jpa.api.model.WarmCacheEntry;
 import ca.uhn.fhir.jpa.model.entity.StorageSettings;
 import ca.uhn.fhir.jpa.model.entity.ResourceEncodingEnum;
+import ca.uhn.fhir.jpa.util.MemoryCacheService;
 import ca.uhn.fhir.rest.api.SearchTotalModeEnum;
 import ca.uhn.fhir.system.HapiSystemProperties;
 import ca.uhn.fhir.util.HapiExtensions;
@@ -22,7 +23,9 @@ import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -91,6 +94,14 @@ public class JpaStorageSettings extends StorageSettings {
 	public static final int DEFAULT_BUNDLE_BATCH_QUEUE_CAPACITY = 200;
 
 	public static final int DEFAULT_BULK_EXPORT_FILE_MAXIMUM_CAPACITY = 1_000;
+	/**
+	 * @since 6.6.0
+	 */
+	public static final int DEFAULT_PARSED_RESOURCE_CACHE_MAXIMUM_RESOURCE_LENGTH = 64 * 1024;
+	/**
+	 * @since 6.6.0
+	 */
+	public static final int DEFAULT_TRANSACTION_BULK_WRITE_JDBC_BATCH_SIZE = 500;
 	/**
 	 * Default value for {@link #setMaximumSearchResultCountInTransaction(Integer)}
 	 *
@@ -311,6 +322,46 @@ public class JpaStorageSettings extends StorageSettings {
 	 * Since 6.4.0
 	 */
 	private boolean myJobFastTrackingEnabled = false;
+	/**
+	 * Since 6.6.0
+	 */
+	private boolean myJobGatedStepAdvanceOnChunkCompletionEnabled = false;
+	/**
+	 * Since 6.6.0
+	 */
+	private int mySearchResourceDecodeThreadCount = 0;
+	/**
+	 * Since 6.6.0
+	 */
+	private int myParsedResourceCacheMaximumSize = 0;
+	/**
+	 * Since 6.6.0
+	 */
+	private int myParsedResourceCacheMaximumResourceLength = DEFAULT_PARSED_RESOURCE_CACHE_MAXIMUM_RESOURCE_LENGTH;
+	/**
+	 * Since 6.6.0
+	 */
+	private final Map<MemoryCacheService.CacheEnum, Integer> myMemoryCacheMaximumSizes = new EnumMap<>(MemoryCacheService.CacheEnum.class);
+	/**
+	 * Since 6.6.0
+	 */
+	private final Map<MemoryCacheService.CacheEnum, Long> myMemoryCacheExpireAfterWriteMillis = new EnumMap<>(MemoryCacheService.CacheEnum.class);
+	/**
+	 * Since 6.6.0
+	 */
+	private int myTransactionBulkWriteThreshold = 0;
+	/**
+	 * Since 6.6.0
+	 */
+	private int myTransactionBulkWriteJdbcBatchSize = DEFAULT_TRANSACTION_BULK_WRITE_JDBC_BATCH_SIZE;
+	/**
+	 * Since 6.6.0
+	 */
+	private int mySearchResultPidsMaximumInMemory = 0;
+	/**
+	 * Since 6.6.0
+	 */
+	private boolean mySearchResultBlockStorageEnabled = false;
 
 	/**
 	 * Constructor
@@ -2332,6 +2383,295 @@ public class JpaStorageSettings extends StorageSettings {
 		myJobFastTrackingEnabled = theJobFastTrackingEnabled;
 	}
 
+	/**
+	 * If this setting is enabled, then whenever a work chunk belonging to the current step of a gated batch job
+	 * completes, the worker checks whether any chunks for that step are still incomplete. If none remain, a batch
+	 * maintenance pass is triggered immediately so that the job advances to its next step without waiting for the
+	 * next scheduled maintenance pass. This greatly reduces the wall time of short jobs, at the cost of one
+	 * additional query per completed work chunk.
+	 * <p>
+	 * The default value is <code>false</code>.
+	 * </p>
+	 *
+	 * @since 6.6.0
+	 */
+	public boolean isJobGatedStepAdvanceOnChunkCompletionEnabled() {
+		return myJobGatedStepAdvanceOnChunkCompletionEnabled;
+	}
+
+	/**
+	 * If this setting is enabled, then whenever a work chunk belonging to the current step of a gated batch job
+	 * completes, the worker checks whether any chunks for that step are still incomplete. If none remain, a batch
+	 * maintenance pass is triggered immediately so that the job advances to its next step without waiting for the
+	 * next scheduled maintenance pass. This greatly reduces the wall time of short jobs, at the cost of one
+	 * additional query per completed work chunk.
+	 * <p>
+	 * The default value is <code>false</code>.
+	 * </p>
+	 *
+	 * @since 6.6.0
+	 */
+	public void setJobGatedStepAdvanceOnChunkCompletionEnabled(boolean theJobGatedStepAdvanceOnChunkCompletionEnabled) {
+		myJobGatedStepAdvanceOnChunkCompletionEnabled = theJobGatedStepAdvanceOnChunkCompletionEnabled;
+	}
+
+	/**
+	 * When loading a page of search results, the stored resource bodies for the page are
+	 * inflated and parsed one at a time on the request thread. If this setting is set to
+	 * a value greater than <code>1</code>, the page will instead be decoded in parallel
+	 * using a shared pool with this many threads. The order of the results is not affected.
+	 * <p>
+	 * The default value is <code>0</code>, meaning that resources are decoded on the request thread.
+	 * </p>
+	 *
+	 * @since 6.6.0
+	 */
+	public int getSearchResourceDecodeThreadCount() {
+		return mySearchResourceDecodeThreadCount;
+	}
+
+	/**
+	 * When loading a page of search results, the stored resource bodies for the page are
+	 * inflated and parsed one at a time on the request thread. If this setting is set to
+	 * a value greater than <code>1</code>, the page will instead be decoded in parallel
+	 * using a shared pool with this many threads. The order of the results is not affected.
+	 * <p>
+	 * The default value is <code>0</code>, meaning that resources are decoded on the request thread.
+	 * </p>
+	 *
+	 * @since 6.6.0
+	 */
+	public void setSearchResourceDecodeThreadCount(int theSearchResourceDecodeThreadCount) {
+		mySearchResourceDecodeThreadCount = Math.max(theSearchResourceDecodeThreadCount, 0);
+	}
+
+	/**
+	 * If set to a value greater than <code>0</code>, resources which are loaded for reads and
+	 * searches (including <code>_include</code> targets) are kept in a parsed form in memory,
+	 * keyed by their resource PID and version. Subsequent loads of the same resource version
+	 * are served from this cache without fetching or parsing the stored resource body. This is
+	 * useful for heavily referenced resources such as Practitioner, Organization and Medication.
+	 * <p>
+	 * This setting controls the maximum number of resources held in the cache. The default
+	 * value is <code>0</code>, meaning that the cache is disabled.
+	 * </p>
+	 *
+	 * @since 6.6.0
+	 */
+	public int getParsedResourceCacheMaximumSize() {
+		return myParsedResourceCacheMaximumSize;
+	}
+
+	/**
+	 * If set to a value greater than <code>0</code>, resources which are loaded for reads and
+	 * searches (including <code>_include</code> targets) are kept in a parsed form in memory,
+	 * keyed by their resource PID and version. Subsequent loads of the same resource version
+	 * are served from this cache without fetching or parsing the stored resource body. This is
+	 * useful for heavily referenced resources such as Practitioner, Organization and Medication.
+	 * <p>
+	 * This setting controls the maximum number of resources held in the cache. The default
+	 * value is <code>0</code>, meaning that the cache is disabled.
+	 * </p>
+	 *
+	 * @since 6.6.0
+	 */
+	public void setParsedResourceCacheMaximumSize(int theParsedResourceCacheMaximumSize) {
+		myParsedResourceCacheMaximumSize = Math.max(theParsedResourceCacheMaximumSize, 0);
+	}
+
+	/**
+	 * Resources whose stored body is larger than this number of bytes are never placed in the
+	 * parsed resource cache (see {@link #setParsedResourceCacheMaximumSize(int)}). Together with the
+	 * maximum size this bounds the amount of memory the cache can use.
+	 * <p>
+	 * The default value is {@value #DEFAULT_PARSED_RESOURCE_CACHE_MAXIMUM_RESOURCE_LENGTH}.
+	 * </p>
+	 *
+	 * @since 6.6.0
+	 */
+	public int getParsedResourceCacheMaximumResourceLength() {
+		return myParsedResourceCacheMaximumResourceLength;
+	}
+
+	/**
+	 * Resources whose stored body is larger than this number of bytes are never placed in the
+	 * parsed resource cache (see {@link #setParsedResourceCacheMaximumSize(int)}). Together with the
+	 * maximum size this bounds the amount of memory the cache can use.
+	 * <p>
+	 * The default value is {@value #DEFAULT_PARSED_RESOURCE_CACHE_MAXIMUM_RESOURCE_LENGTH}.
+	 * </p>
+	 *
+	 * @since 6.6.0
+	 */
+	public void setParsedResourceCacheMaximumResourceLength(int theParsedResourceCacheMaximumResourceLength) {
+		myParsedResourceCacheMaximumResourceLength = theParsedResourceCacheMaximumResourceLength;
+	}
+
+	/**
+	 * Returns the maximum number of entries held by the given {@link MemoryCacheService} cache
+	 * on each node, or <code>null</code> if the built-in default for that cache should be used.
+	 * This setting is read when the cache service is created.
+	 *
+	 * @since 6.6.0
+	 */
+	@Nullable
+	public Integer getMemoryCacheMaximumSize(@Nonnull MemoryCacheService.CacheEnum theCache) {
+		return myMemoryCacheMaximumSizes.get(theCache);
+	}
+
+	/**
+	 * Sets the maximum number of entries held by the given {@link MemoryCacheService} cache
+	 * on each node. Set to <code>null</code> to use the built-in default for that cache.
+	 * This setting is read when the cache service is created.
+	 *
+	 * @since 6.6.0
+	 */
+	public void setMemoryCacheMaximumSize(@Nonnull MemoryCacheService.CacheEnum theCache, @Nullable Integer theMaximumSize) {
+		Validate.isTrue(theMaximumSize == null || theMaximumSize > 0, "theMaximumSize must be positive");
+		setOrRemove(myMemoryCacheMaximumSizes, theCache, theMaximumSize);
+	}
+
+	/**
+	 * Returns the number of milliseconds after which entries in the given {@link MemoryCacheService}
+	 * cache expire, or <code>null</code> if the built-in default for that cache should be used.
+	 * This setting is read when the cache service is created.
+	 *
+	 * @since 6.6.0
+	 */
+	@Nullable
+	public Long getMemoryCacheExpireAfterWriteMillis(@Nonnull MemoryCacheService.CacheEnum theCache) {
+		return myMemoryCacheExpireAfterWriteMillis.get(theCache);
+	}
+
+	/**
+	 * Sets the number of milliseconds after which entries in the given {@link MemoryCacheService}
+	 * cache expire. Set to <code>null</code> to use the built-in default for that cache.
+	 * This setting is read when the cache service is created.
+	 *
+	 * @since 6.6.0
+	 */
+	public void setMemoryCacheExpireAfterWriteMillis(@Nonnull MemoryCacheService.CacheEnum theCache, @Nullable Long theExpireAfterWriteMillis) {
+		Validate.isTrue(theExpireAfterWriteMillis == null || theExpireAfterWriteMillis > 0, "theExpireAfterWriteMillis must be positive");
+		setOrRemove(myMemoryCacheExpireAfterWriteMillis, theCache, theExpireAfterWriteMillis);
+	}
+
+	/**
+	 * If set to a positive value (default is <code>0</code>, meaning disabled), FHIR transactions
+	 * containing at least this number of entries are processed in bulk write mode. In this mode, the
+	 * targets of references within the transaction (including conditional references) are resolved
+	 * using a small number of set-based queries before any writes happen, and a larger JDBC batch
+	 * size (see {@link #setTransactionBulkWriteJdbcBatchSize(int)}) is used while writing.
+	 *
+	 * @since 6.6.0
+	 */
+	public int getTransactionBulkWriteThreshold() {
+		return myTransactionBulkWriteThreshold;
+	}
+
+	/**
+	 * If set to a positive value (default is <code>0</code>, meaning disabled), FHIR transactions
+	 * containing at least this number of entries are processed in bulk write mode. In this mode, the
+	 * targets of references within the transaction (including conditional references) are resolved
+	 * using a small number of set-based queries before any writes happen, and a larger JDBC batch
+	 * size (see {@link #setTransactionBulkWriteJdbcBatchSize(int)}) is used while writing.
+	 *
+	 * @since 6.6.0
+	 */
+	public void setTransactionBulkWriteThreshold(int theTransactionBulkWriteThreshold) {
+		myTransactionBulkWriteThreshold = theTransactionBulkWriteThreshold;
+	}
+
+	/**
+	 * The JDBC batch size used while writing a FHIR transaction in bulk write mode
+	 * (see {@link #setTransactionBulkWriteThreshold(int)}).
+	 * <p>
+	 * The default value is {@value #DEFAULT_TRANSACTION_BULK_WRITE_JDBC_BATCH_SIZE}.
+	 * </p>
+	 *
+	 * @since 6.6.0
+	 */
+	public int getTransactionBulkWriteJdbcBatchSize() {
+		return myTransactionBulkWriteJdbcBatchSize;
+	}
+
+	/**
+	 * The JDBC batch size used while writing a FHIR transaction in bulk write mode
+	 * (see {@link #setTransactionBulkWriteThreshold(int)}).
+	 * <p>
+	 * The default value is {@value #DEFAULT_TRANSACTION_BULK_WRITE_JDBC_BATCH_SIZE}.
+	 * </p>
+	 *
+	 * @since 6.6.0
+	 */
+	public void setTransactionBulkWriteJdbcBatchSize(int theTransactionBulkWriteJdbcBatchSize) {
+		Validate.isTrue(theTransactionBulkWriteJdbcBatchSize > 0, "theTransactionBulkWriteJdbcBatchSize must be positive");
+		myTransactionBulkWriteJdbcBatchSize = theTransactionBulkWriteJdbcBatchSize;
+	}
+
+	/**
+	 * If set to a positive value (default is <code>0</code>, meaning disabled), a running search keeps
+	 * at most this number of result PIDs on the heap. Any further PIDs found by the search are written
+	 * to a temporary file until the search task completes. This limits the memory used by searches
+	 * matching a very large number of resources, e.g. a large <code>$everything</code> operation.
+	 *
+	 * @since 6.6.0
+	 */
+	public int getSearchResultPidsMaximumInMemory() {
+		return mySearchResultPidsMaximumInMemory;
+	}
+
+	/**
+	 * If set to a positive value (default is <code>0</code>, meaning disabled), a running search keeps
+	 * at most this number of result PIDs on the heap. Any further PIDs found by the search are written
+	 * to a temporary file until the search task completes. This limits the memory used by searches
+	 * matching a very large number of resources, e.g. a large <code>$everything</code> operation.
+	 *
+	 * @since 6.6.0
+	 */
+	public void setSearchResultPidsMaximumInMemory(int theSearchResultPidsMaximumInMemory) {
+		mySearchResultPidsMaximumInMemory = theSearchResultPidsMaximumInMemory;
+	}
+
+	/**
+	 * If enabled (default is <code>false</code>), the results of searches are stored in the database as
+	 * compressed blocks of PIDs (the <code>HFJ_SEARCH_RESULT_BLOCK</code> table) instead of as one row per
+	 * result in the <code>HFJ_SEARCH_RESULT</code> table. This greatly reduces the number of rows written and
+	 * deleted for searches with many results. Searches which were already stored as individual rows can
+	 * still be read after this setting is enabled.
+	 * <p>
+	 * This setting is read when the server starts, so changing it afterward has no effect.
+	 * </p>
+	 *
+	 * @since 6.6.0
+	 */
+	public boolean isSearchResultBlockStorageEnabled() {
+		return mySearchResultBlockStorageEnabled;
+	}
+
+	/**
+	 * If enabled (default is <code>false</code>), the results of searches are stored in the database as
+	 * compressed blocks of PIDs (the <code>HFJ_SEARCH_RESULT_BLOCK</code> table) instead of as one row per
+	 * result in the <code>HFJ_SEARCH_RESULT</code> table. This greatly reduces the number of rows written and
+	 * deleted for searches with many results. Searches which were already stored as individual rows can
+	 * still be read after this setting is enabled.
+	 * <p>
+	 * This setting is read when the server starts, so changing it afterward has no effect.
+	 * </p>
+	 *
+	 * @since 6.6.0
+	 */
+	public void setSearchResultBlockStorageEnabled(boolean theSearchResultBlockStorageEnabled) {
+		mySearchResultBlockStorageEnabled = theSearchResultBlockStorageEnabled;
+	}
+
+	private static <V> void setOrRemove(Map<MemoryCacheService.CacheEnum, V> theMap, MemoryCacheService.CacheEnum theCache, @Nullable V theValue) {
+		if (theValue == null) {
+			theMap.remove(theCache);
+		} else {
+			theMap.put(theCache, theValue);
+		}
+	}
+
 	public enum StoreMetaSourceInformationEnum {
 		NONE(false, false),
 		SOURCE_URI(true, false),
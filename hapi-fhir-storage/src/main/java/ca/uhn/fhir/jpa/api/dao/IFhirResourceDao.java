@@ -344,4 +344,18 @@ public interface IFhirResourceDao<T extends IBaseResource> extends IDao {
 	 * @param theResourcePersistentId The ID
 	 */
 	void reindex(IResourcePersistentId theResourcePersistentId, RequestDetails theRequest, TransactionDetails theTransactionDetails);
+
+	/**
+	 * Rewrites the stored body of every historical version of the given resource using the
+	 * currently configured {@link ca.uhn.fhir.jpa.api.config.JpaStorageSettings#getResourceEncoding() resource encoding},
+	 * e.g. after switching the server to a more compact encoding. Resource contents, versions and
+	 * update times are not changed.
+	 *
+	 * @param theResourcePersistentId The ID
+	 * @return The number of versions which were rewritten
+	 * @since 6.6.0
+	 */
+	default int reencodeStoredVersions(IResourcePersistentId theResourcePersistentId) {
+		return 0;
+	}
 }
@@ -26,7 +26,9 @@ import ca.uhn.fhir.jpa.api.model.ExpungeOutcome;
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
 import ca.uhn.fhir.rest.api.server.RequestDetails;
 import ca.uhn.fhir.rest.api.server.storage.IResourcePersistentId;
+import ca.uhn.fhir.rest.api.server.storage.TransactionDetails;
 import org.hl7.fhir.instance.model.api.IBaseBundle;
+import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.annotation.Nullable;
@@ -93,4 +95,16 @@ public interface IFhirSystemDao<T, MT> extends IDao {
 	default <P extends IResourcePersistentId> void preFetchResources(List<P> theResolvedIds) {
 		// nothing by default
 	}
+
+	/**
+	 * Prepares the current database transaction for writing the given resources in bulk, outside
+	 * of a FHIR transaction. Implementations may resolve the targets of references within the
+	 * resources in batch and record them in the transaction details, and may tune the current
+	 * session for a large number of inserts. This method is purely a performance optimization.
+	 *
+	 * @since 6.6.0
+	 */
+	default void prepareForBulkWrite(List<? extends IBaseResource> theResources, TransactionDetails theTransactionDetails) {
+		// nothing by default
+	}
 }
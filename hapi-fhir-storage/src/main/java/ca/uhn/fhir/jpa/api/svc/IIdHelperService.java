@@ -33,6 +33,7 @@ import org.hl7.fhir.instance.model.api.IIdType;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -141,6 +142,30 @@ public interface IIdHelperService<T extends IResourcePersistentId> {
 	 */
 	void addResolvedPidToForcedId(T theResourcePersistentId, @Nonnull RequestPartitionId theRequestPartitionId, String theResourceType, @Nullable String theForcedId, @Nullable Date theDeletedAt);
 
+	/**
+	 * Registers resource IDs which are about to be resolved one at a time using
+	 * {@link #resolveResourceIdentity(RequestPartitionId, String, String)} within the current
+	 * transaction, so that implementations can resolve them together when the first of them
+	 * is requested. The default implementation does nothing.
+	 *
+	 * @since 6.6.0
+	 */
+	default void addPendingResourceIdentityLookups(@Nonnull RequestPartitionId theRequestPartitionId, Collection<IIdType> theIds) {
+		// nothing
+	}
+
+	/**
+	 * Discards any identity resolved for the given resource within the current transaction. This
+	 * is called whenever a resource is created, updated or deleted. The default implementation
+	 * does nothing.
+	 *
+	 * @param theResourceId The client assigned ID of the resource, if it has one
+	 * @since 6.6.0
+	 */
+	default void evictResolvedResourceIdentity(String theResourceType, @Nonnull T theResourcePersistentId, @Nullable String theResourceId) {
+		// nothing
+	}
+
 	@Nonnull
 	List<T> getPidsOrThrowException(RequestPartitionId theRequestPartitionId, List<IIdType> theIds);
 
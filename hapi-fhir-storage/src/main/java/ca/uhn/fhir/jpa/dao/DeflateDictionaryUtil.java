@@ -0,0 +1,140 @@
+package ca.uhn.fhir.jpa.dao;
+
+/*
+ * #%L
+ * HAPI FHIR Storage api
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.parser.DataFormatException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses stored resource bodies using raw zlib deflate primed with a preset dictionary
+ * of strings which occur in most FHIR JSON resources. Because the typical stored resource
+ * is only a few kilobytes long, a plain GZip stream spends a large fraction of its output
+ * describing element names it has not seen yet; priming the compressor with those names
+ * produces noticeably smaller rows without requiring any additional libraries.
+ * <p>
+ * <b>The dictionary must never be changed</b>, since it is needed in order to decompress
+ * every row which was ever written using it. If a better dictionary is needed, add a new
+ * {@link ca.uhn.fhir.jpa.model.entity.ResourceEncodingEnum} constant instead.
+ * </p>
+ *
+ * @see ca.uhn.fhir.jpa.model.entity.ResourceEncodingEnum#JSOND
+ * @since 6.6.0
+ */
+public class DeflateDictionaryUtil {
+
+	private static final byte[] DICTIONARY = (
+		"{\"resourceType\":\"Bundle\",\"resourceType\":\"Observation\",\"resourceType\":\"Patient\"," +
+		"\"resourceType\":\"Encounter\",\"resourceType\":\"Condition\",\"resourceType\":\"Practitioner\"," +
+		"\"resourceType\":\"Organization\",\"resourceType\":\"MedicationRequest\",\"resourceType\":\"DiagnosticReport\"," +
+		"\"id\":\"\",\"meta\":{\"versionId\":\"1\",\"lastUpdated\":\"\",\"source\":\"#\",\"profile\":[\"http://hl7.org/fhir/StructureDefinition/\"]," +
+		"\"security\":[{\"system\":\"http://terminology.hl7.org/CodeSystem/v3-Confidentiality\",\"tag\":[{\"system\":\"\"," +
+		"\"text\":{\"status\":\"generated\",\"div\":\"<div xmlns=\\\"http://www.w3.org/1999/xhtml\\\">\"}," +
+		"\"extension\":[{\"url\":\"http://hl7.org/fhir/StructureDefinition/\",\"valueString\":\"\",\"valueCode\":\"\"," +
+		"\"valueCoding\":{\"valueCodeableConcept\":{\"valueReference\":{\"valueBoolean\":true,\"valueDateTime\":\"\"," +
+		"\"modifierExtension\":[{\"identifier\":[{\"use\":\"official\",\"use\":\"usual\",\"type\":{\"coding\":[{\"system\":" +
+		"\"http://terminology.hl7.org/CodeSystem/v2-0203\",\"code\":\"MR\",\"display\":\"Medical record number\"}]}," +
+		"\"value\":\"\",\"period\":{\"start\":\"\",\"end\":\"\"},\"assigner\":{\"reference\":\"Organization/\"}}]," +
+		"\"active\":true,\"name\":[{\"family\":\"\",\"given\":[\"\"],\"prefix\":[\"\"]}],\"telecom\":[{\"system\":\"phone\"," +
+		"\"system\":\"email\",\"value\":\"\",\"use\":\"home\",\"use\":\"work\",\"use\":\"mobile\"}],\"gender\":\"female\"," +
+		"\"gender\":\"male\",\"birthDate\":\"\",\"deceasedBoolean\":false,\"address\":[{\"line\":[\"\"],\"city\":\"\"," +
+		"\"state\":\"\",\"postalCode\":\"\",\"country\":\"\"}],\"maritalStatus\":{\"managingOrganization\":{\"reference\":\"" +
+		"\"generalPractitioner\":[{\"reference\":\"Practitioner/\"}],\"status\":\"final\",\"status\":\"active\"," +
+		"\"status\":\"completed\",\"category\":[{\"coding\":[{\"system\":\"http://terminology.hl7.org/CodeSystem/observation-category\"," +
+		"\"code\":\"vital-signs\",\"code\":\"laboratory\",\"display\":\"\"}]}],\"code\":{\"coding\":[{\"system\":\"http://loinc.org\"," +
+		"\"system\":\"http://snomed.info/sct\",\"system\":\"http://www.nlm.nih.gov/research/umls/rxnorm\",\"code\":\"\"," +
+		"\"display\":\"\"}],\"text\":\"\"},\"subject\":{\"reference\":\"Patient/\",\"display\":\"\"},\"encounter\":{\"reference\":" +
+		"\"Encounter/\"},\"effectiveDateTime\":\"\",\"issued\":\"\",\"performer\":[{\"reference\":\"\"}],\"valueQuantity\":" +
+		"{\"value\":,\"unit\":\"\",\"system\":\"http://unitsofmeasure.org\",\"code\":\"\"},\"interpretation\":[{\"coding\":" +
+		"[{\"system\":\"http://terminology.hl7.org/CodeSystem/v3-ObservationInterpretation\",\"referenceRange\":[{\"low\":{" +
+		"\"high\":{\"component\":[{\"clinicalStatus\":{\"coding\":[{\"system\":\"http://terminology.hl7.org/CodeSystem/condition-clinical\"," +
+		"\"verificationStatus\":{\"coding\":[{\"system\":\"http://terminology.hl7.org/CodeSystem/condition-ver-status\"," +
+		"\"onsetDateTime\":\"\",\"recordedDate\":\"\",\"class\":{\"system\":\"http://terminology.hl7.org/CodeSystem/v3-ActCode\"," +
+		"\"code\":\"AMB\"},\"participant\":[{\"individual\":{\"reference\":\"\"}}],\"period\":{\"start\":\"\",\"end\":\"\"}," +
+		"\"reasonCode\":[{\"serviceProvider\":{\"reference\":\"\"},\"intent\":\"order\",\"medicationCodeableConcept\":" +
+		"{\"authoredOn\":\"\",\"requester\":{\"reference\":\"\"},\"dosageInstruction\":[{\"timing\":{\"repeat\":{\"frequency\":1," +
+		"\"period\":1,\"periodUnit\":\"d\"}},\"doseAndRate\":[{\"doseQuantity\":{\"result\":[{\"reference\":\"Observation/\"}]," +
+		"\"effectivePeriod\":{\"url\":\"\",\"version\":\"\",\"date\":\"\",\"publisher\":\"\",\"description\":\"\"," +
+		"\"entry\":[{\"fullUrl\":\"urn:uuid:\",\"resource\":{\"request\":{\"method\":\"POST\",\"url\":\"\"}}],\"type\":\"transaction\"," +
+		"\"type\":\"collection\",\"type\":\"searchset\",\"total\":0,\"link\":[{\"relation\":\"self\",\"contained\":[{" +
+		"\"reference\":\"#\",\"note\":[{\"text\":\"\"}],\"T00:00:00.000+00:00\",\"T00:00:00Z\"}"
+	).getBytes(StandardCharsets.UTF_8);
+
+	/**
+	 * Non instantiable
+	 */
+	private DeflateDictionaryUtil() {
+		// nothing
+	}
+
+	public static byte[] compress(String theEncoded) {
+		byte[] input = theEncoded.getBytes(StandardCharsets.UTF_8);
+		Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+		try {
+			deflater.setDictionary(DICTIONARY);
+			deflater.setInput(input);
+			deflater.finish();
+			ByteArrayOutputStream os = new ByteArrayOutputStream(Math.max(input.length / 4, 64));
+			byte[] buffer = new byte[4096];
+			while (!deflater.finished()) {
+				int count = deflater.deflate(buffer);
+				os.write(buffer, 0, count);
+			}
+			return os.toByteArray();
+		} finally {
+			deflater.end();
+		}
+	}
+
+	public static String decompress(byte[] theResource) {
+		/*
+		 * Raw (nowrap) inflaters need one extra dummy byte beyond the
+		 * compressed data in order to detect the end of the stream
+		 */
+		byte[] input = new byte[theResource.length + 1];
+		System.arraycopy(theResource, 0, input, 0, theResource.length);
+
+		Inflater inflater = new Inflater(true);
+		try {
+			inflater.setDictionary(DICTIONARY);
+			inflater.setInput(input);
+			ByteArrayOutputStream os = new ByteArrayOutputStream(theResource.length * 4);
+			byte[] buffer = new byte[8192];
+			while (!inflater.finished()) {
+				int count = inflater.inflate(buffer);
+				if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					throw new DataFormatException(Msg.code(2279) + "Failed to decompress contents: Unexpected end of data");
+				}
+				os.write(buffer, 0, count);
+			}
+			return os.toString(StandardCharsets.UTF_8);
+		} catch (java.util.zip.DataFormatException e) {
+			throw new DataFormatException(Msg.code(2280) + "Failed to decompress contents", e);
+		} finally {
+			inflater.end();
+		}
+	}
+
+}
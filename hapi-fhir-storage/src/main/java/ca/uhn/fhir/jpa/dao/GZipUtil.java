@@ -27,16 +27,15 @@ import org.apache.commons.io.IOUtils;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
 public class GZipUtil {
 
 	public static String decompress(byte[] theResource) {
-		GZIPInputStream is;
-		try {
-			is = new GZIPInputStream(new ByteArrayInputStream(theResource));
-			return IOUtils.toString(is, "UTF-8");
+		try (GZIPInputStream is = new GZIPInputStream(new ByteArrayInputStream(theResource))) {
+			return new String(is.readAllBytes(), StandardCharsets.UTF_8);
 		} catch (IOException e) {
 			throw new DataFormatException(Msg.code(516) + "Failed to decompress contents", e);
 		}
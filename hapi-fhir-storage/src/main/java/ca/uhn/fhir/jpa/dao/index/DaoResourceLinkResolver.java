@@ -60,6 +60,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.nio.charset.StandardCharsets;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
@@ -154,6 +155,11 @@ public class DaoResourceLinkResolver<T extends IResourcePersistentId> implements
 		return resolvedResource;
 	}
 
+	@Override
+	public void addPendingTargetResourceLookups(@Nonnull RequestPartitionId theRequestPartitionId, Collection<IIdType> theTargetIds) {
+		myIdHelperService.addPendingResourceIdentityLookups(theRequestPartitionId, theTargetIds);
+	}
+
 	/**
 	 * @param theIdToAssignToPlaceholder If specified, the placeholder resource created will be given a specific ID
 	 */
@@ -0,0 +1,98 @@
+package ca.uhn.fhir.jpa.util;
+
+/*-
+ * #%L
+ * HAPI FHIR Storage api
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.jpa.util.MemoryCacheService.CacheEnum;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * SPI for a shared cache tier which sits behind the per-node caches held by
+ * {@link MemoryCacheService}. When a backend is registered, values which are missing from the
+ * local (near) cache are looked up in the backend before being resolved from the database, and
+ * values which are put using {@link MemoryCacheService#putAfterCommit(CacheEnum, Object, Object)}
+ * are also written to the backend. This lets the nodes
+ * of a cluster reuse each other's work for caches such as
+ * {@link CacheEnum#FORCED_ID_TO_PID} and {@link CacheEnum#MATCH_URL}.
+ * <p>
+ * Whenever a value is written, the backend must notify the registered
+ * {@link IInvalidationListener listeners} on every node (including the writing node), so that
+ * stale near-cache entries are dropped. Since {@link MemoryCacheService#putAfterCommit(CacheEnum, Object, Object)}
+ * only writes once the database transaction has committed, these notifications are only
+ * ever sent for committed data.
+ * </p>
+ * <p>
+ * Implementations are responsible for any serialization needed to move keys and values
+ * between nodes, and should only return <code>true</code> from {@link #isEnabled(CacheEnum)}
+ * for caches whose keys and values they can handle.
+ * </p>
+ *
+ * @see LocalDistributedCacheBackend for an in-process implementation which can be used for testing
+ * @since 6.6.0
+ */
+public interface IDistributedCacheBackend {
+
+	/**
+	 * Should the given cache be shared using this backend? Caches for which this method
+	 * returns <code>false</code> are only held in the local cache.
+	 */
+	boolean isEnabled(@Nonnull CacheEnum theCache);
+
+	/**
+	 * Returns the value stored for the given key, or <code>null</code> if there is none
+	 */
+	@Nullable
+	Object get(@Nonnull CacheEnum theCache, @Nonnull Object theKey);
+
+	/**
+	 * Stores a value, and notifies all registered listeners that the key has changed
+	 */
+	void put(@Nonnull CacheEnum theCache, @Nonnull Object theKey, @Nonnull Object theValue);
+
+	/**
+	 * Removes all values from all caches, and notifies all registered listeners
+	 */
+	void invalidateAll();
+
+	/**
+	 * Registers a listener which will be notified whenever a value is changed or removed
+	 * by any node sharing this backend
+	 */
+	void registerInvalidationListener(@Nonnull IInvalidationListener theListener);
+
+	/**
+	 * Unregisters a listener previously registered using {@link #registerInvalidationListener(IInvalidationListener)}
+	 */
+	void unregisterInvalidationListener(@Nonnull IInvalidationListener theListener);
+
+	@FunctionalInterface
+	interface IInvalidationListener {
+
+		/**
+		 * @param theCache The cache containing the key, or <code>null</code> if all caches were cleared
+		 * @param theKey   The key which has changed, or <code>null</code> if the entire cache was cleared
+		 */
+		void invalidate(@Nullable CacheEnum theCache, @Nullable Object theKey);
+
+	}
+
+}
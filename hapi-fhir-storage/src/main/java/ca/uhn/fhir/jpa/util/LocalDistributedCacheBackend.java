@@ -0,0 +1,106 @@
+package ca.uhn.fhir.jpa.util;
+
+/*-
+ * #%L
+ * HAPI FHIR Storage api
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import ca.uhn.fhir.jpa.util.MemoryCacheService.CacheEnum;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * In-process implementation of {@link IDistributedCacheBackend} which simply holds its values in
+ * memory. A single instance can be shared by several {@link MemoryCacheService} instances in order
+ * to simulate a cluster in tests. This class applies no size limit or expiry, so it is not
+ * intended for production use.
+ *
+ * @since 6.6.0
+ */
+public class LocalDistributedCacheBackend implements IDistributedCacheBackend {
+
+	private final Set<CacheEnum> myEnabledCaches;
+	private final Map<CacheEnum, Map<Object, Object>> myValues = new EnumMap<>(CacheEnum.class);
+	private final List<IInvalidationListener> myListeners = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Constructor
+	 *
+	 * @param theEnabledCaches The caches to share. If none are specified, all caches are shared.
+	 */
+	public LocalDistributedCacheBackend(CacheEnum... theEnabledCaches) {
+		myEnabledCaches = theEnabledCaches.length > 0 ? EnumSet.copyOf(Arrays.asList(theEnabledCaches)) : EnumSet.allOf(CacheEnum.class);
+		for (CacheEnum next : CacheEnum.values()) {
+			myValues.put(next, new ConcurrentHashMap<>());
+		}
+	}
+
+	@Override
+	public boolean isEnabled(@Nonnull CacheEnum theCache) {
+		return myEnabledCaches.contains(theCache);
+	}
+
+	@Nullable
+	@Override
+	public Object get(@Nonnull CacheEnum theCache, @Nonnull Object theKey) {
+		return myValues.get(theCache).get(theKey);
+	}
+
+	@Override
+	public void put(@Nonnull CacheEnum theCache, @Nonnull Object theKey, @Nonnull Object theValue) {
+		myValues.get(theCache).put(theKey, theValue);
+		for (IInvalidationListener next : myListeners) {
+			next.invalidate(theCache, theKey);
+		}
+	}
+
+	@Override
+	public void invalidateAll() {
+		myValues.values().forEach(Map::clear);
+		for (IInvalidationListener next : myListeners) {
+			next.invalidate(null, null);
+		}
+	}
+
+	@Override
+	public void registerInvalidationListener(@Nonnull IInvalidationListener theListener) {
+		myListeners.add(theListener);
+	}
+
+	@Override
+	public void unregisterInvalidationListener(@Nonnull IInvalidationListener theListener) {
+		myListeners.remove(theListener);
+	}
+
+	/**
+	 * Returns the number of values held for the given cache
+	 */
+	public int size(CacheEnum theCache) {
+		return myValues.get(theCache).size();
+	}
+
+}
@@ -27,13 +27,19 @@ import ca.uhn.fhir.sl.cache.Cache;
 import ca.uhn.fhir.sl.cache.CacheFactory;
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.transaction.support.TransactionSynchronization;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.Collection;
 import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 
 import static java.util.concurrent.TimeUnit.MINUTES;
@@ -43,14 +49,24 @@ import static org.apache.commons.lang3.StringUtils.isNotBlank;
 /**
  * This class acts as a central spot for all of the many Caffeine caches we use in HAPI FHIR.
  * <p>
- * The API is super simplistic, and caches are all 1-minute, max 10000 entries for starters. We could definitely add nuance to this,
- * which will be much easier now that this is being centralized. Some logging/monitoring would be good too.
+ * The API is super simplistic, and caches are all 1-minute, max 10000 entries by default. The size and
+ * expiry of each cache can be overridden using {@link JpaStorageSettings#setMemoryCacheMaximumSize(CacheEnum, Integer)}
+ * and {@link JpaStorageSettings#setMemoryCacheExpireAfterWriteMillis(CacheEnum, Long)}, and hit/miss/eviction
+ * counts for each cache are available via {@link #getMetrics(CacheEnum)}.
+ * </p>
+ * <p>
+ * If an {@link IDistributedCacheBackend} is registered, the caches it is enabled for are backed by that
+ * shared tier, and the local caches act as a near cache in front of it.
+ * </p>
  */
 // TODO: JA2 extract an interface for this class and use it everywhere
 public class MemoryCacheService {
 
 	private final JpaStorageSettings myStorageSettings;
 	private final EnumMap<CacheEnum, Cache<?, ?>> myCaches = new EnumMap<>(CacheEnum.class);
+	private final EnumMap<CacheEnum, CacheMetrics> myMetrics = new EnumMap<>(CacheEnum.class);
+	private final IDistributedCacheBackend.IInvalidationListener myInvalidationListener = this::invalidateLocal;
+	private IDistributedCacheBackend myDistributedCacheBackend;
 
 	public MemoryCacheService(JpaStorageSettings theStorageSettings) {
 		myStorageSettings = theStorageSettings;
@@ -87,13 +103,43 @@ public class MemoryCacheService {
 					break;
 			}
 
-			Cache<Object, Object> nextCache = CacheFactory.build(SECONDS.toMillis(timeoutSeconds), maximumSize);
+			long timeoutMillis = SECONDS.toMillis(timeoutSeconds);
+			Long timeoutMillisOverride = myStorageSettings.getMemoryCacheExpireAfterWriteMillis(next);
+			if (timeoutMillisOverride != null) {
+				timeoutMillis = timeoutMillisOverride;
+			}
+			Integer maximumSizeOverride = myStorageSettings.getMemoryCacheMaximumSize(next);
+			if (maximumSizeOverride != null) {
+				maximumSize = maximumSizeOverride;
+			}
+
+			CacheMetrics metrics = new CacheMetrics();
+			Cache<Object, Object> nextCache = CacheFactory.build(timeoutMillis, maximumSize, metrics::recordEviction);
 
 			myCaches.put(next, nextCache);
+			myMetrics.put(next, metrics);
 		}
 	}
 
 
+	/**
+	 * Registers a shared cache tier to sit behind the local caches. Any previously registered
+	 * backend is replaced. Set to <code>null</code> to only use the local caches.
+	 *
+	 * @since 6.6.0
+	 */
+	@Autowired(required = false)
+	public synchronized void setDistributedCacheBackend(@Nullable IDistributedCacheBackend theDistributedCacheBackend) {
+		if (myDistributedCacheBackend != null) {
+			myDistributedCacheBackend.unregisterInvalidationListener(myInvalidationListener);
+		}
+		myDistributedCacheBackend = theDistributedCacheBackend;
+		if (theDistributedCacheBackend != null) {
+			theDistributedCacheBackend.registerInvalidationListener(myInvalidationListener);
+		}
+		myCaches.values().forEach(Cache::invalidateAll);
+	}
+
 	public <K, T> T get(CacheEnum theCache, K theKey, Function<K, T> theSupplier) {
 		assert theCache.getKeyType().isAssignableFrom(theKey.getClass());
 		return doGet(theCache, theKey, theSupplier);
@@ -101,7 +147,31 @@ public class MemoryCacheService {
 
 	protected <K, T> T doGet(CacheEnum theCache, K theKey, Function<K, T> theSupplier) {
 		Cache<K, T> cache = getCache(theCache);
-		return cache.get(theKey, theSupplier);
+		CacheMetrics metrics = myMetrics.get(theCache);
+		IDistributedCacheBackend backend = getDistributedCacheBackend(theCache);
+		if (backend == null) {
+			boolean[] loaded = new boolean[1];
+			T retVal = cache.get(theKey, k -> {
+				loaded[0] = true;
+				return theSupplier.apply(k);
+			});
+			metrics.recordLookup(!loaded[0]);
+			return retVal;
+		}
+
+		/*
+		 * The supplier may be resolving data from a transaction which hasn't committed
+		 * yet, so the result is only kept in the local cache. Values are only ever
+		 * written to the backend by putAfterCommit.
+		 */
+		T retVal = doGetIfPresent(theCache, theKey);
+		if (retVal == null) {
+			retVal = theSupplier.apply(theKey);
+			if (retVal != null) {
+				cache.put(theKey, retVal);
+			}
+		}
+		return retVal;
 	}
 
 	/**
@@ -125,10 +195,34 @@ public class MemoryCacheService {
 		return doGetIfPresent(theCache, theKey);
 	}
 
+	@SuppressWarnings("unchecked")
 	protected <K, V> V doGetIfPresent(CacheEnum theCache, K theKey) {
-		return (V) getCache(theCache).getIfPresent(theKey);
+		Cache<K, V> cache = getCache(theCache);
+		CacheMetrics metrics = myMetrics.get(theCache);
+		V retVal = cache.getIfPresent(theKey);
+		if (retVal != null) {
+			metrics.recordLookup(true);
+			return retVal;
+		}
+
+		IDistributedCacheBackend backend = getDistributedCacheBackend(theCache);
+		if (backend != null) {
+			retVal = (V) backend.get(theCache, theKey);
+			if (retVal != null) {
+				metrics.recordRemoteHit();
+				cache.put(theKey, retVal);
+				return retVal;
+			}
+		}
+
+		metrics.recordLookup(false);
+		return null;
 	}
 
+	/**
+	 * Puts a value in the local cache only. Use {@link #putAfterCommit(CacheEnum, Object, Object)}
+	 * to share a value with other nodes through the {@link IDistributedCacheBackend}.
+	 */
 	public <K, V> void put(CacheEnum theCache, K theKey, V theValue) {
 		assert theCache.getKeyType().isAssignableFrom(theKey.getClass());
 		doPut(theCache, theKey, theValue);
@@ -138,6 +232,15 @@ public class MemoryCacheService {
 		getCache(theCache).put(theKey, theValue);
 	}
 
+	private <K, V> void putAndPublish(CacheEnum theCache, K theKey, V theValue) {
+		IDistributedCacheBackend backend = getDistributedCacheBackend(theCache);
+		if (backend != null) {
+			// This notifies every node (including this one) to drop its local copy
+			backend.put(theCache, theKey, theValue);
+		}
+		doPut(theCache, theKey, theValue);
+	}
+
 	/**
 	 * This method registers a transaction synchronization that puts an entry in the cache
 	 * if and when the current database transaction successfully commits. If the
@@ -148,17 +251,22 @@ public class MemoryCacheService {
 	 * resolved in the DB during the current transaction, but it's not yet guaranteed
 	 * that this item will successfully save to the DB. Use this method in that case
 	 * in order to avoid cache poisoning.
+	 * <p>
+	 * If a {@link IDistributedCacheBackend} is registered, the value is also written to
+	 * the shared tier at that time, which invalidates any stale copies held by other nodes.
+	 * This is the only method which writes to the shared tier.
 	 */
 	public <K, V> void putAfterCommit(CacheEnum theCache, K theKey, V theValue) {
+		assert theCache.getKeyType().isAssignableFrom(theKey.getClass());
 		if (TransactionSynchronizationManager.isSynchronizationActive()) {
 			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
 				@Override
 				public void afterCommit() {
-					put(theCache, theKey, theValue);
+					putAndPublish(theCache, theKey, theValue);
 				}
 			});
 		} else {
-			put(theCache, theKey, theValue);
+			putAndPublish(theCache, theKey, theValue);
 		}
 	}
 
@@ -169,11 +277,64 @@ public class MemoryCacheService {
 
 	@SuppressWarnings("unchecked")
 	protected <K, V> Map<K, V> doGetAllPresent(CacheEnum theCache, Collection<K> theKeys) {
-		return (Map<K, V>) getCache(theCache).getAllPresent(theKeys);
+		Cache<K, V> cache = getCache(theCache);
+		CacheMetrics metrics = myMetrics.get(theCache);
+		Map<K, V> retVal = cache.getAllPresent(theKeys);
+		metrics.recordLookups(retVal.size(), 0);
+
+		IDistributedCacheBackend backend = getDistributedCacheBackend(theCache);
+		if (backend == null) {
+			metrics.recordLookups(0, theKeys.size() - retVal.size());
+			return retVal;
+		}
+
+		Map<K, V> remoteValues = new HashMap<>();
+		for (K next : theKeys) {
+			if (!retVal.containsKey(next)) {
+				V value = (V) backend.get(theCache, next);
+				if (value != null) {
+					metrics.recordRemoteHit();
+					remoteValues.put(next, value);
+				} else {
+					metrics.recordLookups(0, 1);
+				}
+			}
+		}
+		if (!remoteValues.isEmpty()) {
+			cache.putAll(remoteValues);
+			retVal = new HashMap<>(retVal);
+			retVal.putAll(remoteValues);
+		}
+		return retVal;
 	}
 
 	public void invalidateAllCaches() {
 		myCaches.values().forEach(Cache::invalidateAll);
+		if (myDistributedCacheBackend != null) {
+			myDistributedCacheBackend.invalidateAll();
+		}
+	}
+
+	/**
+	 * Drops entries from the local caches only (called when the shared tier reports a change)
+	 */
+	private void invalidateLocal(@Nullable CacheEnum theCache, @Nullable Object theKey) {
+		if (theCache == null) {
+			myCaches.values().forEach(Cache::invalidateAll);
+		} else if (theKey == null) {
+			getCache(theCache).invalidateAll();
+		} else {
+			getCache(theCache).invalidate(theKey);
+		}
+	}
+
+	@Nullable
+	private IDistributedCacheBackend getDistributedCacheBackend(CacheEnum theCache) {
+		IDistributedCacheBackend retVal = myDistributedCacheBackend;
+		if (retVal != null && retVal.isEnabled(theCache)) {
+			return retVal;
+		}
+		return null;
 	}
 
 	private <K, T> Cache<K, T> getCache(CacheEnum theCache) {
@@ -184,6 +345,15 @@ public class MemoryCacheService {
 		return getCache(theCache).estimatedSize();
 	}
 
+	/**
+	 * Returns the hit/miss/eviction counts for the given cache on this node
+	 *
+	 * @since 6.6.0
+	 */
+	public CacheMetrics getMetrics(CacheEnum theCache) {
+		return myMetrics.get(theCache);
+	}
+
 	public enum CacheEnum {
 
 		TAG_DEFINITION(TagDefinitionCacheKey.class),
@@ -212,6 +382,78 @@ public class MemoryCacheService {
 	}
 
 
+	/**
+	 * Hit/miss/eviction counts for a single cache
+	 *
+	 * @since 6.6.0
+	 */
+	public static class CacheMetrics {
+
+		private final LongAdder myHitCount = new LongAdder();
+		private final LongAdder myRemoteHitCount = new LongAdder();
+		private final LongAdder myMissCount = new LongAdder();
+		private final LongAdder myEvictionCount = new LongAdder();
+
+		void recordLookup(boolean theHit) {
+			if (theHit) {
+				myHitCount.increment();
+			} else {
+				myMissCount.increment();
+			}
+		}
+
+		void recordLookups(int theHits, int theMisses) {
+			myHitCount.add(theHits);
+			myMissCount.add(theMisses);
+		}
+
+		void recordRemoteHit() {
+			myRemoteHitCount.increment();
+		}
+
+		void recordEviction() {
+			myEvictionCount.increment();
+		}
+
+		/**
+		 * Lookups which were served from the local cache
+		 */
+		public long getHitCount() {
+			return myHitCount.sum();
+		}
+
+		/**
+		 * Lookups which missed the local cache but were served from the {@link IDistributedCacheBackend}
+		 */
+		public long getRemoteHitCount() {
+			return myRemoteHitCount.sum();
+		}
+
+		/**
+		 * Lookups which were not found in any cache tier
+		 */
+		public long getMissCount() {
+			return myMissCount.sum();
+		}
+
+		/**
+		 * Local entries which were evicted because of the size limit or expiry
+		 */
+		public long getEvictionCount() {
+			return myEvictionCount.sum();
+		}
+
+		@Override
+		public String toString() {
+			return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+				.append("hits", getHitCount())
+				.append("remoteHits", getRemoteHitCount())
+				.append("misses", getMissCount())
+				.append("evictions", getEvictionCount())
+				.toString();
+		}
+	}
+
 	public static class TagDefinitionCacheKey {
 
 		private final TagTypeEnum myType;
@@ -0,0 +1,45 @@
+package ca.uhn.fhir.jpa.dao;
+
+import ca.uhn.fhir.parser.DataFormatException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DeflateDictionaryUtilTest {
+
+	private static final String PATIENT = "{\"resourceType\":\"Patient\",\"id\":\"123\",\"meta\":{\"versionId\":\"1\",\"lastUpdated\":\"2023-02-01T10:11:12.000+00:00\"}," +
+		"\"identifier\":[{\"system\":\"http://example.com/mrn\",\"value\":\"MRN-7\"}],\"active\":true,\"name\":[{\"family\":\"Simpson\",\"given\":[\"Homer\",\"Jay\"]}]," +
+		"\"telecom\":[{\"system\":\"phone\",\"value\":\"555-1234\",\"use\":\"home\"}],\"gender\":\"male\",\"birthDate\":\"1956-05-12\"," +
+		"\"address\":[{\"line\":[\"742 Evergreen Terrace\"],\"city\":\"Springfield\",\"state\":\"OR\",\"postalCode\":\"97403\",\"country\":\"US\"}]," +
+		"\"managingOrganization\":{\"reference\":\"Organization/1\"}}";
+
+	@Test
+	public void testRoundTrip() {
+		byte[] compressed = DeflateDictionaryUtil.compress(PATIENT);
+		assertEquals(PATIENT, DeflateDictionaryUtil.decompress(compressed));
+
+		assertEquals("", DeflateDictionaryUtil.decompress(DeflateDictionaryUtil.compress("")));
+
+		String unicode = "{\"resourceType\":\"Patient\",\"name\":[{\"family\":\"Müller\",\"given\":[\"Zoë\",\"日本\"]}]}";
+		assertEquals(unicode, DeflateDictionaryUtil.decompress(DeflateDictionaryUtil.compress(unicode)));
+	}
+
+	@Test
+	public void testSmallerThanGZip() {
+		byte[] deflated = DeflateDictionaryUtil.compress(PATIENT);
+		byte[] gzipped = GZipUtil.compress(PATIENT);
+		assertTrue(deflated.length < gzipped.length, "Deflated " + deflated.length + " bytes vs GZipped " + gzipped.length + " bytes");
+	}
+
+	@Test
+	public void testTruncatedInput() {
+		byte[] compressed = DeflateDictionaryUtil.compress(PATIENT);
+		byte[] truncated = Arrays.copyOf(compressed, compressed.length / 2);
+		assertThrows(DataFormatException.class, () -> DeflateDictionaryUtil.decompress(truncated));
+	}
+
+}
@@ -21,6 +21,8 @@ import org.hl7.fhir.r4.model.Binary;
 import org.hl7.fhir.r4.model.Bundle;
 import org.hl7.fhir.r4.model.Composition;
 import org.hl7.fhir.r4.model.DateTimeType;
+import org.hl7.fhir.r4.model.DateType;
+import org.hl7.fhir.r4.model.DecimalType;
 import org.hl7.fhir.r4.model.Device;
 import org.hl7.fhir.r4.model.DocumentReference;
 import org.hl7.fhir.r4.model.Encounter;
@@ -52,7 +54,9 @@ import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashSet;
@@ -98,6 +102,7 @@ public class JsonParserR4Test extends BaseTest {
 	@AfterEach
 	public void afterEach() {
 		ourCtx.getParserOptions().setAutoContainReferenceTargetsWithNoId(true);
+		ourCtx.getParserOptions().setUseStreamingJsonParser(false);
 	}
 
 	@Test
@@ -258,6 +263,122 @@ public class JsonParserR4Test extends BaseTest {
 
 	}
 
+	@Test
+	public void testEncodeResourceToOutputStream() throws IOException {
+		Bundle bundle = createBundleWithPatient();
+		Patient patient = (Patient) bundle.getEntry().get(0).getResource();
+		patient.getNameFirstRep().setFamily("Bj\u00f6rk \u6771\u4eac");
+		patient.setBirthDateElement(new DateType("2001-02-03"));
+		patient.addExtension("http://foo", new DecimalType("1.50"));
+
+		IParser parser = ourCtx.newJsonParser().setPrettyPrint(true);
+		String expected = parser.encodeResourceToString(bundle);
+
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		parser.encodeResourceToOutputStream(bundle, outputStream);
+		assertEquals(expected, outputStream.toString(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testParseStreamingMatchesTreeParse() throws Exception {
+		List<String> inputs = new ArrayList<>();
+		inputs.add(loadResource("/bundle-with-two-patient-resources.json"));
+		inputs.add(loadResource("/multi-thread-parsing-issue-bundle.json"));
+		inputs.add(loadResource("/entities-from-cerner.json"));
+
+		// Alternate before the primitive, orphan alternate, and extension URL after the value
+		inputs.add("{\"resourceType\":\"Patient\",\"id\":\"A\"," +
+			"\"_birthDate\":{\"extension\":[{\"valueString\":\"FOO\",\"url\":\"http://foo\"}]},\"birthDate\":\"2001-02-03\"," +
+			"\"_gender\":{\"id\":\"GID\"}," +
+			"\"name\":[{\"family\":\"FAM\",\"given\":[\"G1\",null],\"_given\":[null,{\"extension\":[{\"url\":\"http://bar\",\"valueCode\":\"X\"}]}]}]}");
+
+		// Contained and entry resources where resourceType isn't the first property
+		inputs.add("{\"resourceType\":\"Bundle\",\"type\":\"transaction\",\"entry\":[" +
+			"{\"fullUrl\":\"urn:uuid:1\",\"resource\":{\"id\":\"O1\",\"resourceType\":\"Observation\",\"status\":\"final\",\"valueQuantity\":{\"value\":1.50}}}," +
+			"{\"resource\":{\"resourceType\":\"Observation\",\"contained\":[{\"id\":\"1\",\"resourceType\":\"Patient\",\"active\":true}],\"subject\":{\"reference\":\"#1\"}}}]}");
+
+		// Alternates on either side of a streamed complex element
+		inputs.add("{\"resourceType\":\"Patient\",\"id\":\"A\"," +
+			"\"name\":[{\"_given\":[{\"id\":\"G1ID\"}],\"period\":{\"start\":\"2001\"},\"given\":[\"G1\"],\"_family\":{\"id\":\"FID\"}}]," +
+			"\"_birthDate\":{\"id\":\"BID\"},\"contact\":[{\"gender\":\"male\"}],\"birthDate\":\"2001-02-03\"," +
+			"\"maritalStatus\":{\"text\":\"M\"},\"_active\":{\"id\":\"AID\"},\"active\":true}");
+		inputs.add("{\"resourceType\":\"Patient\",\"id\":\"A\"," +
+			"\"name\":[{\"period\":{\"start\":\"2001\"},\"given\":[\"G1\"],\"_given\":[{\"id\":\"G1ID\"}]}]," +
+			"\"maritalStatus\":{\"text\":\"M\"},\"_maritalStatus\":{\"id\":\"MID\"},\"_name\":[{\"id\":\"NID\"}]}");
+
+		for (String next : inputs) {
+			ourCtx.getParserOptions().setUseStreamingJsonParser(false);
+			IBaseResource treeParsed = ourCtx.newJsonParser().parseResource(next);
+			ourCtx.getParserOptions().setUseStreamingJsonParser(true);
+			IBaseResource streamParsed = ourCtx.newJsonParser().parseResource(next);
+
+			String expected = ourCtx.newJsonParser().encodeResourceToString(treeParsed);
+			String actual = ourCtx.newJsonParser().encodeResourceToString(streamParsed);
+			assertEquals(expected, actual);
+		}
+	}
+
+	@Test
+	public void testParseStreamingAlternatesAfterStreamedElements() {
+		ourCtx.getParserOptions().setUseStreamingJsonParser(true);
+
+		String input = "{\"resourceType\":\"Patient\"," +
+			"\"name\":[" +
+			"  {\"given\":[\"G1\"],\"period\":{\"start\":\"2001\"},\"_given\":[{\"id\":\"G1ID\"}]}," +
+			"  {\"_given\":[{\"id\":\"G2ID\"}],\"period\":{\"start\":\"2002\"},\"given\":[\"G2\"]}" +
+			"]," +
+			"\"maritalStatus\":{\"text\":\"M\"},\"_maritalStatus\":{\"id\":\"MID\",\"extension\":[{\"url\":\"http://foo\",\"valueString\":\"FOO\"}]}," +
+			"\"_name\":[{\"id\":\"N1ID\"},{\"id\":\"N2ID\"}]," +
+			"\"active\":true}";
+		Patient patient = ourCtx.newJsonParser().parseResource(Patient.class, input);
+
+		assertEquals("N1ID", patient.getName().get(0).getId());
+		assertEquals("G1", patient.getName().get(0).getGiven().get(0).getValue());
+		assertEquals("G1ID", patient.getName().get(0).getGiven().get(0).getId());
+		assertEquals("2001", patient.getName().get(0).getPeriod().getStartElement().getValueAsString());
+		assertEquals("N2ID", patient.getName().get(1).getId());
+		assertEquals("G2", patient.getName().get(1).getGiven().get(0).getValue());
+		assertEquals("G2ID", patient.getName().get(1).getGiven().get(0).getId());
+		assertEquals("MID", patient.getMaritalStatus().getId());
+		assertEquals("M", patient.getMaritalStatus().getText());
+		assertEquals("FOO", patient.getMaritalStatus().getExtensionString("http://foo"));
+		assertTrue(patient.getActive());
+	}
+
+	@Test
+	public void testParseStreamingInvalidContent() {
+		ourCtx.getParserOptions().setUseStreamingJsonParser(true);
+		IParser parser = ourCtx.newJsonParser();
+
+		try {
+			parser.parseResource("[]");
+			fail();
+		} catch (DataFormatException e) {
+			assertEquals(Msg.code(2274) + "Content does not appear to be FHIR JSON, first token was: START_ARRAY (must be '{')", e.getMessage());
+		}
+
+		try {
+			parser.parseResource("{\"active\":true}");
+			fail();
+		} catch (DataFormatException e) {
+			assertEquals(Msg.code(2298) + "Invalid JSON content detected, missing required element: 'resourceType'", e.getMessage());
+		}
+
+		try {
+			parser.parseResource("{\"resourceType\":\"Patient\"} {}");
+			fail();
+		} catch (DataFormatException e) {
+			assertThat(e.getMessage(), containsString(Msg.code(2275)));
+		}
+
+		try {
+			parser.parseResource("{\"resourceType\":\"Patient\",\"name\":[{\"family\":\"FAM\"");
+			fail();
+		} catch (DataFormatException e) {
+			assertThat(e.getMessage(), containsString(Msg.code(2276)));
+		}
+	}
+
 	@Test
 	public void testParseBundleWithMultipleNestedContainedResources() throws Exception {
 		String text = loadResource("/bundle-with-two-patient-resources.json");
@@ -0,0 +1,194 @@
+package ca.uhn.fhir.parser;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.util.BundleUtil;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.Patient;
+import org.hl7.fhir.r4.model.Quantity;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ResourceStreamIteratorR4Test {
+
+	private static final FhirContext ourCtx = FhirContext.forR4Cached();
+
+	@Test
+	public void testJsonBundleMatchesFullParse() throws IOException {
+		Bundle bundle = createBundle(10);
+		bundle.addEntry().getRequest().setMethod(Bundle.HTTPVerb.DELETE).setUrl("Patient/999");
+		String encoded = ourCtx.newJsonParser().encodeResourceToString(bundle);
+
+		List<IBaseResource> expected = BundleUtil.toListOfResources(ourCtx, ourCtx.newJsonParser().parseResource(Bundle.class, encoded));
+		List<IBaseResource> actual = readAll(ourCtx.newJsonParser(), new StringReader(encoded));
+
+		assertEquals(10, actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.get(i).getIdElement().getValue(), actual.get(i).getIdElement().getValue());
+			assertEquals(ourCtx.newJsonParser().encodeResourceToString(expected.get(i)), ourCtx.newJsonParser().encodeResourceToString(actual.get(i)));
+		}
+		assertEquals("http://example.com/fhir/Patient/0/_history/1", actual.get(0).getIdElement().getValue());
+	}
+
+	@Test
+	public void testJsonBundleWithPropertiesInAnyOrder() throws IOException {
+		String input = "{" +
+			"\"entry\":[" +
+			"  {\"search\":{\"mode\":\"match\"},\"resource\":{\"id\":\"A\",\"resourceType\":\"Patient\",\"active\":true},\"fullUrl\":\"http://foo/Patient/A\"}," +
+			"  {\"resource\":{\"resourceType\":\"Observation\",\"id\":\"B\",\"valueQuantity\":{\"value\":1.50}}}" +
+			"]," +
+			"\"link\":[{\"relation\":\"next\",\"url\":\"http://foo?page=2\"}]," +
+			"\"resourceType\":\"Bundle\"," +
+			"\"total\":2" +
+			"}";
+
+		List<IBaseResource> actual = readAll(ourCtx.newJsonParser(), new StringReader(input));
+
+		assertEquals(2, actual.size());
+		assertEquals("http://foo/Patient/A", actual.get(0).getIdElement().getValue());
+		assertTrue(((Patient) actual.get(0)).getActive());
+		assertEquals("Observation/B", actual.get(1).getIdElement().getValue());
+		assertEquals("1.50", ((Quantity) ((Observation) actual.get(1)).getValue()).getValueElement().getValueAsString());
+	}
+
+	@Test
+	public void testJsonNotABundle() throws IOException {
+		String input = ourCtx.newJsonParser().encodeResourceToString(new Patient().setActive(true));
+
+		try (ResourceStreamIterator iterator = new ResourceStreamIterator(ourCtx.newJsonParser(), new StringReader(input))) {
+			DataFormatException e = assertThrows(DataFormatException.class, iterator::hasNext);
+			assertThat(e.getMessage(), containsString("Expected a Bundle but found resourceType: Patient"));
+		}
+	}
+
+	@Test
+	public void testJsonInvalid() throws IOException {
+		try (ResourceStreamIterator iterator = new ResourceStreamIterator(ourCtx.newJsonParser(), new StringReader("{\"resourceType\":\"Bundle\",\"entry\":[{\"resource\":"))) {
+			DataFormatException e = assertThrows(DataFormatException.class, iterator::hasNext);
+			assertThat(e.getMessage(), containsString("Failed to read streamed FHIR content"));
+		}
+	}
+
+	@Test
+	public void testNdJson() throws IOException {
+		String input = "{\"resourceType\":\"Patient\",\"id\":\"1\"}\n" +
+			"\n" +
+			"  {\"resourceType\":\"Observation\",\"id\":\"2\"}  \n";
+
+		List<IBaseResource> actual = readAll(ourCtx.newNDJsonParser(), new StringReader(input));
+
+		assertThat(actual.stream().map(t -> t.getIdElement().getValue()).collect(Collectors.toList()), contains("Patient/1", "Observation/2"));
+	}
+
+	@Test
+	public void testXmlBundle() throws IOException {
+		String encoded = ourCtx.newXmlParser().encodeResourceToString(createBundle(3));
+
+		List<IBaseResource> actual = readAll(ourCtx.newXmlParser(), new StringReader(encoded));
+
+		assertThat(actual.stream().map(t -> t.getIdElement().toUnqualifiedVersionless().getValue()).collect(Collectors.toList()), contains("Patient/0", "Patient/1", "Patient/2"));
+	}
+
+	@Test
+	public void testNextWhenExhausted() throws IOException {
+		try (ResourceStreamIterator iterator = new ResourceStreamIterator(ourCtx.newNDJsonParser(), new StringReader(""))) {
+			assertFalse(iterator.hasNext());
+			assertThrows(NoSuchElementException.class, iterator::next);
+		}
+	}
+
+	/**
+	 * The first resource should be available after reading only the start of a very
+	 * large Bundle, rather than after reading the whole thing
+	 */
+	@Test
+	public void testJsonBundleIsReadLazily() throws IOException {
+		String encoded = ourCtx.newJsonParser().encodeResourceToString(createBundle(5000));
+		CountingReader reader = new CountingReader(new StringReader(encoded));
+
+		try (ResourceStreamIterator iterator = new ResourceStreamIterator(ourCtx.newJsonParser(), reader)) {
+			assertEquals("http://example.com/fhir/Patient/0/_history/1", iterator.next().getIdElement().getValue());
+			assertThat(reader.getCount(), lessThan(encoded.length() / 10));
+
+			int count = 1;
+			while (iterator.hasNext()) {
+				iterator.next();
+				count++;
+			}
+			assertEquals(5000, count);
+			assertEquals(encoded.length(), reader.getCount());
+		}
+	}
+
+	private static List<IBaseResource> readAll(IParser theParser, Reader theReader) throws IOException {
+		List<IBaseResource> retVal = new ArrayList<>();
+		try (ResourceStreamIterator iterator = new ResourceStreamIterator(theParser, theReader)) {
+			iterator.forEachRemaining(retVal::add);
+		}
+		return retVal;
+	}
+
+	private static Bundle createBundle(int theCount) {
+		Bundle retVal = new Bundle();
+		retVal.setType(Bundle.BundleType.SEARCHSET);
+		retVal.setTotal(theCount);
+		for (int i = 0; i < theCount; i++) {
+			Patient patient = new Patient();
+			patient.setId("Patient/" + i + "/_history/1");
+			patient.addName().setFamily("Family " + i).addGiven("Given");
+			patient.addIdentifier().setSystem("http://foo").setValue("ID" + i);
+			patient.addExtension().setUrl("http://ext").setValue(new Quantity().setValue(new BigDecimal("1.10")));
+			retVal.addEntry().setFullUrl("http://example.com/fhir/Patient/" + i).setResource(patient).getSearch().setMode(Bundle.SearchEntryMode.MATCH);
+		}
+		retVal.addLink().setRelation("next").setUrl("http://example.com/fhir?page=2");
+		return retVal;
+	}
+
+	private static class CountingReader extends Reader {
+
+		private final Reader myWrap;
+		private int myCount;
+
+		CountingReader(Reader theWrap) {
+			myWrap = theWrap;
+		}
+
+		@Override
+		public int read(char[] theBuffer, int theOffset, int theLength) throws IOException {
+			int retVal = myWrap.read(theBuffer, theOffset, theLength);
+			if (retVal > 0) {
+				myCount += retVal;
+			}
+			return retVal;
+		}
+
+		@Override
+		public void close() throws IOException {
+			myWrap.close();
+		}
+
+		int getCount() {
+			return myCount;
+		}
+
+	}
+
+}
@@ -8,6 +8,7 @@ import ca.uhn.fhir.model.primitive.StringDt;
 import ca.uhn.fhir.parser.CustomTypeR4Test;
 import ca.uhn.fhir.parser.CustomTypeR4Test.MyCustomPatient;
 import ca.uhn.fhir.parser.IParser;
+import ca.uhn.fhir.parser.ResourceStreamIterator;
 import ca.uhn.fhir.rest.api.CacheControlDirective;
 import ca.uhn.fhir.rest.api.Constants;
 import ca.uhn.fhir.rest.api.DeleteCascadeModeEnum;
@@ -17,10 +18,14 @@ import ca.uhn.fhir.rest.api.PreferReturnEnum;
 import ca.uhn.fhir.rest.api.SearchStyleEnum;
 import ca.uhn.fhir.rest.api.SortOrderEnum;
 import ca.uhn.fhir.rest.api.SortSpec;
+import ca.uhn.fhir.rest.client.api.IClientInterceptor;
 import ca.uhn.fhir.rest.client.api.IGenericClient;
+import ca.uhn.fhir.rest.client.api.IHttpRequest;
+import ca.uhn.fhir.rest.client.api.IHttpResponse;
 import ca.uhn.fhir.rest.client.api.ServerValidationModeEnum;
 import ca.uhn.fhir.rest.client.exceptions.FhirClientConnectionException;
 import ca.uhn.fhir.rest.client.exceptions.NonFhirResponseException;
+import ca.uhn.fhir.rest.client.impl.BaseClient;
 import ca.uhn.fhir.rest.client.impl.GenericClient;
 import ca.uhn.fhir.rest.client.interceptor.CookieInterceptor;
 import ca.uhn.fhir.rest.client.interceptor.UserInfoInterceptor;
@@ -31,10 +36,13 @@ import ca.uhn.fhir.rest.param.StringParam;
 import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
 import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
 import ca.uhn.fhir.rest.server.exceptions.NotImplementedOperationException;
+import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
 import ca.uhn.fhir.rest.server.exceptions.UnclassifiedServerFailureException;
+import ca.uhn.fhir.test.utilities.LogbackLevelOverrideExtension;
 import ca.uhn.fhir.util.BundleBuilder;
 import ca.uhn.fhir.util.BundleUtil;
 import ca.uhn.fhir.util.UrlUtil;
+import ch.qos.logback.classic.Level;
 import com.google.common.base.Charsets;
 import com.helger.commons.io.stream.StringInputStream;
 import org.apache.commons.io.IOUtils;
@@ -75,6 +83,7 @@ import org.hl7.fhir.r4.model.Provenance;
 import org.hl7.fhir.r4.model.StringType;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
 import org.mockito.ArgumentCaptor;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
@@ -85,16 +94,23 @@ import java.io.InputStream;
 import java.io.StringReader;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.startsWith;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
@@ -108,6 +124,8 @@ import static org.mockito.Mockito.when;
 
 public class GenericClientR4Test extends BaseGenericClientR4Test {
 	private static final org.slf4j.Logger ourLog = org.slf4j.LoggerFactory.getLogger(GenericClientR4Test.class);
+	@RegisterExtension
+	public LogbackLevelOverrideExtension myLogbackLevelOverrideExtension = new LogbackLevelOverrideExtension();
 
 	@Test
 	public void testAcceptHeaderCustom() throws Exception {
@@ -2837,6 +2855,181 @@ public class GenericClientR4Test extends BaseGenericClientR4Test {
 
 	}
 
+	@Test
+	public void testReadFluentAsync() throws Exception {
+		String msg = getResourceResult();
+
+		ArgumentCaptor<HttpUriRequest> capt = ArgumentCaptor.forClass(HttpUriRequest.class);
+		when(myHttpClient.execute(capt.capture())).thenReturn(myHttpResponse);
+		when(myHttpResponse.getStatusLine()).thenReturn(new BasicStatusLine(new ProtocolVersion("HTTP", 1, 1), 200, "OK"));
+		when(myHttpResponse.getEntity().getContentType()).thenReturn(new BasicHeader("content-type", Constants.CT_FHIR_XML + "; charset=UTF-8"));
+		when(myHttpResponse.getEntity().getContent()).thenReturn(new ReaderInputStream(new StringReader(msg), StandardCharsets.UTF_8));
+
+		IGenericClient client = ourCtx.newRestfulGenericClient("http://example.com/fhir");
+		List<String> interceptorThreads = Collections.synchronizedList(new ArrayList<>());
+		client.registerInterceptor(new IClientInterceptor() {
+			@Override
+			public void interceptRequest(IHttpRequest theRequest) {
+				interceptorThreads.add(Thread.currentThread().getName());
+			}
+
+			@Override
+			public void interceptResponse(IHttpResponse theResponse) {
+				interceptorThreads.add(Thread.currentThread().getName());
+			}
+		});
+
+		CompletableFuture<Patient> future = client.read().resource(Patient.class).withId(new IdType("Patient/1234")).executeAsync();
+		Patient response = future.get(10, TimeUnit.SECONDS);
+
+		assertThat(response.getNameFirstRep().getFamily(), StringContains.containsString("Cardinal"));
+		assertEquals("http://example.com/fhir/Patient/1234", capt.getAllValues().get(0).getURI().toString());
+		assertEquals(2, interceptorThreads.size());
+		assertThat(interceptorThreads.get(0), startsWith("hapi-fhir-client-async-"));
+	}
+
+	@Test
+	public void testReadFluentAsync_Failure() throws Exception {
+		ArgumentCaptor<HttpUriRequest> capt = ArgumentCaptor.forClass(HttpUriRequest.class);
+		when(myHttpClient.execute(capt.capture())).thenReturn(myHttpResponse);
+		when(myHttpResponse.getStatusLine()).thenReturn(new BasicStatusLine(new ProtocolVersion("HTTP", 1, 1), 404, "Not Found"));
+		when(myHttpResponse.getEntity().getContentType()).thenReturn(new BasicHeader("content-type", Constants.CT_TEXT + "; charset=UTF-8"));
+		when(myHttpResponse.getEntity().getContent()).thenReturn(new ReaderInputStream(new StringReader("Not Found"), StandardCharsets.UTF_8));
+
+		IGenericClient client = ourCtx.newRestfulGenericClient("http://example.com/fhir");
+		CompletableFuture<Patient> future = client.read().resource(Patient.class).withId(new IdType("Patient/1234")).executeAsync();
+
+		try {
+			future.get(10, TimeUnit.SECONDS);
+			fail();
+		} catch (ExecutionException e) {
+			assertEquals(ResourceNotFoundException.class, e.getCause().getClass());
+		}
+	}
+
+	@Test
+	public void testIteratePages() throws Exception {
+		Bundle page2 = new Bundle();
+		page2.setType(BundleType.SEARCHSET);
+		page2.addLink().setRelation("next").setUrl("http://example.com/fhir?page=3");
+		page2.addEntry().setResource(new Patient().setId("Patient/2"));
+		Bundle page3 = new Bundle();
+		page3.setType(BundleType.SEARCHSET);
+		page3.addEntry().setResource(new Patient().setId("Patient/3"));
+
+		ArgumentCaptor<HttpUriRequest> capt = ArgumentCaptor.forClass(HttpUriRequest.class);
+		when(myHttpClient.execute(capt.capture())).thenReturn(myHttpResponse);
+		when(myHttpResponse.getStatusLine()).thenReturn(new BasicStatusLine(new ProtocolVersion("HTTP", 1, 1), 200, "OK"));
+		when(myHttpResponse.getEntity().getContentType()).thenReturn(new BasicHeader("content-type", Constants.CT_FHIR_JSON_NEW + "; charset=UTF-8"));
+		when(myHttpResponse.getEntity().getContent()).thenReturn(
+			new ReaderInputStream(new StringReader(ourCtx.newJsonParser().encodeResourceToString(page2)), StandardCharsets.UTF_8),
+			new ReaderInputStream(new StringReader(ourCtx.newJsonParser().encodeResourceToString(page3)), StandardCharsets.UTF_8));
+
+		Bundle page1 = new Bundle();
+		page1.setType(BundleType.SEARCHSET);
+		page1.addLink().setRelation("next").setUrl("http://example.com/fhir?page=2");
+		page1.addEntry().setResource(new Patient().setId("Patient/1"));
+
+		IGenericClient client = ourCtx.newRestfulGenericClient("http://example.com/fhir");
+		Iterator<Bundle> iterator = client.loadPage().iterate(page1);
+
+		List<String> ids = new ArrayList<>();
+		while (iterator.hasNext()) {
+			Bundle next = iterator.next();
+			ids.add(next.getEntryFirstRep().getResource().getIdElement().toUnqualifiedVersionless().getValue());
+		}
+
+		assertThat(ids, contains("Patient/1", "Patient/2", "Patient/3"));
+		assertEquals(2, capt.getAllValues().size());
+		assertEquals("http://example.com/fhir?page=2", capt.getAllValues().get(0).getURI().toString());
+		assertEquals("http://example.com/fhir?page=3", capt.getAllValues().get(1).getURI().toString());
+	}
+
+	@Test
+	public void testStreamResourcesFromBundle() throws Exception {
+		Bundle bundle = new Bundle();
+		bundle.setType(BundleType.SEARCHSET);
+		bundle.addEntry().setFullUrl("http://example.com/fhir/Patient/1").setResource(new Patient().setActive(true).setId("1"));
+		bundle.addEntry().setFullUrl("http://example.com/fhir/Observation/2").setResource(new Observation().setStatus(Observation.ObservationStatus.FINAL).setId("2"));
+		bundle.addLink().setRelation("next").setUrl("http://example.com/fhir?page=2");
+
+		// Trace logging and kept responses read the whole response into memory
+		myLogbackLevelOverrideExtension.setLogLevel(BaseClient.class, Level.DEBUG);
+
+		AtomicBoolean closed = new AtomicBoolean();
+		byte[] content = ourCtx.newJsonParser().encodeResourceToString(bundle).getBytes(StandardCharsets.UTF_8);
+
+		ArgumentCaptor<HttpUriRequest> capt = ArgumentCaptor.forClass(HttpUriRequest.class);
+		when(myHttpClient.execute(capt.capture())).thenReturn(myHttpResponse);
+		when(myHttpResponse.getStatusLine()).thenReturn(new BasicStatusLine(new ProtocolVersion("HTTP", 1, 1), 200, "OK"));
+		when(myHttpResponse.getEntity().getContentType()).thenReturn(new BasicHeader("content-type", Constants.CT_FHIR_JSON_NEW + "; charset=UTF-8"));
+		when(myHttpResponse.getEntity().getContent()).thenReturn(new ByteArrayInputStream(content) {
+			@Override
+			public void close() {
+				closed.set(true);
+			}
+		});
+
+		GenericClient client = (GenericClient) ourCtx.newRestfulGenericClient("http://example.com/fhir");
+		client.setKeepResponses(false);
+		List<String> ids = new ArrayList<>();
+		try (ResourceStreamIterator iterator = client.loadPage().byUrl("http://example.com/fhir/Patient/1/$everything").andStreamResources().execute()) {
+			// The response is only closed once the caller is finished with it
+			assertFalse(closed.get());
+			while (iterator.hasNext()) {
+				ids.add(iterator.next().getIdElement().getValue());
+			}
+		}
+
+		assertTrue(closed.get());
+		assertThat(ids, contains("http://example.com/fhir/Patient/1", "http://example.com/fhir/Observation/2"));
+		assertEquals("http://example.com/fhir/Patient/1/$everything", capt.getValue().getURI().toString());
+	}
+
+	@Test
+	public void testStreamResourcesFromNdJson() throws Exception {
+		String content = "{\"resourceType\":\"Patient\",\"id\":\"1\"}\n\n{\"resourceType\":\"Patient\",\"id\":\"2\"}\n";
+
+		ArgumentCaptor<HttpUriRequest> capt = ArgumentCaptor.forClass(HttpUriRequest.class);
+		when(myHttpClient.execute(capt.capture())).thenReturn(myHttpResponse);
+		when(myHttpResponse.getStatusLine()).thenReturn(new BasicStatusLine(new ProtocolVersion("HTTP", 1, 1), 200, "OK"));
+		when(myHttpResponse.getEntity().getContentType()).thenReturn(new BasicHeader("content-type", Constants.CT_FHIR_NDJSON));
+		when(myHttpResponse.getEntity().getContent()).thenReturn(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+
+		IGenericClient client = ourCtx.newRestfulGenericClient("http://example.com/fhir");
+		List<String> ids = new ArrayList<>();
+		try (ResourceStreamIterator iterator = client.loadPage().byUrl("http://example.com/export/file1.ndjson").andStreamResources().execute()) {
+			iterator.forEachRemaining(t -> ids.add(t.getIdElement().toUnqualifiedVersionless().getValue()));
+		}
+
+		assertThat(ids, contains("Patient/1", "Patient/2"));
+	}
+
+	@Test
+	public void testStreamResourcesNonFhirResponse() throws Exception {
+		AtomicBoolean closed = new AtomicBoolean();
+
+		ArgumentCaptor<HttpUriRequest> capt = ArgumentCaptor.forClass(HttpUriRequest.class);
+		when(myHttpClient.execute(capt.capture())).thenReturn(myHttpResponse);
+		when(myHttpResponse.getStatusLine()).thenReturn(new BasicStatusLine(new ProtocolVersion("HTTP", 1, 1), 200, "OK"));
+		when(myHttpResponse.getEntity().getContentType()).thenReturn(new BasicHeader("content-type", Constants.CT_TEXT));
+		when(myHttpResponse.getEntity().getContent()).thenReturn(new ByteArrayInputStream("Hello".getBytes(StandardCharsets.UTF_8)) {
+			@Override
+			public void close() {
+				closed.set(true);
+			}
+		});
+
+		IGenericClient client = ourCtx.newRestfulGenericClient("http://example.com/fhir");
+		try {
+			client.loadPage().byUrl("http://example.com/fhir/Binary/1").andStreamResources().execute();
+			fail();
+		} catch (NonFhirResponseException e) {
+			assertThat(e.getMessage(), containsString("Hello"));
+		}
+		assertTrue(closed.get());
+	}
+
 	@Test
 	public void testReadWithAbsoluteUrl() throws Exception {
 
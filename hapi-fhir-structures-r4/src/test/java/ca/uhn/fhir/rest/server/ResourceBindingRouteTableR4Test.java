@@ -0,0 +1,242 @@
+package ca.uhn.fhir.rest.server;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.model.valueset.BundleTypeEnum;
+import ca.uhn.fhir.rest.annotation.IdParam;
+import ca.uhn.fhir.rest.annotation.Operation;
+import ca.uhn.fhir.rest.annotation.OperationParam;
+import ca.uhn.fhir.rest.annotation.OptionalParam;
+import ca.uhn.fhir.rest.annotation.Read;
+import ca.uhn.fhir.rest.annotation.RequiredParam;
+import ca.uhn.fhir.rest.annotation.Search;
+import ca.uhn.fhir.rest.api.Constants;
+import ca.uhn.fhir.rest.api.RequestTypeEnum;
+import ca.uhn.fhir.rest.api.server.RequestDetails;
+import ca.uhn.fhir.rest.api.server.SystemRequestDetails;
+import ca.uhn.fhir.rest.param.StringParam;
+import ca.uhn.fhir.rest.param.TokenParam;
+import ca.uhn.fhir.rest.server.method.BaseMethodBinding;
+import ca.uhn.fhir.rest.server.method.MethodMatchEnum;
+import ca.uhn.fhir.rest.server.method.OperationMethodBinding;
+import ca.uhn.fhir.rest.server.method.RequestRouteKey;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.IdType;
+import org.hl7.fhir.r4.model.Parameters;
+import org.hl7.fhir.r4.model.Patient;
+import org.hl7.fhir.r4.model.StringType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class ResourceBindingRouteTableR4Test {
+
+	private static final FhirContext ourCtx = FhirContext.forR4Cached();
+	private static final int OPERATION_COUNT = 494;
+	private ResourceBinding myResourceBinding;
+
+	@BeforeEach
+	public void before() throws NoSuchMethodException {
+		PatientProvider provider = new PatientProvider();
+		myResourceBinding = new ResourceBinding();
+		myResourceBinding.setResourceName("Patient");
+
+		for (Method next : PatientProvider.class.getDeclaredMethods()) {
+			BaseMethodBinding binding = BaseMethodBinding.bindMethod(next, ourCtx, provider);
+			if (binding != null) {
+				myResourceBinding.addMethod(binding);
+			}
+		}
+
+		Method operationMethod = PatientProvider.class.getMethod("templateOperation", IdType.class, StringType.class);
+		for (int i = 0; i < OPERATION_COUNT; i++) {
+			myResourceBinding.addMethod(new NamedOperationMethodBinding(operationMethod, provider, "$op-" + i));
+		}
+	}
+
+	@Test
+	public void testRouteCandidates() {
+		assertEquals(500, myResourceBinding.getMethodBindings().size());
+
+		// Only the matching operation is a candidate
+		List<BaseMethodBinding> candidates = myResourceBinding.getRouteCandidates(new RequestRouteKey(RequestTypeEnum.POST, "$op-250", false, false, false));
+		assertEquals(1, candidates.size());
+		assertEquals("$op-250", ((OperationMethodBinding) candidates.get(0)).getName());
+
+		// Search at the type level: all searches, but not the read or any operations
+		candidates = myResourceBinding.getRouteCandidates(new RequestRouteKey(RequestTypeEnum.GET, null, false, false, false));
+		assertEquals(4, candidates.size());
+
+		// Read
+		candidates = myResourceBinding.getRouteCandidates(new RequestRouteKey(RequestTypeEnum.GET, null, true, false, false));
+		assertThat(candidates.stream().map(t -> t.getMethod().getName()).collect(Collectors.toList()), contains("read"));
+
+		// Unknown operation
+		candidates = myResourceBinding.getRouteCandidates(new RequestRouteKey(RequestTypeEnum.POST, "$foo", false, false, false));
+		assertEquals(0, candidates.size());
+	}
+
+	@Test
+	public void testRouteTableMatchesLinearScan() {
+		List<RequestDetails> requests = createRequests();
+		for (RequestDetails next : requests) {
+			BaseMethodBinding expected = findMethodUsingLinearScan(myResourceBinding.getMethodBindings(), next);
+			BaseMethodBinding actual = myResourceBinding.getMethod(next);
+			assertSame(expected, actual, next.toString());
+		}
+
+		RequestDetails request = newRequest(RequestTypeEnum.GET, null, null);
+		request.setParameters(newParams("name", "smith"));
+		assertEquals("searchByName", myResourceBinding.getMethod(request).getMethod().getName());
+
+		request = newRequest(RequestTypeEnum.POST, "$op-" + (OPERATION_COUNT - 1), "123");
+		assertEquals("$op-" + (OPERATION_COUNT - 1), ((OperationMethodBinding) myResourceBinding.getMethod(request)).getName());
+
+		request = newRequest(RequestTypeEnum.POST, "$foo", null);
+		assertNull(myResourceBinding.getMethod(request));
+	}
+
+	@Test
+	public void testRouteTableIsInvalidatedWhenMethodsChange() {
+		RequestDetails request = newRequest(RequestTypeEnum.GET, null, "123");
+		BaseMethodBinding read = myResourceBinding.getMethod(request);
+		assertNotNull(read);
+
+		myResourceBinding.removeMethod(read);
+		assertNull(myResourceBinding.getMethod(request));
+
+		myResourceBinding.addMethod(read);
+		assertSame(read, myResourceBinding.getMethod(request));
+	}
+
+	private List<RequestDetails> createRequests() {
+		List<RequestDetails> retVal = new ArrayList<>();
+
+		for (int i = 0; i < OPERATION_COUNT; i += 7) {
+			retVal.add(newRequest(RequestTypeEnum.POST, "$op-" + i, null));
+			retVal.add(newRequest(RequestTypeEnum.GET, "$op-" + i, "123"));
+		}
+
+		retVal.add(newRequest(RequestTypeEnum.GET, null, "123"));
+		retVal.add(newRequest(RequestTypeEnum.GET, null, "123/_history/2"));
+		retVal.add(newRequest(RequestTypeEnum.PUT, null, "123"));
+		retVal.add(newRequest(RequestTypeEnum.POST, "$foo", null));
+
+		RequestDetails request = newRequest(RequestTypeEnum.GET, null, null);
+		retVal.add(request);
+
+		request = newRequest(RequestTypeEnum.GET, null, null);
+		request.setParameters(newParams("name", "smith"));
+		retVal.add(request);
+
+		request = newRequest(RequestTypeEnum.GET, null, null);
+		request.setParameters(newParams("identifier", "http://foo|123"));
+		retVal.add(request);
+
+		request = newRequest(RequestTypeEnum.POST, Constants.PARAM_SEARCH, null);
+		request.setParameters(newParams("family", "smith"));
+		retVal.add(request);
+
+		return retVal;
+	}
+
+	private static Map<String, String[]> newParams(String theName, String theValue) {
+		Map<String, String[]> retVal = new HashMap<>();
+		retVal.put(theName, new String[]{theValue});
+		return retVal;
+	}
+
+	private static RequestDetails newRequest(RequestTypeEnum theRequestType, String theOperation, String theId) {
+		SystemRequestDetails retVal = new SystemRequestDetails();
+		retVal.setRequestType(theRequestType);
+		retVal.setResourceName("Patient");
+		retVal.setOperation(theOperation);
+		if (theId != null) {
+			retVal.setId(new IdType("Patient/" + theId));
+		}
+		retVal.setParameters(new HashMap<>());
+		return retVal;
+	}
+
+	/**
+	 * This is the matching algorithm that was used before the route table was introduced
+	 */
+	private static BaseMethodBinding findMethodUsingLinearScan(List<BaseMethodBinding> theBindings, RequestDetails theRequest) {
+		BaseMethodBinding matchedMethod = null;
+		MethodMatchEnum matchedMethodStrength = null;
+		for (BaseMethodBinding rm : theBindings) {
+			MethodMatchEnum nextMethodMatch = rm.incomingServerRequestMatchesMethod(theRequest);
+			if (nextMethodMatch != MethodMatchEnum.NONE) {
+				if (matchedMethodStrength == null || matchedMethodStrength.ordinal() < nextMethodMatch.ordinal()) {
+					matchedMethod = rm;
+					matchedMethodStrength = nextMethodMatch;
+				}
+				if (matchedMethodStrength == MethodMatchEnum.EXACT) {
+					break;
+				}
+			}
+		}
+		return matchedMethod;
+	}
+
+	private static class NamedOperationMethodBinding extends OperationMethodBinding {
+
+		NamedOperationMethodBinding(Method theMethod, Object theProvider, String theName) {
+			super(Parameters.class, Patient.class, theMethod, ourCtx, theProvider, true, false, theName, null, null, null, BundleTypeEnum.SEARCHSET, false);
+		}
+
+	}
+
+	@SuppressWarnings("unused")
+	public static class PatientProvider implements IResourceProvider {
+
+		@Override
+		public Class<? extends IBaseResource> getResourceType() {
+			return Patient.class;
+		}
+
+		@Read(version = true)
+		public Patient read(@IdParam IdType theId) {
+			return null;
+		}
+
+		@Search
+		public List<Patient> searchAll() {
+			return null;
+		}
+
+		@Search
+		public List<Patient> searchByName(@RequiredParam(name = Patient.SP_NAME) StringParam theName) {
+			return null;
+		}
+
+		@Search
+		public List<Patient> searchByFamily(@RequiredParam(name = Patient.SP_FAMILY) StringParam theFamily, @OptionalParam(name = Patient.SP_GIVEN) StringParam theGiven) {
+			return null;
+		}
+
+		@Search
+		public List<Patient> searchByIdentifier(@RequiredParam(name = Patient.SP_IDENTIFIER) TokenParam theIdentifier) {
+			return null;
+		}
+
+		@Operation(name = "$template", idempotent = true)
+		public Parameters templateOperation(@IdParam(optional = true) IdType theId, @OperationParam(name = "param") StringType theParam) {
+			return null;
+		}
+
+	}
+
+}
@@ -29,6 +29,8 @@ import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -52,9 +54,21 @@ import static org.apache.commons.lang3.StringUtils.substringBefore;
  */
 public class InMemoryTerminologyServerValidationSupport implements IValidationSupport {
 	private static final String OUR_PIPE_CHARACTER = "|";
+	/**
+	 * Default value for {@link #setValueSetIndexMaximumConceptCount(int)}
+	 *
+	 * @since 6.6.0
+	 */
+	public static final int DEFAULT_VALUESET_INDEX_MAXIMUM_CONCEPT_COUNT = 500_000;
 
 	private final FhirContext myCtx;
 	private final VersionCanonicalizer myVersionCanonicalizer;
+	/**
+	 * Least recently used first. Access must be synchronized on the map.
+	 */
+	private final LinkedHashMap<String, ValueSetMembershipIndex> myValueSetIndexes = new LinkedHashMap<>(16, 0.75f, true);
+	private int myValueSetIndexConceptCount;
+	private volatile int myValueSetIndexMaximumConceptCount = DEFAULT_VALUESET_INDEX_MAXIMUM_CONCEPT_COUNT;
 
 	public InMemoryTerminologyServerValidationSupport(FhirContext theCtx) {
 		Validate.notNull(theCtx, "theCtx must not be null");
@@ -67,6 +81,37 @@ public class InMemoryTerminologyServerValidationSupport implements IValidationSu
 		return myCtx;
 	}
 
+	/**
+	 * Returns the maximum number of concepts held in the ValueSet membership indexes.
+	 * See {@link #setValueSetIndexMaximumConceptCount(int)}.
+	 *
+	 * @since 6.6.0
+	 */
+	public int getValueSetIndexMaximumConceptCount() {
+		return myValueSetIndexMaximumConceptCount;
+	}
+
+	/**
+	 * When validating a code against a ValueSet, the ValueSet is expanded once and the concepts
+	 * in the expansion are kept in an index so that subsequent codes can be validated against the
+	 * same ValueSet without expanding it again. An index is rebuilt if the ValueSet or any of the
+	 * CodeSystems it uses change. This setting is the maximum total number of concepts held in these
+	 * indexes. The least recently used indexes are discarded when this is exceeded. Set to
+	 * <code>0</code> to disable the indexes.
+	 * <p>
+	 * Default is {@value #DEFAULT_VALUESET_INDEX_MAXIMUM_CONCEPT_COUNT}
+	 * </p>
+	 *
+	 * @since 6.6.0
+	 */
+	public void setValueSetIndexMaximumConceptCount(int theValueSetIndexMaximumConceptCount) {
+		Validate.isTrue(theValueSetIndexMaximumConceptCount >= 0, "theValueSetIndexMaximumConceptCount must not be negative");
+		myValueSetIndexMaximumConceptCount = theValueSetIndexMaximumConceptCount;
+		synchronized (myValueSetIndexes) {
+			evictValueSetIndexes();
+		}
+	}
+
 	@Override
 	public ValueSetExpansionOutcome expandValueSet(ValidationSupportContext theValidationSupportContext, ValueSetExpansionOptions theExpansionOptions, @Nonnull IBaseResource theValueSetToExpand) {
 		return expandValueSet(theValidationSupportContext, theExpansionOptions, theValueSetToExpand, null, null);
@@ -149,6 +194,12 @@ public class InMemoryTerminologyServerValidationSupport implements IValidationSu
 	public CodeValidationResult validateCodeInValueSet(ValidationSupportContext theValidationSupportContext, ConceptValidationOptions theOptions, String theCodeSystemUrlAndVersion, String theCode, String theDisplay, @Nonnull IBaseResource theValueSet) {
 		org.hl7.fhir.r5.model.ValueSet expansion;
 		String vsUrl = CommonCodeSystemsTerminologyService.getValueSetUrl(theValueSet);
+
+		CodeValidationResult indexedResult = validateCodeUsingValueSetIndex(theValidationSupportContext, theOptions, theCodeSystemUrlAndVersion, theCode, theDisplay, theValueSet, vsUrl);
+		if (indexedResult != null) {
+			return indexedResult;
+		}
+
 		try {
 			expansion = expandValueSetToCanonical(theValidationSupportContext, theValueSet, theCodeSystemUrlAndVersion, theCode);
 		} catch (ExpansionCouldNotBeCompletedInternallyException e) {
@@ -181,6 +232,11 @@ public class InMemoryTerminologyServerValidationSupport implements IValidationSu
 			if (vs == null) {
 				return null;
 			}
+
+			CodeValidationResult indexedResult = validateCodeUsingValueSetIndex(theValidationSupportContext, theOptions, theCodeSystem, theCode, theDisplay, vs, theValueSetUrl);
+			if (indexedResult != null) {
+				return indexedResult;
+			}
 		} else {
 			String codeSystemUrl;
 			String codeSystemVersion = null;
@@ -252,14 +308,150 @@ public class InMemoryTerminologyServerValidationSupport implements IValidationSu
 		return validateCodeInExpandedValueSet(theValidationSupportContext, theOptions, theCodeSystem, theCode, theDisplay, expansion, theValueSetUrl);
 	}
 
-	private CodeValidationResult validateCodeInExpandedValueSet(ValidationSupportContext theValidationSupportContext, ConceptValidationOptions theOptions, String theCodeSystemUrlAndVersionToValidate, String theCodeToValidate, String theDisplayToValidate, IBaseResource theExpansion, String theValueSetUrl) {
-		assert theExpansion != null;
+	/**
+	 * Validates a code using the membership index for the given ValueSet, building the index first if needed
+	 *
+	 * @return Returns <code>null</code> if the ValueSet can't be indexed, in which case the code needs to be
+	 * validated against the ValueSet itself
+	 */
+	@Nullable
+	private CodeValidationResult validateCodeUsingValueSetIndex(ValidationSupportContext theValidationSupportContext, ConceptValidationOptions theOptions, String theCodeSystemUrlAndVersionToValidate, String theCodeToValidate, String theDisplayToValidate, IBaseResource theValueSet, String theValueSetUrl) {
+		ValueSetMembershipIndex index = getValueSetMembershipIndex(theValidationSupportContext, theValueSet);
+		if (index == null || !index.isIndexed()) {
+			return null;
+		}
+		List<FhirVersionIndependentConcept> codes = index.getConceptsWithCodeIgnoringCase(theCodeToValidate);
+		return validateCodeInConcepts(theValidationSupportContext, theOptions, theCodeSystemUrlAndVersionToValidate, theCodeToValidate, theDisplayToValidate, codes, theValueSetUrl);
+	}
 
-		boolean caseSensitive = true;
-		IBaseResource codeSystemToValidateResource = null;
-		if (!theOptions.isInferSystem() && isNotBlank(theCodeSystemUrlAndVersionToValidate)) {
-			codeSystemToValidateResource = theValidationSupportContext.getRootValidationSupport().fetchCodeSystem(theCodeSystemUrlAndVersionToValidate);
+	@Nullable
+	private ValueSetMembershipIndex getValueSetMembershipIndex(ValidationSupportContext theValidationSupportContext, IBaseResource theValueSet) {
+		if (myValueSetIndexMaximumConceptCount == 0 || !myCtx.getVersion().getVersion().isEqualOrNewerThan(FhirVersionEnum.DSTU3)) {
+			return null;
 		}
+		String valueSetUrl = CommonCodeSystemsTerminologyService.getValueSetUrl(theValueSet);
+		if (isBlank(valueSetUrl)) {
+			return null;
+		}
+
+		IValidationSupport rootValidationSupport = theValidationSupportContext.getRootValidationSupport();
+		ValueSetMembershipIndex retVal;
+		synchronized (myValueSetIndexes) {
+			retVal = myValueSetIndexes.get(valueSetUrl);
+		}
+		if (retVal != null && retVal.isCurrent(theValueSet, rootValidationSupport)) {
+			return retVal;
+		}
+
+		retVal = buildValueSetMembershipIndex(theValidationSupportContext, theValueSet, valueSetUrl);
+
+		synchronized (myValueSetIndexes) {
+			ValueSetMembershipIndex previous = myValueSetIndexes.put(valueSetUrl, retVal);
+			if (previous != null) {
+				myValueSetIndexConceptCount -= previous.getWeight();
+			}
+			myValueSetIndexConceptCount += retVal.getWeight();
+			evictValueSetIndexes();
+		}
+		return retVal;
+	}
+
+	private ValueSetMembershipIndex buildValueSetMembershipIndex(ValidationSupportContext theValidationSupportContext, IBaseResource theValueSet, String theValueSetUrl) {
+		List<ValueSetMembershipIndex.Dependency> dependencies = new ArrayList<>();
+		dependencies.add(ValueSetMembershipIndex.Dependency.forValueSet(theValueSetUrl, theValueSet));
+
+		/*
+		 * Validating a single code can fall back to looking the code up in a CodeSystem which isn't
+		 * available in memory, which a full expansion can't do. So we only index ValueSets where
+		 * every CodeSystem is available.
+		 */
+		org.hl7.fhir.r5.model.ValueSet valueSetR5 = myVersionCanonicalizer.valueSetToValidatorCanonical(theValueSet);
+		if (!collectValueSetIndexDependencies(theValidationSupportContext, valueSetR5, dependencies, new HashSet<>())) {
+			return new ValueSetMembershipIndex(dependencies, null);
+		}
+
+		org.hl7.fhir.r5.model.ValueSet expansion;
+		try {
+			expansion = expandValueSetToCanonical(theValidationSupportContext, theValueSet, null, null);
+		} catch (ExpansionCouldNotBeCompletedInternallyException e) {
+			return new ValueSetMembershipIndex(dependencies, null);
+		}
+		if (expansion == null) {
+			return new ValueSetMembershipIndex(dependencies, null);
+		}
+
+		List<FhirVersionIndependentConcept> concepts = new ArrayList<>();
+		flattenAndConvertCodesR5(expansion.getExpansion().getContains(), concepts);
+		if (concepts.size() > myValueSetIndexMaximumConceptCount) {
+			return new ValueSetMembershipIndex(dependencies, null);
+		}
+		return new ValueSetMembershipIndex(dependencies, concepts);
+	}
+
+	/**
+	 * Adds the CodeSystems and ValueSets used by the given ValueSet to the list of dependencies
+	 *
+	 * @return Returns <code>false</code> if a CodeSystem is missing or has no content
+	 */
+	private boolean collectValueSetIndexDependencies(ValidationSupportContext theValidationSupportContext, org.hl7.fhir.r5.model.ValueSet theValueSet, List<ValueSetMembershipIndex.Dependency> theDependencies, Set<String> theVisitedValueSetUrls) {
+		IValidationSupport rootValidationSupport = theValidationSupportContext.getRootValidationSupport();
+		List<org.hl7.fhir.r5.model.ValueSet.ConceptSetComponent> includesAndExcludes = new ArrayList<>(theValueSet.getCompose().getInclude());
+		includesAndExcludes.addAll(theValueSet.getCompose().getExclude());
+
+		for (org.hl7.fhir.r5.model.ValueSet.ConceptSetComponent next : includesAndExcludes) {
+			if (isNotBlank(next.getSystem())) {
+				String version = optionallyPopulateVersionFromUrl(next.getSystem(), next.getVersion());
+				String url = substringBefore(next.getSystem(), OUR_PIPE_CHARACTER);
+				String loadedUrl = version != null ? url + OUR_PIPE_CHARACTER + version : url;
+
+				IBaseResource codeSystem = rootValidationSupport.fetchCodeSystem(loadedUrl);
+				theDependencies.add(ValueSetMembershipIndex.Dependency.forCodeSystem(loadedUrl, codeSystem));
+				if (codeSystem == null) {
+					return false;
+				}
+				IPrimitiveType<?> content = getFhirContext().newTerser().getSingleValueOrNull(codeSystem, "content", IPrimitiveType.class);
+				if (content == null || "not-present".equals(content.getValueAsString())) {
+					return false;
+				}
+			}
+
+			for (CanonicalType nextValueSetUrl : next.getValueSet()) {
+				String url = nextValueSetUrl.getValueAsString();
+				IBaseResource valueSet = rootValidationSupport.fetchValueSet(url);
+				theDependencies.add(ValueSetMembershipIndex.Dependency.forValueSet(url, valueSet));
+				if (valueSet != null && theVisitedValueSetUrls.add(url)) {
+					org.hl7.fhir.r5.model.ValueSet valueSetR5 = myVersionCanonicalizer.valueSetToValidatorCanonical(valueSet);
+					if (!collectValueSetIndexDependencies(theValidationSupportContext, valueSetR5, theDependencies, theVisitedValueSetUrls)) {
+						return false;
+					}
+				}
+			}
+		}
+
+		return true;
+	}
+
+	@Nullable
+	ValueSetMembershipIndex getValueSetMembershipIndexForUnitTest(String theValueSetUrl) {
+		synchronized (myValueSetIndexes) {
+			return myValueSetIndexes.get(theValueSetUrl);
+		}
+	}
+
+	/**
+	 * Discards the least recently used indexes until the total number of concepts is within the limit.
+	 * Must be called while synchronized on {@link #myValueSetIndexes}.
+	 */
+	private void evictValueSetIndexes() {
+		Iterator<ValueSetMembershipIndex> iterator = myValueSetIndexes.values().iterator();
+		while (myValueSetIndexConceptCount > myValueSetIndexMaximumConceptCount && iterator.hasNext()) {
+			myValueSetIndexConceptCount -= iterator.next().getWeight();
+			iterator.remove();
+		}
+	}
+
+	private CodeValidationResult validateCodeInExpandedValueSet(ValidationSupportContext theValidationSupportContext, ConceptValidationOptions theOptions, String theCodeSystemUrlAndVersionToValidate, String theCodeToValidate, String theDisplayToValidate, IBaseResource theExpansion, String theValueSetUrl) {
+		assert theExpansion != null;
 
 		List<FhirVersionIndependentConcept> codes = new ArrayList<>();
 		switch (theExpansion.getStructureFhirVersionEnum()) {
@@ -298,6 +490,16 @@ public class InMemoryTerminologyServerValidationSupport implements IValidationSu
 				throw new IllegalArgumentException(Msg.code(700) + "Can not handle version: " + myCtx.getVersion().getVersion());
 		}
 
+		return validateCodeInConcepts(theValidationSupportContext, theOptions, theCodeSystemUrlAndVersionToValidate, theCodeToValidate, theDisplayToValidate, codes, theValueSetUrl);
+	}
+
+	private CodeValidationResult validateCodeInConcepts(ValidationSupportContext theValidationSupportContext, ConceptValidationOptions theOptions, String theCodeSystemUrlAndVersionToValidate, String theCodeToValidate, String theDisplayToValidate, List<FhirVersionIndependentConcept> theCodes, String theValueSetUrl) {
+		boolean caseSensitive = true;
+		IBaseResource codeSystemToValidateResource = null;
+		if (!theOptions.isInferSystem() && isNotBlank(theCodeSystemUrlAndVersionToValidate)) {
+			codeSystemToValidateResource = theValidationSupportContext.getRootValidationSupport().fetchCodeSystem(theCodeSystemUrlAndVersionToValidate);
+		}
+
 		String codeSystemResourceName = null;
 		String codeSystemResourceVersion = null;
 		String codeSystemResourceContentMode = null;
@@ -349,7 +551,7 @@ public class InMemoryTerminologyServerValidationSupport implements IValidationSu
 				codeSystemUrlToValidate = theCodeSystemUrlAndVersionToValidate;
 			}
 		}
-		for (FhirVersionIndependentConcept nextExpansionCode : codes) {
+		for (FhirVersionIndependentConcept nextExpansionCode : theCodes) {
 
 			boolean codeMatches;
 			if (caseSensitive) {
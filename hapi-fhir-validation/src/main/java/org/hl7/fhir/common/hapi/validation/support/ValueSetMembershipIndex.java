@@ -0,0 +1,203 @@
+package org.hl7.fhir.common.hapi.validation.support;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.support.IValidationSupport;
+import ca.uhn.fhir.util.FhirVersionIndependentConcept;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.instance.model.api.IIdType;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.commons.lang3.StringUtils.defaultString;
+
+/**
+ * An immutable index of the concepts in the in-memory expansion of a single ValueSet, used
+ * by {@link InMemoryTerminologyServerValidationSupport} to validate codes without expanding
+ * the ValueSet again for every code.
+ * <p>
+ * The index records the ValueSet and every CodeSystem and ValueSet the expansion was built
+ * from, along with their versions and a hash of their content. It is only used for as long as
+ * each of them is still the same resource (i.e. the same instance, the same resource version, or
+ * a resource with the same content), see {@link #isCurrent(IBaseResource, IValidationSupport)}.
+ * Comparing the content matters because ValueSets are often converted between FHIR versions
+ * before being validated against, which creates a new instance on every call, and package and
+ * built-in ValueSets usually have no version ID or last updated date.
+ * </p>
+ * <p>
+ * If the ValueSet can't be fully expanded in memory, the index holds no concepts
+ * (see {@link #isIndexed()}) and codes are validated against the ValueSet directly.
+ * </p>
+ *
+ * @since 6.6.0
+ */
+class ValueSetMembershipIndex {
+
+	private final List<Dependency> myDependencies;
+	private final Map<String, List<FhirVersionIndependentConcept>> myCodeToConcepts;
+	private final int myConceptCount;
+
+	/**
+	 * Constructor
+	 *
+	 * @param theDependencies The resources this index was built from. The first entry must be the ValueSet itself.
+	 * @param theConcepts     The concepts in the expansion, or <code>null</code> if the ValueSet could not be indexed
+	 */
+	ValueSetMembershipIndex(List<Dependency> theDependencies, @Nullable List<FhirVersionIndependentConcept> theConcepts) {
+		myDependencies = Collections.unmodifiableList(new ArrayList<>(theDependencies));
+		if (theConcepts != null) {
+			Map<String, List<FhirVersionIndependentConcept>> codeToConcepts = new HashMap<>();
+			for (FhirVersionIndependentConcept next : theConcepts) {
+				codeToConcepts.computeIfAbsent(toKey(next.getCode()), t -> new ArrayList<>(1)).add(next);
+			}
+			myCodeToConcepts = codeToConcepts;
+			myConceptCount = theConcepts.size();
+		} else {
+			myCodeToConcepts = null;
+			myConceptCount = 0;
+		}
+	}
+
+	/**
+	 * Returns <code>true</code> if this index holds the concepts of the ValueSet
+	 */
+	boolean isIndexed() {
+		return myCodeToConcepts != null;
+	}
+
+	/**
+	 * Returns the approximate size of this index, which is the number of concepts and resources it holds
+	 */
+	int getWeight() {
+		return myConceptCount + myDependencies.size();
+	}
+
+	/**
+	 * Returns the concepts in the ValueSet with the given code, ignoring case. The caller is
+	 * responsible for applying the case sensitivity of the CodeSystem.
+	 */
+	@Nonnull
+	List<FhirVersionIndependentConcept> getConceptsWithCodeIgnoringCase(@Nullable String theCode) {
+		List<FhirVersionIndependentConcept> retVal = myCodeToConcepts.get(toKey(theCode));
+		return retVal != null ? retVal : Collections.emptyList();
+	}
+
+	/**
+	 * Returns <code>true</code> if none of the resources this index was built from have changed
+	 *
+	 * @param theValueSet              The ValueSet being validated against
+	 * @param theRootValidationSupport The validation support used to fetch the CodeSystems and ValueSets the ValueSet refers to
+	 */
+	boolean isCurrent(IBaseResource theValueSet, IValidationSupport theRootValidationSupport) {
+		for (int i = 0; i < myDependencies.size(); i++) {
+			Dependency next = myDependencies.get(i);
+			IBaseResource current;
+			if (i == 0) {
+				current = theValueSet;
+			} else if (next.myValueSet) {
+				current = theRootValidationSupport.fetchValueSet(next.myUrl);
+			} else {
+				current = theRootValidationSupport.fetchCodeSystem(next.myUrl);
+			}
+			if (!next.isSameAs(current)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Folds the case of each character the same way {@link String#equalsIgnoreCase(String)} compares
+	 * them, so that the index finds the same codes as comparing each code would. Note that this is not
+	 * the same as {@link String#toLowerCase()}, which can change the length of the string.
+	 */
+	private static String toKey(@Nullable String theCode) {
+		char[] chars = defaultString(theCode).toCharArray();
+		for (int i = 0; i < chars.length; i++) {
+			chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+		}
+		return new String(chars);
+	}
+
+	/**
+	 * Returns a string identifying the version of the given resource, or <code>null</code> if
+	 * the resource has no version ID or last updated date
+	 */
+	@Nullable
+	static String toVersionStamp(@Nullable IBaseResource theResource) {
+		if (theResource == null) {
+			return null;
+		}
+		IIdType id = theResource.getIdElement();
+		String versionId = id != null ? id.getVersionIdPart() : null;
+		Date lastUpdated = theResource.getMeta() != null ? theResource.getMeta().getLastUpdated() : null;
+		if (versionId == null && lastUpdated == null) {
+			return null;
+		}
+		return defaultString(id.getResourceType()) + "/" + defaultString(id.getIdPart()) + "/" + defaultString(versionId) + "/" + (lastUpdated != null ? lastUpdated.getTime() : "");
+	}
+
+	/**
+	 * Returns a hash of the encoded content of the given resource (which includes its URL and
+	 * version), or <code>null</code> if there is no resource
+	 */
+	@Nullable
+	static String toContentHash(@Nullable IBaseResource theResource) {
+		if (theResource == null) {
+			return null;
+		}
+		FhirContext ctx = FhirContext.forCached(theResource.getStructureFhirVersionEnum());
+		String encoded = ctx.newJsonParser().encodeResourceToString(theResource);
+		return DigestUtils.sha256Hex(encoded);
+	}
+
+	/**
+	 * A ValueSet or CodeSystem which an index was built from
+	 */
+	static class Dependency {
+
+		private final boolean myValueSet;
+		private final String myUrl;
+		private final IBaseResource myResource;
+		private final String myVersionStamp;
+		private final String myContentHash;
+
+		private Dependency(boolean theValueSet, String theUrl, @Nullable IBaseResource theResource) {
+			myValueSet = theValueSet;
+			myUrl = theUrl;
+			myResource = theResource;
+			myVersionStamp = toVersionStamp(theResource);
+			myContentHash = toContentHash(theResource);
+		}
+
+		private boolean isSameAs(@Nullable IBaseResource theResource) {
+			if (theResource == myResource) {
+				return true;
+			}
+			if (theResource == null || myResource == null) {
+				return false;
+			}
+			if (myVersionStamp != null && myVersionStamp.equals(toVersionStamp(theResource))) {
+				return true;
+			}
+			return myContentHash.equals(toContentHash(theResource));
+		}
+
+		static Dependency forValueSet(String theUrl, @Nullable IBaseResource theValueSet) {
+			return new Dependency(true, theUrl, theValueSet);
+		}
+
+		static Dependency forCodeSystem(String theUrl, @Nullable IBaseResource theCodeSystem) {
+			return new Dependency(false, theUrl, theCodeSystem);
+		}
+
+	}
+
+}
@@ -33,6 +33,7 @@ public class FhirInstanceValidator extends BaseValidatorBridge implements IInsta
 	private boolean noExtensibleWarnings = false;
 	private boolean noBindingMsgSuppressed = false;
 	private volatile VersionSpecificWorkerContextWrapper myWrappedWorkerContext;
+	private volatile ValidatorWrapper myValidatorWrapper;
 	private boolean errorForUnknownProfiles = true;
 	private boolean assumeValidRestReferences;
 	private List<String> myExtensionDomains = Collections.emptyList();
@@ -77,6 +78,7 @@ public class FhirInstanceValidator extends BaseValidatorBridge implements IInsta
 	 */
 	public FhirInstanceValidator setCustomExtensionDomains(List<String> extensionDomains) {
 		this.myExtensionDomains = extensionDomains;
+		myValidatorWrapper = null;
 		return this;
 	}
 
@@ -96,6 +98,7 @@ public class FhirInstanceValidator extends BaseValidatorBridge implements IInsta
 	 */
 	public FhirInstanceValidator setCustomExtensionDomains(String... extensionDomains) {
 		this.myExtensionDomains = Arrays.asList(extensionDomains);
+		myValidatorWrapper = null;
 		return this;
 	}
 
@@ -129,6 +132,7 @@ public class FhirInstanceValidator extends BaseValidatorBridge implements IInsta
 	public void setBestPracticeWarningLevel(BestPracticeWarningLevel theBestPracticeWarningLevel) {
 		Validate.notNull(theBestPracticeWarningLevel);
 		myBestPracticeWarningLevel = theBestPracticeWarningLevel;
+		myValidatorWrapper = null;
 	}
 
 	/**
@@ -146,6 +150,7 @@ public class FhirInstanceValidator extends BaseValidatorBridge implements IInsta
 	public void setValidationSupport(IValidationSupport theValidationSupport) {
 		myValidationSupport = theValidationSupport;
 		myWrappedWorkerContext = null;
+		myValidatorWrapper = null;
 	}
 
 	/**
@@ -164,6 +169,7 @@ public class FhirInstanceValidator extends BaseValidatorBridge implements IInsta
 	 */
 	public void setAnyExtensionsAllowed(boolean theAnyExtensionsAllowed) {
 		myAnyExtensionsAllowed = theAnyExtensionsAllowed;
+		myValidatorWrapper = null;
 	}
 
 	public boolean isErrorForUnknownProfiles() {
@@ -172,6 +178,7 @@ public class FhirInstanceValidator extends BaseValidatorBridge implements IInsta
 
 	public void setErrorForUnknownProfiles(boolean errorForUnknownProfiles) {
 		this.errorForUnknownProfiles = errorForUnknownProfiles;
+		myValidatorWrapper = null;
 	}
 
 	/**
@@ -186,6 +193,7 @@ public class FhirInstanceValidator extends BaseValidatorBridge implements IInsta
 	 */
 	public void setNoTerminologyChecks(final boolean theNoTerminologyChecks) {
 		noTerminologyChecks = theNoTerminologyChecks;
+		myValidatorWrapper = null;
 	}
 
 	/**
@@ -200,6 +208,7 @@ public class FhirInstanceValidator extends BaseValidatorBridge implements IInsta
 	 */
 	public void setNoExtensibleWarnings(final boolean theNoExtensibleWarnings) {
 		noExtensibleWarnings = theNoExtensibleWarnings;
+		myValidatorWrapper = null;
 	}
 
 	/**
@@ -214,6 +223,7 @@ public class FhirInstanceValidator extends BaseValidatorBridge implements IInsta
 	 */
 	public void setNoBindingMsgSuppressed(final boolean theNoBindingMsgSuppressed) {
 		noBindingMsgSuppressed = theNoBindingMsgSuppressed;
+		myValidatorWrapper = null;
 	}
 
 	public List<String> getExtensionDomains() {
@@ -223,19 +233,31 @@ public class FhirInstanceValidator extends BaseValidatorBridge implements IInsta
 	@Override
 	protected List<ValidationMessage> validate(IValidationContext<?> theValidationCtx) {
 		VersionSpecificWorkerContextWrapper wrappedWorkerContext = provideWorkerContext();
+		return provideValidatorWrapper().validate(wrappedWorkerContext, theValidationCtx);
+	}
 
-		return new ValidatorWrapper()
-			.setAnyExtensionsAllowed(isAnyExtensionsAllowed())
-			.setBestPracticeWarningLevel(getBestPracticeWarningLevel())
-			.setErrorForUnknownProfiles(isErrorForUnknownProfiles())
-			.setExtensionDomains(getExtensionDomains())
-			.setValidationPolicyAdvisor(validatorPolicyAdvisor)
-			.setNoTerminologyChecks(isNoTerminologyChecks())
-			.setNoExtensibleWarnings(isNoExtensibleWarnings())
-			.setNoBindingMsgSuppressed(isNoBindingMsgSuppressed())
-			.setValidatorResourceFetcher(getValidatorResourceFetcher())
-			.setAssumeValidRestReferences(isAssumeValidRestReferences())
-			.validate(wrappedWorkerContext, theValidationCtx);
+	/**
+	 * The validator wrapper is reused (along with the core validators it pools) until
+	 * any of the settings on this object change
+	 */
+	@Nonnull
+	private ValidatorWrapper provideValidatorWrapper() {
+		ValidatorWrapper validatorWrapper = myValidatorWrapper;
+		if (validatorWrapper == null) {
+			validatorWrapper = new ValidatorWrapper()
+				.setAnyExtensionsAllowed(isAnyExtensionsAllowed())
+				.setBestPracticeWarningLevel(getBestPracticeWarningLevel())
+				.setErrorForUnknownProfiles(isErrorForUnknownProfiles())
+				.setExtensionDomains(getExtensionDomains())
+				.setValidationPolicyAdvisor(validatorPolicyAdvisor)
+				.setNoTerminologyChecks(isNoTerminologyChecks())
+				.setNoExtensibleWarnings(isNoExtensibleWarnings())
+				.setNoBindingMsgSuppressed(isNoBindingMsgSuppressed())
+				.setValidatorResourceFetcher(getValidatorResourceFetcher())
+				.setAssumeValidRestReferences(isAssumeValidRestReferences());
+			myValidatorWrapper = validatorWrapper;
+		}
+		return validatorWrapper;
 	}
 
 	@Nonnull
@@ -254,6 +276,7 @@ public class FhirInstanceValidator extends BaseValidatorBridge implements IInsta
 
 	public void setValidatorPolicyAdvisor(IValidationPolicyAdvisor validatorPolicyAdvisor) {
 		this.validatorPolicyAdvisor = validatorPolicyAdvisor;
+		myValidatorWrapper = null;
 	}
 
 	public IValidatorResourceFetcher getValidatorResourceFetcher() {
@@ -262,6 +285,7 @@ public class FhirInstanceValidator extends BaseValidatorBridge implements IInsta
 
 	public void setValidatorResourceFetcher(IValidatorResourceFetcher validatorResourceFetcher) {
 		this.validatorResourceFetcher = validatorResourceFetcher;
+		myValidatorWrapper = null;
 	}
 
 	public boolean isAssumeValidRestReferences() {
@@ -270,6 +294,7 @@ public class FhirInstanceValidator extends BaseValidatorBridge implements IInsta
 
 	public void setAssumeValidRestReferences(boolean assumeValidRestReferences) {
 		this.assumeValidRestReferences = assumeValidRestReferences;
+		myValidatorWrapper = null;
 	}
 
 	/**
@@ -278,6 +303,7 @@ public class FhirInstanceValidator extends BaseValidatorBridge implements IInsta
 	 */
 	public void invalidateCaches() {
 		myValidationSupport.invalidateCaches();
+		myValidatorWrapper = null;
 		if (myWrappedWorkerContext != null) {
 			myWrappedWorkerContext.invalidateCaches();
 		}
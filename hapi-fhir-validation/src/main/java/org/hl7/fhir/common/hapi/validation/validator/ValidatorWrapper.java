@@ -3,6 +3,7 @@ package org.hl7.fhir.common.hapi.validation.validator;
 import ca.uhn.fhir.context.ConfigurationException;
 import ca.uhn.fhir.i18n.Msg;
 import ca.uhn.fhir.rest.api.EncodingEnum;
+import ca.uhn.fhir.system.HapiSystemProperties;
 import ca.uhn.fhir.util.XmlUtil;
 import ca.uhn.fhir.validation.IValidationContext;
 import com.google.gson.Gson;
@@ -35,11 +36,31 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.stream.Collectors;
 
+/**
+ * Runs the core {@link InstanceValidator} with a fixed configuration.
+ * <p>
+ * Creating an {@link InstanceValidator} is expensive (it builds a FHIRPath engine
+ * and the type lookups for the whole worker context), and an instance can only be
+ * used by one thread at a time. Instances are therefore pooled and reused for
+ * subsequent validations against the same worker context. Pooled instances are
+ * discarded once they are older than the resource cache timeout of the worker
+ * context, since they cache profile lookups made through the resource fetcher.
+ * </p>
+ * <p>
+ * The settings are applied when an instance is created, so a wrapper must be fully
+ * configured before its first use. {@link FhirInstanceValidator} discards its wrapper
+ * (and with it the pool) whenever one of its own settings changes.
+ * </p>
+ */
 class ValidatorWrapper {
 
 	private static final Logger ourLog = LoggerFactory.getLogger(ValidatorWrapper.class);
+	private static final int MAXIMUM_IDLE_VALIDATORS = Math.max(2, Runtime.getRuntime().availableProcessors());
+	private final BlockingQueue<PooledInstanceValidator> myIdleValidators = new ArrayBlockingQueue<>(MAXIMUM_IDLE_VALIDATORS);
 	private BestPracticeWarningLevel myBestPracticeWarningLevel;
 	private boolean myAnyExtensionsAllowed;
 	private boolean myErrorForUnknownProfiles;
@@ -113,28 +134,15 @@ class ValidatorWrapper {
 	}
 
 	public List<ValidationMessage> validate(IWorkerContext theWorkerContext, IValidationContext<?> theValidationContext) {
-		InstanceValidator v;
-		FHIRPathEngine.IEvaluationContext evaluationCtx = new FhirInstanceValidator.NullEvaluationContext();
-		XVerExtensionManager xverManager = new XVerExtensionManager(theWorkerContext);
-		try {
-			v = new InstanceValidator(theWorkerContext, evaluationCtx, xverManager);
-		} catch (Exception e) {
-			throw new ConfigurationException(Msg.code(648) + e);
-		}
+		PooledInstanceValidator pooledValidator = borrowValidator(theWorkerContext);
+		List<ValidationMessage> messages = validate(pooledValidator.myValidator, theWorkerContext, theValidationContext);
 
-		v.setAssumeValidRestReferences(isAssumeValidRestReferences());
-		v.setBestPracticeWarningLevel(myBestPracticeWarningLevel);
-		v.setAnyExtensionsAllowed(myAnyExtensionsAllowed);
-		v.setResourceIdRule(IdStatus.OPTIONAL);
-		v.setNoTerminologyChecks(myNoTerminologyChecks);
-		v.setErrorForUnknownProfiles(myErrorForUnknownProfiles);
-		v.getExtensionDomains().addAll(myExtensionDomains);
-		v.setFetcher(myValidatorResourceFetcher);
-		v.setPolicyAdvisor(myValidationPolicyAdvisor);
-		v.setNoExtensibleWarnings(myNoExtensibleWarnings);
-		v.setNoBindingMsgSuppressed(myNoBindingMsgSuppressed);
-		v.setAllowXsiLocation(true);
+		// Only return the validator to the pool if it completed normally
+		myIdleValidators.offer(pooledValidator);
+		return messages;
+	}
 
+	private List<ValidationMessage> validate(InstanceValidator v, IWorkerContext theWorkerContext, IValidationContext<?> theValidationContext) {
 		List<ValidationMessage> messages = new ArrayList<>();
 
 		List<StructureDefinition> profiles = new ArrayList<>();
@@ -211,6 +219,43 @@ class ValidatorWrapper {
 		return messages;
 	}
 
+	private PooledInstanceValidator borrowValidator(IWorkerContext theWorkerContext) {
+		long now = System.currentTimeMillis();
+		PooledInstanceValidator next;
+		while ((next = myIdleValidators.poll()) != null) {
+			if (next.myValidator.getContext() == theWorkerContext && next.myExpiryTime > now) {
+				return next;
+			}
+		}
+		long expiryTime = now + HapiSystemProperties.getTestValidationResourceCachesMs();
+		return new PooledInstanceValidator(newValidator(theWorkerContext), expiryTime);
+	}
+
+	private InstanceValidator newValidator(IWorkerContext theWorkerContext) {
+		InstanceValidator v;
+		FHIRPathEngine.IEvaluationContext evaluationCtx = new FhirInstanceValidator.NullEvaluationContext();
+		XVerExtensionManager xverManager = new XVerExtensionManager(theWorkerContext);
+		try {
+			v = new InstanceValidator(theWorkerContext, evaluationCtx, xverManager);
+		} catch (Exception e) {
+			throw new ConfigurationException(Msg.code(648) + e);
+		}
+
+		v.setAssumeValidRestReferences(isAssumeValidRestReferences());
+		v.setBestPracticeWarningLevel(myBestPracticeWarningLevel);
+		v.setAnyExtensionsAllowed(myAnyExtensionsAllowed);
+		v.setResourceIdRule(IdStatus.OPTIONAL);
+		v.setNoTerminologyChecks(myNoTerminologyChecks);
+		v.setErrorForUnknownProfiles(myErrorForUnknownProfiles);
+		v.getExtensionDomains().addAll(myExtensionDomains);
+		v.setFetcher(myValidatorResourceFetcher);
+		v.setPolicyAdvisor(myValidationPolicyAdvisor);
+		v.setNoExtensibleWarnings(myNoExtensibleWarnings);
+		v.setNoBindingMsgSuppressed(myNoBindingMsgSuppressed);
+		v.setAllowXsiLocation(true);
+		return v;
+	}
+
 	private void fetchAndAddProfile(IWorkerContext theWorkerContext, List<StructureDefinition> theProfileStructureDefinitions, String theUrl, List<ValidationMessage> theMessages) {
 		try {
 			StructureDefinition structureDefinition = theWorkerContext.fetchResource(StructureDefinition.class, theUrl);
@@ -240,4 +285,16 @@ class ValidatorWrapper {
 		return profileNames;
 	}
 
+	private static class PooledInstanceValidator {
+
+		private final InstanceValidator myValidator;
+		private final long myExpiryTime;
+
+		private PooledInstanceValidator(InstanceValidator theValidator, long theExpiryTime) {
+			myValidator = theValidator;
+			myExpiryTime = theExpiryTime;
+		}
+
+	}
+
 }
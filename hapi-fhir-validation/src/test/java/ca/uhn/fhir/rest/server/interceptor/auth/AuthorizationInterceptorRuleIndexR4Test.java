@@ -0,0 +1,272 @@
+package ca.uhn.fhir.rest.server.interceptor.auth;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.support.IValidationSupport;
+import ca.uhn.fhir.interceptor.api.Pointcut;
+import ca.uhn.fhir.rest.api.RequestTypeEnum;
+import ca.uhn.fhir.rest.api.RestOperationTypeEnum;
+import ca.uhn.fhir.rest.api.server.RequestDetails;
+import ca.uhn.fhir.rest.api.server.SystemRequestDetails;
+import ca.uhn.fhir.rest.server.interceptor.auth.AuthorizationInterceptor.Verdict;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.instance.model.api.IIdType;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.IdType;
+import org.hl7.fhir.r4.model.Observation;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class AuthorizationInterceptorRuleIndexR4Test {
+
+	private static final Logger ourLog = LoggerFactory.getLogger(AuthorizationInterceptorRuleIndexR4Test.class);
+	private static final FhirContext ourCtx = FhirContext.forR4Cached();
+	private static final List<String> RESOURCE_TYPES = Arrays.asList(
+		"AllergyIntolerance", "Appointment", "CarePlan", "CareTeam", "Claim", "ClinicalImpression",
+		"Communication", "Composition", "Condition", "Coverage", "DetectedIssue", "DeviceRequest",
+		"DiagnosticReport", "DocumentReference", "Encounter", "EpisodeOfCare", "Flag", "Goal",
+		"ImagingStudy", "Immunization", "MedicationRequest", "MedicationStatement", "Procedure", "Observation");
+	private static final int COMPARTMENT_COUNT = RESOURCE_TYPES.size();
+
+	@Test
+	public void testVerdictsMatchLinearEvaluation() {
+		List<IAuthRule> rules = createRules();
+		AuthorizationInterceptor interceptor = newInterceptor(rules);
+		LinearRuleApplier linear = new LinearRuleApplier(rules);
+
+		List<Scenario> scenarios = new ArrayList<>();
+		scenarios.add(new Scenario(RestOperationTypeEnum.TRANSACTION, createTransactionBundle(10, "Patient/P" + (COMPARTMENT_COUNT - 1)), null, null));
+		scenarios.add(new Scenario(RestOperationTypeEnum.TRANSACTION, createTransactionBundle(10, "Patient/OTHER"), null, null));
+		scenarios.add(new Scenario(RestOperationTypeEnum.CREATE, newObservation("Patient/P3"), null, null));
+		scenarios.add(new Scenario(RestOperationTypeEnum.UPDATE, newObservation("Patient/P3").setId("Observation/O1"), new IdType("Observation/O1"), null));
+		scenarios.add(new Scenario(RestOperationTypeEnum.CREATE, newObservation("Patient/OTHER"), null, null));
+		scenarios.add(new Scenario(RestOperationTypeEnum.READ, null, new IdType("Patient/P5"), null));
+		scenarios.add(new Scenario(RestOperationTypeEnum.READ, null, new IdType("Observation/O1"), null));
+		scenarios.add(new Scenario(RestOperationTypeEnum.SEARCH_TYPE, null, null, newObservation("Patient/P7").setId("Observation/O2")));
+		scenarios.add(new Scenario(RestOperationTypeEnum.SEARCH_TYPE, null, null, newObservation("Patient/OTHER").setId("Observation/O3")));
+		scenarios.add(new Scenario(RestOperationTypeEnum.METADATA, null, null, null));
+		scenarios.add(new Scenario(RestOperationTypeEnum.DELETE, null, new IdType("Observation/O1"), null));
+
+		for (Scenario next : scenarios) {
+			Verdict expected = linear.applyRulesAndReturnDecision(next.myOperation, newRequest(), next.myInputResource, next.myInputResourceId, next.myOutputResource, Pointcut.SERVER_INCOMING_REQUEST_PRE_HANDLED);
+			Verdict actual = interceptor.applyRulesAndReturnDecision(next.myOperation, newRequest(), next.myInputResource, next.myInputResourceId, next.myOutputResource, Pointcut.SERVER_INCOMING_REQUEST_PRE_HANDLED);
+			assertEquals(expected.getDecision(), actual.getDecision(), next.toString());
+			assertSame(expected.getDecidingRule(), actual.getDecidingRule(), next.toString());
+		}
+	}
+
+	@Test
+	public void testCompartmentOwnersAreNotCachedAcrossDecisions() {
+		AuthorizationInterceptor interceptor = newInterceptor(createRules());
+		RequestDetails request = newRequest();
+
+		Observation observation = newObservation("Patient/OTHER");
+		Verdict verdict = interceptor.applyRulesAndReturnDecision(RestOperationTypeEnum.CREATE, request, observation, null, null, Pointcut.SERVER_INCOMING_REQUEST_PRE_HANDLED);
+		assertEquals(PolicyEnum.DENY, verdict.getDecision());
+
+		// The same resource object, modified between two checks within the same request
+		observation.getSubject().setReference("Patient/P" + (COMPARTMENT_COUNT - 1));
+		verdict = interceptor.applyRulesAndReturnDecision(RestOperationTypeEnum.CREATE, request, observation, null, null, Pointcut.SERVER_INCOMING_REQUEST_PRE_HANDLED);
+		assertEquals(PolicyEnum.ALLOW, verdict.getDecision());
+		assertNull(request.getUserData().get(CompartmentOwnerCache.class.getName()));
+	}
+
+	@Test
+	public void testRuleListCache() {
+		AtomicInteger buildCount = new AtomicInteger();
+		List<IAuthRule> rules = createRules();
+		AuthorizationInterceptor interceptor = new AuthorizationInterceptor(PolicyEnum.DENY) {
+			@Override
+			public List<IAuthRule> buildRuleList(RequestDetails theRequestDetails) {
+				buildCount.incrementAndGet();
+				return rules;
+			}
+
+			@Override
+			protected String getRuleListCacheKey(RequestDetails theRequestDetails) {
+				return (String) theRequestDetails.getUserData().get("principal");
+			}
+		};
+
+		// Caching is disabled by default
+		applyCreate(interceptor, "user-A");
+		applyCreate(interceptor, "user-A");
+		assertEquals(2, buildCount.get());
+
+		interceptor.setRuleListCacheMillis(60000);
+		buildCount.set(0);
+		applyCreate(interceptor, "user-A");
+		applyCreate(interceptor, "user-A");
+		applyCreate(interceptor, "user-B");
+		applyCreate(interceptor, "user-B");
+		assertEquals(2, buildCount.get());
+
+		// No key means no caching
+		applyCreate(interceptor, null);
+		applyCreate(interceptor, null);
+		assertEquals(4, buildCount.get());
+
+		interceptor.clearRuleListCache();
+		applyCreate(interceptor, "user-A");
+		assertEquals(5, buildCount.get());
+	}
+
+	/**
+	 * A 1000 entry transaction Bundle under the full 50 rule policy should be
+	 * decided by the same rule whether or not the rule index is used, both when
+	 * every entry is in a permitted compartment and when one of them isn't
+	 */
+	@Test
+	public void testLargeTransactionMatchesLinearEvaluation() {
+		List<IAuthRule> rules = createRules();
+		assertEquals(50, rules.size());
+		AuthorizationInterceptor interceptor = newInterceptor(rules);
+		LinearRuleApplier linear = new LinearRuleApplier(rules);
+
+		Bundle allowed = createTransactionBundle(1000, "Patient/P" + (COMPARTMENT_COUNT - 1));
+		Bundle denied = createTransactionBundle(1000, "Patient/P" + (COMPARTMENT_COUNT - 1));
+		denied.getEntry().get(999).setResource(newObservation("Patient/OTHER"));
+
+		for (Bundle next : Arrays.asList(allowed, denied)) {
+			Verdict expected = linear.applyRulesAndReturnDecision(RestOperationTypeEnum.TRANSACTION, newRequest(), next, null, null, Pointcut.SERVER_INCOMING_REQUEST_PRE_HANDLED);
+			Verdict actual = interceptor.applyRulesAndReturnDecision(RestOperationTypeEnum.TRANSACTION, newRequest(), next, null, null, Pointcut.SERVER_INCOMING_REQUEST_PRE_HANDLED);
+			assertEquals(expected.getDecision(), actual.getDecision());
+			assertSame(expected.getDecidingRule(), actual.getDecidingRule());
+		}
+		assertEquals(PolicyEnum.ALLOW, interceptor.applyRulesAndReturnDecision(RestOperationTypeEnum.TRANSACTION, newRequest(), allowed, null, null, Pointcut.SERVER_INCOMING_REQUEST_PRE_HANDLED).getDecision());
+		assertEquals(PolicyEnum.DENY, interceptor.applyRulesAndReturnDecision(RestOperationTypeEnum.TRANSACTION, newRequest(), denied, null, null, Pointcut.SERVER_INCOMING_REQUEST_PRE_HANDLED).getDecision());
+	}
+
+	private void applyCreate(AuthorizationInterceptor theInterceptor, String thePrincipal) {
+		RequestDetails request = newRequest();
+		request.getUserData().put("principal", thePrincipal);
+		Verdict verdict = theInterceptor.applyRulesAndReturnDecision(RestOperationTypeEnum.CREATE, request, newObservation("Patient/P" + (COMPARTMENT_COUNT - 1)), null, null, Pointcut.SERVER_INCOMING_REQUEST_PRE_HANDLED);
+		assertEquals(PolicyEnum.ALLOW, verdict.getDecision());
+	}
+
+	/**
+	 * Creates a 50 rule policy: a transaction rule, a read rule for each of 24
+	 * resource type and patient compartment pairs, a write rule for 23 of those
+	 * pairs, a write rule for any resource in any of the 24 patient compartments,
+	 * and a final deny-all. Each pair is distinct so that the rule builder
+	 * doesn't merge the rules together.
+	 */
+	private static List<IAuthRule> createRules() {
+		RuleBuilder builder = new RuleBuilder();
+		builder.allow("transactions").transaction().withAnyOperation().andApplyNormalRules();
+		List<IIdType> owners = new ArrayList<>();
+		for (int i = 0; i < COMPARTMENT_COUNT; i++) {
+			owners.add(new IdType("Patient/P" + i));
+			builder.allow("read P" + i).read().resourcesOfType(RESOURCE_TYPES.get(i)).inCompartment("Patient", owners.get(i));
+		}
+		for (int i = 0; i < COMPARTMENT_COUNT - 1; i++) {
+			builder.allow("write P" + i).write().resourcesOfType(RESOURCE_TYPES.get(i)).inCompartment("Patient", owners.get(i));
+		}
+		builder.allow("write all").write().allResources().inCompartment("Patient", owners);
+		builder.denyAll("deny all");
+		return builder.build();
+	}
+
+	private static AuthorizationInterceptor newInterceptor(List<IAuthRule> theRules) {
+		return new AuthorizationInterceptor(PolicyEnum.DENY) {
+			@Override
+			public List<IAuthRule> buildRuleList(RequestDetails theRequestDetails) {
+				return theRules;
+			}
+		};
+	}
+
+	private static Bundle createTransactionBundle(int theEntryCount, String theSubject) {
+		Bundle retVal = new Bundle();
+		retVal.setType(Bundle.BundleType.TRANSACTION);
+		for (int i = 0; i < theEntryCount; i++) {
+			retVal
+				.addEntry()
+				.setResource(newObservation(theSubject))
+				.getRequest()
+				.setMethod(Bundle.HTTPVerb.POST)
+				.setUrl("Observation");
+		}
+		return retVal;
+	}
+
+	private static Observation newObservation(String theSubject) {
+		Observation retVal = new Observation();
+		retVal.setStatus(Observation.ObservationStatus.FINAL);
+		retVal.getSubject().setReference(theSubject);
+		retVal.getPerformerFirstRep().setReference("Practitioner/PR1");
+		return retVal;
+	}
+
+	private static RequestDetails newRequest() {
+		SystemRequestDetails retVal = new SystemRequestDetails();
+		retVal.setFhirContext(ourCtx);
+		retVal.setRequestType(RequestTypeEnum.POST);
+		return retVal;
+	}
+
+	private static class Scenario {
+		private final RestOperationTypeEnum myOperation;
+		private final IBaseResource myInputResource;
+		private final IIdType myInputResourceId;
+		private final IBaseResource myOutputResource;
+
+		private Scenario(RestOperationTypeEnum theOperation, IBaseResource theInputResource, IIdType theInputResourceId, IBaseResource theOutputResource) {
+			myOperation = theOperation;
+			myInputResource = theInputResource;
+			myInputResourceId = theInputResourceId;
+			myOutputResource = theOutputResource;
+		}
+
+		@Override
+		public String toString() {
+			return myOperation + " input=" + myInputResource + " id=" + myInputResourceId + " output=" + myOutputResource;
+		}
+	}
+
+	/**
+	 * Applies every rule in turn, without the rule index or the compartment owner cache
+	 */
+	private static class LinearRuleApplier implements IRuleApplier {
+
+		private final List<IAuthRule> myRules;
+
+		private LinearRuleApplier(List<IAuthRule> theRules) {
+			myRules = theRules;
+		}
+
+		@Nonnull
+		@Override
+		public Logger getTroubleshootingLog() {
+			return ourLog;
+		}
+
+		@Override
+		public Verdict applyRulesAndReturnDecision(RestOperationTypeEnum theOperation, RequestDetails theRequestDetails, IBaseResource theInputResource, IIdType theInputResourceId, IBaseResource theOutputResource, Pointcut thePointcut) {
+			for (IAuthRule nextRule : myRules) {
+				Verdict verdict = nextRule.applyRule(theOperation, theRequestDetails, theInputResource, theInputResourceId, theOutputResource, this, Collections.emptySet(), thePointcut);
+				if (verdict != null) {
+					return verdict;
+				}
+			}
+			return new Verdict(PolicyEnum.DENY, null);
+		}
+
+		@Override
+		public IValidationSupport getValidationSupport() {
+			return null;
+		}
+	}
+
+}
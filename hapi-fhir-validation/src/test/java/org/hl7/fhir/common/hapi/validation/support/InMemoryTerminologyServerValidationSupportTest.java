@@ -7,11 +7,14 @@ import ca.uhn.fhir.context.support.IValidationSupport;
 import ca.uhn.fhir.context.support.ValidationSupportContext;
 import ca.uhn.fhir.context.support.ValueSetExpansionOptions;
 import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.hapi.converters.canonical.VersionCanonicalizer;
+import org.hl7.fhir.common.hapi.validation.validator.VersionSpecificWorkerContextWrapper;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.r4.model.CodeSystem;
 import org.hl7.fhir.r4.model.CodeType;
 import org.hl7.fhir.r4.model.Enumerations;
 import org.hl7.fhir.r4.model.ValueSet;
+import org.hl7.fhir.utilities.validation.ValidationOptions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -25,7 +28,9 @@ import java.util.Map;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class InMemoryTerminologyServerValidationSupportTest {
@@ -460,6 +465,147 @@ public class InMemoryTerminologyServerValidationSupportTest {
 		 assertTrue(codeValidationResult.isOk());
 	 }
 
+	@Test
+	public void testValidateCodeInValueSet_IndexIsRebuiltWhenCodeSystemChanges() {
+		CodeSystem cs = new CodeSystem();
+		cs.setUrl("http://cs");
+		cs.setContent(CodeSystem.CodeSystemContentMode.COMPLETE);
+		cs.addConcept().setCode("A").setDisplay("Code A");
+		myPrePopulated.addCodeSystem(cs);
+
+		ValueSet vs = new ValueSet();
+		vs.setUrl("http://vs");
+		vs.getCompose().addInclude().setSystem("http://cs");
+
+		ValidationSupportContext valCtx = new ValidationSupportContext(myChain);
+		ConceptValidationOptions options = new ConceptValidationOptions();
+
+		IValidationSupport.CodeValidationResult outcome = mySvc.validateCodeInValueSet(valCtx, options, "http://cs", "A", null, vs);
+		assertTrue(outcome.isOk());
+		assertEquals("Code A", outcome.getDisplay());
+		outcome = mySvc.validateCodeInValueSet(valCtx, options, "http://cs", "B", null, vs);
+		assertFalse(outcome.isOk());
+		assertEquals("Unknown code 'http://cs#B' for in-memory expansion of ValueSet 'http://vs'", outcome.getMessage());
+
+		// Replace the CodeSystem with a new version containing the code
+		CodeSystem cs2 = cs.copy();
+		cs2.addConcept().setCode("B").setDisplay("Code B");
+		myPrePopulated.addCodeSystem(cs2);
+
+		outcome = mySvc.validateCodeInValueSet(valCtx, options, "http://cs", "B", null, vs);
+		assertTrue(outcome.isOk());
+		assertEquals("Code B", outcome.getDisplay());
+
+		// Display validation uses the indexed display
+		options.setValidateDisplay(true);
+		outcome = mySvc.validateCodeInValueSet(valCtx, options, "http://cs", "B", "Wrong", vs);
+		assertFalse(outcome.isOk());
+		assertEquals("Concept Display \"Wrong\" does not match expected \"Code B\" for in-memory expansion of ValueSet: http://vs", outcome.getMessage());
+	}
+
+	@Test
+	public void testValidateCodeInValueSet_CaseInsensitiveCodeSystem() {
+		CodeSystem cs = new CodeSystem();
+		cs.setUrl("http://cs");
+		cs.setContent(CodeSystem.CodeSystemContentMode.COMPLETE);
+		cs.setCaseSensitive(false);
+		cs.addConcept().setCode("abc");
+		myPrePopulated.addCodeSystem(cs);
+
+		ValueSet vs = new ValueSet();
+		vs.setUrl("http://vs");
+		vs.getCompose().addInclude().setSystem("http://cs");
+
+		ValidationSupportContext valCtx = new ValidationSupportContext(myChain);
+		ConceptValidationOptions options = new ConceptValidationOptions();
+		assertTrue(mySvc.validateCodeInValueSet(valCtx, options, "http://cs", "ABC", null, vs).isOk());
+
+		cs.setCaseSensitive(true);
+		CodeSystem cs2 = cs.copy();
+		myPrePopulated.addCodeSystem(cs2);
+		assertFalse(mySvc.validateCodeInValueSet(valCtx, options, "http://cs", "ABC", null, vs).isOk());
+	}
+
+	@Test
+	public void testValidateCodeInValueSet_IndexIsReusedForEquivalentValueSet() {
+		CodeSystem cs = new CodeSystem();
+		cs.setUrl("http://cs");
+		cs.setContent(CodeSystem.CodeSystemContentMode.COMPLETE);
+		cs.addConcept().setCode("A");
+		myPrePopulated.addCodeSystem(cs);
+
+		ValueSet vs = new ValueSet();
+		vs.setUrl("http://vs");
+		vs.getCompose().addInclude().setSystem("http://cs");
+
+		ValidationSupportContext valCtx = new ValidationSupportContext(myChain);
+		ConceptValidationOptions options = new ConceptValidationOptions();
+		assertTrue(mySvc.validateCodeInValueSet(valCtx, options, "http://cs", "A", null, vs).isOk());
+		ValueSetMembershipIndex index = mySvc.getValueSetMembershipIndexForUnitTest("http://vs");
+		assertNotNull(index);
+		assertTrue(index.isIndexed());
+
+		// A different instance with the same content and no version uses the same index
+		assertTrue(mySvc.validateCodeInValueSet(valCtx, options, "http://cs", "A", null, vs.copy()).isOk());
+		assertSame(index, mySvc.getValueSetMembershipIndexForUnitTest("http://vs"));
+
+		// A ValueSet with different content does not
+		ValueSet vs2 = vs.copy();
+		vs2.getCompose().getIncludeFirstRep().addConcept().setCode("A");
+		assertTrue(mySvc.validateCodeInValueSet(valCtx, options, "http://cs", "A", null, vs2).isOk());
+		assertNotSame(index, mySvc.getValueSetMembershipIndexForUnitTest("http://vs"));
+	}
+
+	@Test
+	public void testValidateCodeInValueSet_IndexIsReusedByValidatorWorkerContext() {
+		CodeSystem cs = new CodeSystem();
+		cs.setUrl("http://cs");
+		cs.setContent(CodeSystem.CodeSystemContentMode.COMPLETE);
+		cs.addConcept().setCode("A");
+		myPrePopulated.addCodeSystem(cs);
+
+		// Package and built-in ValueSets usually have no version ID or last updated date
+		ValueSet vs = new ValueSet();
+		vs.setUrl("http://vs");
+		vs.getCompose().addInclude().setSystem("http://cs");
+		myPrePopulated.addValueSet(vs);
+
+		// The validator works with the R5 version of the ValueSet
+		org.hl7.fhir.r5.model.ValueSet vsR5 = new VersionCanonicalizer(myCtx).valueSetToValidatorCanonical(vs);
+		VersionSpecificWorkerContextWrapper wrapper = VersionSpecificWorkerContextWrapper.newVersionSpecificWorkerContextWrapper(myChain);
+		org.hl7.fhir.r5.model.Coding coding = new org.hl7.fhir.r5.model.Coding("http://cs", "A", null);
+
+		assertTrue(wrapper.validateCode(new ValidationOptions(), coding, vsR5).isOk());
+		ValueSetMembershipIndex index = mySvc.getValueSetMembershipIndexForUnitTest("http://vs");
+		assertNotNull(index);
+		assertTrue(index.isIndexed());
+
+		// The wrapper converts the ValueSet again for each call, but the index is reused
+		assertTrue(wrapper.validateCode(new ValidationOptions(), coding, vsR5).isOk());
+		assertSame(index, mySvc.getValueSetMembershipIndexForUnitTest("http://vs"));
+	}
+
+	@Test
+	public void testValidateCodeInValueSet_CaseInsensitiveCodeSystem_CodeWithMultiCharLowerCase() {
+		CodeSystem cs = new CodeSystem();
+		cs.setUrl("http://cs");
+		cs.setContent(CodeSystem.CodeSystemContentMode.COMPLETE);
+		cs.setCaseSensitive(false);
+		// "\u0130".toLowerCase() is two chars, but equalsIgnoreCase matches it to "i" char by char
+		cs.addConcept().setCode("CODE\u0130");
+		myPrePopulated.addCodeSystem(cs);
+
+		ValueSet vs = new ValueSet();
+		vs.setUrl("http://vs");
+		vs.getCompose().addInclude().setSystem("http://cs");
+
+		ValidationSupportContext valCtx = new ValidationSupportContext(myChain);
+		ConceptValidationOptions options = new ConceptValidationOptions();
+		assertTrue(mySvc.validateCodeInValueSet(valCtx, options, "http://cs", "code\u0130", null, vs).isOk());
+		assertTrue(mySvc.validateCodeInValueSet(valCtx, options, "http://cs", "codei", null, vs).isOk());
+		assertFalse(mySvc.validateCodeInValueSet(valCtx, options, "http://cs", "code", null, vs).isOk());
+	}
+
     private static class PrePopulatedValidationSupportDstu2 extends PrePopulatedValidationSupport {
 		private final Map<String, IBaseResource> myDstu2ValueSets;
 
@@ -1696,6 +1696,43 @@ public class FhirInstanceValidatorR4Test extends BaseTest {
 	}
 
 
+	/**
+	 * The core validator is reused between calls, so make sure that a validation
+	 * doesn't leak into the next one and that changing a setting takes effect
+	 */
+	@Test
+	public void testValidatorIsReusedAcrossValidations() {
+		Patient patient = new Patient();
+		patient.setActive(true);
+		patient.addExtension("http://foo.com/unknown-extension", new StringType("hello"));
+		patient.getText().setDiv(new XhtmlNode().setValue("<div>AA</div>")).setStatus(Narrative.NarrativeStatus.GENERATED);
+		String encoded = ourCtx.newJsonParser().encodeResourceToString(patient);
+
+		Observation obs = new Observation();
+		obs.getText().setDiv(new XhtmlNode().setValue("<div>AA</div>")).setStatus(Narrative.NarrativeStatus.GENERATED);
+		obs.getCode().setText("Some code");
+		String encodedObs = ourCtx.newJsonParser().encodeResourceToString(obs);
+
+		List<String> firstMessages = toMessageStrings(myFhirValidator.validateWithResult(encoded));
+		assertThat(toMessageStrings(myFhirValidator.validateWithResult(encodedObs)), not(empty()));
+		assertEquals(firstMessages, toMessageStrings(myFhirValidator.validateWithResult(encoded)));
+
+		myInstanceVal.setAnyExtensionsAllowed(false);
+		List<SingleValidationMessage> errors = logResultsAndReturnErrorOnes(myFhirValidator.validateWithResult(encoded));
+		assertThat(errors.toString(), containsString("http://foo.com/unknown-extension"));
+
+		myInstanceVal.setAnyExtensionsAllowed(true);
+		assertEquals(firstMessages, toMessageStrings(myFhirValidator.validateWithResult(encoded)));
+	}
+
+	private List<String> toMessageStrings(ValidationResult theResult) {
+		return theResult
+			.getMessages()
+			.stream()
+			.map(t -> t.getSeverity() + " " + t.getLocationString() + " " + t.getMessage())
+			.collect(Collectors.toList());
+	}
+
 	@AfterAll
 	public static void afterClassClearContext() throws IOException, NoSuchFieldException {
 		myDefaultValidationSupport.flush();